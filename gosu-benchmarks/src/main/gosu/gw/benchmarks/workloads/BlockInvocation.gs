@@ -0,0 +1,20 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+
+class BlockInvocation implements Workload {
+  var _offset = 3
+
+  override function run() : Object {
+    var add = \ a : int, b : int -> a + b + _offset
+    var sum = 0
+    for( i in 0..|100 ) {
+      sum = add( sum, i )
+    }
+    return apply( sum, \ x -> x * 2 )
+  }
+
+  private function apply( x : int, fn : block( i : int ) : int ) : int {
+    return fn( x )
+  }
+}
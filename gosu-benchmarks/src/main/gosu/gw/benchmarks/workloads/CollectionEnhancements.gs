@@ -0,0 +1,15 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+
+class CollectionEnhancements implements Workload {
+  var _values : List<Integer> = (0..|1000).toList()
+
+  override function run() : Object {
+    return _values.where( \ v -> v % 3 == 0 )
+                  .map( \ v -> v * 2 )
+                  .orderByDescending( \ v -> v )
+                  .partition( \ v -> v % 4 )
+                  .Count
+  }
+}
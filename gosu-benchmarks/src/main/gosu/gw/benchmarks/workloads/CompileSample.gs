@@ -0,0 +1,60 @@
+package gw.benchmarks.workloads
+
+uses java.util.ArrayList
+uses java.util.Map
+
+/**
+ * Parsed and compiled by CompilerBenchmark, a typical mix of members and statements
+ */
+class CompileSample {
+  var _names : List<String> = new ArrayList<String>()
+  var _counts : Map<String, Integer> = {}
+
+  construct( names : List<String> ) {
+    _names.addAll( names )
+  }
+
+  property get Names() : List<String> {
+    return _names
+  }
+
+  function count( name : String ) : int {
+    var count = _counts.get( name )
+    if( count == null ) {
+      count = _names.where( \ n -> n.startsWith( name ) ).Count
+      _counts.put( name, count )
+    }
+    return count
+  }
+
+  function longest() : String {
+    var longest : String = null
+    for( name in _names index i ) {
+      if( longest == null || name.length() > longest.length() ) {
+        longest = name
+      }
+    }
+    return longest
+  }
+
+  function summary() : String {
+    var sb = new StringBuilder()
+    for( name in _names.orderBy( \ n -> n.length() ) ) {
+      switch( name.length() ) {
+        case 0:
+          continue
+        case 1:
+          sb.append( name.toUpperCase() )
+          break
+        default:
+          sb.append( "${name}:${count( name )}" )
+      }
+      sb.append( "," )
+    }
+    return sb.toString()
+  }
+
+  static function create( names : String[] ) : CompileSample {
+    return new CompileSample( names.toList() )
+  }
+}
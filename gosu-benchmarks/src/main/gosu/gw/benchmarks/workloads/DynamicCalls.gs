@@ -0,0 +1,17 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+uses java.util.ArrayList
+
+class DynamicCalls implements Workload {
+  var _list : dynamic.Dynamic = new ArrayList<String>() { "a", "b", "c" }
+  var _sb : dynamic.Dynamic = new StringBuilder()
+
+  override function run() : Object {
+    var size : int = _list.size()
+    var empty : boolean = _list.Empty
+    _sb.setLength( 0 )
+    _sb.append( _list.get( 1 ) )
+    return size + (empty ? 0 : _sb.length())
+  }
+}
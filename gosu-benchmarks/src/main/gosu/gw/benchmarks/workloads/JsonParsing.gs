@@ -0,0 +1,12 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+uses gw.lang.reflect.json.Json
+
+class JsonParsing implements Workload {
+  var _json = JsonWriting.makeBindings( 50 ).toJson()
+
+  override function run() : Object {
+    return Json.fromJson( _json )
+  }
+}
@@ -0,0 +1,29 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+uses javax.script.Bindings
+uses javax.script.SimpleBindings
+uses java.util.ArrayList
+
+class JsonWriting implements Workload {
+  var _bindings = makeBindings( 50 )
+
+  override function run() : Object {
+    return _bindings.toJson()
+  }
+
+  static function makeBindings( items : int ) : Bindings {
+    var list = new ArrayList<Bindings>()
+    for( i in 0..|items ) {
+      var item = new SimpleBindings()
+      item.put( "id", i )
+      item.put( "name", "item" + i )
+      item.put( "price", i * 1.5 )
+      list.add( item )
+    }
+    var root = new SimpleBindings()
+    root.put( "count", items )
+    root.put( "items", list )
+    return root
+  }
+}
@@ -0,0 +1,26 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+
+class MessageBuilding implements Workload {
+  var _user = "jsmith"
+  var _requestId = 1234567890123L
+  var _items = {"alpha", "beta", "gamma"}
+
+  override function run() : Object {
+    var length = 0
+    for( i in 0..|20 ) {
+      length += logLine( i ).length()
+      length += summary( i ).length()
+    }
+    return length
+  }
+
+  private function logLine( i : int ) : String {
+    return "[INFO] request " + _requestId + " user=" + _user + " step " + i + " of 20, elapsed " + (i * 1.5) + "ms ok=" + (i % 3 != 0)
+  }
+
+  private function summary( i : int ) : String {
+    return "User ${_user} has ${_items.size()} items, the first is ${_items[0]} (request ${_requestId}, step ${i})"
+  }
+}
@@ -0,0 +1,39 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+
+uses java.util.ArrayList
+
+class OptimizerSample implements Workload {
+  static final var DEBUG : boolean = false
+  var _next : OptimizerSample
+  var _name : String
+  var _values = new ArrayList<Integer>()
+
+  construct() {
+    _next = new OptimizerSample( 2 )
+    for( i in 0..|100 ) {
+      _values.add( i )
+    }
+  }
+
+  private construct( depth : int ) {
+    _name = "sample" + depth
+    if( depth > 0 ) {
+      _next = new OptimizerSample( depth - 1 )
+    }
+  }
+
+  override function run() : Object {
+    var total : Integer = 0
+    for( v in _values ) {
+      total += v * (60 * 60 * 24) / 1000
+    }
+    var scale = 4 * 1024
+    if( 1 > 2 ) {
+      total = -1
+    }
+    var nameLength = _next?._next?._name?.length()
+    return total + scale + nameLength
+  }
+}
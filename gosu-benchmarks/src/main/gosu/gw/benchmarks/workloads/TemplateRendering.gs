@@ -0,0 +1,11 @@
+package gw.benchmarks.workloads
+
+uses gw.benchmarks.Workload
+
+class TemplateRendering implements Workload {
+  var _rows : List<String> = (1..50).map( \ i -> "row" + i )
+
+  override function run() : Object {
+    return Report.renderToString( "Benchmark", _rows )
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.java.JavaTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subtype checks between raw Java types the way the parser and the runtime make them, for a
+ * superclass, an interface and a type that is not a supertype
+ */
+public class AssignabilityBenchmark extends GosuBenchmark
+{
+  private IType _arrayList;
+  private IType _concurrentMap;
+  private IType _list;
+  private IType _map;
+  private IType _serializable;
+  private IType _object;
+  private IType _number;
+
+  @Override
+  protected void setup() throws Exception
+  {
+    _arrayList = TypeSystem.get( ArrayList.class );
+    _concurrentMap = TypeSystem.get( ConcurrentHashMap.class );
+    _list = TypeSystem.get( List.class );
+    _map = TypeSystem.get( Map.class );
+    _serializable = TypeSystem.get( Serializable.class );
+    _object = JavaTypes.OBJECT();
+    _number = JavaTypes.NUMBER();
+  }
+
+  @Benchmark
+  public boolean superclass()
+  {
+    return _object.isAssignableFrom( _concurrentMap );
+  }
+
+  @Benchmark
+  public boolean superInterface()
+  {
+    return _list.isAssignableFrom( _arrayList ) && _serializable.isAssignableFrom( _concurrentMap );
+  }
+
+  @Benchmark
+  public boolean notSupertype()
+  {
+    return _map.isAssignableFrom( _arrayList ) || _number.isAssignableFrom( _concurrentMap );
+  }
+}
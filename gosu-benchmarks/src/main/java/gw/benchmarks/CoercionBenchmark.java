@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.config.CommonServices;
+import gw.lang.parser.ICoercionManager;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runtime value conversions through the coercion manager, as used for casts and when calling
+ * methods reflectively
+ */
+public class CoercionBenchmark extends GosuBenchmark
+{
+  private ICoercionManager _coercionManager;
+  private IType _pIntType;
+  private IType _pLongType;
+  private IType _pDoubleType;
+  private IType _integerType;
+  private IType _bigDecimalType;
+  private IType _stringType;
+  private IType _listType;
+  private Object _integer = 42;
+  private Object _long = 42L;
+  private Object _double = 4.2;
+  private Object _string = "42";
+  private Object _list = new ArrayList<String>();
+
+  @Override
+  protected void setup()
+  {
+    _coercionManager = CommonServices.getCoercionManager();
+    _pIntType = TypeSystem.get( int.class );
+    _pLongType = TypeSystem.get( long.class );
+    _pDoubleType = TypeSystem.get( double.class );
+    _integerType = TypeSystem.get( Integer.class );
+    _bigDecimalType = TypeSystem.get( BigDecimal.class );
+    _stringType = TypeSystem.get( String.class );
+    _listType = TypeSystem.get( List.class );
+  }
+
+  @Benchmark
+  public Object integerToInt()
+  {
+    return _coercionManager.convertValue( _integer, _pIntType );
+  }
+
+  @Benchmark
+  public Object integerToLong()
+  {
+    return _coercionManager.convertValue( _integer, _pLongType );
+  }
+
+  @Benchmark
+  public Object longToInteger()
+  {
+    return _coercionManager.convertValue( _long, _integerType );
+  }
+
+  @Benchmark
+  public Object integerToDouble()
+  {
+    return _coercionManager.convertValue( _integer, _pDoubleType );
+  }
+
+  @Benchmark
+  public Object integerToBigDecimal()
+  {
+    return _coercionManager.convertValue( _integer, _bigDecimalType );
+  }
+
+  @Benchmark
+  public Object doubleToString()
+  {
+    return _coercionManager.convertValue( _double, _stringType );
+  }
+
+  @Benchmark
+  public Object stringToString()
+  {
+    return _coercionManager.convertValue( _string, _stringType );
+  }
+
+  @Benchmark
+  public Object listToList()
+  {
+    return _coercionManager.convertValue( _list, _listType );
+  }
+}
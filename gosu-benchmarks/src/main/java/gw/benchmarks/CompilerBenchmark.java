@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.internal.gosu.ir.TransformingCompiler;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.exceptions.ParseResultsException;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.ClassType;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.StringSourceFileHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Parses a class from source, and parses and compiles it to bytecode. Each operation parses a fresh
+ * copy of the class, the same as the editor does when a class changes.
+ */
+public class CompilerBenchmark extends GosuBenchmark
+{
+  private static final String CLASS_NAME = "gw.benchmarks.workloads.CompileSample";
+
+  private String _source;
+
+  @Override
+  protected void setup()
+  {
+    _source = ((IGosuClass)TypeSystem.getByFullName( CLASS_NAME )).getSource();
+  }
+
+  @Benchmark
+  public IGosuClass parseClass() throws ParseResultsException
+  {
+    return parse();
+  }
+
+  @Benchmark
+  public byte[] compileClass() throws ParseResultsException
+  {
+    return TransformingCompiler.compileClass( parse(), false );
+  }
+
+  private IGosuClass parse() throws ParseResultsException
+  {
+    return GosuParserFactory.createParser( null )
+      .parseClass( CLASS_NAME, new StringSourceFileHandle( CLASS_NAME, _source, false, ClassType.Class ), true, true );
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.internal.gosu.runtime.GosuRuntimeMethods;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calls methods and properties by name through GosuRuntimeMethods, directly and from compiled
+ * Gosu code working on <code>dynamic.Dynamic</code> values, and resolves the runtime type of an
+ * object the way each such call does
+ */
+public class DynamicDispatchBenchmark extends GosuBenchmark
+{
+  private static final Object[] ARGS = {1};
+
+  private IType[] _intParam;
+  private List<String> _list;
+  private IType _listType;
+  private Workload _dynamicCalls;
+
+  @Override
+  protected void setup() throws Exception
+  {
+    _intParam = new IType[]{TypeSystem.get( int.class )};
+    _list = new ArrayList<>( Arrays.asList( "a", "b", "c" ) );
+    _listType = TypeSystem.getFromObject( _list );
+    _dynamicCalls = newWorkload( "gw.benchmarks.workloads.DynamicCalls" );
+  }
+
+  @Benchmark
+  public Object invokeMethod()
+  {
+    return GosuRuntimeMethods.invokeMethodInfo( _listType, "get", _intParam, _list, ARGS );
+  }
+
+  @Benchmark
+  public IType typeOfObject()
+  {
+    return TypeSystem.getFromObject( _list );
+  }
+
+  @Benchmark
+  public Object getProperty()
+  {
+    return GosuRuntimeMethods.getPropertyDynamically( _list, "Empty" );
+  }
+
+  @Benchmark
+  public Object dynamicCallsFromGosu()
+  {
+    return _dynamicCalls.run();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.lang.Gosu;
+import gw.lang.reflect.IHasJavaClass;
+import gw.lang.reflect.TypeSystem;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base of the Gosu runtime benchmarks. The run settings are fixed here so results from different
+ * commits are comparable. To compare a change against a baseline:
+ * <pre>
+ *   mvn -Pbenchmarks -pl gosu-benchmarks -am package
+ *   java -jar gosu-benchmarks/target/benchmarks.jar -rf json -rff baseline.json
+ *   ... apply the change, rebuild ...
+ *   java -jar gosu-benchmarks/target/benchmarks.jar -rf json -rff change.json
+ * </pre>
+ * Pass a regular expression to run a subset, e.g. <code>benchmarks.jar Tokenizer</code>. Once the
+ * JMH artifacts are in the local repository the build also works offline with <code>-o</code>.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 10, time = 1 )
+@Fork( value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"} )
+public abstract class GosuBenchmark
+{
+  private static boolean g_bInitialized;
+
+  @Setup( Level.Trial )
+  public void initGosu() throws Exception
+  {
+    synchronized( GosuBenchmark.class )
+    {
+      if( !g_bInitialized )
+      {
+        Gosu.init();
+        g_bInitialized = true;
+      }
+    }
+    setup();
+  }
+
+  /**
+   * Prepares the benchmark's state, called once per trial after Gosu is initialized
+   */
+  protected void setup() throws Exception
+  {
+  }
+
+  /**
+   * @return A new instance of a Gosu workload class from src/main/gosu
+   */
+  protected static Workload newWorkload( String strGosuClass ) throws Exception
+  {
+    Class<?> cls = ((IHasJavaClass)TypeSystem.getByFullName( strGosuClass )).getBackingClass();
+    return (Workload)cls.newInstance();
+  }
+}
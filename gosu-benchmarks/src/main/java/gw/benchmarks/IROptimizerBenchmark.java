@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.internal.gosu.ir.TransformingCompiler;
+import gw.internal.gosu.ir.optimizer.IROptimizer;
+import gw.internal.gosu.ir.optimizer.IRPass;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.exceptions.ParseResultsException;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.ClassType;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.StringSourceFileHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Compiles and runs a workload with all, none, or just one of the IR optimization passes. The size
+ * of the class's bytecode with the chosen passes is printed in the setup of each trial.
+ */
+public class IROptimizerBenchmark extends GosuBenchmark
+{
+  private static final String CLASS_NAME = "gw.benchmarks.workloads.OptimizerSample";
+
+  @Param( {"all", "none", "ConstantFolding", "NullChecks", "DeadBranches", "TempLocals", "Boxing"} )
+  public String _passes;
+
+  private String _source;
+  private Workload _instance;
+
+  @Override
+  protected void setup() throws Exception
+  {
+    for( IRPass pass : IROptimizer.getPasses() )
+    {
+      IROptimizer.setPassEnabled( pass.getName(), _passes.equals( "all" ) || _passes.equals( pass.getName() ) );
+    }
+    _source = ((IGosuClass)TypeSystem.getByFullName( CLASS_NAME )).getSource();
+    System.out.println( CLASS_NAME + " with passes " + _passes + ": " + compileClass().length + " bytes" );
+    _instance = newWorkload( CLASS_NAME );
+  }
+
+  @Benchmark
+  public byte[] compileClass() throws ParseResultsException
+  {
+    IGosuClass gsClass = GosuParserFactory.createParser( null )
+      .parseClass( CLASS_NAME, new StringSourceFileHandle( CLASS_NAME, _source, false, ClassType.Class ), true, true );
+    return TransformingCompiler.compileClass( gsClass, false );
+  }
+
+  @Benchmark
+  public Object run()
+  {
+    return _instance.run();
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.lang.reflect.gs.BytecodeOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Builds log lines and template strings the way application code does, with string concatenation
+ * compiled to StringConcatFactory call sites ("indy", Java 9 and later) or to a presized
+ * StringBuilder ("builder"). On Java 8 both compile to the StringBuilder.
+ */
+public class StringConcatBenchmark extends GosuBenchmark
+{
+  @Param( {"indy", "builder"} )
+  public String _concat;
+
+  private Workload _instance;
+
+  @Override
+  protected void setup() throws Exception
+  {
+    BytecodeOptions.setIndyStringConcat( _concat.equals( "indy" ) );
+    _instance = newWorkload( "gw.benchmarks.workloads.MessageBuilding" );
+  }
+
+  @Benchmark
+  public Object buildMessages()
+  {
+    return _instance.run();
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import gw.internal.gosu.parser.SourceCodeTokenizer;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Tokenizes the source of a large enhancement
+ */
+public class TokenizerBenchmark extends GosuBenchmark
+{
+  private String _source;
+
+  @Override
+  protected void setup()
+  {
+    _source = ((IGosuClass)TypeSystem.getByFullName( "gw.lang.enhancements.CoreIterableEnhancement" )).getSource();
+  }
+
+  @Benchmark
+  public int tokenize()
+  {
+    SourceCodeTokenizer tokenizer = new SourceCodeTokenizer( _source );
+    int iTokens = 0;
+    while( !tokenizer.isEOF() )
+    {
+      tokenizer.nextToken();
+      iTokens++;
+    }
+    return iTokens;
+  }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+/**
+ * Implemented by the Gosu workload classes, so benchmarks call into compiled Gosu code directly
+ * rather than through reflection.
+ */
+public interface Workload
+{
+  /**
+   * Performs one operation
+   *
+   * @return The result, which the benchmark consumes so the work isn't optimized away
+   */
+  Object run();
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Runs the Gosu workloads in gw.benchmarks.workloads covering blocks, enhancement methods on
+ * collections, templates and JSON
+ */
+public class WorkloadBenchmark extends GosuBenchmark
+{
+  @Param( {"BlockInvocation", "CollectionEnhancements", "TemplateRendering", "JsonParsing", "JsonWriting"} )
+  public String _workload;
+
+  private Workload _instance;
+
+  @Override
+  protected void setup() throws Exception
+  {
+    _instance = newWorkload( "gw.benchmarks.workloads." + _workload );
+  }
+
+  @Benchmark
+  public Object run()
+  {
+    return _instance.run();
+  }
+}
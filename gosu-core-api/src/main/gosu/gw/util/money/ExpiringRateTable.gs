@@ -1,13 +1,37 @@
 package gw.util.money
 
+uses gw.util.Rational
 uses gw.util.science.Time
+uses gw.util.science.TimeUnit
 uses gw.util.money.ExchangeRate
 uses java.util.Currency
 
 class ExpiringRateTable extends HashMap<Currency, ExchangeRate> {
-  final var _timestamp: Time as Timestamp
+  final var _timeMillis: long
+  final var _nanoTime: long
   
   construct() {
-    _timestamp = Time.Now
+    _timeMillis = System.currentTimeMillis()
+    _nanoTime = System.nanoTime()
   }
-}
\ No newline at end of file
+
+  construct( rates: Map<Currency, ExchangeRate> ) {
+    super( rates )
+    _timeMillis = System.currentTimeMillis()
+    _nanoTime = System.nanoTime()
+  }
+
+  /**
+   * The wall clock time this table was created, since the epoch
+   */
+  property get Timestamp() : Time {
+    return new Time( Rational.get( _timeMillis ), TimeUnit.Milli )
+  }
+
+  /**
+   * The age of this table in nanoseconds
+   */
+  internal property get Age() : long {
+    return System.nanoTime() - _nanoTime
+  }
+}
@@ -0,0 +1,15 @@
+package gw.util.money
+
+uses java.util.Currency
+
+/**
+ * A source of exchange rate tables, such as a web service or a local file
+ * @see RateTableCache
+ */
+interface IRateTableSource {
+  /**
+   * @param currency The currency for the resulting exchange rate table
+   * @return The exchange rates of other currencies per one unit of the specified currency
+   */
+  function loadRateTable( currency: Currency ) : Map<Currency, ExchangeRate>
+}
@@ -0,0 +1,102 @@
+package gw.util.money
+
+uses gw.util.Rational
+uses java.io.File
+uses java.net.URL
+uses java.util.Currency
+uses java.util.Properties
+
+/**
+ * Loads exchange rate tables from a local properties file or classpath resource, for offline
+ * and test use. Each property maps a pair of currency codes to the number of units of the
+ * second currency per one unit of the first, optionally followed by the ask and bid rates:
+ * <pre>
+ *   USD.EUR = 0.8
+ *   USD.GBP = 0.5, 0.51, 0.49
+ * </pre>
+ * A table for a currency that has no rates of its own is derived from the table of a currency
+ * that has a rate for it.
+ */
+class LocalRateTableSource implements IRateTableSource {
+  final var _url: URL
+
+  construct( url: URL ) {
+    _url = url
+  }
+
+  construct( file: File ) {
+    this( file.toURI().toURL() )
+  }
+
+  /**
+   * A source reading the named resource from the classpath
+   */
+  static function fromResource( name: String ) : LocalRateTableSource {
+    var url = Thread.currentThread().ContextClassLoader.getResource( name )
+    if( url == null ) {
+      throw new IllegalArgumentException( "Exchange rates resource not found: " + name )
+    }
+    return new LocalRateTableSource( url )
+  }
+
+  override function loadRateTable( currency: Currency ) : Map<Currency, ExchangeRate> {
+    var tables = loadAll()
+    var table = tables[currency]
+    if( table != null ) {
+      return table
+    }
+    for( entry in tables.entrySet() ) {
+      var rate = entry.Value[currency]
+      if( rate != null ) {
+        return derive( entry.Value, rate )
+      }
+    }
+    throw new IllegalStateException( "No exchange rates for " + currency.CurrencyCode + " in " + _url )
+  }
+
+  private function loadAll() : Map<Currency, Map<Currency, ExchangeRate>> {
+    var props = new Properties()
+    using( var input = _url.openStream() ) {
+      props.load( input )
+    }
+    var tables = new HashMap<Currency, Map<Currency, ExchangeRate>>()
+    for( key in props.stringPropertyNames() ) {
+      var iDot = key.indexOf( '.' )
+      if( iDot < 0 ) {
+        throw new IllegalStateException( "Expected a pair of currency codes like USD.EUR, but found: " + key )
+      }
+      var from = Currency.getInstance( key.substring( 0, iDot ).trim() )
+      var to = Currency.getInstance( key.substring( iDot + 1 ).trim() )
+      var table = tables[from]
+      if( table == null ) {
+        table = new HashMap<Currency, ExchangeRate>()
+        table[from] = new ExchangeRate( 1r, 1r, 1r )
+        tables[from] = table
+      }
+      table[to] = parseRate( props.getProperty( key ) )
+    }
+    return tables
+  }
+
+  private function parseRate( value: String ) : ExchangeRate {
+    var parts = value.split( "," )
+    var mid = Rational.get( parts[0].trim() )
+    var ask = parts.length > 1 ? Rational.get( parts[1].trim() ) : mid
+    var bid = parts.length > 2 ? Rational.get( parts[2].trim() ) : mid
+    return new ExchangeRate( mid, ask, bid )
+  }
+
+  /**
+   * Given rates per unit of some currency A and the rate of the target currency B per unit of A,
+   * compute the rates per unit of B
+   */
+  private function derive( table: Map<Currency, ExchangeRate>, rateOfTarget: ExchangeRate ) : Map<Currency, ExchangeRate> {
+    var derived = new HashMap<Currency, ExchangeRate>()
+    for( entry in table.entrySet() ) {
+      derived[entry.Key] = new ExchangeRate( entry.Value.get( Mid ) / rateOfTarget.get( Mid ),
+                                             entry.Value.get( Ask ) / rateOfTarget.get( Bid ),
+                                             entry.Value.get( Bid ) / rateOfTarget.get( Ask ) )
+    }
+    return derived
+  }
+}
@@ -2,6 +2,7 @@ package gw.util.money
 
 uses gw.util.Rational
 uses java.text.NumberFormat
+uses java.util.Collections
 uses java.util.Currency
 uses gw.util.money.RateType
 uses gw.util.money.CurrencyExchange
@@ -15,32 +16,49 @@ uses gw.util.money.CurrencyExchange
  * same as new Money( 35, USD )
  */
 final class Money implements IDimension<Money, Rational> {
-  final var _amount: Map<Currency, Rational> as Amount
+  // Most Money involves a single currency, which is kept as a currency and value pair.
+  // Only Money involving several currencies keeps a map of amounts.
+  final var _currency: Currency
+  final var _value: Rational
+  final var _amount: Map<Currency, Rational>
 
   construct( value : Rational, currency: Currency ) {
-    _amount = {currency -> value}
+    _currency = currency
+    _value = value
+    _amount = null
   }
   
   internal construct( amount: Map<Currency, Rational> ) {
-    _amount = amount
+    var single = amount.size() == 1 ? amount.entrySet().first() : null
+    _currency = single?.Key
+    _value = single?.Value
+    _amount = single == null ? amount : null
+  }
+
+  property get Amount() : Map<Currency, Rational> {
+    return _amount ?: Collections.singletonMap( _currency, _value )
+  }
+
+  property get SingleCurrency() : boolean {
+    return _amount == null
   }
 
   property get SingleValue() : Rational {
-    if( Amount.size() == 1 ) {
-      return Amount.Values.first()
+    if( _amount == null ) {
+      return _value
     }  
     throw new RuntimeException( "Multiple currency amount" )
   }
   property get SingleUnit() : Currency {
-    if( Amount.size() == 1 ) {
-      return Amount.Keys.first()
+    if( _amount == null ) {
+      return _currency
     }  
     throw new RuntimeException( "Multiple currency amount" )
   }
   
   override function fromNumber( value: Rational ) : Money {
-    if( Amount.size() == 1 ) {
-      return new Money( value, SingleUnit )
+    if( _amount == null ) {
+      return new Money( value, _currency )
     }    
     throw new RuntimeException( "Multiple currency amount" )
   }
@@ -62,13 +80,13 @@ final class Money implements IDimension<Money, Rational> {
   }
   function toString( locale: Locale ) : String {
     var format = NumberFormat.getInstance( locale )
-    if( Amount.size() == 1 ) { 
-      format.MaximumFractionDigits = SingleUnit.DefaultFractionDigits
+    if( _amount == null ) { 
+      format.MaximumFractionDigits = _currency.DefaultFractionDigits
       format.GroupingUsed = true
-      return format.format( SingleValue ) + " " + SingleUnit.CurrencyCode
+      return format.format( _value ) + " " + _currency.CurrencyCode
     }
     var sb = new StringBuilder()
-    Amount.eachKeyAndValue( \ k,v -> { 
+    _amount.eachKeyAndValue( \ k,v -> { 
       format.MaximumFractionDigits = k.DefaultFractionDigits
       format.GroupingUsed = true
       sb.append( format.format( v ) ).append( " " ).append( k.CurrencyCode ).append( "\n" )
@@ -77,15 +95,22 @@ final class Money implements IDimension<Money, Rational> {
   }
 
   override function hashCode() : int {
-    return _amount.hashCode()
+    // Same as the hash code of the Amount map
+    return _amount == null ? _currency.hashCode() ^ _value.hashCode() : _amount.hashCode()
   }
   override function equals( o: Object ) : boolean {
-    return o typeis Money && _amount == o._amount  
+    if( o typeis Money ) {
+      if( _amount == null && o._amount == null ) {
+        return _currency == o._currency && _value.equals( o._value )
+      }
+      return Amount == o.Amount
+    }
+    return false
   }
   
   override function compareTo( o: Money ) : int {
-    if( _amount.size() == 1 && o._amount.size() == 1 && SingleUnit == o.SingleUnit ) {
-      return SingleValue.compareTo( o.SingleValue ) 
+    if( isSameSingleCurrency( o ) ) {
+      return _value.compareTo( o._value ) 
     }
     return exchange( Currency.BASE ).compareTo( o.exchange( Currency.BASE ) )
   }
@@ -94,18 +119,74 @@ final class Money implements IDimension<Money, Rational> {
    * Exchange this Money for another with the specified single currency and rate type
    */
   function exchange( currency: Currency, rateType: RateType = Mid ) : Money {
-    var rateTable = CurrencyExchange.instance().ExchangeRatesService.getExchangeRatesTable( currency )
+    if( _amount == null && _currency == currency ) {
+      return this
+    }
+    return exchangeWith( currency, rateType, getExchangeRatesTable( currency ) )
+  }
+
+  /**
+   * Exchange each Money in the given collection for Money with the specified single currency and rate
+   * type. Exchange rates are fetched from the exchange rates service once for the whole collection.
+   * @return The exchanged Money, in the same order as the given collection
+   */
+  static function exchangeAll( moneys: Collection<Money>, currency: Currency, rateType: RateType = Mid ) : List<Money> {
+    var result = new ArrayList<Money>( moneys.size() )
+    var rateTable: Map<Currency, IExchangeRate> = null
+    for( money in moneys ) {
+      if( money._amount == null && money._currency == currency ) {
+        result.add( money )
+      }
+      else {
+        rateTable = rateTable ?: getExchangeRatesTable( currency )
+        result.add( money.exchangeWith( currency, rateType, rateTable ) )
+      }
+    }
+    return result
+  }
+
+  /**
+   * The sum of the given collection of Money exchanged for the specified single currency and rate type.
+   * Exchange rates are fetched from the exchange rates service once for the whole collection.
+   */
+  static function exchangeAndSum( moneys: Collection<Money>, currency: Currency, rateType: RateType = Mid ) : Money {
     var total = 0r
-    Amount.eachKeyAndValue( \ k, v -> {
-      if( k == currency ) {
-        total += v
+    var rateTable: Map<Currency, IExchangeRate> = null
+    for( money in moneys ) {
+      if( money._amount == null && money._currency == currency ) {
+        total += money._value
       }
       else {
-        total += v / rateTable[k].get( rateType )
+        rateTable = rateTable ?: getExchangeRatesTable( currency )
+        total += money.exchangeWith( currency, rateType, rateTable )._value
       }
-    } )
+    }
+    return new Money( total, currency )
+  }
+
+  private static function getExchangeRatesTable( currency: Currency ) : Map<Currency, IExchangeRate> {
+    return CurrencyExchange.instance().ExchangeRatesService.getExchangeRatesTable( currency )
+  }
+
+  private function exchangeWith( currency: Currency, rateType: RateType, rateTable: Map<Currency, IExchangeRate> ) : Money {
+    if( _amount == null ) {
+      return new Money( _currency == currency ? _value : _value / rateTable[_currency].get( rateType ), currency )
+    }
+    var total = 0r
+    for( entry in _amount.entrySet() ) {
+      if( entry.Key == currency ) {
+        total += entry.Value
+      }
+      else {
+        total += entry.Value / rateTable[entry.Key].get( rateType )
+      }
+    }
     return new Money( total, currency )
   }
+
+  private function isSameSingleCurrency( money: Money ) : boolean {
+    return _amount == null && money._amount == null && _currency == money._currency
+  }
  
   /**
    * Exchange this Money for a target Money with multiple currencies maintaining the value of this Money 
@@ -129,8 +210,11 @@ final class Money implements IDimension<Money, Rational> {
   }
   
   function add( money: Money ) : Money {
-    var sum = new HashMap<Currency, Rational>( _amount )
-    for( entrySet in money._amount.entrySet() ) {
+    if( isSameSingleCurrency( money ) ) {
+      return new Money( _value + money._value, _currency )
+    }
+    var sum = new HashMap<Currency, Rational>( Amount )
+    for( entrySet in money.Amount.entrySet() ) {
        var value = sum[entrySet.Key]
        value = value == null ? entrySet.Value : value + entrySet.Value
        sum[entrySet.Key] = value
@@ -139,8 +223,11 @@ final class Money implements IDimension<Money, Rational> {
   }
   
   function subtract( money: Money ) : Money {
-    var sum = new HashMap<Currency, Rational>( _amount )
-    for( entrySet in money._amount.entrySet() ) {
+    if( isSameSingleCurrency( money ) ) {
+      return new Money( _value - money._value, _currency )
+    }
+    var sum = new HashMap<Currency, Rational>( Amount )
+    for( entrySet in money.Amount.entrySet() ) {
        var value = sum[entrySet.Key]
        value = value == null ? entrySet.Value : value - entrySet.Value
        sum[entrySet.Key] = value
@@ -149,6 +236,9 @@ final class Money implements IDimension<Money, Rational> {
   }  
   
   function multiply( value: Rational ) : Money {
+    if( _amount == null ) {
+      return new Money( _value * value, _currency )
+    }
     var product = new HashMap<Currency, Rational>()
     for( entrySet in _amount.entrySet() ) {
        var result = entrySet.Value * value
@@ -158,6 +248,9 @@ final class Money implements IDimension<Money, Rational> {
   }
   
   function divide( value: Rational ) : Money {
+    if( _amount == null ) {
+      return new Money( _value / value, _currency )
+    }
     var quotient = new HashMap<Currency, Rational>()
     for( entrySet in _amount.entrySet() ) {
        var result = entrySet.Value / value
@@ -166,13 +259,16 @@ final class Money implements IDimension<Money, Rational> {
      return new Money( quotient )
   }
   function divide( money: Money ) : Rational {
-    if( _amount.size() == 1 && money._amount.size() == 1 && SingleUnit == money.SingleUnit ) {
-      return SingleValue / money.SingleValue
+    if( isSameSingleCurrency( money ) ) {
+      return _value / money._value
     }
     return exchange( Currency.BASE ) / money.exchange( Currency.BASE )
   }
 
   function modulo( value: Rational ) : Money {
+    if( _amount == null ) {
+      return new Money( _value % value, _currency )
+    }
     var mod = new HashMap<Currency, Rational>()
     for( entrySet in _amount.entrySet() ) {
        var result = entrySet.Value % value
@@ -181,14 +277,17 @@ final class Money implements IDimension<Money, Rational> {
      return new Money( mod )
   }
   function modulo( money: Money ) : Rational {
-    if( _amount.size() == 1 && money._amount.size() == 1 && SingleUnit == money.SingleUnit ) {
-      return SingleValue % money.SingleValue
+    if( isSameSingleCurrency( money ) ) {
+      return _value % money._value
     }
     return exchange( Currency.BASE ) % money.exchange( Currency.BASE )
   }
 
   
   function negate() : Money {
+    if( _amount == null ) {
+      return new Money( -_value, _currency )
+    }
     var negation = new HashMap<Currency, Rational>()
     for( entrySet in _amount.entrySet() ) {
        negation[entrySet.Key] = -entrySet.Value
@@ -0,0 +1,213 @@
+package gw.util.money
+
+uses gw.util.science.Time
+uses gw.util.science.TimeUnit
+uses gw.util.science.UnitConstants#min
+uses java.util.Currency
+uses java.util.concurrent.ConcurrentHashMap
+uses java.util.concurrent.ExecutionException
+uses java.util.concurrent.Executor
+uses java.util.concurrent.Executors
+uses java.util.concurrent.FutureTask
+uses java.util.concurrent.ThreadFactory
+uses java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A cache of exchange rate tables that refreshes a table in the background before it expires.
+ * Callers are served the cached table while it is being refreshed, even once it has expired.
+ * Callers wait for a load only when there is no table for the currency yet, or the table has
+ * been stale for longer than MaxStaleness. Callers missing the same currency at the same time
+ * wait for the same load.
+ */
+class RateTableCache {
+  final var _source: IRateTableSource
+  final var _tables: ConcurrentHashMap<Currency, ExpiringRateTable>
+  final var _refreshing: ConcurrentHashMap<Currency, Boolean>
+  final var _loading: ConcurrentHashMap<Currency, FutureTask<ExpiringRateTable>>
+  var _frequency: Time
+  var _frequencyNanos: long
+  var _refreshAhead: double
+  var _maxStaleness: Time
+  var _maxStalenessNanos: long
+  var _executor: Executor
+
+  final var _hits = new AtomicLong()
+  final var _staleHits = new AtomicLong()
+  final var _misses = new AtomicLong()
+  final var _refreshes = new AtomicLong()
+  final var _refreshFailures = new AtomicLong()
+
+  construct( source: IRateTableSource ) {
+    _source = source
+    _tables = new ConcurrentHashMap<Currency, ExpiringRateTable>()
+    _refreshing = new ConcurrentHashMap<Currency, Boolean>()
+    _loading = new ConcurrentHashMap<Currency, FutureTask<ExpiringRateTable>>()
+    // the executor starts its thread on the first refresh
+    _executor = Executors.newSingleThreadExecutor( new DaemonThreadFactory() )
+    Frequency = 1 min
+    _refreshAhead = 0.8
+    MaxStaleness = 10 min
+  }
+
+  property get Source() : IRateTableSource {
+    return _source
+  }
+
+  /**
+   * How long a table is fresh
+   */
+  property get Frequency() : Time {
+    return _frequency
+  }
+  property set Frequency( value: Time ) {
+    _frequency = value
+    _frequencyNanos = toNanos( value )
+  }
+
+  /**
+   * The fraction of Frequency after which a table is refreshed in the background, 0.8 by default
+   */
+  property get RefreshAhead() : double {
+    return _refreshAhead
+  }
+  property set RefreshAhead( value: double ) {
+    if( value <= 0 || value > 1 ) {
+      throw new IllegalArgumentException( "RefreshAhead must be greater than 0 and at most 1: " + value )
+    }
+    _refreshAhead = value
+  }
+
+  /**
+   * How long past Frequency a table is still served while a refresh is pending
+   */
+  property get MaxStaleness() : Time {
+    return _maxStaleness
+  }
+  property set MaxStaleness( value: Time ) {
+    _maxStaleness = value
+    _maxStalenessNanos = toNanos( value )
+  }
+
+  /**
+   * Runs the background refreshes, a single daemon thread by default
+   */
+  property get Executor() : Executor {
+    return _executor
+  }
+  property set Executor( executor: Executor ) {
+    _executor = executor
+  }
+
+  property get Hits() : long {
+    return _hits.get()
+  }
+  property get StaleHits() : long {
+    return _staleHits.get()
+  }
+  property get Misses() : long {
+    return _misses.get()
+  }
+  property get Refreshes() : long {
+    return _refreshes.get()
+  }
+  property get RefreshFailures() : long {
+    return _refreshFailures.get()
+  }
+
+  function getRateTable( currency: Currency ) : ExpiringRateTable {
+    var table = _tables.get( currency )
+    if( table == null ) {
+      _misses.incrementAndGet()
+      return loadOnce( currency )
+    }
+    var age = table.Age
+    if( age < _frequencyNanos ) {
+      _hits.incrementAndGet()
+      if( age >= (_frequencyNanos * _refreshAhead) as long ) {
+        refreshAsync( currency )
+      }
+      return table
+    }
+    if( age < _frequencyNanos + _maxStalenessNanos ) {
+      _staleHits.incrementAndGet()
+      refreshAsync( currency )
+      return table
+    }
+    _misses.incrementAndGet()
+    return loadOnce( currency )
+  }
+
+  /**
+   * Drops all cached tables
+   */
+  function clear() {
+    _tables.clear()
+  }
+
+  private function load( currency: Currency ) : ExpiringRateTable {
+    var table = new ExpiringRateTable( _source.loadRateTable( currency ) )
+    _tables.put( currency, table )
+    return table
+  }
+
+  /**
+   * Loads the table for the currency, or waits for the load another caller already started
+   */
+  private function loadOnce( currency: Currency ) : ExpiringRateTable {
+    var task = new FutureTask<ExpiringRateTable>( \-> load( currency ) )
+    var pending = _loading.putIfAbsent( currency, task )
+    if( pending == null ) {
+      try {
+        task.run()
+      }
+      finally {
+        _loading.remove( currency, task )
+      }
+      pending = task
+    }
+    try {
+      return pending.get()
+    }
+    catch( e: ExecutionException ) {
+      throw e.Cause
+    }
+  }
+
+  private function refreshAsync( currency: Currency ) {
+    if( _refreshing.putIfAbsent( currency, Boolean.TRUE ) != null ) {
+      // a refresh is already pending
+      return
+    }
+    try {
+      Executor.execute( \-> {
+        try {
+          load( currency )
+          _refreshes.incrementAndGet()
+        }
+        catch( e: Throwable ) {
+          // keep serving the cached table, the next request retries
+          _refreshFailures.incrementAndGet()
+        }
+        finally {
+          _refreshing.remove( currency )
+        }
+      } )
+    }
+    catch( e: RuntimeException ) {
+      _refreshing.remove( currency )
+      throw e
+    }
+  }
+
+  private static function toNanos( time: Time ) : long {
+    return time.toNumber( TimeUnit.Nano ).longValue()
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+    override function newThread( r: Runnable ) : Thread {
+      var thread = new Thread( r, "Exchange rate refresh" )
+      thread.Daemon = true
+      return thread
+    }
+  }
+}
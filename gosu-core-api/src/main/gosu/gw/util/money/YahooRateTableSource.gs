@@ -0,0 +1,83 @@
+package gw.util.money
+uses java.net.URL
+uses gw.util.Rational
+uses java.util.Currency
+uses gw.util.money.ExchangeRate
+uses gw.util.money.RateType
+
+/**
+ * Loads exchange rate tables from the Yahoo Finance API.  Yahoo updates the rates continuously.
+ */
+class YahooRateTableSource implements IRateTableSource
+{  
+  override function loadRateTable( currency: Currency ) : Map<Currency, ExchangeRate> {
+    var fail: Throwable = null
+    for( 0..4 ) {
+      try {
+        return getRateTable( currency )
+      }
+      catch( e ) {
+        // try to recover from interwebz
+        Thread.sleep( 5000 )
+        fail = e
+        continue
+      }
+    }    
+    throw fail
+  }
+
+  private function getRateTable( currency: Currency ) : Map<Currency, ExchangeRate> {
+    var args = new Dynamic()
+    args.q = "select * from yahoo.finance.xchange where pair in ( ${getCurrencies( currency )} )"
+    args.format = "json"
+    args.diagnostics = "true"
+    args.env = "store://datatables.org/alltableswithkeys"
+    args.callback = ""
+    var ratesUrl = URL.makeUrl( "https://query.yahooapis.com/v1/public/yql", args )
+    var json = ratesUrl.JsonContent
+    var rateTable = new HashMap<Currency, ExchangeRate>()
+    for( r in json.query.results.rate ) {
+      var id =  r.id
+      var name = id.substring( 3 )
+      var currencyOfName : Currency = null
+      try {
+        currencyOfName = Currency.getInstance( name )
+      }
+      catch( e: IllegalArgumentException ) {
+        // So far Java doesn't support currencies for: ECS, XCP, CNH
+        //print( "Failed to get currency for: " + name )
+      }
+      if( currencyOfName != null ) {
+        var mid = Rational.get( r.Rate )
+        var ask = bigDecimalDefault( name, Ask, r.Ask, mid )
+        var bid = bigDecimalDefault( name, Bid, r.Bid, mid )
+        rateTable.put( Currency.getInstance( name ), new ExchangeRate( mid, ask, bid ) ) 
+      }
+    }    
+    return rateTable
+  }
+  
+  private function bigDecimalDefault( name: String, rateType: RateType, value: String, def: Rational ) : Rational {
+    var result : Rational
+    if( value != "N/A" ) {
+      result = Rational.get( value )
+    }
+    else {
+      // for N/A rates use the mid rate, common for precious metals other than gold
+      result = def 
+    }
+    return result
+  }
+  
+  private function getCurrencies( currency: Currency ) : String {
+    var ratesUrl = new URL( "https://finance.yahoo.com/webservice/v1/symbols/allcurrencies/quote?format=json" )
+    var json = ratesUrl.JsonContent
+    var currencies = new StringBuilder()
+    for( x in json.list.resources ) {
+      var symbol_x =  x.resource.fields.symbol
+      var name = symbol_x.substring( 0, 3 )
+      currencies.append( currencies.length() > 0 ? ", '" : "'" ).append( currency ).append( name ).append( "'" )
+    }
+    return currencies.toString()
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.ICompilableType;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * The part shared by the blocks a lifted block expression creates. A lifted block is compiled to a
+ * synthetic static method of its enclosing class instead of to a class of its own, the method takes
+ * the block's captured values in an array followed by the block's arguments. The blocks are
+ * instances of the LiftedFunction class for the block's arity, which call the method through the
+ * site.
+ * <p/>
+ * The block's type, and with it the block's parse tree and function type, is looked up from the
+ * enclosing class the first time it is asked for. The block's own class is never loaded.
+ */
+public final class LiftedBlockSite
+{
+  private final MethodHandle _impl;
+  private final Class _enclosingClass;
+  private final int _iBlock;
+  private volatile IType _blockType;
+  private volatile int _iRefreshChecksum;
+
+  /**
+   * @param impl The block's method, of type (Object[], Object...)Object
+   * @param enclosingClass The class declaring the block's method
+   * @param iBlock The index of the block among the blocks of the enclosing class
+   */
+  public LiftedBlockSite( MethodHandle impl, Class enclosingClass, int iBlock )
+  {
+    _impl = impl;
+    _enclosingClass = enclosingClass;
+    _iBlock = iBlock;
+  }
+
+  public MethodHandle getImpl()
+  {
+    return _impl;
+  }
+
+  public Class getEnclosingClass()
+  {
+    return _enclosingClass;
+  }
+
+  /**
+   * @return The block's class, as AbstractBlock#getIntrinsicType() returns it for a block that has a
+   * class of its own
+   */
+  public IType getBlockType()
+  {
+    IType blockType = _blockType;
+    int iChecksum = TypeSystem.getSingleRefreshChecksum();
+    if( blockType == null || _iRefreshChecksum != iChecksum )
+    {
+      blockType = ((ICompilableType)TypeSystem.get( _enclosingClass )).getBlock( _iBlock );
+      _iRefreshChecksum = iChecksum;
+      _blockType = blockType;
+    }
+    return blockType;
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+import gw.lang.reflect.IType;
+import gw.util.GosuExceptionUtil;
+
+public final class LiftedFunction0 extends Function0 {
+
+  private final LiftedBlockSite _site;
+  private final Object[] _captured;
+
+  public LiftedFunction0(LiftedBlockSite site, Object[] captured) {
+    _site = site;
+    _captured = captured;
+  }
+
+  public Object invoke() {
+    try {
+      return (Object)_site.getImpl().invokeExact(_captured);
+    } catch(Throwable t) {
+      throw GosuExceptionUtil.forceThrow(t);
+    }
+  }
+
+  @Override
+  public IType getIntrinsicType() {
+    return _site.getBlockType();
+  }
+
+}
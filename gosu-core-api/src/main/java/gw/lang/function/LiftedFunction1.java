@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+import gw.lang.reflect.IType;
+import gw.util.GosuExceptionUtil;
+
+public final class LiftedFunction1 extends Function1 {
+
+  private final LiftedBlockSite _site;
+  private final Object[] _captured;
+
+  public LiftedFunction1(LiftedBlockSite site, Object[] captured) {
+    _site = site;
+    _captured = captured;
+  }
+
+  public Object invoke(Object arg0) {
+    try {
+      return (Object)_site.getImpl().invokeExact(_captured, arg0);
+    } catch(Throwable t) {
+      throw GosuExceptionUtil.forceThrow(t);
+    }
+  }
+
+  @Override
+  public IType getIntrinsicType() {
+    return _site.getBlockType();
+  }
+
+}
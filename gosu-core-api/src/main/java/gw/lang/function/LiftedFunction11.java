@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+import gw.lang.reflect.IType;
+import gw.util.GosuExceptionUtil;
+
+public final class LiftedFunction11 extends Function11 {
+
+  private final LiftedBlockSite _site;
+  private final Object[] _captured;
+
+  public LiftedFunction11(LiftedBlockSite site, Object[] captured) {
+    _site = site;
+    _captured = captured;
+  }
+
+  public Object invoke(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5, Object arg6, Object arg7, Object arg8, Object arg9, Object arg10) {
+    try {
+      return (Object)_site.getImpl().invokeExact(_captured, arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9, arg10);
+    } catch(Throwable t) {
+      throw GosuExceptionUtil.forceThrow(t);
+    }
+  }
+
+  @Override
+  public IType getIntrinsicType() {
+    return _site.getBlockType();
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.ir.expression;
+
+import gw.lang.UnstableAPI;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An invokedynamic call whose bootstrap method is a static method taking the standard
+ * (Lookup, String, MethodType) arguments, followed by the types in getBootstrapParameterTypes(),
+ * and returning a CallSite. getBootstrapArgs() holds the constant arguments passed for the
+ * extra parameters.
+ */
+@UnstableAPI
+public class IRInvokeDynamicExpression extends IRExpression {
+  private String _name;
+  private IRType _bootstrapOwner;
+  private String _bootstrapName;
+  private IRType _returnType;
+  private List<IRType> _parameterTypes;
+  private List<IRExpression> _args;
+  private List<IRType> _bootstrapParameterTypes;
+  private List<Object> _bootstrapArgs;
+
+  public IRInvokeDynamicExpression(String name, IRType bootstrapOwner, String bootstrapName, IRType returnType, List<IRType> parameterTypes, List<IRExpression> args) {
+    this(name, bootstrapOwner, bootstrapName, Collections.<IRType>emptyList(), Collections.emptyList(), returnType, parameterTypes, args);
+  }
+
+  public IRInvokeDynamicExpression(String name, IRType bootstrapOwner, String bootstrapName, List<IRType> bootstrapParameterTypes, List<Object> bootstrapArgs,
+                                   IRType returnType, List<IRType> parameterTypes, List<IRExpression> args) {
+    _name = name;
+    _bootstrapParameterTypes = bootstrapParameterTypes;
+    _bootstrapArgs = bootstrapArgs;
+    _bootstrapOwner = bootstrapOwner;
+    _bootstrapName = bootstrapName;
+    _returnType = returnType;
+    _parameterTypes = parameterTypes;
+    _args = args;
+
+    for (IRExpression arg : args) {
+      arg.setParent( this );
+    }
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  public IRType getBootstrapOwner() {
+    return _bootstrapOwner;
+  }
+
+  public String getBootstrapName() {
+    return _bootstrapName;
+  }
+
+  public List<IRType> getBootstrapParameterTypes() {
+    return _bootstrapParameterTypes;
+  }
+
+  public List<Object> getBootstrapArgs() {
+    return _bootstrapArgs;
+  }
+
+  public IRType getReturnType() {
+    return _returnType;
+  }
+
+  public List<IRType> getParameterTypes() {
+    return _parameterTypes;
+  }
+
+  public List<IRExpression> getArgs() {
+    return _args;
+  }
+
+  @Override
+  public IRType getType() {
+    return _returnType;
+  }
+}
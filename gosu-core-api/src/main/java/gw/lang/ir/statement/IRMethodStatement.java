@@ -108,6 +108,11 @@ public class IRMethodStatement extends IRStatement {
     return _methodBody;
   }
 
+  public void setMethodBody( IRStatement methodBody ) {
+    _methodBody = methodBody;
+    setParentToThis( methodBody );
+  }
+
   public String getName() {
     return _name;
   }
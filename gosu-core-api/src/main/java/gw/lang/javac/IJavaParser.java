@@ -3,6 +3,7 @@ package gw.lang.javac;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.util.DocTrees;
 import com.sun.source.util.SourcePositions;
+import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.util.Pair;
 import java.util.List;
 import java.util.function.Consumer;
@@ -14,6 +15,7 @@ import javax.tools.JavaFileObject;
 public interface IJavaParser
 {
   boolean parseText( String src, List<CompilationUnitTree> trees, Consumer<SourcePositions> sourcePositions, Consumer<DocTrees> docTrees, DiagnosticCollector<JavaFileObject> errorHandler );
+  boolean parseSource( ISourceFileHandle fileHandle, List<CompilationUnitTree> trees, Consumer<SourcePositions> sourcePositions, Consumer<DocTrees> docTrees, DiagnosticCollector<JavaFileObject> errorHandler );
   boolean parseType( String fqn, List<CompilationUnitTree> trees, DiagnosticCollector<JavaFileObject> errorHandler );
 
   ClassJavaFileObject compile( JavaFileObject jfo, String fqn, Iterable<String> options, DiagnosticCollector<JavaFileObject> errorHandler );
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.parser;
+
+import gw.lang.reflect.IType;
+
+/**
+ * The runtime conversion of values of one class to one type. Everything in
+ * {@link ICoercionManager#convertValue(Object, IType)} that only depends on the two types is
+ * worked out when the plan is made, so converting a value is a class check plus at most one
+ * coercer call. Plans are only valid until the next type system refresh.
+ */
+public final class CoercionPlan
+{
+  // The coercer's null result stands for the value itself
+  private static final Object UNCOERCED = new Object();
+
+  private final Class<?> _valueClass;
+  private final IType _type;
+  private final ICoercer _coercer;
+  private final boolean _bIdentity;
+  private final Object _nullResult;
+
+  static CoercionPlan identity( Class<?> valueClass, IType type )
+  {
+    return new CoercionPlan( valueClass, type, null, true, null );
+  }
+
+  /**
+   * @param coercer       The coercer for the two types or null if there is none
+   * @param bNullIsResult True if null from the coercer is the result of the conversion
+   * @param bUncoerced    True if otherwise the value itself is the result, and not
+   *                      {@link StandardCoercionManager#NO_DICE}
+   */
+  static CoercionPlan coerce( Class<?> valueClass, IType type, ICoercer coercer, boolean bNullIsResult, boolean bUncoerced )
+  {
+    return new CoercionPlan( valueClass, type, coercer, false,
+                             bNullIsResult ? null : bUncoerced ? UNCOERCED : StandardCoercionManager.NO_DICE );
+  }
+
+  private CoercionPlan( Class<?> valueClass, IType type, ICoercer coercer, boolean bIdentity, Object nullResult )
+  {
+    _valueClass = valueClass;
+    _type = type;
+    _coercer = coercer;
+    _bIdentity = bIdentity;
+    _nullResult = nullResult;
+  }
+
+  /**
+   * @return True if the plan converts the value, i.e., the value has the class the plan was made for
+   */
+  public boolean appliesTo( Object value )
+  {
+    return value != null && value.getClass() == _valueClass;
+  }
+
+  /**
+   * @return True if the plan's conversion returns values unchanged
+   */
+  public boolean isIdentity()
+  {
+    return _bIdentity;
+  }
+
+  /**
+   * @param value A value this plan {@link #appliesTo applies to}
+   *
+   * @return The value converted to the plan's type
+   */
+  public Object convert( Object value )
+  {
+    if( _bIdentity )
+    {
+      return value;
+    }
+    Object result = _coercer == null ? null : _coercer.coerceValue( _type, value );
+    if( result != null )
+    {
+      return result;
+    }
+    return _nullResult == UNCOERCED ? value : _nullResult;
+  }
+}
@@ -31,6 +31,22 @@ public interface ICoercionManager extends IService
    */
   Object convertValue(Object value, IType intrType);
 
+  /**
+   * Returns a plan for converting values of the same class as the given value to intrType, with the
+   * same result as {@link #convertValue(Object, IType)}. A call site that sees values of one class
+   * over and over can keep the plan and check {@link CoercionPlan#appliesTo} instead of calling
+   * convertValue() each time. Plans must be dropped when the type system is refreshed.
+   *
+   * @param value    a sample value to convert
+   * @param intrType type to convert to
+   *
+   * @return the plan, or null if values like this one must be converted with convertValue()
+   */
+  default CoercionPlan getCoercionPlan( Object value, IType intrType )
+  {
+    return null;
+  }
+
   boolean notCoercibleOrRequiresExplicitCoercion( IType lhsType, IType rhsType );
 
   /**
@@ -67,6 +67,17 @@ public class StandardCoercionManager extends BaseService implements ICoercionMan
                                    }
                                  } )/*.logEveryNSeconds( 10, new SystemOutLogger( SystemOutLogger.LoggingLevel.INFO ) )*/;
 
+  // Runtime conversion plans, see getCoercionPlan()
+  private final TypeSystemAwareCache<PlanKey, CoercionPlan> _coercionPlanCache =
+      TypeSystemAwareCache.make( "Coercion Plan Cache", 1000,
+                                 new Cache.MissHandler<PlanKey, CoercionPlan>()
+                                 {
+                                   public final CoercionPlan load( PlanKey key )
+                                   {
+                                     return makeCoercionPlan( key._type, key._runtimeType, key._valueClass );
+                                   }
+                                 } );
+
   public final boolean canCoerce( IType lhsType, IType rhsType )
   {
     ICoercer iCoercer = findCoercer( lhsType, rhsType, false );
@@ -1068,14 +1079,116 @@ public class StandardCoercionManager extends BaseService implements ICoercionMan
     }
 
     IType runtimeType = TypeSystem.getFromObject( value );
+    if( intrType == runtimeType )
+    {
+      return value;
+    }
+
+    // Everything but the coercion itself depends only on the types and the value's class
+    if( runtimeType != null && !(value instanceof IGosuObject) )
+    {
+      return _coercionPlanCache.get( new PlanKey( intrType, runtimeType, value.getClass() ) ).convert( value );
+    }
+
+    if( isIdentityConversion( intrType, runtimeType, value.getClass() ) )
+    {
+      return extractObjectArray( intrType, value );
+    }
+
+    //==================================================================================
+    // Coercion
+    //==================================================================================
+    Object convertedValue = coerce( intrType, runtimeType, value );
+    if( convertedValue != null )
+    {
+      return convertedValue;
+    }
+    else
+    {
+      //If the null arose from an actual coercion, return it
+      if( canCoerce( intrType, runtimeType ) )
+      {
+        return convertedValue;
+      }
+      else
+      {
+        //otherwise, return the value itself uncoerced (See comment above)
+        if( !runtimeType.isArray() )
+        {
+          return NO_DICE;
+        }
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Plans are not made for null and Gosu objects, because the type of a Gosu object can depend on
+   * the instance. convertValue() uses the same plans for all other values.
+   */
+  @Override
+  public CoercionPlan getCoercionPlan( Object value, IType intrType )
+  {
+    if( value == null || value instanceof IGosuObject || intrType == null )
+    {
+      return null;
+    }
+    IType runtimeType = TypeSystem.getFromObject( value );
+    return runtimeType == null
+           ? null
+           : _coercionPlanCache.get( new PlanKey( getBoundingTypeOfTypeVariable( intrType ), runtimeType, value.getClass() ) );
+  }
+
+  private CoercionPlan makeCoercionPlan( IType intrType, IType runtimeType, Class<?> valueClass )
+  {
+    if( isIdentityConversion( intrType, runtimeType, valueClass ) )
+    {
+      return CoercionPlan.identity( valueClass, intrType );
+    }
+    return CoercionPlan.coerce( valueClass, intrType, findCoercer( intrType, runtimeType, true ),
+                                canCoerce( intrType, runtimeType ), runtimeType.isArray() );
+  }
+
+  private static final class PlanKey
+  {
+    private final IType _type;
+    private final IType _runtimeType;
+    private final Class<?> _valueClass;
+
+    PlanKey( IType type, IType runtimeType, Class<?> valueClass )
+    {
+      _type = type;
+      _runtimeType = runtimeType;
+      _valueClass = valueClass;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+      if( !(o instanceof PlanKey) )
+      {
+        return false;
+      }
+      PlanKey key = (PlanKey)o;
+      return _valueClass == key._valueClass && _type.equals( key._type ) && _runtimeType.equals( key._runtimeType );
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return 31 * (31 * _type.hashCode() + _runtimeType.hashCode()) + _valueClass.hashCode();
+    }
+  }
 
+  private boolean isIdentityConversion( IType intrType, IType runtimeType, Class<?> valueClass )
+  {
     //==================================================================================
     // IPlaceholder type handling
     //==================================================================================
     if( (intrType instanceof IPlaceholder && ((IPlaceholder)intrType).isPlaceholder()) ||
         (runtimeType instanceof IPlaceholder && ((IPlaceholder)runtimeType).isPlaceholder()) )
     {
-      return value;
+      return true;
     }
 
     //==================================================================================
@@ -1083,28 +1196,26 @@ public class StandardCoercionManager extends BaseService implements ICoercionMan
     //==================================================================================
     if( intrType == runtimeType )
     {
-      return value;
+      return true;
     }
     if( intrType.equals( runtimeType ) )
     {
-      return value;
+      return true;
     }
     if( intrType.isAssignableFrom( runtimeType ) )
     {
-      value = extractObjectArray( intrType, value );
-      return value;
+      return true;
     }
     if( intrType.isArray() && runtimeType.isArray() )
     {
       if( intrType.getComponentType().isAssignableFrom( runtimeType.getComponentType() ) )
       {
-        value = extractObjectArray( intrType, value );
-        return value;
+        return true;
       }
       else if( intrType instanceof IGosuArrayClass &&
-               value instanceof IGosuObject[] )
+               IGosuObject[].class.isAssignableFrom( valueClass ) )
       {
-        return value;
+        return true;
       }
     }
     // Proxy coercion. The proxy class generated for Java classes is not a super type of the Gosu class.
@@ -1115,48 +1226,23 @@ public class StandardCoercionManager extends BaseService implements ICoercionMan
         intrType.getSupertype() != null &&
         intrType.getSupertype().isAssignableFrom( runtimeType ) )
     {
-      return value;
+      return true;
     }
 
     // Check Java world types
     //noinspection deprecation,unchecked
     if( intrType instanceof IJavaType &&
-        ((IJavaType)intrType).getIntrinsicClass().isAssignableFrom( value.getClass() ) )
+        ((IJavaType)intrType).getIntrinsicClass().isAssignableFrom( valueClass ) )
     {
-      return value;
+      return true;
     }
 
     // casts to structs are dynamic, pass value through unchanged
     if( intrType instanceof IGosuClass && ((IGosuClass)intrType).isStructure() )
     {
-      return value;
-    }
-
-    //==================================================================================
-    // Coercion
-    //==================================================================================
-    Object convertedValue = coerce( intrType, runtimeType, value );
-    if( convertedValue != null )
-    {
-      return convertedValue;
-    }
-    else
-    {
-      //If the null arose from an actual coercion, return it
-      if( canCoerce( intrType, runtimeType ) )
-      {
-        return convertedValue;
-      }
-      else
-      {
-        //otherwise, return the value itself uncoerced (See comment above)
-        if( !runtimeType.isArray() )
-        {
-          return NO_DICE;
-        }
-        return value;
-      }
+      return true;
     }
+    return false;
   }
 
   private IType getBoundingTypeOfTypeVariable( IType intrType )
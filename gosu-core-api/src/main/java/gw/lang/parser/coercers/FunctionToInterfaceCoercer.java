@@ -52,8 +52,11 @@ public class FunctionToInterfaceCoercer extends BaseCoercer implements IResolvin
     }
     else if( value instanceof IBlock )
     {
-      IGosuClass proxyClass = GosuShop.getBlockToInterfaceConversionClass( typeToCoerceTo, TypeSystem.get( value.getClass().getEnclosingClass() ) );
       IBlock blk = (IBlock)value;
+      Class enclosingClass = value.getClass().getEnclosingClass();
+      // A lifted block's class is shared by all lifted blocks, its block type knows the enclosing class
+      IType enclosingType = enclosingClass != null ? TypeSystem.get( enclosingClass ) : blk.getIntrinsicType().getEnclosingType();
+      IGosuClass proxyClass = GosuShop.getBlockToInterfaceConversionClass( typeToCoerceTo, enclosingType );
       try {
         //noinspection unchecked
         return proxyClass.getBackingClass().getConstructor( IBlock.class ).newInstance( blk );
@@ -14,4 +14,19 @@ public interface IExtendedTypeLoader extends ITypeLoader
    * @return the IType for the object
    */
   public IType getIntrinsicTypeFromObject( Object object );
+
+  /**
+   * Returns true if getIntrinsicTypeFromObject() returns the same type, or null, for every
+   * instance of the given class. The type system then caches the type per class until the next
+   * refresh. Gosu objects and types are never cached this way. Override to return false for classes
+   * whose type depends on the instance.
+   *
+   * @param cls the class of an object passed to getIntrinsicTypeFromObject()
+   *
+   * @return true if the intrinsic type of the class's instances depends only on the class
+   */
+  default boolean isIntrinsicTypeFromClass( Class<?> cls )
+  {
+    return true;
+  }
 }
\ No newline at end of file
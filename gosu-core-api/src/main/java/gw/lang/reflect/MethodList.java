@@ -16,7 +16,9 @@ public class MethodList extends DynamicArray<IMethodInfo>
 {
   public static final MethodList EMPTY = new MethodList();
 
-  private HashMap<String, DynamicArray<IMethodInfo>> _map = new HashMap<>();
+  // Built on the first lookup by name. Many lists, e.g., the per-accessibility lists of every
+  // parameterization of a generic type, are only ever iterated.
+  private volatile HashMap<String, DynamicArray<IMethodInfo>> _map;
 
   public MethodList()
   {
@@ -35,7 +37,6 @@ public class MethodList extends DynamicArray<IMethodInfo>
   protected MethodList( MethodList source )
   {
     super( source );
-    _map = new HashMap<>( source._map );
   }
 
   @Override
@@ -62,28 +63,51 @@ public class MethodList extends DynamicArray<IMethodInfo>
   @Override
   public boolean add( IMethodInfo method )
   {
-    addToMap( method );
+    HashMap<String, DynamicArray<IMethodInfo>> map = _map;
+    if( map != null )
+    {
+      addToMap( map, method );
+    }
     return super.add( method );
   }
 
   @Override
   public boolean addAll( Collection<? extends IMethodInfo> c )
   {
-    for( IMethodInfo method : c )
+    HashMap<String, DynamicArray<IMethodInfo>> map = _map;
+    if( map != null )
     {
-      addToMap( method );
+      for( IMethodInfo method : c )
+      {
+        addToMap( map, method );
+      }
     }
     return super.addAll( c );
   }
 
-  private void addToMap( IMethodInfo method )
+  private HashMap<String, DynamicArray<IMethodInfo>> getMap()
+  {
+    HashMap<String, DynamicArray<IMethodInfo>> map = _map;
+    if( map == null )
+    {
+      map = new HashMap<>();
+      for( int i = 0; i < size; i++ )
+      {
+        addToMap( map, (IMethodInfo)data[i] );
+      }
+      _map = map;
+    }
+    return map;
+  }
+
+  private static void addToMap( HashMap<String, DynamicArray<IMethodInfo>> map, IMethodInfo method )
   {
     String displayName = method.getDisplayName();
-    DynamicArray<IMethodInfo> methods = _map.get( displayName );
+    DynamicArray<IMethodInfo> methods = map.get( displayName );
     if( methods == null )
     {
       methods = new DynamicArray<>( 1 );
-      _map.put( displayName, methods );
+      map.put( displayName, methods );
     }
     methods.add( method );
   }
@@ -91,11 +115,15 @@ public class MethodList extends DynamicArray<IMethodInfo>
   @Override
   public IMethodInfo remove( int index )
   {
-    IMethodInfo oldMethod = get( index );
-    String displayName = oldMethod.getDisplayName();
-    DynamicArray<IMethodInfo> methods = _map.get( displayName );
-    int i = methods.indexOf( oldMethod );
-    methods.remove( i );
+    HashMap<String, DynamicArray<IMethodInfo>> map = _map;
+    if( map != null )
+    {
+      IMethodInfo oldMethod = get( index );
+      String displayName = oldMethod.getDisplayName();
+      DynamicArray<IMethodInfo> methods = map.get( displayName );
+      int i = methods.indexOf( oldMethod );
+      methods.remove( i );
+    }
 
     return super.remove( index );
   }
@@ -103,11 +131,15 @@ public class MethodList extends DynamicArray<IMethodInfo>
   @Override
   public IMethodInfo set( int index, IMethodInfo method )
   {
-    IMethodInfo oldMethod = get( index );
-    String displayName = method.getDisplayName();
-    DynamicArray<IMethodInfo> methods = _map.get( displayName );
-    int i = methods.indexOf( oldMethod );
-    methods.set( i, method );
+    HashMap<String, DynamicArray<IMethodInfo>> map = _map;
+    if( map != null )
+    {
+      IMethodInfo oldMethod = get( index );
+      String displayName = method.getDisplayName();
+      DynamicArray<IMethodInfo> methods = map.get( displayName );
+      int i = methods.indexOf( oldMethod );
+      methods.set( i, method );
+    }
 
     return super.set( index, method );
   }
@@ -141,7 +173,7 @@ public class MethodList extends DynamicArray<IMethodInfo>
 
   public DynamicArray<? extends IMethodInfo> getMethods( String name )
   {
-    DynamicArray<IMethodInfo> methodInfoList = _map.get( name );
+    DynamicArray<IMethodInfo> methodInfoList = getMap().get( name );
     return methodInfoList != null ? methodInfoList : DynamicArray.EMPTY;
   }
 
@@ -180,7 +212,7 @@ public class MethodList extends DynamicArray<IMethodInfo>
   public void clear()
   {
     super.clear();
-    _map.clear();
+    _map = null;
   }
 
   @SuppressWarnings("NullableProblems")
@@ -280,7 +312,7 @@ public class MethodList extends DynamicArray<IMethodInfo>
 
   public Collection<DynamicArray<IMethodInfo>> getMethodBuckets()
   {
-    return _map.values();
+    return getMap().values();
   }
 
   public static IType maybeInferParamType( TypeVarToTypeMap inferenceMap, IType ownersType, IType fromParamType, IType toParamType )
@@ -4,7 +4,6 @@
 
 package gw.lang.reflect;
 
-import gw.lang.javadoc.IDocRef;
 import gw.lang.javadoc.IParamNode;
 import gw.lang.javadoc.JavaHasParams;
 
@@ -17,17 +16,6 @@ public class SimpleParameterInfo extends BaseFeatureInfo implements IParameterIn
   private String _name;
   private int _parentIndex;
 
-  private IDocRef<IParamNode> _docs = new IDocRef<IParamNode>() {
-    @Override
-    public IParamNode get() {
-      if (getContainer() instanceof JavaHasParams ) {
-        return ((JavaHasParams)getContainer()).getDocsForParam(_parentIndex).get();
-      }
-
-      return null;
-    }
-  };
-
   /**
    */
   public SimpleParameterInfo(IFeatureInfo container, IType type, int parentIndex)
@@ -55,7 +43,11 @@ public class SimpleParameterInfo extends BaseFeatureInfo implements IParameterIn
   }
 
   private IParamNode getDocs() {
-    return _docs.get();
+    if (getContainer() instanceof JavaHasParams ) {
+      return ((JavaHasParams)getContainer()).getDocsForParam(_parentIndex).get();
+    }
+
+    return null;
   }
 
   public List<IAnnotationInfo> getDeclaredAnnotations()
@@ -33,6 +33,9 @@ import gw.lang.reflect.module.IModule;
 import gw.lang.reflect.module.IProject;
 import gw.util.IFeatureFilter;
 import gw.util.perf.InvocationCounter;
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.IPhaseTimer;
 
 import java.io.File;
 import java.lang.reflect.Method;
@@ -264,7 +267,23 @@ public class TypeSystem
    */
   public static void lock()
   {
-    GLOBAL_LOCK.lock();
+    if( !GosuMetrics.isEnabled() )
+    {
+      GLOBAL_LOCK.lock();
+    }
+    else if( !GLOBAL_LOCK.tryLock() )
+    {
+      // contended, measure the wait
+      IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.LOCK_WAIT, null );
+      try
+      {
+        GLOBAL_LOCK.lock();
+      }
+      finally
+      {
+        timer.stop();
+      }
+    }
   }
 
   /**
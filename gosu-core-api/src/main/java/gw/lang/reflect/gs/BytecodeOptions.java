@@ -16,6 +16,12 @@ public class BytecodeOptions
   private static boolean COLLECT_COMPILATION_STATISTICS = false;
   private static boolean GENERATE_ANNOTATIONS_TO_CLASS_FILES = true;
   private static boolean TREE_VERIFICATION_ENABLED = false;
+  private static boolean GLOBAL_COMMON_SUPER_CLASS_CACHE = !Boolean.getBoolean( "gosu.frames.noGlobalCache" );
+  private static boolean RELEASE_PARSE_TREES = Boolean.getBoolean( "gosu.runtime.releaseParseTrees" );
+  private static boolean OPTIMIZE_IR = !"false".equals( System.getProperty( "gosu.ir.optimize" ) );
+  private static boolean INDY_STRING_CONCAT = Boolean.getBoolean( "gosu.indy.concat" );
+  private static int INTERPRETER_THRESHOLD = Integer.getInteger( "gosu.interpreter.threshold", 2 );
+  private static boolean LIFT_BLOCKS = Boolean.getBoolean( "gosu.blocks.lift" );
 
   public static final String RELOAD_CLASSES_SYSTEM_PROP = "gosu.can.reload.classes";
 
@@ -101,6 +107,101 @@ public class BytecodeOptions
     return System.getProperty( "java.vm.name" ).contains( "Dynamic Code Evolution" );
   }
 
+  /**
+   * @return true if common superclass results computed for stack map frames are shared across
+   *   compilations (cleared on refresh), false to keep them only for the class being compiled
+   */
+  public static boolean isGlobalCommonSuperClassCache()
+  {
+    return GLOBAL_COMMON_SUPER_CLASS_CACHE;
+  }
+
+  public static void setGlobalCommonSuperClassCache( boolean bGlobal )
+  {
+    GLOBAL_COMMON_SUPER_CLASS_CACHE = bGlobal;
+  }
+
+  /**
+   * @return true if, at runtime, function and block bodies of a top-level class and its nested
+   *   classes are dropped once the class's bytecode is generated. Bytecode for a released class is
+   *   generated only once, so classes that may be defined again, in a single-serving loader or when
+   *   classes can be reloaded, keep their trees. Off by default and ignored while a debugger is
+   *   attached, since evaluating expressions in a frame needs the parse tree.
+   */
+  public static boolean isReleaseParseTreesAfterCompile()
+  {
+    return RELEASE_PARSE_TREES && !JDWP_ENABLED.get();
+  }
+
+  public static void setReleaseParseTreesAfterCompile( boolean bRelease )
+  {
+    RELEASE_PARSE_TREES = bRelease;
+  }
+
+  /**
+   * @return true if the IR of a Gosu class goes through the optimization passes before bytecode is
+   *   generated from it. On by default, set the system property gosu.ir.optimize to false to turn
+   *   it off.
+   */
+  public static boolean isOptimizeIR()
+  {
+    return OPTIMIZE_IR;
+  }
+
+  public static void setOptimizeIR( boolean bOptimize )
+  {
+    OPTIMIZE_IR = bOptimize;
+  }
+
+  /**
+   * @return true if string concatenation compiles to an invokedynamic call bootstrapped by
+   *   java.lang.invoke.StringConcatFactory when the compiling JVM has it (Java 9 and later). Off by
+   *   default: Gosu writes Java 8 class files, and classes compiled ahead of time on a newer JDK must
+   *   still run on Java 8. Set the system property gosu.indy.concat to true only when every JVM
+   *   running the compiled classes is Java 9 or later.
+   */
+  public static boolean isIndyStringConcat()
+  {
+    return INDY_STRING_CONCAT;
+  }
+
+  public static void setIndyStringConcat( boolean bIndy )
+  {
+    INDY_STRING_CONCAT = bIndy;
+  }
+
+  /**
+   * @return the number of times a program, or the program compiled for an eval expression, runs in
+   *   the IR interpreter before its class is compiled to bytecode, so code that runs once is not
+   *   compiled and loaded at all. 0 compiles programs before their first run. Set with the system
+   *   property gosu.interpreter.threshold, ignored while a debugger is attached so breakpoints in
+   *   programs are hit.
+   */
+  public static int getInterpreterThreshold()
+  {
+    return JDWP_ENABLED.get() ? 0 : INTERPRETER_THRESHOLD;
+  }
+
+  public static void setInterpreterThreshold( int iThreshold )
+  {
+    INTERPRETER_THRESHOLD = iThreshold;
+  }
+
+  /**
+   * @return true if simple blocks compile to a synthetic static method on their enclosing class
+   *   instead of to a class of their own, see gw.lang.function.LiftedBlockSite. Saves defining and
+   *   loading a class for each block. Set with the system property gosu.blocks.lift.
+   */
+  public static boolean isLiftBlocks()
+  {
+    return LIFT_BLOCKS;
+  }
+
+  public static void setLiftBlocks( boolean bLift )
+  {
+    LIFT_BLOCKS = bLift;
+  }
+
   public static boolean isTreeVerifcationEnabled()
   {
     return TREE_VERIFICATION_ENABLED;
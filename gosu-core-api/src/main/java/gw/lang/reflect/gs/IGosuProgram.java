@@ -47,8 +47,8 @@ public interface IGosuProgram extends IGosuClass
     }
     public static Object runProgram( String strProgram, ISymbolTable symTable, IType expectedType ) throws Exception
     {
-      IProgramInstance instance = getProgramInstance( strProgram, symTable, expectedType );
-      return instance.evaluate(null);
+      IGosuProgram gp = parse( strProgram, symTable, expectedType );
+      return gp.evaluate( null );
     }
 
     public static IProgramInstance getProgramInstance( String strProgram ) throws Exception
@@ -60,6 +60,12 @@ public interface IGosuProgram extends IGosuClass
       return getProgramInstance( strProgram, symTable, null );
     }
     public static IProgramInstance getProgramInstance( String strProgram, ISymbolTable symTable, IType expectedType ) throws Exception
+    {
+      Class<?> javaClass = parse( strProgram, symTable, expectedType ).getBackingClass();
+      return (IProgramInstance)javaClass.newInstance();
+    }
+
+    private static IGosuProgram parse( String strProgram, ISymbolTable symTable, IType expectedType ) throws Exception
     {
       IGosuProgramParser pcp = GosuParserFactory.createProgramParser();
       IParseResult res = pcp.parseProgramOnly( strProgram, symTable, new ParserOptions().withExpectedType(expectedType) );
@@ -68,9 +74,7 @@ public interface IGosuProgram extends IGosuClass
       {
         throw gp.getParseResultsException();
       }
-
-      Class<?> javaClass = gp.getBackingClass();
-      return (IProgramInstance)javaClass.newInstance();
+      return gp;
     }
   }
 }
\ No newline at end of file
@@ -9,7 +9,6 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.ArrayList;
-import java.util.Formatter;
 import java.util.List;
 import java.util.Iterator;
 import java.util.Locale;
@@ -5990,11 +5989,13 @@ public class GosuStringUtil
       throw GosuExceptionUtil.forceThrow(e);
     }
     byte[] bytes = md.digest(StreamUtil.toBytes(s));
-    StringBuilder result = new StringBuilder();
-    Formatter fm = new Formatter(result);
+    char[] result = new char[bytes.length * 2];
     for (int i = 0; i < bytes.length; i++) {
-      fm.format("%02X", bytes[i]);
+      result[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+      result[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
     }
-    return result.toString();
+    return new String(result);
   }
+
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 }
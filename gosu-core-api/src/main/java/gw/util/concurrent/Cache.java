@@ -12,21 +12,33 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.math.BigDecimal;
 
 import gw.util.concurrent.Cache.ConcurrentLinkedHashMap.Node.State;
+import gw.util.GosuExceptionUtil;
 import gw.util.ILogger;
+import gw.util.perf.metrics.GosuMetrics;
 
 /**
  * static var MY_CACHE = new Cache<Foo, Bar>( 1000, \ foo -> getBar( foo ) )
+ * <p/>
+ * Concurrent misses of the same key each load the value, the first value cached is kept. To load it
+ * once instead, see {@link #setLoadOnce(boolean)}. Besides the
+ * number of entries the cache can be bounded by the total weight of its entries, see
+ * {@link #setMaxWeight(long, Weigher)}, and an {@link EvictionHandler} can release the resources of
+ * evicted values. Hits, misses and evictions are also reported to {@link GosuMetrics} as the
+ * counters gosu.cache.&lt;name&gt;.hits, .misses and .evictions.
  */
 public class Cache<K, V> {
 
@@ -34,11 +46,21 @@ public class Cache<K, V> {
   private final MissHandler<K,V> _missHandler;
   private final String _name;
   private final int _size;
+  private long _maxWeight = Long.MAX_VALUE;
+  private Weigher<K, V> _weigher;
+  private volatile EvictionHandler<K, V> _evictionHandler;
+  private volatile boolean _loadOnce;
+  private final ConcurrentMap<K, Loading<V>> _loading = new ConcurrentHashMap<K, Loading<V>>();
 
   //statistics
   private final AtomicInteger _requests = new AtomicInteger();
   private final AtomicInteger _misses = new AtomicInteger();
   private final AtomicInteger _hits = new AtomicInteger();
+  private final AtomicInteger _evictions = new AtomicInteger();
+  private final AtomicLong _loadNanos = new AtomicLong();
+  private final String _hitsCounter;
+  private final String _missesCounter;
+  private final String _evictionsCounter;
 
   private ScheduledFuture<?> _loggingTask;
 
@@ -51,12 +73,76 @@ public class Cache<K, V> {
   public Cache( String name, int size, MissHandler<K, V> missHandler) {
     _name = name;
     _size = size;
+    _hitsCounter = "gosu.cache." + name + ".hits";
+    _missesCounter = "gosu.cache." + name + ".misses";
+    _evictionsCounter = "gosu.cache." + name + ".evictions";
     clearCacheImpl();
     _missHandler = missHandler;
   }
 
   private void clearCacheImpl() {
-    _cacheImlp = new ConcurrentLinkedHashMap<K,V>(ConcurrentLinkedHashMap.EvictionPolicy.SECOND_CHANCE, _size);
+    _cacheImlp = new ConcurrentLinkedHashMap<K,V>(ConcurrentLinkedHashMap.EvictionPolicy.SECOND_CHANCE, _size,
+                                                  new ConcurrentLinkedHashMap.EvictionListener<K, V>() {
+                                                    public void onEviction(K key, V value) {
+                                                      evicted(key, value);
+                                                    }
+                                                  });
+    _cacheImlp.setMaxWeight(_maxWeight, _weigher);
+  }
+
+  private void evicted(K key, V value) {
+    _evictions.incrementAndGet();
+    GosuMetrics.incrementCounter(_evictionsCounter, 1);
+    EvictionHandler<K, V> handler = _evictionHandler;
+    if (handler != null) {
+      handler.evicted(key, value);
+    }
+  }
+
+  /**
+   * Bounds the cache by the total weight of its entries in addition to their number. Set this
+   * before the cache is used, entries already in the cache weigh nothing.
+   *
+   * @param maxWeight the maximum total weight of the entries
+   * @param weigher the weight of an entry
+   * @return this
+   */
+  public Cache<K, V> setMaxWeight(long maxWeight, Weigher<K, V> weigher) {
+    _maxWeight = maxWeight;
+    _weigher = weigher;
+    _cacheImlp.setMaxWeight(maxWeight, weigher);
+    return this;
+  }
+
+  /**
+   * @param handler called with each entry evicted to make room for others, e.g., to release
+   *                resources the value holds. It is not called for entries removed by
+   *                {@link #evict(Object)} or {@link #clear()}.
+   * @return this
+   */
+  public Cache<K, V> setEvictionHandler(EvictionHandler<K, V> handler) {
+    _evictionHandler = handler;
+    return this;
+  }
+
+  /**
+   * @param loadOnce true if concurrent misses of the same key load the value once and the other
+   *                 threads wait for it. Only for miss handlers that take no lock a caller may hold
+   *                 while it gets from the cache, else the waiting caller and the loading thread
+   *                 deadlock. See also {@link #canWaitForLoad(Object)}.
+   * @return this
+   */
+  public Cache<K, V> setLoadOnce(boolean loadOnce) {
+    _loadOnce = loadOnce;
+    return this;
+  }
+
+  /**
+   * When loading once, whether the current thread may wait for another thread to load the key,
+   * or must load it itself e.g., because it holds a lock the load needs.
+   */
+  protected boolean canWaitForLoad(K key) {
+    return true;
   }
 
   /** This will evict a specific key from the cache.
@@ -84,18 +170,78 @@ public class Cache<K, V> {
    * @return the found object (may be null)
    */
   public V get(K key) {
+    return get(key, _missHandler);
+  }
+
+  /** This will get a specific entry, it will call the given missHandler if it is not found.
+   *
+   * @param key the object to find
+   * @param missHandler loads the value if it is not found, a null value is not cached
+   * @return the found object (may be null)
+   */
+  public V get(K key, MissHandler<K, V> missHandler) {
     V value = _cacheImlp.get(key);
     _requests.incrementAndGet();
     if (value == null) {
-      value = _missHandler.load(key);
-      _cacheImlp.put(key, value);
       _misses.incrementAndGet();
+      GosuMetrics.incrementCounter(_missesCounter, 1);
+      value = _loadOnce && canWaitForLoad(key) ? loadOnce(key, missHandler) : load(key, missHandler);
     } else {
       _hits.incrementAndGet();
+      GosuMetrics.incrementCounter(_hitsCounter, 1);
+    }
+    return value;
+  }
+
+  /**
+   * @return the entry for the key, or null if it is not cached. Does not count as a request.
+   */
+  public V getIfPresent(K key) {
+    return _cacheImlp.get(key);
+  }
+
+  private V load(K key, MissHandler<K, V> missHandler) {
+    long start = System.nanoTime();
+    V value = missHandler.load(key);
+    _loadNanos.addAndGet(System.nanoTime() - start);
+    if (value != null) {
+      V cached = _cacheImlp.putIfAbsent(key, value);
+      if (cached != null) {
+        value = cached;
+      }
     }
     return value;
   }
 
+  /**
+   * Loads the value for a key once no matter how many threads miss it at the same time
+   */
+  private V loadOnce(K key, MissHandler<K, V> missHandler) {
+    Loading<V> loading = new Loading<V>();
+    Loading<V> inProgress = _loading.putIfAbsent(key, loading);
+    if (inProgress != null) {
+      if (inProgress._thread == Thread.currentThread()) {
+        // loading the value needs the value, don't wait for ourselves
+        return load(key, missHandler);
+      }
+      return inProgress.await();
+    }
+    try {
+      // another thread may have finished loading it since the miss
+      V value = _cacheImlp.get(key);
+      if (value == null) {
+        value = load(key, missHandler);
+      }
+      loading._value.complete(value);
+      return value;
+    } catch (Throwable t) {
+      loading._value.completeExceptionally(t);
+      throw GosuExceptionUtil.forceThrow(t);
+    } finally {
+      _loading.remove(key, loading);
+    }
+  }
+
   public int getConfiguredSize() {
     return _size;
   }
@@ -116,6 +262,21 @@ public class Cache<K, V> {
     return _hits.get();
   }
 
+  public int getEvictions() {
+    return _evictions.get();
+  }
+
+  /**
+   * @return the total time spent loading values in nanoseconds
+   */
+  public long getLoadTime() {
+    return _loadNanos.get();
+  }
+
+  public long getUtilizedWeight() {
+    return _cacheImlp.weight();
+  }
+
   public double getHitRate() {
     int requests = getRequests();
     int hits = getHits();
@@ -158,16 +319,42 @@ public class Cache<K, V> {
     public W load(L key);
   }
 
+  public interface Weigher<L, W> {
+    public int weigh(L key, W value);
+  }
+
+  public interface EvictionHandler<L, W> {
+    public void evicted(L key, W value);
+  }
+
+  private static class Loading<W> {
+    private final Thread _thread = Thread.currentThread();
+    private final CompletableFuture<W> _value = new CompletableFuture<W>();
+
+    private W await() {
+      try {
+        return _value.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        throw GosuExceptionUtil.forceThrow(e.getCause());
+      }
+    }
+  }
+
   public void clear() {
     clearCacheImpl();
     _hits.set(0);
     _misses.set(0);
     _requests.set(0);
+    _evictions.set(0);
+    _loadNanos.set(0);
   }
 
   @Override
   public String toString() {
-    return "Cache \"" + _name + "\"( Hits:" + getHits() + ", Misses:" + getMisses() + ", Requests:" + getRequests() + ", Hit rate:" + BigDecimal.valueOf(getHitRate() * 100.0).setScale(2, BigDecimal.ROUND_DOWN) + "% )";
+    return "Cache \"" + _name + "\"( Hits:" + getHits() + ", Misses:" + getMisses() + ", Requests:" + getRequests() + ", Evictions:" + getEvictions() + ", Hit rate:" + BigDecimal.valueOf(getHitRate() * 100.0).setScale(2, BigDecimal.ROUND_DOWN) + "% )";
   }
 
   public static <K, V> Cache<K, V> make(String name, int size, MissHandler<K, V> handler) {
@@ -219,6 +406,9 @@ public class Cache<K, V> {
     final AtomicInteger capacity;
     final EvictionPolicy policy;
     final AtomicInteger length;
+    final AtomicLong weight;
+    volatile long maxWeight = Long.MAX_VALUE;
+    volatile Weigher<? super K, ? super V> weigher;
     final Node<K, V> head;
     final Node<K, V> tail;
 
@@ -251,6 +441,7 @@ public class Cache<K, V> {
       this.data = new ConcurrentHashMap<K, Node<K, V>>(maximumCapacity, 0.75f, concurrencyLevel);
       this.capacity = new AtomicInteger(maximumCapacity);
       this.length = new AtomicInteger();
+      this.weight = new AtomicLong();
       this.head = new Node<K, V>();
       this.tail = new Node<K, V>();
       this.policy = policy;
@@ -267,7 +458,40 @@ public class Cache<K, V> {
      * @return Whether the map has overflowed and an entry should be evicted.
      */
     private boolean isOverflow() {
-      return length.get() > capacity();
+      return length.get() > capacity() || weight.get() > maxWeight;
+    }
+
+    /**
+     * Bounds the total weight of the entries, entries added before a weigher is set weigh nothing.
+     */
+    public void setMaxWeight(long maxWeight, Weigher<? super K, ? super V> weigher) {
+      if (maxWeight < 0) {
+        throw new IllegalArgumentException();
+      }
+      this.weigher = weigher;
+      this.maxWeight = maxWeight;
+      while (isOverflow()) {
+        evict();
+      }
+    }
+
+    /**
+     * @return the total weight of the entries
+     */
+    public long weight() {
+      return weight.get();
+    }
+
+    private int weigh(K key, V value) {
+      Weigher<? super K, ? super V> weigher = this.weigher;
+      return weigher == null ? 0 : weigher.weigh(key, value);
+    }
+
+    private V setValue(Node<K, V> node, V value) {
+      int newWeight = weigh(node.getKey(), value);
+      weight.addAndGet(newWeight - node.weight);
+      node.weight = newWeight;
+      return node.getAndSetValue(value);
     }
 
     /**
@@ -341,11 +565,13 @@ public class Cache<K, V> {
           V value = node.getValue();
           if (value != null) {
             K key = node.getKey();
-            data.remove(key);
+            if (data.remove(key, node)) {
+              weight.addAndGet(-node.weight);
+            }
             notifyEviction(key, value);
           }
           length.decrementAndGet();
-          return;
+          continue;
         }
         offer(node);
       }
@@ -421,9 +647,11 @@ public class Cache<K, V> {
      * @return The previous value in the data store.
      */
     private Node<K, V> putIfAbsent(Node<K, V> node) {
+      node.weight = weigh(node.getKey(), node.getValue());
       Node<K, V> old = data.putIfAbsent(node.getKey(), node);
       if (old == null) {
         length.incrementAndGet();
+        weight.addAndGet(node.weight);
         offer(node);
         evict();
       }
@@ -452,7 +680,7 @@ public class Cache<K, V> {
         throw new IllegalArgumentException();
       }
       Node<K, V> old = putIfAbsent(new Node<K, V>(key, value));
-      return (old == null) ? null : old.getAndSetValue(value);
+      return (old == null) ? null : setValue(old, value);
     }
 
     /**
@@ -472,6 +700,7 @@ public class Cache<K, V> {
     public V remove(Object key) {
       Node<K, V> node = data.remove(key);
       if (node != null) {
+        weight.addAndGet(-node.weight);
         V value = node.getValue();
         policy.onRemove(this, node);
         return value;
@@ -485,6 +714,7 @@ public class Cache<K, V> {
     public boolean remove(Object key, Object value) {
       Node<K, V> node = data.get(key);
       if ((node != null) && node.value.equals(value) && data.remove(key, node)) {
+        weight.addAndGet(-node.weight);
         policy.onRemove(this, node);
         return true;
       }
@@ -499,7 +729,7 @@ public class Cache<K, V> {
         throw new IllegalArgumentException();
       }
       Node<K, V> node = data.get(key);
-      return (node == null) ? null : node.getAndSetValue(value);
+      return (node == null) ? null : setValue(node, value);
     }
 
     /**
@@ -510,7 +740,13 @@ public class Cache<K, V> {
         throw new IllegalArgumentException();
       }
       Node<K, V> node = data.get(key);
-      return (node != null) && node.casValue(oldValue, newValue);
+      if ((node != null) && node.casValue(oldValue, newValue)) {
+        int newWeight = weigh(key, newValue);
+        weight.addAndGet(newWeight - node.weight);
+        node.weight = newWeight;
+        return true;
+      }
+      return false;
     }
 
     /**
@@ -578,6 +814,7 @@ public class Cache<K, V> {
       LRU() {
         <K, V> void onGet(ConcurrentLinkedHashMap<K, V> map, Node<K, V> node) {
           Node<K, V> newNode = new Node<K, V>(node.getKey(), node.getValue());
+          newNode.weight = node.weight;
           if (map.data.replace(node.getKey(), node, newNode)) {
             map.length.incrementAndGet();
             onRemove(map, node);
@@ -641,6 +878,7 @@ public class Cache<K, V> {
       private volatile V value;
       private volatile State state;
       private volatile boolean marked;
+      private volatile int weight;
       private volatile Node<K, V> prev = null;
       private volatile Node<K, V> next = null;
 
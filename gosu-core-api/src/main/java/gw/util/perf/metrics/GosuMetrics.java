@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.perf.metrics;
+
+import gw.config.CommonServices;
+
+/**
+ * Entry point for metrics collected during type loading, parsing, compilation and class definition.
+ * <p/>
+ * Collection is disabled by default and costs a single volatile read per instrumented call. Enable it with
+ * the {@value #METRICS_SYSTEM_PROP} system property:
+ * <ul>
+ *   <li><code>jfr</code> - emit JDK Flight Recorder events (and keep histograms, see {@link HistogramGosuMetrics})</li>
+ *   <li><code>histogram</code> - keep in-memory counters and latency histograms</li>
+ *   <li>the fully qualified name of an {@link IGosuMetrics} implementation with a public no-arg constructor</li>
+ * </ul>
+ * or programmatically with {@link #setMetrics(IGosuMetrics)}.
+ */
+public class GosuMetrics
+{
+  public static final String METRICS_SYSTEM_PROP = "gosu.metrics";
+  public static final String COUNTER_BYTECODE_BYTES = "gosu.bytecode.bytes";
+  public static final String COUNTER_CLASSES_DEFINED = "gosu.classes.defined";
+
+  private static final String JFR_METRICS_CLASS = "gw.internal.gosu.metrics.JfrGosuMetrics";
+  private static final IPhaseTimer NOOP_TIMER = () -> {};
+
+  private static volatile IGosuMetrics METRICS = determineMetrics();
+
+  public static boolean isEnabled()
+  {
+    return METRICS != null;
+  }
+
+  public static IGosuMetrics getMetrics()
+  {
+    return METRICS;
+  }
+
+  /**
+   * @param metrics the metrics sink to use, or null to disable collection
+   */
+  public static void setMetrics( IGosuMetrics metrics )
+  {
+    METRICS = metrics;
+  }
+
+  public static IPhaseTimer startPhase( GosuPhase phase, String strTypeName )
+  {
+    IGosuMetrics metrics = METRICS;
+    return metrics == null ? NOOP_TIMER : metrics.startPhase( phase, strTypeName );
+  }
+
+  public static void incrementCounter( String strCounter, long lDelta )
+  {
+    IGosuMetrics metrics = METRICS;
+    if( metrics != null )
+    {
+      metrics.incrementCounter( strCounter, lDelta );
+    }
+  }
+
+  private static IGosuMetrics determineMetrics()
+  {
+    String value = System.getProperty( METRICS_SYSTEM_PROP );
+    if( value == null || value.isEmpty() || value.equalsIgnoreCase( "false" ) )
+    {
+      return null;
+    }
+    if( value.equalsIgnoreCase( "histogram" ) || value.equalsIgnoreCase( "true" ) )
+    {
+      return new HistogramGosuMetrics();
+    }
+    String strClass = value.equalsIgnoreCase( "jfr" ) ? JFR_METRICS_CLASS : value;
+    try
+    {
+      return (IGosuMetrics)Class.forName( strClass ).newInstance();
+    }
+    catch( Throwable t )
+    {
+      // jdk.jfr is not available on every runtime, don't fail type system initialization over metrics
+      CommonServices.getEntityAccess().getLogger().warn( "Could not create metrics " + strClass + " from system property " + METRICS_SYSTEM_PROP, t );
+      return null;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.perf.metrics;
+
+/**
+ * The stages of type loading and compilation reported through {@link GosuMetrics}.
+ */
+public enum GosuPhase
+{
+  /** Loading a type from the type loader stack on a type-system cache miss */
+  TYPE_RESOLVE,
+  /** Parsing the header (supertypes, type variables) of a Gosu class */
+  PARSE_HEADER,
+  /** Parsing the member declarations of a Gosu class */
+  PARSE_DECLARATIONS,
+  /** Parsing the member bodies of a Gosu class */
+  PARSE_DEFINITIONS,
+  /** Transforming a parsed class to IR */
+  IR_TRANSFORM,
+  /** Running the optimization passes over the IR of a class */
+  IR_OPTIMIZE,
+  /** Emitting bytecode from IR */
+  BYTECODE_EMIT,
+  /** Defining a compiled class in a class loader */
+  DEFINE_CLASS,
+  /** Building the index of enhancements for a type loader */
+  ENHANCEMENT_INDEX,
+  /** Waiting to acquire the global type-system lock */
+  LOCK_WAIT
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.perf.metrics;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps named counters and, per {@link GosuPhase}, a power-of-two latency histogram in memory.
+ */
+public class HistogramGosuMetrics implements IGosuMetrics
+{
+  private final Map<GosuPhase, PhaseHistogram> _histograms;
+  private final ConcurrentHashMap<String, AtomicLong> _counters;
+
+  public HistogramGosuMetrics()
+  {
+    _histograms = new EnumMap<>( GosuPhase.class );
+    for( GosuPhase phase : GosuPhase.values() )
+    {
+      _histograms.put( phase, new PhaseHistogram() );
+    }
+    _counters = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public IPhaseTimer startPhase( GosuPhase phase, String strTypeName )
+  {
+    long start = System.nanoTime();
+    return () -> recordPhase( phase, System.nanoTime() - start );
+  }
+
+  @Override
+  public void incrementCounter( String strCounter, long lDelta )
+  {
+    AtomicLong counter = _counters.get( strCounter );
+    if( counter == null )
+    {
+      counter = _counters.computeIfAbsent( strCounter, k -> new AtomicLong() );
+    }
+    counter.addAndGet( lDelta );
+  }
+
+  public void recordPhase( GosuPhase phase, long lNanos )
+  {
+    _histograms.get( phase ).record( lNanos );
+  }
+
+  public PhaseHistogram getHistogram( GosuPhase phase )
+  {
+    return _histograms.get( phase );
+  }
+
+  public long getCounter( String strCounter )
+  {
+    AtomicLong counter = _counters.get( strCounter );
+    return counter == null ? 0 : counter.get();
+  }
+
+  public void reset()
+  {
+    for( PhaseHistogram histogram : _histograms.values() )
+    {
+      histogram.reset();
+    }
+    _counters.clear();
+  }
+
+  public void print( PrintStream out )
+  {
+    for( GosuPhase phase : GosuPhase.values() )
+    {
+      PhaseHistogram histogram = _histograms.get( phase );
+      if( histogram.getCount() > 0 )
+      {
+        out.println( phase + " : count " + histogram.getCount() +
+                     ", total " + histogram.getTotalNanos() / 1000000 + "ms" +
+                     ", p50 " + histogram.getPercentileNanos( 50 ) / 1000 + "us" +
+                     ", p99 " + histogram.getPercentileNanos( 99 ) / 1000 + "us" +
+                     ", max " + histogram.getMaxNanos() / 1000 + "us" );
+      }
+    }
+    for( Map.Entry<String, AtomicLong> entry : new TreeMap<>( _counters ).entrySet() )
+    {
+      out.println( entry.getKey() + " : " + entry.getValue().get() );
+    }
+  }
+
+  /**
+   * A lock-free histogram with one bucket per power of two nanoseconds.
+   */
+  public static class PhaseHistogram
+  {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLong _count = new AtomicLong();
+    private final AtomicLong _totalNanos = new AtomicLong();
+    private final AtomicLong _maxNanos = new AtomicLong();
+    private final AtomicLongArray _buckets = new AtomicLongArray( BUCKETS );
+
+    void record( long lNanos )
+    {
+      lNanos = Math.max( 0, lNanos );
+      _count.incrementAndGet();
+      _totalNanos.addAndGet( lNanos );
+      _buckets.incrementAndGet( bucketOf( lNanos ) );
+      long max;
+      while( lNanos > (max = _maxNanos.get()) && !_maxNanos.compareAndSet( max, lNanos ) )
+      {
+        // retry
+      }
+    }
+
+    private static int bucketOf( long lNanos )
+    {
+      return lNanos == 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros( lNanos ) - 1;
+    }
+
+    public long getCount()
+    {
+      return _count.get();
+    }
+
+    public long getTotalNanos()
+    {
+      return _totalNanos.get();
+    }
+
+    public long getMaxNanos()
+    {
+      return _maxNanos.get();
+    }
+
+    /**
+     * @return the upper bound of the bucket containing the given percentile, never more than the max recorded value
+     */
+    public long getPercentileNanos( double percentile )
+    {
+      long count = getCount();
+      if( count == 0 )
+      {
+        return 0;
+      }
+      long target = (long)Math.ceil( count * percentile / 100 );
+      long seen = 0;
+      for( int i = 0; i < BUCKETS; i++ )
+      {
+        seen += _buckets.get( i );
+        if( seen >= target )
+        {
+          long upper = i >= BUCKETS - 2 ? Long.MAX_VALUE : (2L << i) - 1;
+          return Math.min( upper, getMaxNanos() );
+        }
+      }
+      return getMaxNanos();
+    }
+
+    void reset()
+    {
+      _count.set( 0 );
+      _totalNanos.set( 0 );
+      _maxNanos.set( 0 );
+      for( int i = 0; i < BUCKETS; i++ )
+      {
+        _buckets.set( i, 0 );
+      }
+    }
+  }
+}
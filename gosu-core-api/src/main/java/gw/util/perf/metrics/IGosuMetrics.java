@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.perf.metrics;
+
+/**
+ * A sink for timing and counter metrics produced by the type system and compiler.
+ * Install an implementation with {@link GosuMetrics#setMetrics(IGosuMetrics)} or the
+ * {@link GosuMetrics#METRICS_SYSTEM_PROP} system property.
+ * <p/>
+ * Implementations are called from any thread, often while the global type-system
+ * lock is held, so they must be thread-safe and cheap.
+ */
+public interface IGosuMetrics
+{
+  /**
+   * Starts measuring a phase.
+   *
+   * @param phase the phase being measured
+   * @param strTypeName the name of the type the phase applies to, or null if it does not apply to a single type
+   *
+   * @return a timer the caller stops when the phase completes
+   */
+  IPhaseTimer startPhase( GosuPhase phase, String strTypeName );
+
+  /**
+   * Adds to a named counter, e.g. the number of bytes of bytecode generated.
+   */
+  void incrementCounter( String strCounter, long lDelta );
+}
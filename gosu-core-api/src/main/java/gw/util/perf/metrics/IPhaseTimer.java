@@ -0,0 +1,16 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.perf.metrics;
+
+/**
+ * A single in-flight measurement of a {@link GosuPhase}, obtained from {@link GosuMetrics#startPhase}.
+ */
+public interface IPhaseTimer
+{
+  /**
+   * Ends the measurement and reports it. Call exactly once, typically from a finally block.
+   */
+  void stop();
+}
@@ -14,6 +14,7 @@ public class FunctionClassUtil extends ClassLoader
   public static final String FUNCTION_PACKAGE = "gw.lang.function";
   public static final String FUNCTION_CLASS_PREFIX = FUNCTION_PACKAGE + ".Function";
   public static final String FUNCTION_INTERFACE_PREFIX = FUNCTION_PACKAGE + ".IFunction";
+  public static final String LIFTED_FUNCTION_CLASS_PREFIX = FUNCTION_PACKAGE + ".LiftedFunction";
   private static final Class[][] ARGS = new Class[IBlock.MAX_ARGS + 1][];
   static
   {
@@ -68,6 +69,22 @@ public class FunctionClassUtil extends ClassLoader
     return null;
   }
 
+  /**
+   * @return The class of the blocks of the arity that are compiled to a method of their enclosing
+   * class, see gw.lang.function.LiftedBlockSite
+   */
+  public static Class getLiftedFunctionClassForArity( int functionArity )
+  {
+    try
+    {
+      return Class.forName( LIFTED_FUNCTION_CLASS_PREFIX + functionArity, true, FunctionClassUtil.class.getClassLoader() );
+    }
+    catch( ClassNotFoundException e )
+    {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+  }
+
   public static Class[] getArgArrayForArity( int i )
   {
     return ARGS[i];
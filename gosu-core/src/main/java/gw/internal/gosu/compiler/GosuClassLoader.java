@@ -30,6 +30,9 @@ import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.java.JavaTypes;
 import gw.lang.reflect.module.TypeSystemLockHelper;
 import gw.util.GosuExceptionUtil;
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.IPhaseTimer;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
@@ -316,6 +319,17 @@ public class GosuClassLoader implements IGosuClassLoader
     return result;
   }
 
+  /**
+   * @return true if the class may be defined more than once, so its bytecode may be generated again:
+   *   classes can be reloaded, or the class goes to a single-serving loader that can be disposed
+   */
+  public boolean mayRedefineClass( ICompilableTypeInternal gsClass )
+  {
+    return BytecodeOptions.canReloadClasses() ||
+           BytecodeOptions.isSingleServingLoader() ||
+           shouldUseSingleServingLoader( gsClass );
+  }
+
   private boolean shouldUseSingleServingLoader(ICompilableTypeInternal gsClass) {
     List<IGosuClassLoadingObserver> observers = CommonServices.getEntityAccess().getGosuClassLoadingObservers();
     if (observers != null) {
@@ -340,7 +354,17 @@ public class GosuClassLoader implements IGosuClassLoader
       GosuClassPathThing.init();
 
       String strJavaClass = gsClass.getJavaName();
-      Class cls = _loader.loadClass( strJavaClass );
+      Class cls;
+      IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.DEFINE_CLASS, gsClass.getName() );
+      try
+      {
+        cls = _loader.loadClass( strJavaClass );
+      }
+      finally
+      {
+        timer.stop();
+      }
+      GosuMetrics.incrementCounter( GosuMetrics.COUNTER_CLASSES_DEFINED, 1 );
 
       if( BytecodeOptions.aggressivelyVerify() )
       {
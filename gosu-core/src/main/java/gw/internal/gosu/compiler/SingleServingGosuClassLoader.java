@@ -14,6 +14,9 @@ import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.module.TypeSystemLockHelper;
 import gw.util.concurrent.ConcurrentHashSet;
 import gw.util.concurrent.ConcurrentWeakValueHashMap;
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.IPhaseTimer;
 
 import java.util.Map;
 import java.util.Set;
@@ -136,7 +139,16 @@ public class SingleServingGosuClassLoader extends ClassLoader implements IGosuCl
       definePackage( strPackage, null, null, null, null, null, null, null );
     }
 
-    cls = defineClass( gsClass.getJavaName(), classBytes, 0, classBytes.length );
+    IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.DEFINE_CLASS, gosuClassName );
+    try
+    {
+      cls = defineClass( gsClass.getJavaName(), classBytes, 0, classBytes.length );
+    }
+    finally
+    {
+      timer.stop();
+    }
+    GosuMetrics.incrementCounter( GosuMetrics.COUNTER_CLASSES_DEFINED, 1 );
     if( shouldCache(gsClass) )
     {
       CACHE.put( gosuClassName, cls );
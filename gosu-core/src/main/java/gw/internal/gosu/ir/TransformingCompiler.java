@@ -4,28 +4,172 @@
 
 package gw.internal.gosu.ir;
 
+import gw.config.ExecutionMode;
 import gw.internal.gosu.compiler.DebugFlag;
+import gw.internal.gosu.compiler.GosuClassLoader;
 import gw.internal.gosu.ir.compiler.bytecode.IRClassCompiler;
 import gw.internal.gosu.ir.compiler.java.IRJavaCompiler;
 import gw.internal.gosu.ir.compiler.verifier.IRTreeVerifier;
+import gw.internal.gosu.ir.optimizer.IROptimizer;
 import gw.internal.gosu.ir.transform.GosuClassTransformer;
 import gw.internal.gosu.ir.transform.GosuFragmentTransformer;
+import gw.internal.gosu.parser.GosuClassParseInfo;
 import gw.internal.gosu.parser.IGosuClassInternal;
 import gw.internal.gosu.parser.fragments.GosuFragment;
 import gw.lang.ir.IRClass;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.gs.ICompilableType;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.IPhaseTimer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class TransformingCompiler
 {
   public static byte[] compileClass( ICompilableType gsClass, boolean debug )
   {
-    IRClass irClass = compileType( gsClass );
-    return _compileClass( gsClass, debug, irClass );
+    if( isDefinitionsReleased( gsClass ) )
+    {
+      return takePendingBytecode( (IGosuClassInternal)gsClass );
+    }
+
+    IRClass irClass;
+    IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.IR_TRANSFORM, gsClass.getName() );
+    try
+    {
+      irClass = compileType( gsClass );
+    }
+    finally
+    {
+      timer.stop();
+    }
+    byte[] bytes = _compileClass( gsClass, debug, irClass );
+    maybeReleaseParseTrees( gsClass, bytes );
+    return bytes;
+  }
+
+  /**
+   * Transforms a class to optimized IR without generating bytecode for it, for the interpreter.
+   */
+  public static IRClass transformClass( IGosuClassInternal gsClass )
+  {
+    IRClass irClass;
+    IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.IR_TRANSFORM, gsClass.getName() );
+    try
+    {
+      irClass = compileType( gsClass );
+    }
+    finally
+    {
+      timer.stop();
+    }
+    optimize( gsClass, irClass );
+    return irClass;
+  }
+
+  private static boolean isDefinitionsReleased( ICompilableType gsClass )
+  {
+    if( gsClass instanceof IGosuClassInternal )
+    {
+      GosuClassParseInfo parseInfo = ((IGosuClassInternal)gsClass).getParseInfo();
+      return parseInfo != null && parseInfo.isDefinitionsReleased();
+    }
+    return false;
+  }
+
+  private static byte[] takePendingBytecode( IGosuClassInternal gsClass )
+  {
+    byte[] bytes = gsClass.getParseInfo().takePendingBytecode();
+    if( bytes == null )
+    {
+      throw new IllegalStateException( "The parse tree for " + gsClass.getName() + " was released after its bytecode was " +
+                                       "generated and the bytecode can't be generated again. Set the system property " +
+                                       "gosu.runtime.releaseParseTrees to false if classes need to be loaded more than once." );
+    }
+    return bytes;
+  }
+
+  /**
+   * At runtime a top-level class's parse tree is only needed to generate bytecode for the class and
+   * the inner classes and blocks nested in it, which the JVM loads lazily. When enabled, generate the
+   * nested bytecode now, hold it until the JVM asks for it, and release the bodies of the whole tree.
+   * A class the loader may define again, e.g., in a disposable single-serving loader, keeps its tree
+   * since its bytecode is generated again.
+   */
+  private static void maybeReleaseParseTrees( ICompilableType gsClass, byte[] bytes )
+  {
+    if( bytes == null ||
+        !BytecodeOptions.isReleaseParseTreesAfterCompile() ||
+        !ExecutionMode.isRuntime() ||
+        !(gsClass instanceof IGosuClassInternal) ||
+        gsClass instanceof IGosuProgram ||
+        gsClass.getEnclosingType() != null ||
+        GosuClassLoader.instance().mayRedefineClass( (IGosuClassInternal)gsClass ) )
+    {
+      return;
+    }
+
+    TypeSystem.lock();
+    try
+    {
+      List<IGosuClassInternal> nested = new ArrayList<>();
+      collectNestedTypes( (IGosuClassInternal)gsClass, nested );
+      Map<IGosuClassInternal, byte[]> nestedBytes = new HashMap<>();
+      for( IGosuClassInternal type : nested )
+      {
+        if( type.getParseInfo() == null )
+        {
+          // Not compiled with the enclosing class, leave the tree alone
+          return;
+        }
+        nestedBytes.put( type, compileClass( type, false ) );
+      }
+
+      ((IGosuClassInternal)gsClass).getParseInfo().releaseDefinitions( null );
+      for( IGosuClassInternal type : nested )
+      {
+        type.getParseInfo().releaseDefinitions( nestedBytes.get( type ) );
+      }
+    }
+    finally
+    {
+      TypeSystem.unlock();
+    }
+  }
+
+  private static void collectNestedTypes( IGosuClassInternal gsClass, List<IGosuClassInternal> nested )
+  {
+    for( int i = 0; i < gsClass.getBlockCount(); i++ )
+    {
+      IGosuClassInternal block = (IGosuClassInternal)gsClass.getBlock( i );
+      nested.add( block );
+      collectNestedTypes( block, nested );
+    }
+    List<? extends IType> innerClasses = gsClass.getInnerClasses();
+    if( innerClasses != null )
+    {
+      for( IType inner : innerClasses )
+      {
+        if( inner instanceof IGosuClassInternal )
+        {
+          nested.add( (IGosuClassInternal)inner );
+          collectNestedTypes( (IGosuClassInternal)inner, nested );
+        }
+      }
+    }
   }
 
   private static byte[] _compileClass( ICompilableType gsClass, boolean debug, IRClass irClass )
   {
+    optimize( gsClass, irClass );
+
     if( BytecodeOptions.isTreeVerifcationEnabled() )
     {
       IRTreeVerifier verifier = new IRTreeVerifier();
@@ -44,7 +188,34 @@ public class TransformingCompiler
       System.out.println( javaCompiler.getOutput() );
     }
 
-    return IRClassCompiler.compileClass( irClass, debug );
+    byte[] bytes;
+    IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.BYTECODE_EMIT, gsClass.getName() );
+    try
+    {
+      bytes = IRClassCompiler.compileClass( irClass, debug );
+    }
+    finally
+    {
+      timer.stop();
+    }
+    if( bytes != null )
+    {
+      GosuMetrics.incrementCounter( GosuMetrics.COUNTER_BYTECODE_BYTES, bytes.length );
+    }
+    return bytes;
+  }
+
+  private static void optimize( ICompilableType gsClass, IRClass irClass )
+  {
+    IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.IR_OPTIMIZE, gsClass.getName() );
+    try
+    {
+      IROptimizer.optimize( irClass );
+    }
+    finally
+    {
+      timer.stop();
+    }
   }
 
   private static IRClass compileType( ICompilableType gsClass )
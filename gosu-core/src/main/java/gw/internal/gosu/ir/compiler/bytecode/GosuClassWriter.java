@@ -14,13 +14,25 @@ import gw.internal.ext.org.objectweb.asm.Opcodes;
 import gw.internal.ext.org.objectweb.asm.TypePath;
 import gw.internal.gosu.ir.transform.util.IRTypeResolver;
 import gw.internal.gosu.parser.TypeLord;
+import gw.lang.parser.TypeSystemAwareCache;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.java.IJavaBackedTypeData;
 import gw.lang.reflect.java.JavaTypes;
+import gw.lang.reflect.module.IModule;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class GosuClassWriter extends ClassVisitor
 {
+  private static final String OBJECT = "java/lang/Object";
+
+  // Type-pair results shared across compilations, keyed by module since names resolve per module
+  private static final TypeSystemAwareCache<String, String> COMMON_SUPER_CLASS_CACHE =
+    TypeSystemAwareCache.make( "Common Superclass Cache", 4096, MyWriter::computeCommonSuperClass );
+
   private final ClassWriter _cw;
 
   public GosuClassWriter()
@@ -86,12 +98,51 @@ public class GosuClassWriter extends ClassVisitor
   }
 
   private static class MyWriter extends ClassWriter {
+    // ASM asks for the same pairs over and over while computing frames for a class, remember them per compilation
+    private final Map<String, String> _commonSuperClasses = new HashMap<>();
+
     public MyWriter() {
       super( ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES );
     }
 
     @Override
     protected String getCommonSuperClass( String type1, String type2 ) {
+      if( type1.equals( type2 ) ) {
+        return type1;
+      }
+      if( OBJECT.equals( type1 ) || OBJECT.equals( type2 ) ) {
+        return OBJECT;
+      }
+      String key = makeKey( type1, type2 );
+      String commonSuper = _commonSuperClasses.get( key );
+      if( commonSuper == null ) {
+        commonSuper = BytecodeOptions.isGlobalCommonSuperClassCache()
+                      ? COMMON_SUPER_CLASS_CACHE.get( getModuleName() + '|' + key )
+                      : computeCommonSuperClass( type1, type2 );
+        _commonSuperClasses.put( key, commonSuper );
+      }
+      return commonSuper;
+    }
+
+    private static String getModuleName() {
+      IModule module = TypeSystem.getCurrentModule();
+      return module == null ? "" : module.getName();
+    }
+
+    /**
+     * The common superclass is symmetric, so order the pair to share the entry
+     */
+    private static String makeKey( String type1, String type2 ) {
+      return type1.compareTo( type2 ) < 0 ? type1 + ';' + type2 : type2 + ';' + type1;
+    }
+
+    private static String computeCommonSuperClass( String globalKey ) {
+      String key = globalKey.substring( globalKey.lastIndexOf( '|' ) + 1 );
+      int iSep = key.indexOf( ';' );
+      return computeCommonSuperClass( key.substring( 0, iSep ), key.substring( iSep + 1 ) );
+    }
+
+    private static String computeCommonSuperClass( String type1, String type2 ) {
       IType t1 = TypeSystem.getByFullNameIfValid( type1.replace( '/', '.' ).replace( '$', '.' ) );
       IType t2 = TypeSystem.getByFullNameIfValid( type2.replace( '/', '.' ).replace( '$', '.' ) );
       if( t1 != null && t2 != null ) {
@@ -102,7 +153,7 @@ public class GosuClassWriter extends ClassVisitor
           return type2;
         }
         if( t1.isInterface() || t2.isInterface() ) {
-          return "java/lang/Object";
+          return OBJECT;
         }
       }
       IType fromT1 = findCommonClass( t1, t2 );
@@ -126,7 +177,7 @@ public class GosuClassWriter extends ClassVisitor
       return superTypeName;
     }
 
-    private IType findCommonClass( IType t1, IType t2 )
+    private static IType findCommonClass( IType t1, IType t2 )
     {
       do {
         t1 = t1.getSupertype();
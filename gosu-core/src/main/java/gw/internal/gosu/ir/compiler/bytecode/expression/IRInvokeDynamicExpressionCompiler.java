@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.compiler.bytecode.expression;
+
+import gw.internal.ext.org.objectweb.asm.Handle;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.ext.org.objectweb.asm.Type;
+import gw.internal.gosu.ir.compiler.bytecode.AbstractBytecodeCompiler;
+import gw.internal.gosu.ir.compiler.bytecode.IRBytecodeCompiler;
+import gw.internal.gosu.ir.compiler.bytecode.IRBytecodeContext;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+public class IRInvokeDynamicExpressionCompiler extends AbstractBytecodeCompiler {
+
+  private static final String BOOTSTRAP_PARAMETERS =
+    "(" + Type.getDescriptor( MethodHandles.Lookup.class ) + Type.getDescriptor( String.class ) + Type.getDescriptor( MethodType.class );
+
+  public static void compile( IRInvokeDynamicExpression expression, IRBytecodeContext context ) {
+    for (IRExpression arg : expression.getArgs()) {
+      IRBytecodeCompiler.compileIRExpression( arg, context );
+    }
+
+    StringBuilder descriptor = new StringBuilder();
+    descriptor.append("(");
+    for (IRType param : expression.getParameterTypes()) {
+      descriptor.append(param.getDescriptor());
+    }
+    descriptor.append(")");
+    descriptor.append(expression.getReturnType().getDescriptor());
+
+    StringBuilder bootstrapDescriptor = new StringBuilder( BOOTSTRAP_PARAMETERS );
+    for (IRType param : expression.getBootstrapParameterTypes()) {
+      bootstrapDescriptor.append(param.getDescriptor());
+    }
+    bootstrapDescriptor.append(")").append(Type.getDescriptor( CallSite.class ));
+
+    Handle bootstrap = new Handle( Opcodes.H_INVOKESTATIC, expression.getBootstrapOwner().getSlashName(),
+                                   expression.getBootstrapName(), bootstrapDescriptor.toString() );
+    context.getMv().visitInvokeDynamicInsn( expression.getName(), descriptor.toString(), bootstrap,
+                                            expression.getBootstrapArgs().toArray() );
+  }
+}
@@ -15,6 +15,7 @@ import gw.lang.ir.expression.IRArrayLoadExpression;
 import gw.lang.ir.expression.IRBooleanLiteral;
 import gw.lang.ir.expression.IRCastExpression;
 import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
 import gw.lang.ir.expression.IRFieldGetExpression;
 import gw.lang.ir.expression.IREqualityExpression;
 import gw.lang.ir.expression.IRCompositeExpression;
@@ -282,6 +283,8 @@ public class IRTreeCompiler {
       compileIRIdentifier((IRIdentifier) expression, indent);
     } else if (expression instanceof IRMethodCallExpression) {
       compileIRMethodCallExpression((IRMethodCallExpression) expression, indent);
+    } else if (expression instanceof IRInvokeDynamicExpression) {
+      compileIRInvokeDynamicExpression((IRInvokeDynamicExpression) expression, indent);
     } else if (expression instanceof IRNullLiteral) {
       compileIRNullLiteral((IRNullLiteral) expression, indent);
     } else if (expression instanceof IRPrimitiveTypeConversion) {
@@ -454,6 +457,20 @@ public class IRTreeCompiler {
 
   }
 
+  public void compileIRInvokeDynamicExpression(IRInvokeDynamicExpression irInvokeDynamicExpression, int indent) {
+    appendIndent(indent).append("IRInvokeDynamicExpression[\n");
+    appendAttribute(indent, "name", irInvokeDynamicExpression.getName());
+    appendAttribute(indent, "bootstrapowner", irInvokeDynamicExpression.getBootstrapOwner().getName());
+    appendAttribute(indent, "bootstrapname", irInvokeDynamicExpression.getBootstrapName());
+    appendAttribute(indent, "returntype", irInvokeDynamicExpression.getReturnType().getName());
+    appendAttribute(indent, "parametertypes", joinTypeNames(irInvokeDynamicExpression.getParameterTypes()));
+    appendIndent(indent + 2).append("args").append(": \n");
+    for (IRElement element : irInvokeDynamicExpression.getArgs()) {
+      compileIRElement(element, indent + 4);
+    }
+    appendIndent(indent).append("]\n");
+  }
+
   public void compileIRNullLiteral(IRNullLiteral irNullLiteral, int indent) {
     appendIndent(indent).append("IRNullLiteral[\n");
     appendIndent(indent).append("]\n");
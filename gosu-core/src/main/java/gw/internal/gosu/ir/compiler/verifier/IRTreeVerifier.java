@@ -35,6 +35,7 @@ import gw.lang.ir.expression.IRConditionalAndExpression;
 import gw.lang.ir.expression.IRClassLiteral;
 import gw.lang.ir.expression.IRNotExpression;
 import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
 import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
 import gw.lang.ir.expression.IRNoOpExpression;
 import gw.lang.ir.statement.IREvalStatement;
@@ -325,6 +326,8 @@ public class IRTreeVerifier {
       verifyIRIdentifier((IRIdentifier) expression);
     } else if (expression instanceof IRMethodCallExpression) {
       verifyIRMethodCallExpression((IRMethodCallExpression) expression);
+    } else if (expression instanceof IRInvokeDynamicExpression) {
+      verifyIRInvokeDynamicExpression((IRInvokeDynamicExpression) expression);
     } else if (expression instanceof IRNullLiteral) {
       verifyIRNullLiteral((IRNullLiteral) expression);
     } else if (expression instanceof IRPrimitiveTypeConversion) {
@@ -498,6 +501,13 @@ public class IRTreeVerifier {
     }
   }
 
+  private void verifyIRInvokeDynamicExpression(IRInvokeDynamicExpression irInvokeDynamicExpression) {
+    verifyTypeAgreement(irInvokeDynamicExpression.getParameterTypes(), irInvokeDynamicExpression.getArgs(), irInvokeDynamicExpression);
+    for (IRExpression arg : irInvokeDynamicExpression.getArgs()) {
+      verifyIRExpression(arg);
+    }
+  }
+
   private void verifyIRNullLiteral(IRNullLiteral irNullLiteral) {
   }
 
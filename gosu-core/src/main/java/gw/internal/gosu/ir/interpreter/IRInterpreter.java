@@ -0,0 +1,983 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.interpreter;
+
+import gw.internal.gosu.ir.compiler.bytecode.expression.IRMethodCallExpressionCompiler;
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRArrayLengthExpression;
+import gw.lang.ir.expression.IRArrayLoadExpression;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRCharacterLiteral;
+import gw.lang.ir.expression.IRClassLiteral;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRFieldGetExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNegationExpression;
+import gw.lang.ir.expression.IRNewArrayExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
+import gw.lang.ir.expression.IRNoOpExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRNullLiteral;
+import gw.lang.ir.expression.IRNumericLiteral;
+import gw.lang.ir.expression.IRPrimitiveTypeConversion;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.expression.IRStringLiteralExpression;
+import gw.lang.ir.expression.IRTernaryExpression;
+import gw.lang.ir.statement.IRArrayStoreStatement;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRBreakStatement;
+import gw.lang.ir.statement.IRCaseClause;
+import gw.lang.ir.statement.IRCatchClause;
+import gw.lang.ir.statement.IRContinueStatement;
+import gw.lang.ir.statement.IRDoWhileStatement;
+import gw.lang.ir.statement.IREvalStatement;
+import gw.lang.ir.statement.IRFieldSetStatement;
+import gw.lang.ir.statement.IRForEachStatement;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRMethodCallStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.ir.statement.IRNewStatement;
+import gw.lang.ir.statement.IRNoOpStatement;
+import gw.lang.ir.statement.IRReturnStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.lang.ir.statement.IRSwitchStatement;
+import gw.lang.ir.statement.IRSyntheticStatement;
+import gw.lang.ir.statement.IRThrowStatement;
+import gw.lang.ir.statement.IRTryCatchFinallyStatement;
+import gw.lang.ir.statement.IRWhileStatement;
+import gw.util.GosuExceptionUtil;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the methods of a class from their IR, with the classes, methods and fields the IR refers to
+ * resolved by an {@link InterpreterLinker}. The interpreter follows the semantics of the bytecode
+ * the IR compiles to: locals are found by name like the bytecode compiler finds their slots, a
+ * primitive value is boxed as the Java type of the IR type it has, and calls out of the class are
+ * made by reflection. The class's own methods are interpreted, on an {@link Instance} that holds the
+ * values of the class's fields.
+ */
+final class IRInterpreter
+{
+  private static final int NORMAL = 0;
+  private static final int BREAK = 1;
+  private static final int CONTINUE = 2;
+  private static final int RETURN = 3;
+
+  private static final char TAG_ARG = '\u0001';
+  private static final char TAG_CONST = '\u0002';
+
+  private final Map<Object, Object> _links;
+  private final Map<Object, Class> _structuralOwners;
+
+  IRInterpreter( InterpreterLinker linker )
+  {
+    _links = linker.getLinks();
+    _structuralOwners = linker.getStructuralOwners();
+  }
+
+  /**
+   * An instance of an interpreted class
+   */
+  static class Instance
+  {
+    private final Map<String, Object> _fields;
+
+    Instance( Map<String, Object> fields )
+    {
+      _fields = fields;
+    }
+  }
+
+  private static final class Frame
+  {
+    private final Map<String, Object> _locals = new HashMap<>();
+    private Object _returnValue;
+  }
+
+  Object invoke( IRMethodStatement method, Instance instance, Object[] args )
+  {
+    Frame frame = new Frame();
+    if( instance != null )
+    {
+      frame._locals.put( "this", instance );
+    }
+    List<IRSymbol> params = method.getParameters();
+    for( int i = 0; i < params.size(); i++ )
+    {
+      IRSymbol param = params.get( i );
+      frame._locals.put( param.getName(), coerce( args[i], param.getType() ) );
+    }
+    execute( method.getMethodBody(), frame );
+    return coerce( frame._returnValue, method.getReturnType() );
+  }
+
+  // Statements
+
+  private int execute( IRStatement statement, Frame frame )
+  {
+    if( statement == null || statement instanceof IRNoOpStatement )
+    {
+      return NORMAL;
+    }
+    if( statement instanceof IRStatementList )
+    {
+      return execute( ((IRStatementList)statement).getStatements(), frame );
+    }
+    if( statement instanceof IRAssignmentStatement )
+    {
+      IRAssignmentStatement assignment = (IRAssignmentStatement)statement;
+      IRSymbol symbol = assignment.getSymbol();
+      frame._locals.put( symbol.getName(), coerce( evaluate( assignment.getValue(), frame ), symbol.getType() ) );
+      return NORMAL;
+    }
+    if( statement instanceof IRMethodCallStatement )
+    {
+      evaluate( ((IRMethodCallStatement)statement).getExpression(), frame );
+      return NORMAL;
+    }
+    if( statement instanceof IREvalStatement )
+    {
+      evaluate( ((IREvalStatement)statement).getExpression(), frame );
+      return NORMAL;
+    }
+    if( statement instanceof IRSyntheticStatement )
+    {
+      evaluate( ((IRSyntheticStatement)statement).getExpression(), frame );
+      return NORMAL;
+    }
+    if( statement instanceof IRNewStatement )
+    {
+      evaluate( ((IRNewStatement)statement).getNewExpression(), frame );
+      return NORMAL;
+    }
+    if( statement instanceof IRFieldSetStatement )
+    {
+      setField( (IRFieldSetStatement)statement, frame );
+      return NORMAL;
+    }
+    if( statement instanceof IRArrayStoreStatement )
+    {
+      storeArray( (IRArrayStoreStatement)statement, frame );
+      return NORMAL;
+    }
+    if( statement instanceof IRIfStatement )
+    {
+      IRIfStatement ifStatement = (IRIfStatement)statement;
+      return isTrue( evaluate( ifStatement.getExpression(), frame ) )
+             ? execute( ifStatement.getIfStatement(), frame )
+             : execute( ifStatement.getElseStatement(), frame );
+    }
+    if( statement instanceof IRReturnStatement )
+    {
+      IRReturnStatement returnStatement = (IRReturnStatement)statement;
+      if( returnStatement.hasTempVar() )
+      {
+        execute( returnStatement.getTempVarAssignment(), frame );
+      }
+      IRExpression value = returnStatement.getReturnValue();
+      frame._returnValue = value == null ? null : evaluate( value, frame );
+      return RETURN;
+    }
+    if( statement instanceof IRForEachStatement )
+    {
+      return executeForEach( (IRForEachStatement)statement, frame );
+    }
+    if( statement instanceof IRWhileStatement )
+    {
+      IRWhileStatement whileStatement = (IRWhileStatement)statement;
+      while( isTrue( whileStatement.getLoopTest(), frame ) )
+      {
+        int iCompletion = execute( whileStatement.getBody(), frame );
+        if( iCompletion == BREAK )
+        {
+          break;
+        }
+        if( iCompletion == RETURN )
+        {
+          return RETURN;
+        }
+      }
+      return NORMAL;
+    }
+    if( statement instanceof IRDoWhileStatement )
+    {
+      IRDoWhileStatement doWhileStatement = (IRDoWhileStatement)statement;
+      do
+      {
+        int iCompletion = execute( doWhileStatement.getBody(), frame );
+        if( iCompletion == BREAK )
+        {
+          break;
+        }
+        if( iCompletion == RETURN )
+        {
+          return RETURN;
+        }
+      } while( isTrue( doWhileStatement.getLoopTest(), frame ) );
+      return NORMAL;
+    }
+    if( statement instanceof IRSwitchStatement )
+    {
+      return executeSwitch( (IRSwitchStatement)statement, frame );
+    }
+    if( statement instanceof IRTryCatchFinallyStatement )
+    {
+      return executeTry( (IRTryCatchFinallyStatement)statement, frame );
+    }
+    if( statement instanceof IRThrowStatement )
+    {
+      Object exception = evaluate( ((IRThrowStatement)statement).getException(), frame );
+      if( exception == null )
+      {
+        throw new NullPointerException();
+      }
+      throw GosuExceptionUtil.forceThrow( (Throwable)exception );
+    }
+    if( statement instanceof IRBreakStatement )
+    {
+      return BREAK;
+    }
+    if( statement instanceof IRContinueStatement )
+    {
+      return CONTINUE;
+    }
+    throw new IllegalStateException( "Unexpected statement " + statement.getClass().getName() );
+  }
+
+  private int execute( List<IRStatement> statements, Frame frame )
+  {
+    for( IRStatement statement : statements )
+    {
+      int iCompletion = execute( statement, frame );
+      if( iCompletion != NORMAL )
+      {
+        return iCompletion;
+      }
+    }
+    return NORMAL;
+  }
+
+  private int executeForEach( IRForEachStatement forEach, Frame frame )
+  {
+    for( IRStatement initializer : forEach.getInitializers() )
+    {
+      execute( initializer, frame );
+    }
+    if( forEach.hasIdentifierToNullCheck() && evaluate( forEach.getIdentifierToNullCheck(), frame ) == null )
+    {
+      return NORMAL;
+    }
+    while( isTrue( forEach.getLoopTest(), frame ) )
+    {
+      for( IRStatement incrementor : forEach.getIncrementors() )
+      {
+        execute( incrementor, frame );
+      }
+      int iCompletion = execute( forEach.getBody(), frame );
+      if( iCompletion == BREAK )
+      {
+        break;
+      }
+      if( iCompletion == RETURN )
+      {
+        return RETURN;
+      }
+    }
+    return NORMAL;
+  }
+
+  private int executeSwitch( IRSwitchStatement switchStatement, Frame frame )
+  {
+    execute( switchStatement.getInit(), frame );
+    List<IRCaseClause> cases = switchStatement.getCases();
+    int iStart = cases.size();
+    if( switchStatement.areLabelsConstant() )
+    {
+      int iValue = toInt( frame._locals.get( ((IRAssignmentStatement)switchStatement.getInit()).getSymbol().getName() ) );
+      for( int i = 0; i < cases.size(); i++ )
+      {
+        if( cases.get( i ).getConstValue() == iValue )
+        {
+          iStart = i;
+          break;
+        }
+      }
+    }
+    else
+    {
+      for( int i = 0; i < cases.size(); i++ )
+      {
+        if( isTrue( evaluate( cases.get( i ).getCondition(), frame ) ) )
+        {
+          iStart = i;
+          break;
+        }
+      }
+    }
+
+    // Cases fall through to the next one and the last one to the default
+    for( int i = iStart; i <= cases.size(); i++ )
+    {
+      int iCompletion = execute( i < cases.size() ? cases.get( i ).getStatements() : switchStatement.getDefaultStatements(), frame );
+      if( iCompletion == BREAK )
+      {
+        return NORMAL;
+      }
+      if( iCompletion != NORMAL )
+      {
+        return iCompletion;
+      }
+    }
+    return NORMAL;
+  }
+
+  private int executeTry( IRTryCatchFinallyStatement tryStatement, Frame frame )
+  {
+    IRStatement finallyBody = tryStatement.getFinallyBody();
+    int iCompletion;
+    try
+    {
+      iCompletion = executeTryCatch( tryStatement, frame );
+    }
+    catch( Throwable t )
+    {
+      if( finallyBody != null )
+      {
+        int iFinallyCompletion = execute( finallyBody, frame );
+        if( iFinallyCompletion != NORMAL )
+        {
+          // Leaving the finally block discards the exception
+          return iFinallyCompletion;
+        }
+      }
+      throw GosuExceptionUtil.forceThrow( t );
+    }
+    if( finallyBody != null )
+    {
+      Object returnValue = frame._returnValue;
+      int iFinallyCompletion = execute( finallyBody, frame );
+      if( iFinallyCompletion != NORMAL )
+      {
+        return iFinallyCompletion;
+      }
+      frame._returnValue = returnValue;
+    }
+    return iCompletion;
+  }
+
+  private int executeTryCatch( IRTryCatchFinallyStatement tryStatement, Frame frame )
+  {
+    try
+    {
+      return execute( tryStatement.getTryBody(), frame );
+    }
+    catch( Throwable t )
+    {
+      for( IRCatchClause catchClause : tryStatement.getCatchStatements() )
+      {
+        if( ((Class)_links.get( catchClause )).isInstance( t ) )
+        {
+          frame._locals.put( catchClause.getIdentifier().getName(), t );
+          return execute( catchClause.getBody(), frame );
+        }
+      }
+      throw GosuExceptionUtil.forceThrow( t );
+    }
+  }
+
+  private void setField( IRFieldSetStatement fieldSet, Frame frame )
+  {
+    Object root = fieldSet.getLhs() == null ? null : evaluate( fieldSet.getLhs(), frame );
+    Object value = coerce( evaluate( fieldSet.getRhs(), frame ), fieldSet.getFieldType() );
+    Object field = _links.get( fieldSet );
+    if( field == null )
+    {
+      ((Instance)root)._fields.put( fieldSet.getName(), value );
+      return;
+    }
+    try
+    {
+      ((Field)field).set( root, value );
+    }
+    catch( IllegalAccessException e )
+    {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private void storeArray( IRArrayStoreStatement arrayStore, Frame frame )
+  {
+    Object array = evaluate( arrayStore.getTarget(), frame );
+    int iIndex = toInt( evaluate( arrayStore.getIndex(), frame ) );
+    Object value = coerce( evaluate( arrayStore.getValue(), frame ), arrayStore.getComponentType() );
+    if( array == null )
+    {
+      throw new NullPointerException();
+    }
+    try
+    {
+      Array.set( array, iIndex, value );
+    }
+    catch( IllegalArgumentException e )
+    {
+      throw new ArrayStoreException( value == null ? null : value.getClass().getName() );
+    }
+  }
+
+  // Expressions
+
+  private Object evaluate( IRExpression expression, Frame frame )
+  {
+    if( expression instanceof IRIdentifier )
+    {
+      return frame._locals.get( ((IRIdentifier)expression).getSymbol().getName() );
+    }
+    if( expression instanceof IRMethodCallExpression )
+    {
+      return call( (IRMethodCallExpression)expression, frame );
+    }
+    if( expression instanceof IRFieldGetExpression )
+    {
+      return getField( (IRFieldGetExpression)expression, frame );
+    }
+    if( expression instanceof IRNumericLiteral )
+    {
+      return ((IRNumericLiteral)expression).getValue();
+    }
+    if( expression instanceof IRStringLiteralExpression || expression instanceof IRClassLiteral )
+    {
+      return _links.get( expression );
+    }
+    if( expression instanceof IRBooleanLiteral )
+    {
+      return ((IRBooleanLiteral)expression).getValue();
+    }
+    if( expression instanceof IRCharacterLiteral )
+    {
+      return ((IRCharacterLiteral)expression).getValue();
+    }
+    if( expression instanceof IRNullLiteral || expression instanceof IRNoOpExpression )
+    {
+      return null;
+    }
+    if( expression instanceof IRCompositeExpression )
+    {
+      return evaluateComposite( (IRCompositeExpression)expression, frame );
+    }
+    if( expression instanceof IREqualityExpression )
+    {
+      return isEqual( (IREqualityExpression)expression, frame );
+    }
+    if( expression instanceof IRRelationalExpression )
+    {
+      return compare( (IRRelationalExpression)expression, frame );
+    }
+    if( expression instanceof IRArithmeticExpression )
+    {
+      return arithmetic( (IRArithmeticExpression)expression, frame );
+    }
+    if( expression instanceof IRConditionalAndExpression )
+    {
+      IRConditionalAndExpression and = (IRConditionalAndExpression)expression;
+      return isTrue( evaluate( and.getLhs(), frame ) ) && isTrue( evaluate( and.getRhs(), frame ) );
+    }
+    if( expression instanceof IRConditionalOrExpression )
+    {
+      IRConditionalOrExpression or = (IRConditionalOrExpression)expression;
+      return isTrue( evaluate( or.getLhs(), frame ) ) || isTrue( evaluate( or.getRhs(), frame ) );
+    }
+    if( expression instanceof IRTernaryExpression )
+    {
+      IRTernaryExpression ternary = (IRTernaryExpression)expression;
+      return isTrue( evaluate( ternary.getTest(), frame ) )
+             ? evaluate( ternary.getTrueValue(), frame )
+             : evaluate( ternary.getFalseValue(), frame );
+    }
+    if( expression instanceof IRNotExpression )
+    {
+      return not( (IRNotExpression)expression, frame );
+    }
+    if( expression instanceof IRNegationExpression )
+    {
+      return negate( (IRNegationExpression)expression, frame );
+    }
+    if( expression instanceof IRCastExpression )
+    {
+      return cast( (IRCastExpression)expression, frame );
+    }
+    if( expression instanceof IRInstanceOfExpression )
+    {
+      return ((Class)_links.get( expression )).isInstance( evaluate( ((IRInstanceOfExpression)expression).getRoot(), frame ) );
+    }
+    if( expression instanceof IRPrimitiveTypeConversion )
+    {
+      IRPrimitiveTypeConversion conversion = (IRPrimitiveTypeConversion)expression;
+      return convert( evaluate( conversion.getRoot(), frame ), conversion.getToType() );
+    }
+    if( expression instanceof IRNewExpression )
+    {
+      return construct( (IRNewExpression)expression, frame );
+    }
+    if( expression instanceof IRArrayLoadExpression )
+    {
+      IRArrayLoadExpression arrayLoad = (IRArrayLoadExpression)expression;
+      Object array = evaluate( arrayLoad.getRoot(), frame );
+      int iIndex = toInt( evaluate( arrayLoad.getIndex(), frame ) );
+      if( array == null )
+      {
+        throw new NullPointerException();
+      }
+      return Array.get( array, iIndex );
+    }
+    if( expression instanceof IRArrayLengthExpression )
+    {
+      Object array = evaluate( ((IRArrayLengthExpression)expression).getRoot(), frame );
+      if( array == null )
+      {
+        throw new NullPointerException();
+      }
+      return Array.getLength( array );
+    }
+    if( expression instanceof IRNewArrayExpression )
+    {
+      return Array.newInstance( (Class)_links.get( expression ), toInt( evaluate( ((IRNewArrayExpression)expression).getSizeExpression(), frame ) ) );
+    }
+    if( expression instanceof IRNewMultiDimensionalArrayExpression )
+    {
+      List<IRExpression> sizeExpressions = ((IRNewMultiDimensionalArrayExpression)expression).getSizeExpressions();
+      int[] sizes = new int[sizeExpressions.size()];
+      for( int i = 0; i < sizes.length; i++ )
+      {
+        sizes[i] = toInt( evaluate( sizeExpressions.get( i ), frame ) );
+      }
+      return Array.newInstance( (Class)_links.get( expression ), sizes );
+    }
+    if( expression instanceof IRInvokeDynamicExpression )
+    {
+      return concat( (IRInvokeDynamicExpression)expression, frame );
+    }
+    throw new IllegalStateException( "Unexpected expression " + expression.getClass().getName() );
+  }
+
+  private Object evaluateComposite( IRCompositeExpression composite, Frame frame )
+  {
+    Object value = null;
+    for( IRElement element : composite.getElements() )
+    {
+      if( element instanceof IRStatement )
+      {
+        if( execute( (IRStatement)element, frame ) != NORMAL )
+        {
+          throw new IllegalStateException( "Unexpected jump out of a composite expression" );
+        }
+        value = null;
+      }
+      else
+      {
+        value = evaluate( (IRExpression)element, frame );
+      }
+    }
+    return value;
+  }
+
+  private Object call( IRMethodCallExpression call, Frame frame )
+  {
+    Object root = call.getRoot() == null ? null : evaluate( call.getRoot(), frame );
+    Object[] args = evaluateArgs( call.getArgs(), call.getParameterTypes(), frame );
+    Object target = _links.get( call );
+    if( target instanceof IRMethodStatement )
+    {
+      return invoke( (IRMethodStatement)target, (Instance)root, args );
+    }
+    if( target == InterpreterLinker.OBJECT_INIT )
+    {
+      return null;
+    }
+    if( root == null && call.getRoot() != null )
+    {
+      throw new NullPointerException();
+    }
+    if( target == InterpreterLinker.ARRAY_CLONE )
+    {
+      int iLength = Array.getLength( root );
+      Object copy = Array.newInstance( root.getClass().getComponentType(), iLength );
+      System.arraycopy( root, 0, copy, 0, iLength );
+      return copy;
+    }
+    Class structuralOwner = _structuralOwners.get( call );
+    if( structuralOwner != null && !structuralOwner.isInstance( root ) )
+    {
+      root = IRMethodCallExpressionCompiler.constructProxy( root, structuralOwner );
+    }
+    try
+    {
+      return ((Method)target).invoke( root, args );
+    }
+    catch( InvocationTargetException e )
+    {
+      throw GosuExceptionUtil.forceThrow( e.getCause() );
+    }
+    catch( IllegalAccessException e )
+    {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private Object construct( IRNewExpression newExpression, Frame frame )
+  {
+    Object[] args = evaluateArgs( newExpression.getArgs(), newExpression.getParameterTypes(), frame );
+    try
+    {
+      return ((Constructor)_links.get( newExpression )).newInstance( args );
+    }
+    catch( InvocationTargetException e )
+    {
+      throw GosuExceptionUtil.forceThrow( e.getCause() );
+    }
+    catch( InstantiationException | IllegalAccessException e )
+    {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private Object[] evaluateArgs( List<IRExpression> args, List<IRType> paramTypes, Frame frame )
+  {
+    Object[] values = new Object[args.size()];
+    for( int i = 0; i < values.length; i++ )
+    {
+      values[i] = coerce( evaluate( args.get( i ), frame ), paramTypes.get( i ) );
+    }
+    return values;
+  }
+
+  private Object getField( IRFieldGetExpression fieldGet, Frame frame )
+  {
+    Object root = fieldGet.getLhs() == null ? null : evaluate( fieldGet.getLhs(), frame );
+    Object field = _links.get( fieldGet );
+    if( field == null )
+    {
+      return ((Instance)root)._fields.get( fieldGet.getName() );
+    }
+    try
+    {
+      return ((Field)field).get( root );
+    }
+    catch( IllegalAccessException e )
+    {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private Object cast( IRCastExpression cast, Frame frame )
+  {
+    Object value = evaluate( cast.getRoot(), frame );
+    Class type = (Class)_links.get( cast );
+    if( type != null && value != null && !type.isInstance( value ) )
+    {
+      throw new ClassCastException( value.getClass().getName() + " cannot be cast to " + type.getName() );
+    }
+    return value;
+  }
+
+  /**
+   * Builds the string of an invokedynamic bootstrapped by StringConcatFactory.makeConcatWithConstants()
+   */
+  private Object concat( IRInvokeDynamicExpression indy, Frame frame )
+  {
+    String strRecipe = (String)_links.get( indy );
+    List<Object> constants = indy.getBootstrapArgs();
+    List<IRExpression> args = indy.getArgs();
+    StringBuilder sb = new StringBuilder();
+    int iArg = 0;
+    int iConst = 1;
+    for( int i = 0; i < strRecipe.length(); i++ )
+    {
+      char c = strRecipe.charAt( i );
+      if( c == TAG_ARG )
+      {
+        sb.append( evaluate( args.get( iArg++ ), frame ) );
+      }
+      else if( c == TAG_CONST )
+      {
+        sb.append( constants.get( iConst++ ) );
+      }
+      else
+      {
+        sb.append( c );
+      }
+    }
+    return sb.toString();
+  }
+
+  private Object isEqual( IREqualityExpression equality, Frame frame )
+  {
+    IRExpression lhs = equality.getLhs();
+    IRExpression rhs = equality.getRhs();
+    boolean bEqual;
+    if( lhs instanceof IRNullLiteral || rhs instanceof IRNullLiteral )
+    {
+      bEqual = evaluate( lhs instanceof IRNullLiteral ? rhs : lhs, frame ) == null;
+    }
+    else
+    {
+      Object lhsValue = evaluate( lhs, frame );
+      Object rhsValue = evaluate( rhs, frame );
+      IRType type = lhs.getType();
+      if( !type.isPrimitive() )
+      {
+        bEqual = lhsValue == rhsValue;
+      }
+      else if( type.isLong() )
+      {
+        bEqual = toLong( lhsValue ) == toLong( rhsValue );
+      }
+      else if( type.isDouble() || type.isFloat() )
+      {
+        bEqual = toDouble( lhsValue ) == toDouble( rhsValue );
+      }
+      else
+      {
+        bEqual = toInt( lhsValue ) == toInt( rhsValue );
+      }
+    }
+    return bEqual == equality.isEquals();
+  }
+
+  private Object compare( IRRelationalExpression relational, Frame frame )
+  {
+    Object lhs = evaluate( relational.getLhs(), frame );
+    Object rhs = evaluate( relational.getRhs(), frame );
+    IRType type = relational.getLhs().getType();
+    IRRelationalExpression.Operation op = relational.getOp();
+    if( type.isLong() )
+    {
+      long l = toLong( lhs );
+      long r = toLong( rhs );
+      return op == IRRelationalExpression.Operation.GT ? l > r
+             : op == IRRelationalExpression.Operation.GTE ? l >= r
+             : op == IRRelationalExpression.Operation.LT ? l < r
+             : l <= r;
+    }
+    if( type.isDouble() || type.isFloat() )
+    {
+      double l = toDouble( lhs );
+      double r = toDouble( rhs );
+      return op == IRRelationalExpression.Operation.GT ? l > r
+             : op == IRRelationalExpression.Operation.GTE ? l >= r
+             : op == IRRelationalExpression.Operation.LT ? l < r
+             : l <= r;
+    }
+    int l = toInt( lhs );
+    int r = toInt( rhs );
+    return op == IRRelationalExpression.Operation.GT ? l > r
+           : op == IRRelationalExpression.Operation.GTE ? l >= r
+           : op == IRRelationalExpression.Operation.LT ? l < r
+           : l <= r;
+  }
+
+  private Object arithmetic( IRArithmeticExpression arithmetic, Frame frame )
+  {
+    Object lhs = evaluate( arithmetic.getLhs(), frame );
+    Object rhs = evaluate( arithmetic.getRhs(), frame );
+    IRType type = arithmetic.getType();
+    switch( arithmetic.getOp() )
+    {
+      case Addition:
+        return type.isLong() ? (Object)(toLong( lhs ) + toLong( rhs ))
+               : type.isDouble() ? (Object)(toDouble( lhs ) + toDouble( rhs ))
+               : type.isFloat() ? (Object)(toFloat( lhs ) + toFloat( rhs ))
+               : coerce( toInt( lhs ) + toInt( rhs ), type );
+      case Subtraction:
+        return type.isLong() ? (Object)(toLong( lhs ) - toLong( rhs ))
+               : type.isDouble() ? (Object)(toDouble( lhs ) - toDouble( rhs ))
+               : type.isFloat() ? (Object)(toFloat( lhs ) - toFloat( rhs ))
+               : coerce( toInt( lhs ) - toInt( rhs ), type );
+      case Multiplication:
+        return type.isLong() ? (Object)(toLong( lhs ) * toLong( rhs ))
+               : type.isDouble() ? (Object)(toDouble( lhs ) * toDouble( rhs ))
+               : type.isFloat() ? (Object)(toFloat( lhs ) * toFloat( rhs ))
+               : coerce( toInt( lhs ) * toInt( rhs ), type );
+      case Division:
+        return type.isLong() ? (Object)(toLong( lhs ) / toLong( rhs ))
+               : type.isDouble() ? (Object)(toDouble( lhs ) / toDouble( rhs ))
+               : type.isFloat() ? (Object)(toFloat( lhs ) / toFloat( rhs ))
+               : coerce( toInt( lhs ) / toInt( rhs ), type );
+      case Remainder:
+        return type.isLong() ? (Object)(toLong( lhs ) % toLong( rhs ))
+               : type.isDouble() ? (Object)(toDouble( lhs ) % toDouble( rhs ))
+               : type.isFloat() ? (Object)(toFloat( lhs ) % toFloat( rhs ))
+               : coerce( toInt( lhs ) % toInt( rhs ), type );
+      case ShiftLeft:
+        return type.isLong() ? (Object)(toLong( lhs ) << toInt( rhs )) : coerce( toInt( lhs ) << toInt( rhs ), type );
+      case ShiftRight:
+        return type.isLong() ? (Object)(toLong( lhs ) >> toInt( rhs )) : coerce( toInt( lhs ) >> toInt( rhs ), type );
+      case UnsignedShiftRight:
+        return type.isLong() ? (Object)(toLong( lhs ) >>> toInt( rhs )) : coerce( toInt( lhs ) >>> toInt( rhs ), type );
+      case BitwiseAnd:
+        return type.isLong() ? (Object)(toLong( lhs ) & toLong( rhs )) : coerce( toInt( lhs ) & toInt( rhs ), type );
+      case BitwiseOr:
+        return type.isLong() ? (Object)(toLong( lhs ) | toLong( rhs )) : coerce( toInt( lhs ) | toInt( rhs ), type );
+      case BitwiseXor:
+        return type.isLong() ? (Object)(toLong( lhs ) ^ toLong( rhs )) : coerce( toInt( lhs ) ^ toInt( rhs ), type );
+      default:
+        throw new IllegalStateException( "Unexpected operation " + arithmetic.getOp() );
+    }
+  }
+
+  private Object not( IRNotExpression not, Frame frame )
+  {
+    Object value = evaluate( not.getRoot(), frame );
+    IRType type = not.getType();
+    if( type.isBoolean() )
+    {
+      return !isTrue( value );
+    }
+    return type.isLong() ? (Object)~toLong( value ) : (Object)~toInt( value );
+  }
+
+  private Object negate( IRNegationExpression negation, Frame frame )
+  {
+    Object value = evaluate( negation.getRoot(), frame );
+    IRType type = negation.getType();
+    return type.isLong() ? (Object)(-toLong( value ))
+           : type.isDouble() ? (Object)(-toDouble( value ))
+           : type.isFloat() ? (Object)(-toFloat( value ))
+           : coerce( -toInt( value ), type );
+  }
+
+  // Values
+
+  private boolean isTrue( IRExpression test, Frame frame )
+  {
+    return test == null || isTrue( evaluate( test, frame ) );
+  }
+
+  private static boolean isTrue( Object value )
+  {
+    return value instanceof Boolean ? (Boolean)value : toInt( value ) != 0;
+  }
+
+  private static int toInt( Object value )
+  {
+    if( value instanceof Number )
+    {
+      return ((Number)value).intValue();
+    }
+    if( value instanceof Character )
+    {
+      return (Character)value;
+    }
+    return (Boolean)value ? 1 : 0;
+  }
+
+  private static long toLong( Object value )
+  {
+    return value instanceof Number ? ((Number)value).longValue() : toInt( value );
+  }
+
+  private static float toFloat( Object value )
+  {
+    return value instanceof Number ? ((Number)value).floatValue() : toInt( value );
+  }
+
+  private static double toDouble( Object value )
+  {
+    return value instanceof Number ? ((Number)value).doubleValue() : toInt( value );
+  }
+
+  /**
+   * @return The value as the Java type of the IR type, the value narrowed or widened to a
+   * primitive type if it doesn't have it already
+   */
+  static Object coerce( Object value, IRType type )
+  {
+    if( !type.isPrimitive() || value == null )
+    {
+      return value;
+    }
+    if( type.isInt() )
+    {
+      return value instanceof Integer ? value : (Object)toInt( value );
+    }
+    if( type.isBoolean() )
+    {
+      return value instanceof Boolean ? value : (Object)(toInt( value ) != 0);
+    }
+    if( type.isVoid() )
+    {
+      return null;
+    }
+    return convert( value, type );
+  }
+
+  /**
+   * @return The value converted to the primitive type as by a Java cast
+   */
+  private static Object convert( Object value, IRType type )
+  {
+    if( type.isInt() )
+    {
+      return value instanceof Integer ? value : (Object)toInt( value );
+    }
+    if( type.isLong() )
+    {
+      return value instanceof Long ? value : (Object)toLong( value );
+    }
+    if( type.isDouble() )
+    {
+      return value instanceof Double ? value : (Object)toDouble( value );
+    }
+    if( type.isFloat() )
+    {
+      return value instanceof Float ? value : (Object)toFloat( value );
+    }
+    if( type.isBoolean() )
+    {
+      return value instanceof Boolean ? value : (Object)(toInt( value ) != 0);
+    }
+    if( type.isChar() )
+    {
+      return value instanceof Character ? value : (Object)(char)toInt( value );
+    }
+    if( type.isByte() )
+    {
+      return value instanceof Byte ? value : (Object)(byte)toInt( value );
+    }
+    if( type.isShort() )
+    {
+      return value instanceof Short ? value : (Object)(short)toInt( value );
+    }
+    throw new IllegalStateException( "Unexpected primitive type " + type.getName() );
+  }
+
+  /**
+   * @return The value a field of the type starts with
+   */
+  static Object defaultValue( IRType type )
+  {
+    return !type.isPrimitive() || type.isVoid() ? null : convert( 0, type );
+  }
+}
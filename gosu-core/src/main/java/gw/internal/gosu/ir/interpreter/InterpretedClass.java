@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.interpreter;
+
+import gw.internal.gosu.ir.TransformingCompiler;
+import gw.internal.gosu.parser.IGosuProgramInternal;
+import gw.lang.ir.IRClass;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.IRType;
+import gw.lang.ir.statement.IRFieldDecl;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IExternalSymbolMap;
+import gw.lang.reflect.gs.IProgramInstance;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class of a program run by the {@link IRInterpreter} from its IR instead of compiled to
+ * bytecode. Programs and eval expressions often run once, interpreting them saves generating,
+ * defining and loading a class for each. A program's class is compiled once the program has run
+ * {@link BytecodeOptions#getInterpreterThreshold()} times.
+ * <p/>
+ * Only a program whose instances can't escape the interpreter is interpreted: it extends Object,
+ * has no inner classes, blocks or static fields, and uses <code>this</code> only to get at its own
+ * fields and methods. The classes, methods and fields the program refers to are resolved before it
+ * runs. A program that doesn't qualify, or refers to something that doesn't resolve, is compiled.
+ */
+public final class InterpretedClass
+{
+  private final IRInterpreter _interpreter;
+  private final IRMethodStatement _ctor;
+  private final IRMethodStatement _evaluate;
+  private final IRMethodStatement _evaluateRootExpr;
+  private final Map<String, Object> _fieldDefaults;
+
+  /**
+   * @return The program's class ready to run in the interpreter, or null if the program must be
+   * compiled
+   */
+  public static InterpretedClass make( IGosuProgramInternal program )
+  {
+    if( program.getBlockCount() > 0 || !program.getInnerClasses().isEmpty() )
+    {
+      return null;
+    }
+    IRClass irClass = TransformingCompiler.transformClass( program );
+    if( !irClass.getSuperType().getName().equals( Object.class.getName() ) )
+    {
+      return null;
+    }
+
+    Map<String, Object> fieldDefaults = new HashMap<>();
+    for( IRFieldDecl field : irClass.getFields() )
+    {
+      if( Modifier.isStatic( field.getModifiers() ) )
+      {
+        return null;
+      }
+      fieldDefaults.put( field.getName(), IRInterpreter.defaultValue( field.getType() ) );
+    }
+
+    IRMethodStatement ctor = null;
+    IRMethodStatement clinit = null;
+    IRMethodStatement evaluate = null;
+    IRMethodStatement evaluateRootExpr = null;
+    for( IRMethodStatement method : irClass.getMethods() )
+    {
+      switch( method.getName() )
+      {
+        case "<init>":
+          if( ctor != null )
+          {
+            return null;
+          }
+          ctor = method;
+          break;
+        case "<clinit>":
+          clinit = method;
+          break;
+        case "evaluate":
+          evaluate = method;
+          break;
+        case "evaluateRootExpr":
+          evaluateRootExpr = method;
+          break;
+      }
+    }
+    if( ctor == null || evaluate == null || evaluateRootExpr == null )
+    {
+      return null;
+    }
+
+    InterpreterLinker linker = new InterpreterLinker( irClass, fieldDefaults.keySet() );
+    List<IRMethodStatement> entryPoints = new ArrayList<>();
+    entryPoints.add( ctor );
+    entryPoints.add( evaluate );
+    entryPoints.add( evaluateRootExpr );
+    if( clinit != null )
+    {
+      entryPoints.add( clinit );
+    }
+    if( !linker.link( entryPoints ) )
+    {
+      return null;
+    }
+
+    IRInterpreter interpreter = new IRInterpreter( linker );
+    if( clinit != null )
+    {
+      interpreter.invoke( clinit, null, new Object[0] );
+    }
+    return new InterpretedClass( interpreter, ctor, evaluate, evaluateRootExpr, fieldDefaults );
+  }
+
+  private InterpretedClass( IRInterpreter interpreter, IRMethodStatement ctor, IRMethodStatement evaluate,
+                            IRMethodStatement evaluateRootExpr, Map<String, Object> fieldDefaults )
+  {
+    _interpreter = interpreter;
+    _ctor = ctor;
+    _evaluate = evaluate;
+    _evaluateRootExpr = evaluateRootExpr;
+    _fieldDefaults = fieldDefaults;
+  }
+
+  public List<IRType> getConstructorParameterTypes()
+  {
+    List<IRType> types = new ArrayList<>();
+    for( IRSymbol param : _ctor.getParameters() )
+    {
+      types.add( param.getType() );
+    }
+    return types;
+  }
+
+  /**
+   * @return A new instance of the program, made by interpreting its constructor with the args
+   */
+  public IProgramInstance newInstance( Object... args )
+  {
+    InterpretedInstance instance = new InterpretedInstance( new HashMap<>( _fieldDefaults ) );
+    _interpreter.invoke( _ctor, instance, args );
+    return instance;
+  }
+
+  private final class InterpretedInstance extends IRInterpreter.Instance implements IProgramInstance
+  {
+    private InterpretedInstance( Map<String, Object> fields )
+    {
+      super( fields );
+    }
+
+    @Override
+    public Object evaluate( IExternalSymbolMap symbols )
+    {
+      return _interpreter.invoke( _evaluate, this, new Object[] {symbols} );
+    }
+
+    @Override
+    public Object evaluateRootExpr( IExternalSymbolMap symbols )
+    {
+      return _interpreter.invoke( _evaluateRootExpr, this, new Object[] {symbols} );
+    }
+  }
+}
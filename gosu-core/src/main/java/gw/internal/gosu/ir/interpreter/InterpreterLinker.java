@@ -0,0 +1,654 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.interpreter;
+
+import gw.lang.ir.IRClass;
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRArrayLengthExpression;
+import gw.lang.ir.expression.IRArrayLoadExpression;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRCharacterLiteral;
+import gw.lang.ir.expression.IRClassLiteral;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRFieldGetExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNegationExpression;
+import gw.lang.ir.expression.IRNewArrayExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
+import gw.lang.ir.expression.IRNoOpExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRNullLiteral;
+import gw.lang.ir.expression.IRNumericLiteral;
+import gw.lang.ir.expression.IRPrimitiveTypeConversion;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.expression.IRStringLiteralExpression;
+import gw.lang.ir.expression.IRTernaryExpression;
+import gw.lang.ir.statement.IRArrayStoreStatement;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRBreakStatement;
+import gw.lang.ir.statement.IRCaseClause;
+import gw.lang.ir.statement.IRCatchClause;
+import gw.lang.ir.statement.IRContinueStatement;
+import gw.lang.ir.statement.IRDoWhileStatement;
+import gw.lang.ir.statement.IREvalStatement;
+import gw.lang.ir.statement.IRFieldSetStatement;
+import gw.lang.ir.statement.IRForEachStatement;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRMethodCallStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.ir.statement.IRNewStatement;
+import gw.lang.ir.statement.IRNoOpStatement;
+import gw.lang.ir.statement.IRReturnStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.lang.ir.statement.IRSwitchStatement;
+import gw.lang.ir.statement.IRSyntheticStatement;
+import gw.lang.ir.statement.IRThrowStatement;
+import gw.lang.ir.statement.IRTryCatchFinallyStatement;
+import gw.lang.ir.statement.IRWhileStatement;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the classes, methods, fields and constructors the IR of a class refers to before the
+ * {@link IRInterpreter} runs it, and checks the IR only does what the interpreter can do the way
+ * the class's bytecode would. The methods reachable from the entry points are linked.
+ * <p/>
+ * Linking fails if the class's instance would escape the interpreter, i.e. if <code>this</code>
+ * is used other than to access the class's own fields and methods or the class refers to itself
+ * otherwise. Linking also fails for IR without a reflective equivalent: monitors, invokedynamic
+ * other than string concatenation, calls to super methods and to methods that depend on their
+ * caller, such as <code>Class.forName(String)</code>.
+ */
+final class InterpreterLinker
+{
+  /**
+   * Links the call to Object's constructor, which does nothing
+   */
+  static final Object OBJECT_INIT = new Object();
+  /**
+   * Links clone() on an array, which reflection can't call
+   */
+  static final Object ARRAY_CLONE = new Object();
+
+  private final IRClass _irClass;
+  private final Set<String> _fields;
+  private final Map<Object, Object> _links = new IdentityHashMap<>();
+  private final Map<Object, Class> _structuralOwners = new IdentityHashMap<>();
+  private final Set<IRMethodStatement> _linked = Collections.newSetFromMap( new IdentityHashMap<>() );
+  private final Deque<IRMethodStatement> _pending = new ArrayDeque<>();
+
+  InterpreterLinker( IRClass irClass, Set<String> fields )
+  {
+    _irClass = irClass;
+    _fields = fields;
+  }
+
+  /**
+   * @return The class, method, field or constructor an IR element refers to by the element, own
+   * methods by their {@link IRMethodStatement}. Own fields are not linked.
+   */
+  Map<Object, Object> getLinks()
+  {
+    return _links;
+  }
+
+  /**
+   * @return The structural interface of calls to methods of structural types
+   */
+  Map<Object, Class> getStructuralOwners()
+  {
+    return _structuralOwners;
+  }
+
+  /**
+   * @return True if the methods reachable from the entry points are linked, false if the class
+   * can't be interpreted
+   */
+  boolean link( List<IRMethodStatement> entryPoints )
+  {
+    try
+    {
+      for( IRMethodStatement method : entryPoints )
+      {
+        enqueue( method );
+      }
+      while( !_pending.isEmpty() )
+      {
+        IRMethodStatement method = _pending.pop();
+        if( method.getMethodBody() == null )
+        {
+          return false;
+        }
+        link( method.getMethodBody() );
+      }
+      return true;
+    }
+    catch( RuntimeException | LinkageError e )
+    {
+      // Not interpretable, or something it refers to doesn't resolve; the class is compiled instead
+      return false;
+    }
+  }
+
+  private void enqueue( IRMethodStatement method )
+  {
+    if( _linked.add( method ) )
+    {
+      _pending.push( method );
+    }
+  }
+
+  private void linkAll( List<? extends IRElement> elements )
+  {
+    for( IRElement element : elements )
+    {
+      if( element instanceof IRStatement )
+      {
+        link( (IRStatement)element );
+      }
+      else
+      {
+        link( (IRExpression)element );
+      }
+    }
+  }
+
+  private void link( IRStatement statement )
+  {
+    if( statement == null ||
+        statement instanceof IRNoOpStatement ||
+        statement instanceof IRBreakStatement ||
+        statement instanceof IRContinueStatement )
+    {
+      return;
+    }
+    if( statement instanceof IRStatementList )
+    {
+      linkAll( ((IRStatementList)statement).getStatements() );
+    }
+    else if( statement instanceof IRAssignmentStatement )
+    {
+      link( ((IRAssignmentStatement)statement).getValue() );
+    }
+    else if( statement instanceof IRMethodCallStatement )
+    {
+      link( ((IRMethodCallStatement)statement).getExpression() );
+    }
+    else if( statement instanceof IREvalStatement )
+    {
+      link( ((IREvalStatement)statement).getExpression() );
+    }
+    else if( statement instanceof IRSyntheticStatement )
+    {
+      link( ((IRSyntheticStatement)statement).getExpression() );
+    }
+    else if( statement instanceof IRNewStatement )
+    {
+      link( ((IRNewStatement)statement).getNewExpression() );
+    }
+    else if( statement instanceof IRFieldSetStatement )
+    {
+      IRFieldSetStatement fieldSet = (IRFieldSetStatement)statement;
+      linkField( fieldSet, fieldSet.getLhs(), fieldSet.getOwnersType(), fieldSet.getName() );
+      link( fieldSet.getRhs() );
+    }
+    else if( statement instanceof IRArrayStoreStatement )
+    {
+      IRArrayStoreStatement arrayStore = (IRArrayStoreStatement)statement;
+      link( arrayStore.getTarget() );
+      link( arrayStore.getIndex() );
+      link( arrayStore.getValue() );
+    }
+    else if( statement instanceof IRIfStatement )
+    {
+      IRIfStatement ifStatement = (IRIfStatement)statement;
+      link( ifStatement.getExpression() );
+      link( ifStatement.getIfStatement() );
+      link( ifStatement.getElseStatement() );
+    }
+    else if( statement instanceof IRReturnStatement )
+    {
+      IRReturnStatement returnStatement = (IRReturnStatement)statement;
+      link( returnStatement.getTempVarAssignment() );
+      link( returnStatement.getReturnValue() );
+    }
+    else if( statement instanceof IRForEachStatement )
+    {
+      IRForEachStatement forEach = (IRForEachStatement)statement;
+      linkAll( forEach.getInitializers() );
+      link( forEach.getIdentifierToNullCheck() );
+      link( forEach.getLoopTest() );
+      linkAll( forEach.getIncrementors() );
+      link( forEach.getBody() );
+    }
+    else if( statement instanceof IRWhileStatement )
+    {
+      link( ((IRWhileStatement)statement).getLoopTest() );
+      link( ((IRWhileStatement)statement).getBody() );
+    }
+    else if( statement instanceof IRDoWhileStatement )
+    {
+      link( ((IRDoWhileStatement)statement).getBody() );
+      link( ((IRDoWhileStatement)statement).getLoopTest() );
+    }
+    else if( statement instanceof IRSwitchStatement )
+    {
+      IRSwitchStatement switchStatement = (IRSwitchStatement)statement;
+      if( switchStatement.areLabelsConstant() && !(switchStatement.getInit() instanceof IRAssignmentStatement) )
+      {
+        throw unsupported( "switch" );
+      }
+      link( switchStatement.getInit() );
+      for( IRCaseClause caseClause : switchStatement.getCases() )
+      {
+        link( caseClause.getCondition() );
+        linkAll( caseClause.getStatements() );
+      }
+      linkAll( switchStatement.getDefaultStatements() );
+    }
+    else if( statement instanceof IRTryCatchFinallyStatement )
+    {
+      IRTryCatchFinallyStatement tryStatement = (IRTryCatchFinallyStatement)statement;
+      link( tryStatement.getTryBody() );
+      for( IRCatchClause catchClause : tryStatement.getCatchStatements() )
+      {
+        _links.put( catchClause, resolveClass( catchClause.getIdentifier().getType() ) );
+        link( catchClause.getBody() );
+      }
+      link( tryStatement.getFinallyBody() );
+    }
+    else if( statement instanceof IRThrowStatement )
+    {
+      link( ((IRThrowStatement)statement).getException() );
+    }
+    else
+    {
+      throw unsupported( statement.getClass().getSimpleName() );
+    }
+  }
+
+  private void link( IRExpression expression )
+  {
+    if( expression == null ||
+        expression instanceof IRNumericLiteral ||
+        expression instanceof IRBooleanLiteral ||
+        expression instanceof IRCharacterLiteral ||
+        expression instanceof IRNullLiteral ||
+        expression instanceof IRNoOpExpression )
+    {
+      return;
+    }
+    if( expression instanceof IRIdentifier )
+    {
+      if( isThis( expression ) )
+      {
+        throw unsupported( "this" );
+      }
+    }
+    else if( expression instanceof IRStringLiteralExpression )
+    {
+      // The constant pool holds interned strings
+      _links.put( expression, ((IRStringLiteralExpression)expression).getValue().intern() );
+    }
+    else if( expression instanceof IRClassLiteral )
+    {
+      _links.put( expression, resolveClass( ((IRClassLiteral)expression).getLiteralType() ) );
+    }
+    else if( expression instanceof IRMethodCallExpression )
+    {
+      linkCall( (IRMethodCallExpression)expression );
+    }
+    else if( expression instanceof IRFieldGetExpression )
+    {
+      IRFieldGetExpression fieldGet = (IRFieldGetExpression)expression;
+      linkField( fieldGet, fieldGet.getLhs(), fieldGet.getOwnersType(), fieldGet.getName() );
+    }
+    else if( expression instanceof IRNewExpression )
+    {
+      IRNewExpression newExpression = (IRNewExpression)expression;
+      linkAll( newExpression.getArgs() );
+      Class ownerClass = resolveClass( newExpression.getOwnersType() );
+      try
+      {
+        Constructor ctor = ownerClass.getDeclaredConstructor( resolveClasses( newExpression.getParameterTypes() ) );
+        _links.put( newExpression, accessible( ctor ) );
+      }
+      catch( NoSuchMethodException e )
+      {
+        throw unsupported( "constructor of " + ownerClass.getName() );
+      }
+    }
+    else if( expression instanceof IRArithmeticExpression )
+    {
+      link( ((IRArithmeticExpression)expression).getLhs() );
+      link( ((IRArithmeticExpression)expression).getRhs() );
+    }
+    else if( expression instanceof IRRelationalExpression )
+    {
+      link( ((IRRelationalExpression)expression).getLhs() );
+      link( ((IRRelationalExpression)expression).getRhs() );
+    }
+    else if( expression instanceof IREqualityExpression )
+    {
+      link( ((IREqualityExpression)expression).getLhs() );
+      link( ((IREqualityExpression)expression).getRhs() );
+    }
+    else if( expression instanceof IRConditionalAndExpression )
+    {
+      link( ((IRConditionalAndExpression)expression).getLhs() );
+      link( ((IRConditionalAndExpression)expression).getRhs() );
+    }
+    else if( expression instanceof IRConditionalOrExpression )
+    {
+      link( ((IRConditionalOrExpression)expression).getLhs() );
+      link( ((IRConditionalOrExpression)expression).getRhs() );
+    }
+    else if( expression instanceof IRTernaryExpression )
+    {
+      IRTernaryExpression ternary = (IRTernaryExpression)expression;
+      link( ternary.getTest() );
+      link( ternary.getTrueValue() );
+      link( ternary.getFalseValue() );
+    }
+    else if( expression instanceof IRNotExpression )
+    {
+      link( ((IRNotExpression)expression).getRoot() );
+    }
+    else if( expression instanceof IRNegationExpression )
+    {
+      link( ((IRNegationExpression)expression).getRoot() );
+    }
+    else if( expression instanceof IRCastExpression )
+    {
+      IRCastExpression cast = (IRCastExpression)expression;
+      link( cast.getRoot() );
+      if( !cast.getType().isStructural() && !cast.getType().isPrimitive() )
+      {
+        _links.put( cast, resolveClass( cast.getType() ) );
+      }
+    }
+    else if( expression instanceof IRInstanceOfExpression )
+    {
+      IRInstanceOfExpression instanceOf = (IRInstanceOfExpression)expression;
+      link( instanceOf.getRoot() );
+      _links.put( instanceOf, resolveClass( instanceOf.getTestType() ) );
+    }
+    else if( expression instanceof IRPrimitiveTypeConversion )
+    {
+      link( ((IRPrimitiveTypeConversion)expression).getRoot() );
+    }
+    else if( expression instanceof IRCompositeExpression )
+    {
+      linkAll( ((IRCompositeExpression)expression).getElements() );
+    }
+    else if( expression instanceof IRArrayLoadExpression )
+    {
+      link( ((IRArrayLoadExpression)expression).getRoot() );
+      link( ((IRArrayLoadExpression)expression).getIndex() );
+    }
+    else if( expression instanceof IRArrayLengthExpression )
+    {
+      link( ((IRArrayLengthExpression)expression).getRoot() );
+    }
+    else if( expression instanceof IRNewArrayExpression )
+    {
+      IRNewArrayExpression newArray = (IRNewArrayExpression)expression;
+      link( newArray.getSizeExpression() );
+      _links.put( newArray, resolveClass( newArray.getComponentType() ) );
+    }
+    else if( expression instanceof IRNewMultiDimensionalArrayExpression )
+    {
+      IRNewMultiDimensionalArrayExpression newArray = (IRNewMultiDimensionalArrayExpression)expression;
+      linkAll( newArray.getSizeExpressions() );
+      Class componentClass = resolveClass( newArray.getResultType() );
+      for( int i = 0; i < newArray.getSizeExpressions().size(); i++ )
+      {
+        componentClass = componentClass.getComponentType();
+      }
+      _links.put( newArray, componentClass );
+    }
+    else if( expression instanceof IRInvokeDynamicExpression )
+    {
+      IRInvokeDynamicExpression indy = (IRInvokeDynamicExpression)expression;
+      if( !indy.getBootstrapOwner().getName().equals( "java.lang.invoke.StringConcatFactory" ) ||
+          !indy.getBootstrapName().equals( "makeConcatWithConstants" ) )
+      {
+        throw unsupported( "invokedynamic" );
+      }
+      linkAll( indy.getArgs() );
+      _links.put( indy, indy.getBootstrapArgs().get( 0 ) );
+    }
+    else
+    {
+      throw unsupported( expression.getClass().getSimpleName() );
+    }
+  }
+
+  private void linkCall( IRMethodCallExpression call )
+  {
+    linkAll( call.getArgs() );
+    IRType owner = call.getOwnersType();
+    IRExpression root = call.getRoot();
+    if( isSelf( owner ) )
+    {
+      IRMethodStatement method = findOwnMethod( call.getName(), call.getParameterTypes() );
+      if( Modifier.isStatic( method.getModifiers() ) ? root != null : !isThis( root ) )
+      {
+        throw unsupported( "call to " + call.getName() );
+      }
+      _links.put( call, method );
+      enqueue( method );
+      return;
+    }
+
+    if( call.isSpecial() && call.getName().equals( "<init>" ) )
+    {
+      if( isThis( root ) && owner.getName().equals( Object.class.getName() ) )
+      {
+        _links.put( call, OBJECT_INIT );
+        return;
+      }
+      throw unsupported( "super constructor" );
+    }
+    link( root );
+    if( owner.isArray() )
+    {
+      if( call.getName().equals( "clone" ) && call.getParameterTypes().isEmpty() )
+      {
+        _links.put( call, ARRAY_CLONE );
+        return;
+      }
+    }
+
+    Class ownerClass = owner.isArray() ? Object.class : resolveClass( owner );
+    Method method = findMethod( ownerClass, call.getName(), resolveClasses( call.getParameterTypes() ) );
+    if( method == null || isCallerSensitive( method ) )
+    {
+      throw unsupported( "call to " + call.getName() );
+    }
+    if( call.isSpecial() && root != null && !Modifier.isPrivate( method.getModifiers() ) )
+    {
+      // invokespecial of a super method, reflection would dispatch virtually
+      throw unsupported( "super call" );
+    }
+    if( owner.isStructural() )
+    {
+      _structuralOwners.put( call, ownerClass );
+    }
+    _links.put( call, accessible( method ) );
+  }
+
+  private void linkField( IRElement element, IRExpression lhs, IRType owner, String strName )
+  {
+    if( isSelf( owner ) )
+    {
+      if( !isThis( lhs ) || !_fields.contains( strName ) )
+      {
+        throw unsupported( "field " + strName );
+      }
+      return;
+    }
+    link( lhs );
+    Field field = findField( resolveClass( owner ), strName );
+    if( field == null )
+    {
+      throw unsupported( "field " + strName );
+    }
+    _links.put( element, accessible( field ) );
+  }
+
+  private IRMethodStatement findOwnMethod( String strName, List<IRType> paramTypes )
+  {
+    for( IRMethodStatement method : _irClass.getMethods() )
+    {
+      if( method.getName().equals( strName ) && method.getParameters().size() == paramTypes.size() )
+      {
+        boolean bMatch = true;
+        for( int i = 0; i < paramTypes.size() && bMatch; i++ )
+        {
+          bMatch = method.getParameters().get( i ).getType().getDescriptor().equals( paramTypes.get( i ).getDescriptor() );
+        }
+        if( bMatch )
+        {
+          return method;
+        }
+      }
+    }
+    throw unsupported( "call to " + strName );
+  }
+
+  private static Method findMethod( Class cls, String strName, Class[] paramTypes )
+  {
+    try
+    {
+      return cls.getMethod( strName, paramTypes );
+    }
+    catch( NoSuchMethodException e )
+    {
+      // not public, look in the class and its supertypes
+    }
+    for( Class c = cls; c != null; c = c.getSuperclass() )
+    {
+      try
+      {
+        return c.getDeclaredMethod( strName, paramTypes );
+      }
+      catch( NoSuchMethodException e )
+      {
+        // look in the superclass
+      }
+    }
+    return cls.isInterface() ? findMethod( Object.class, strName, paramTypes ) : null;
+  }
+
+  private static Field findField( Class cls, String strName )
+  {
+    try
+    {
+      return cls.getField( strName );
+    }
+    catch( NoSuchFieldException e )
+    {
+      // not public, look in the class and its superclasses
+    }
+    for( Class c = cls; c != null; c = c.getSuperclass() )
+    {
+      try
+      {
+        return c.getDeclaredField( strName );
+      }
+      catch( NoSuchFieldException e )
+      {
+        // look in the superclass
+      }
+    }
+    return null;
+  }
+
+  private static boolean isCallerSensitive( Method method )
+  {
+    for( Annotation annotation : method.getDeclaredAnnotations() )
+    {
+      if( annotation.annotationType().getSimpleName().equals( "CallerSensitive" ) )
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static <T extends AccessibleObject> T accessible( T member )
+  {
+    member.setAccessible( true );
+    return member;
+  }
+
+  private Class[] resolveClasses( List<IRType> types )
+  {
+    Class[] classes = new Class[types.size()];
+    for( int i = 0; i < classes.length; i++ )
+    {
+      classes[i] = resolveClass( types.get( i ) );
+    }
+    return classes;
+  }
+
+  private Class resolveClass( IRType type )
+  {
+    if( isSelf( type ) )
+    {
+      throw unsupported( "reference to " + type.getName() );
+    }
+    Class cls = type.getJavaClass();
+    if( cls == null )
+    {
+      throw unsupported( "reference to " + type.getName() );
+    }
+    return cls;
+  }
+
+  private boolean isSelf( IRType type )
+  {
+    while( type.isArray() )
+    {
+      type = type.getComponentType();
+    }
+    return type.getName().equals( _irClass.getName() );
+  }
+
+  private static boolean isThis( IRExpression expression )
+  {
+    return expression instanceof IRIdentifier && ((IRIdentifier)expression).getSymbol().getName().equals( "this" );
+  }
+
+  private static UnsupportedOperationException unsupported( String strWhat )
+  {
+    return new UnsupportedOperationException( "The interpreter does not support " + strWhat );
+  }
+}
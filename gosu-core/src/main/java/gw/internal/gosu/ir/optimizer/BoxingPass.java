@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.statement.IRMethodStatement;
+
+/**
+ * Drops the unboxing of a value that was just boxed, e.g. <code>Integer.valueOf( i ).intValue()</code>
+ * becomes <code>i</code>, along with casts of a call or a <code>new</code> to the type it already
+ * has. Arithmetic on boxed types produces these pairs: the operands are unboxed, the result is
+ * boxed, and the next operation unboxes it again.
+ */
+class BoxingPass implements IRPass
+{
+  public String getName()
+  {
+    return "Boxing";
+  }
+
+  public IRStatement run( IRMethodStatement method )
+  {
+    return new IRRewriter()
+    {
+      @Override
+      protected IRExpression rewriteExpression( IRExpression expression )
+      {
+        if( expression instanceof IRCastExpression )
+        {
+          IRCastExpression cast = (IRCastExpression)expression;
+          IRExpression root = cast.getRoot();
+          if( (root instanceof IRMethodCallExpression || root instanceof IRNewExpression) &&
+              IROptimizerUtil.isSameType( root.getType(), cast.getType() ) )
+          {
+            return root;
+          }
+        }
+        else if( expression instanceof IRMethodCallExpression )
+        {
+          IRExpression value = getBoxedValue( (IRMethodCallExpression)expression );
+          if( value != null )
+          {
+            return value;
+          }
+        }
+        return expression;
+      }
+    }.rewrite( method.getMethodBody() );
+  }
+
+  /**
+   * @return The primitive value if the call unboxes a value that was just boxed, otherwise null
+   */
+  private static IRExpression getBoxedValue( IRMethodCallExpression unbox )
+  {
+    IRType boxType = unbox.getOwnersType();
+    if( !unbox.getArgs().isEmpty() ||
+        !unbox.getName().equals( unbox.getReturnType().getName() + "Value" ) ||
+        !IROptimizerUtil.isBoxType( boxType ) )
+    {
+      return null;
+    }
+    IRExpression root = unbox.getRoot();
+    while( root instanceof IRCastExpression )
+    {
+      root = ((IRCastExpression)root).getRoot();
+    }
+    if( !(root instanceof IRMethodCallExpression) )
+    {
+      return null;
+    }
+    IRMethodCallExpression box = (IRMethodCallExpression)root;
+    if( box.getRoot() != null ||
+        !box.getName().equals( "valueOf" ) ||
+        box.getArgs().size() != 1 ||
+        !IROptimizerUtil.isSameType( box.getOwnersType(), boxType ) )
+    {
+      return null;
+    }
+    IRExpression value = box.getArgs().get( 0 );
+    return IROptimizerUtil.isSameType( value.getType(), unbox.getReturnType() ) ? value : null;
+  }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCharacterLiteral;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRNegationExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRNumericLiteral;
+import gw.lang.ir.expression.IRPrimitiveTypeConversion;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evaluates arithmetic, comparisons, negations and primitive conversions of literals the way the
+ * JVM would, and replaces reads of a variable that is only ever assigned a literal with the literal.
+ * Integer division and remainder by zero are left for the JVM to throw. The assignment itself is
+ * kept, so the variable still has its value in a debugger.
+ */
+class ConstantFoldingPass implements IRPass
+{
+  public String getName()
+  {
+    return "ConstantFolding";
+  }
+
+  public IRStatement run( IRMethodStatement method )
+  {
+    return new Folder( new IRSymbolUsage( method ) ).rewrite( method.getMethodBody() );
+  }
+
+  private static class Folder extends IRRewriter
+  {
+    private final IRSymbolUsage _usage;
+    private final Map<String, IRExpression> _constants = new HashMap<String, IRExpression>();
+
+    Folder( IRSymbolUsage usage )
+    {
+      _usage = usage;
+    }
+
+    @Override
+    protected IRStatement rewriteStatement( IRStatement statement )
+    {
+      if( statement instanceof IRAssignmentStatement )
+      {
+        IRAssignmentStatement assignment = (IRAssignmentStatement)statement;
+        IRExpression value = assignment.getValue();
+        if( isLiteral( value ) &&
+            IROptimizerUtil.isSameType( value.getType(), assignment.getSymbol().getType() ) &&
+            _usage.getSingleValue( assignment.getSymbol() ) != null )
+        {
+          _constants.put( assignment.getSymbol().getName(), value );
+        }
+      }
+      return statement;
+    }
+
+    @Override
+    protected IRExpression rewriteExpression( IRExpression expression )
+    {
+      IRExpression folded = null;
+      if( expression instanceof IRIdentifier )
+      {
+        IRExpression constant = _constants.get( ((IRIdentifier)expression).getSymbol().getName() );
+        folded = constant == null ? null : copyLiteral( constant );
+      }
+      else if( expression instanceof IRArithmeticExpression )
+      {
+        folded = fold( (IRArithmeticExpression)expression );
+      }
+      else if( expression instanceof IRPrimitiveTypeConversion )
+      {
+        folded = fold( (IRPrimitiveTypeConversion)expression );
+      }
+      else if( expression instanceof IRNegationExpression )
+      {
+        folded = fold( (IRNegationExpression)expression );
+      }
+      else if( expression instanceof IRNotExpression )
+      {
+        IRExpression root = ((IRNotExpression)expression).getRoot();
+        folded = root instanceof IRBooleanLiteral ? new IRBooleanLiteral( !((IRBooleanLiteral)root).getValue() ) : null;
+      }
+      else if( expression instanceof IRRelationalExpression )
+      {
+        folded = fold( (IRRelationalExpression)expression );
+      }
+      else if( expression instanceof IREqualityExpression )
+      {
+        folded = fold( (IREqualityExpression)expression );
+      }
+      else if( expression instanceof IRConditionalAndExpression )
+      {
+        IRConditionalAndExpression and = (IRConditionalAndExpression)expression;
+        folded = foldConditional( and.getLhs(), and.getRhs(), true );
+      }
+      else if( expression instanceof IRConditionalOrExpression )
+      {
+        IRConditionalOrExpression or = (IRConditionalOrExpression)expression;
+        folded = foldConditional( or.getLhs(), or.getRhs(), false );
+      }
+      return folded == null ? expression : copyPosition( expression, folded );
+    }
+  }
+
+  private static boolean isLiteral( IRExpression expression )
+  {
+    return expression instanceof IRNumericLiteral ||
+           expression instanceof IRBooleanLiteral ||
+           expression instanceof IRCharacterLiteral;
+  }
+
+  private static IRExpression copyLiteral( IRExpression literal )
+  {
+    if( literal instanceof IRNumericLiteral )
+    {
+      return new IRNumericLiteral( ((IRNumericLiteral)literal).getValue() );
+    }
+    if( literal instanceof IRBooleanLiteral )
+    {
+      return new IRBooleanLiteral( ((IRBooleanLiteral)literal).getValue() );
+    }
+    return new IRCharacterLiteral( ((IRCharacterLiteral)literal).getValue() );
+  }
+
+  private static IRExpression fold( IRArithmeticExpression expr )
+  {
+    if( !(expr.getLhs() instanceof IRNumericLiteral) || !(expr.getRhs() instanceof IRNumericLiteral) )
+    {
+      return null;
+    }
+    Number result = compute( expr.getOp(),
+                             ((IRNumericLiteral)expr.getLhs()).getValue(),
+                             ((IRNumericLiteral)expr.getRhs()).getValue() );
+    if( result == null )
+    {
+      return null;
+    }
+    IRNumericLiteral literal = new IRNumericLiteral( result );
+    return IROptimizerUtil.isSameType( literal.getType(), expr.getType() ) ? literal : null;
+  }
+
+  private static Number compute( IRArithmeticExpression.Operation op, Number lhs, Number rhs )
+  {
+    if( lhs instanceof Integer && rhs instanceof Integer )
+    {
+      int l = lhs.intValue();
+      int r = rhs.intValue();
+      switch( op )
+      {
+        case Addition: return l + r;
+        case Subtraction: return l - r;
+        case Multiplication: return l * r;
+        case Division: return r == 0 ? null : (Number)(l / r);
+        case Remainder: return r == 0 ? null : (Number)(l % r);
+        case ShiftLeft: return l << r;
+        case ShiftRight: return l >> r;
+        case UnsignedShiftRight: return l >>> r;
+        case BitwiseAnd: return l & r;
+        case BitwiseOr: return l | r;
+        case BitwiseXor: return l ^ r;
+      }
+    }
+    else if( lhs instanceof Long && rhs instanceof Integer )
+    {
+      long l = lhs.longValue();
+      int r = rhs.intValue();
+      switch( op )
+      {
+        case ShiftLeft: return l << r;
+        case ShiftRight: return l >> r;
+        case UnsignedShiftRight: return l >>> r;
+      }
+    }
+    else if( lhs instanceof Long && rhs instanceof Long )
+    {
+      long l = lhs.longValue();
+      long r = rhs.longValue();
+      switch( op )
+      {
+        case Addition: return l + r;
+        case Subtraction: return l - r;
+        case Multiplication: return l * r;
+        case Division: return r == 0 ? null : (Number)(l / r);
+        case Remainder: return r == 0 ? null : (Number)(l % r);
+        case BitwiseAnd: return l & r;
+        case BitwiseOr: return l | r;
+        case BitwiseXor: return l ^ r;
+      }
+    }
+    else if( lhs instanceof Float && rhs instanceof Float )
+    {
+      float l = lhs.floatValue();
+      float r = rhs.floatValue();
+      switch( op )
+      {
+        case Addition: return l + r;
+        case Subtraction: return l - r;
+        case Multiplication: return l * r;
+        case Division: return l / r;
+        case Remainder: return l % r;
+      }
+    }
+    else if( lhs instanceof Double && rhs instanceof Double )
+    {
+      double l = lhs.doubleValue();
+      double r = rhs.doubleValue();
+      switch( op )
+      {
+        case Addition: return l + r;
+        case Subtraction: return l - r;
+        case Multiplication: return l * r;
+        case Division: return l / r;
+        case Remainder: return l % r;
+      }
+    }
+    return null;
+  }
+
+  private static IRExpression fold( IRPrimitiveTypeConversion expr )
+  {
+    IRExpression root = expr.getRoot();
+    Number value;
+    if( root instanceof IRNumericLiteral )
+    {
+      value = ((IRNumericLiteral)root).getValue();
+    }
+    else if( root instanceof IRCharacterLiteral )
+    {
+      value = (int)((IRCharacterLiteral)root).getValue();
+    }
+    else
+    {
+      return null;
+    }
+    if( !IROptimizerUtil.isSameType( root.getType(), expr.getFromType() ) )
+    {
+      return null;
+    }
+    String strTo = expr.getToType().getDescriptor();
+    if( strTo.equals( "I" ) )
+    {
+      return new IRNumericLiteral( value.intValue() );
+    }
+    if( strTo.equals( "J" ) )
+    {
+      return new IRNumericLiteral( value.longValue() );
+    }
+    if( strTo.equals( "F" ) )
+    {
+      return new IRNumericLiteral( value.floatValue() );
+    }
+    if( strTo.equals( "D" ) )
+    {
+      return new IRNumericLiteral( value.doubleValue() );
+    }
+    if( strTo.equals( "S" ) )
+    {
+      return new IRNumericLiteral( value.shortValue() );
+    }
+    if( strTo.equals( "B" ) )
+    {
+      return new IRNumericLiteral( value.byteValue() );
+    }
+    return null;
+  }
+
+  private static IRExpression fold( IRNegationExpression expr )
+  {
+    if( !(expr.getRoot() instanceof IRNumericLiteral) )
+    {
+      return null;
+    }
+    Number value = ((IRNumericLiteral)expr.getRoot()).getValue();
+    if( value instanceof Integer )
+    {
+      return new IRNumericLiteral( -value.intValue() );
+    }
+    if( value instanceof Long )
+    {
+      return new IRNumericLiteral( -value.longValue() );
+    }
+    if( value instanceof Float )
+    {
+      return new IRNumericLiteral( -value.floatValue() );
+    }
+    if( value instanceof Double )
+    {
+      return new IRNumericLiteral( -value.doubleValue() );
+    }
+    return null;
+  }
+
+  private static IRExpression fold( IRRelationalExpression expr )
+  {
+    Number lhs = numericValue( expr.getLhs() );
+    Number rhs = numericValue( expr.getRhs() );
+    if( lhs == null || rhs == null || lhs.getClass() != rhs.getClass() )
+    {
+      return null;
+    }
+    int iCompare;
+    if( lhs instanceof Float || lhs instanceof Double )
+    {
+      double l = lhs.doubleValue();
+      double r = rhs.doubleValue();
+      if( Double.isNaN( l ) || Double.isNaN( r ) )
+      {
+        // Every comparison with NaN is false
+        return new IRBooleanLiteral( false );
+      }
+      iCompare = l < r ? -1 : l > r ? 1 : 0;
+    }
+    else
+    {
+      iCompare = Long.compare( lhs.longValue(), rhs.longValue() );
+    }
+    switch( expr.getOp() )
+    {
+      case GT: return new IRBooleanLiteral( iCompare > 0 );
+      case GTE: return new IRBooleanLiteral( iCompare >= 0 );
+      case LT: return new IRBooleanLiteral( iCompare < 0 );
+      case LTE: return new IRBooleanLiteral( iCompare <= 0 );
+    }
+    return null;
+  }
+
+  private static IRExpression fold( IREqualityExpression expr )
+  {
+    IRExpression lhs = expr.getLhs();
+    IRExpression rhs = expr.getRhs();
+    Boolean bEqual = null;
+    if( lhs instanceof IRBooleanLiteral && rhs instanceof IRBooleanLiteral )
+    {
+      bEqual = ((IRBooleanLiteral)lhs).getValue() == ((IRBooleanLiteral)rhs).getValue();
+    }
+    else
+    {
+      Number l = numericValue( lhs );
+      Number r = numericValue( rhs );
+      if( l != null && r != null && l.getClass() == r.getClass() )
+      {
+        bEqual = l instanceof Float || l instanceof Double
+                 ? l.doubleValue() == r.doubleValue()
+                 : l.longValue() == r.longValue();
+      }
+    }
+    return bEqual == null ? null : new IRBooleanLiteral( bEqual == expr.isEquals() );
+  }
+
+  private static Number numericValue( IRExpression expr )
+  {
+    if( expr instanceof IRNumericLiteral )
+    {
+      return ((IRNumericLiteral)expr).getValue();
+    }
+    if( expr instanceof IRCharacterLiteral )
+    {
+      return (int)((IRCharacterLiteral)expr).getValue();
+    }
+    return null;
+  }
+
+  /**
+   * Folds && (bAnd) or || where one side is a literal. The rhs is only dropped when the lhs decides
+   * the result, the lhs only when it's a literal, so no side effects are lost.
+   */
+  private static IRExpression foldConditional( IRExpression lhs, IRExpression rhs, boolean bAnd )
+  {
+    if( lhs instanceof IRBooleanLiteral )
+    {
+      boolean bValue = ((IRBooleanLiteral)lhs).getValue();
+      if( bValue == bAnd )
+      {
+        // true && rhs, false || rhs
+        return rhs;
+      }
+      // false && rhs, true || rhs
+      return new IRBooleanLiteral( bValue );
+    }
+    if( rhs instanceof IRBooleanLiteral && ((IRBooleanLiteral)rhs).getValue() == bAnd )
+    {
+      // lhs && true, lhs || false
+      return lhs;
+    }
+    return null;
+  }
+}
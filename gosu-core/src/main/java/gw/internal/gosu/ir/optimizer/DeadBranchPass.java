@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRTernaryExpression;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.ir.statement.IRNoOpStatement;
+import gw.lang.ir.statement.IRWhileStatement;
+
+/**
+ * Replaces an if statement or a ternary with a literal condition by the branch that is taken, and
+ * drops while loops with a false condition.
+ */
+class DeadBranchPass implements IRPass
+{
+  public String getName()
+  {
+    return "DeadBranches";
+  }
+
+  public IRStatement run( IRMethodStatement method )
+  {
+    return new IRRewriter()
+    {
+      @Override
+      protected IRStatement rewriteStatement( IRStatement statement )
+      {
+        if( statement instanceof IRIfStatement )
+        {
+          IRIfStatement ifStmt = (IRIfStatement)statement;
+          if( ifStmt.getExpression() instanceof IRBooleanLiteral )
+          {
+            IRStatement branch = ((IRBooleanLiteral)ifStmt.getExpression()).getValue()
+                                 ? ifStmt.getIfStatement()
+                                 : ifStmt.getElseStatement();
+            return branch == null ? new IRNoOpStatement() : branch;
+          }
+        }
+        else if( statement instanceof IRWhileStatement )
+        {
+          IRExpression test = ((IRWhileStatement)statement).getLoopTest();
+          if( test instanceof IRBooleanLiteral && !((IRBooleanLiteral)test).getValue() )
+          {
+            return new IRNoOpStatement();
+          }
+        }
+        return statement;
+      }
+
+      @Override
+      protected IRExpression rewriteExpression( IRExpression expression )
+      {
+        if( expression instanceof IRTernaryExpression )
+        {
+          IRTernaryExpression ternary = (IRTernaryExpression)expression;
+          if( ternary.getTest() instanceof IRBooleanLiteral )
+          {
+            IRExpression value = ((IRBooleanLiteral)ternary.getTest()).getValue()
+                                 ? ternary.getTrueValue()
+                                 : ternary.getFalseValue();
+            if( isCompatible( value.getType(), ternary.getResultType() ) )
+            {
+              return value;
+            }
+          }
+        }
+        return expression;
+      }
+    }.rewrite( method.getMethodBody() );
+  }
+
+  /**
+   * @return True if a value of the branch's type can stand where the ternary's result type is
+   * expected without a conversion
+   */
+  private static boolean isCompatible( IRType branchType, IRType resultType )
+  {
+    return IROptimizerUtil.isSameType( branchType, resultType ) ||
+           (isReference( branchType ) && isReference( resultType ));
+  }
+
+  private static boolean isReference( IRType type )
+  {
+    char c = type.getDescriptor().charAt( 0 );
+    return c == 'L' || c == '[';
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRClass;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.reflect.gs.BytecodeOptions;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs the optimization passes over the IR of a class between the transformation of the parse tree
+ * and bytecode generation. The passes run in order on each method; each pass sees the output of
+ * the one before it:
+ * <ul>
+ * <li>{@link ConstantFoldingPass}: folds arithmetic, comparisons and conversions of literals and
+ * propagates literals assigned to variables that are assigned only once</li>
+ * <li>{@link NullCheckPass}: folds null checks of values that can't be null, such as the temps that
+ * null-safe member access and unboxing introduce</li>
+ * <li>{@link DeadBranchPass}: drops the branches of ifs, ternaries and loops that can't be taken</li>
+ * <li>{@link TempLocalPass}: evaluates a temp in place of its only use</li>
+ * <li>{@link BoxingPass}: drops unboxing of a value that was just boxed</li>
+ * </ul>
+ * All the passes are on when {@link BytecodeOptions#isOptimizeIR()} is. A pass can be turned off by
+ * name with {@link #setPassEnabled(String, boolean)} or by listing it in the system property
+ * gosu.ir.optimizer.disable, e.g. <code>-Dgosu.ir.optimizer.disable=TempLocals,Boxing</code>.
+ */
+public class IROptimizer
+{
+  private static final List<IRPass> PASSES = new CopyOnWriteArrayList<IRPass>( Arrays.<IRPass>asList(
+    new ConstantFoldingPass(),
+    new NullCheckPass(),
+    new DeadBranchPass(),
+    new TempLocalPass(),
+    new BoxingPass() ) );
+
+  private static final Set<String> DISABLED = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+  static
+  {
+    String strDisabled = System.getProperty( "gosu.ir.optimizer.disable" );
+    if( strDisabled != null )
+    {
+      for( String strPass : strDisabled.split( "," ) )
+      {
+        if( !strPass.trim().isEmpty() )
+        {
+          DISABLED.add( strPass.trim() );
+        }
+      }
+    }
+  }
+
+  public static void optimize( IRClass irClass )
+  {
+    if( !BytecodeOptions.isOptimizeIR() )
+    {
+      return;
+    }
+    for( IRMethodStatement method : irClass.getMethods() )
+    {
+      optimize( method );
+    }
+  }
+
+  static void optimize( IRMethodStatement method )
+  {
+    for( IRPass pass : PASSES )
+    {
+      if( method.getMethodBody() == null )
+      {
+        // abstract or native
+        return;
+      }
+      if( isPassEnabled( pass.getName() ) )
+      {
+        IRStatement body = pass.run( method );
+        if( body != method.getMethodBody() )
+        {
+          method.setMethodBody( body );
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The passes in the order they run
+   */
+  public static List<IRPass> getPasses()
+  {
+    return Collections.unmodifiableList( PASSES );
+  }
+
+  /**
+   * Adds a pass to run after the existing ones
+   */
+  public static void addPass( IRPass pass )
+  {
+    PASSES.add( pass );
+  }
+
+  public static void removePass( IRPass pass )
+  {
+    PASSES.remove( pass );
+  }
+
+  public static boolean isPassEnabled( String strPass )
+  {
+    return !DISABLED.contains( strPass );
+  }
+
+  public static void setPassEnabled( String strPass, boolean bEnabled )
+  {
+    if( bEnabled )
+    {
+      DISABLED.remove( strPass );
+    }
+    else
+    {
+      DISABLED.add( strPass );
+    }
+  }
+}
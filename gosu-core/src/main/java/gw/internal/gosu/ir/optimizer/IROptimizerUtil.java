@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRArrayLengthExpression;
+import gw.lang.ir.expression.IRArrayLoadExpression;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRClassLiteral;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRFieldGetExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNegationExpression;
+import gw.lang.ir.expression.IRNewArrayExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRPrimitiveTypeConversion;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.expression.IRStringLiteralExpression;
+import gw.lang.ir.expression.IRTernaryExpression;
+import gw.lang.ir.statement.IRAssignmentStatement;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ */
+class IROptimizerUtil
+{
+  private static final Set<String> BOX_TYPES = new HashSet<String>( Arrays.asList(
+    "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Short",
+    "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double" ) );
+
+  static boolean isSameType( IRType t1, IRType t2 )
+  {
+    return t1 == t2 || (t1 != null && t2 != null && t1.getDescriptor().equals( t2.getDescriptor() ));
+  }
+
+  static boolean isBoxType( IRType type )
+  {
+    return BOX_TYPES.contains( type.getName() );
+  }
+
+  /**
+   * @return True if the expression's value is never null
+   */
+  static boolean isNonNull( IRExpression expr, IRSymbolUsage usage )
+  {
+    return isNonNull( expr, usage, 0 );
+  }
+
+  private static boolean isNonNull( IRExpression expr, IRSymbolUsage usage, int iDepth )
+  {
+    if( iDepth > 8 )
+    {
+      return false;
+    }
+    if( expr instanceof IRNewExpression ||
+        expr instanceof IRNewArrayExpression ||
+        expr instanceof IRNewMultiDimensionalArrayExpression ||
+        expr instanceof IRStringLiteralExpression ||
+        expr instanceof IRClassLiteral )
+    {
+      return true;
+    }
+    if( expr instanceof IRCastExpression )
+    {
+      return isNonNull( ((IRCastExpression)expr).getRoot(), usage, iDepth + 1 );
+    }
+    if( expr instanceof IRCompositeExpression )
+    {
+      List<IRElement> elements = ((IRCompositeExpression)expr).getElements();
+      IRElement last = elements.get( elements.size() - 1 );
+      return last instanceof IRExpression && isNonNull( (IRExpression)last, usage, iDepth + 1 );
+    }
+    if( expr instanceof IRMethodCallExpression )
+    {
+      return isNonNullResult( (IRMethodCallExpression)expr );
+    }
+    if( expr instanceof IRIdentifier )
+    {
+      IRIdentifier identifier = (IRIdentifier)expr;
+      if( usage.isThis( identifier.getSymbol() ) )
+      {
+        return true;
+      }
+      IRExpression value = usage.getSingleValue( identifier.getSymbol() );
+      return value != null && isNonNull( value, usage, iDepth + 1 );
+    }
+    return false;
+  }
+
+  /**
+   * @return True for the methods the transformer calls that never return null: boxing, and the
+   * String conversions used to build strings
+   */
+  private static boolean isNonNullResult( IRMethodCallExpression call )
+  {
+    String strName = call.getName();
+    IRType owner = call.getOwnersType();
+    if( call.getRoot() == null && strName.equals( "valueOf" ) )
+    {
+      return isBoxType( owner ) || owner.getName().equals( "java.lang.String" );
+    }
+    return strName.equals( "toString" ) && call.getArgs().isEmpty() &&
+           (owner.getName().equals( "java.lang.StringBuilder" ) || owner.getName().equals( "java.lang.StringBuffer" ));
+  }
+
+  /**
+   * @return The expression evaluated first when the given expression is evaluated, or null if it
+   * has no subexpressions or starts with something else, such as allocating an object
+   */
+  static IRExpression getFirstEvaluated( IRElement element )
+  {
+    if( element instanceof IRAssignmentStatement )
+    {
+      return ((IRAssignmentStatement)element).getValue();
+    }
+    if( element instanceof IRArithmeticExpression )
+    {
+      return ((IRArithmeticExpression)element).getLhs();
+    }
+    if( element instanceof IRRelationalExpression )
+    {
+      return ((IRRelationalExpression)element).getLhs();
+    }
+    if( element instanceof IREqualityExpression )
+    {
+      return ((IREqualityExpression)element).getLhs();
+    }
+    if( element instanceof IRConditionalAndExpression )
+    {
+      return ((IRConditionalAndExpression)element).getLhs();
+    }
+    if( element instanceof IRConditionalOrExpression )
+    {
+      return ((IRConditionalOrExpression)element).getLhs();
+    }
+    if( element instanceof IRTernaryExpression )
+    {
+      return ((IRTernaryExpression)element).getTest();
+    }
+    if( element instanceof IRMethodCallExpression )
+    {
+      IRMethodCallExpression call = (IRMethodCallExpression)element;
+      if( call.getRoot() != null )
+      {
+        return call.getRoot();
+      }
+      return call.getArgs().isEmpty() ? null : call.getArgs().get( 0 );
+    }
+    if( element instanceof IRFieldGetExpression )
+    {
+      return ((IRFieldGetExpression)element).getLhs();
+    }
+    if( element instanceof IRCastExpression )
+    {
+      return ((IRCastExpression)element).getRoot();
+    }
+    if( element instanceof IRPrimitiveTypeConversion )
+    {
+      return ((IRPrimitiveTypeConversion)element).getRoot();
+    }
+    if( element instanceof IRNotExpression )
+    {
+      return ((IRNotExpression)element).getRoot();
+    }
+    if( element instanceof IRNegationExpression )
+    {
+      return ((IRNegationExpression)element).getRoot();
+    }
+    if( element instanceof IRArrayLengthExpression )
+    {
+      return ((IRArrayLengthExpression)element).getRoot();
+    }
+    if( element instanceof IRArrayLoadExpression )
+    {
+      return ((IRArrayLoadExpression)element).getRoot();
+    }
+    if( element instanceof IRInstanceOfExpression )
+    {
+      return ((IRInstanceOfExpression)element).getRoot();
+    }
+    if( element instanceof IRNewArrayExpression )
+    {
+      return ((IRNewArrayExpression)element).getSizeExpression();
+    }
+    if( element instanceof IRCompositeExpression )
+    {
+      List<IRElement> elements = ((IRCompositeExpression)element).getElements();
+      IRElement first = elements.isEmpty() ? null : elements.get( 0 );
+      return first instanceof IRExpression ? (IRExpression)first : getFirstEvaluated( first );
+    }
+    return null;
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+
+/**
+ * An optimization run over the IR of each method before bytecode is generated from it. A pass must
+ * keep the behavior of the method, including the order of side effects and the exceptions it throws.
+ *
+ * @see IROptimizer#addPass(IRPass)
+ */
+public interface IRPass
+{
+  /**
+   * @return The name of the pass, used to turn it on and off
+   */
+  String getName();
+
+  /**
+   * @param method A method with a body
+   *
+   * @return The new body of the method, or the same body if the pass changed nothing or changed it in place
+   */
+  IRStatement run( IRMethodStatement method );
+}
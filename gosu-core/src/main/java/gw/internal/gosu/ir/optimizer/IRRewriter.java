@@ -0,0 +1,527 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRArrayLengthExpression;
+import gw.lang.ir.expression.IRArrayLoadExpression;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRFieldGetExpression;
+import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNegationExpression;
+import gw.lang.ir.expression.IRNewArrayExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRPrimitiveTypeConversion;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.expression.IRTernaryExpression;
+import gw.lang.ir.statement.IRArrayStoreStatement;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRCaseClause;
+import gw.lang.ir.statement.IRCatchClause;
+import gw.lang.ir.statement.IRDoWhileStatement;
+import gw.lang.ir.statement.IREvalStatement;
+import gw.lang.ir.statement.IRFieldSetStatement;
+import gw.lang.ir.statement.IRForEachStatement;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRImplicitReturnStatement;
+import gw.lang.ir.statement.IRMethodCallStatement;
+import gw.lang.ir.statement.IRMonitorLockAcquireStatement;
+import gw.lang.ir.statement.IRMonitorLockReleaseStatement;
+import gw.lang.ir.statement.IRNewStatement;
+import gw.lang.ir.statement.IRReturnStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.lang.ir.statement.IRSwitchStatement;
+import gw.lang.ir.statement.IRSyntheticStatement;
+import gw.lang.ir.statement.IRThrowStatement;
+import gw.lang.ir.statement.IRTryCatchFinallyStatement;
+import gw.lang.ir.statement.IRWhileStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Walks the IR of a method body bottom-up and lets subclasses replace elements. Children are
+ * rewritten first, then {@link #rewriteExpression} or {@link #rewriteStatement} is called with the
+ * element, which has the rewritten children. Most IR elements are immutable, so an element with a
+ * replaced child is copied with the element's line number. The lists of statement lists and
+ * composite expressions, loops, and argument lists are updated in place.
+ * <p/>
+ * Elements the rewriter doesn't know are left alone, along with everything inside them.
+ */
+public abstract class IRRewriter
+{
+  /**
+   * Called after the children of the expression are rewritten
+   *
+   * @return The expression to use in place of the given one, or the same expression
+   */
+  protected IRExpression rewriteExpression( IRExpression expression )
+  {
+    return expression;
+  }
+
+  /**
+   * Called after the children of the statement are rewritten
+   *
+   * @return The statement to use in place of the given one, or the same statement
+   */
+  protected IRStatement rewriteStatement( IRStatement statement )
+  {
+    return statement;
+  }
+
+  public IRElement rewrite( IRElement element )
+  {
+    return element instanceof IRStatement
+           ? rewrite( (IRStatement)element )
+           : rewrite( (IRExpression)element );
+  }
+
+  public IRStatement rewrite( IRStatement statement )
+  {
+    if( statement == null )
+    {
+      return null;
+    }
+    return rewriteStatement( rewriteChildren( statement ) );
+  }
+
+  public IRExpression rewrite( IRExpression expression )
+  {
+    if( expression == null )
+    {
+      return null;
+    }
+    return rewriteExpression( rewriteChildren( expression ) );
+  }
+
+  private IRStatement rewriteChildren( IRStatement statement )
+  {
+    if( statement instanceof IRAssignmentStatement )
+    {
+      IRAssignmentStatement stmt = (IRAssignmentStatement)statement;
+      IRExpression value = rewrite( stmt.getValue() );
+      return value == stmt.getValue()
+             ? stmt
+             : copyPosition( stmt, new IRAssignmentStatement( stmt.getSymbol(), value ) );
+    }
+    if( statement instanceof IRFieldSetStatement )
+    {
+      IRFieldSetStatement stmt = (IRFieldSetStatement)statement;
+      IRExpression lhs = rewrite( stmt.getLhs() );
+      IRExpression rhs = rewrite( stmt.getRhs() );
+      return lhs == stmt.getLhs() && rhs == stmt.getRhs()
+             ? stmt
+             : copyPosition( stmt, new IRFieldSetStatement( lhs, rhs, stmt.getName(), stmt.getFieldType(), stmt.getOwnersType() ) );
+    }
+    if( statement instanceof IRIfStatement )
+    {
+      IRIfStatement stmt = (IRIfStatement)statement;
+      IRExpression test = rewrite( stmt.getExpression() );
+      IRStatement ifStmt = rewrite( stmt.getIfStatement() );
+      IRStatement elseStmt = rewrite( stmt.getElseStatement() );
+      return test == stmt.getExpression() && ifStmt == stmt.getIfStatement() && elseStmt == stmt.getElseStatement()
+             ? stmt
+             : copyPosition( stmt, new IRIfStatement( test, ifStmt, elseStmt ) );
+    }
+    if( statement instanceof IRMethodCallStatement )
+    {
+      IRMethodCallStatement stmt = (IRMethodCallStatement)statement;
+      IRExpression expr = rewrite( stmt.getExpression() );
+      return expr == stmt.getExpression()
+             ? stmt
+             : copyPosition( stmt, new IRMethodCallStatement( expr ) );
+    }
+    if( statement instanceof IRNewStatement )
+    {
+      IRNewStatement stmt = (IRNewStatement)statement;
+      IRExpression expr = rewrite( stmt.getNewExpression() );
+      return expr == stmt.getNewExpression() || !(expr instanceof IRNewExpression)
+             ? stmt
+             : copyPosition( stmt, new IRNewStatement( (IRNewExpression)expr ) );
+    }
+    if( statement instanceof IRReturnStatement )
+    {
+      IRReturnStatement stmt = (IRReturnStatement)statement;
+      IRStatement tempVarAssignment = rewrite( stmt.getTempVarAssignment() );
+      IRExpression value = rewrite( stmt.getReturnValue() );
+      if( tempVarAssignment == stmt.getTempVarAssignment() && value == stmt.getReturnValue() )
+      {
+        return stmt;
+      }
+      return copyPosition( stmt, stmt instanceof IRImplicitReturnStatement
+                                 ? new IRImplicitReturnStatement( tempVarAssignment, value )
+                                 : new IRReturnStatement( tempVarAssignment, value ) );
+    }
+    if( statement instanceof IRStatementList )
+    {
+      IRStatementList stmt = (IRStatementList)statement;
+      rewriteInPlace( stmt.getStatements(), stmt );
+      return stmt;
+    }
+    if( statement instanceof IRArrayStoreStatement )
+    {
+      IRArrayStoreStatement stmt = (IRArrayStoreStatement)statement;
+      IRExpression target = rewrite( stmt.getTarget() );
+      IRExpression index = rewrite( stmt.getIndex() );
+      IRExpression value = rewrite( stmt.getValue() );
+      return target == stmt.getTarget() && index == stmt.getIndex() && value == stmt.getValue()
+             ? stmt
+             : copyPosition( stmt, new IRArrayStoreStatement( target, index, value, stmt.getComponentType() ) );
+    }
+    if( statement instanceof IRThrowStatement )
+    {
+      IRThrowStatement stmt = (IRThrowStatement)statement;
+      IRExpression exception = rewrite( stmt.getException() );
+      return exception == stmt.getException()
+             ? stmt
+             : copyPosition( stmt, new IRThrowStatement( exception ) );
+    }
+    if( statement instanceof IRForEachStatement )
+    {
+      IRForEachStatement stmt = (IRForEachStatement)statement;
+      rewriteInPlace( stmt.getInitializers(), stmt );
+      stmt.setLoopTest( rewrite( stmt.getLoopTest() ) );
+      rewriteInPlace( stmt.getIncrementors(), stmt );
+      stmt.setBody( rewrite( stmt.getBody() ) );
+      return stmt;
+    }
+    if( statement instanceof IRWhileStatement )
+    {
+      IRWhileStatement stmt = (IRWhileStatement)statement;
+      stmt.setLoopTest( rewrite( stmt.getLoopTest() ) );
+      stmt.setBody( rewrite( stmt.getBody() ) );
+      return stmt;
+    }
+    if( statement instanceof IRDoWhileStatement )
+    {
+      IRDoWhileStatement stmt = (IRDoWhileStatement)statement;
+      stmt.setBody( rewrite( stmt.getBody() ) );
+      stmt.setLoopTest( rewrite( stmt.getLoopTest() ) );
+      return stmt;
+    }
+    if( statement instanceof IRTryCatchFinallyStatement )
+    {
+      IRTryCatchFinallyStatement stmt = (IRTryCatchFinallyStatement)statement;
+      IRStatement tryBody = rewrite( stmt.getTryBody() );
+      boolean bChanged = tryBody != stmt.getTryBody();
+      List<IRCatchClause> catches = new ArrayList<IRCatchClause>( stmt.getCatchStatements().size() );
+      for( IRCatchClause catchClause : stmt.getCatchStatements() )
+      {
+        IRStatement body = rewrite( catchClause.getBody() );
+        if( body == catchClause.getBody() )
+        {
+          catches.add( catchClause );
+        }
+        else
+        {
+          catches.add( new IRCatchClause( catchClause.getIdentifier(), body ) );
+          bChanged = true;
+        }
+      }
+      IRStatement finallyBody = rewrite( stmt.getFinallyBody() );
+      return !bChanged && finallyBody == stmt.getFinallyBody()
+             ? stmt
+             : copyPosition( stmt, new IRTryCatchFinallyStatement( tryBody, catches, finallyBody ) );
+    }
+    if( statement instanceof IRMonitorLockAcquireStatement )
+    {
+      IRMonitorLockAcquireStatement stmt = (IRMonitorLockAcquireStatement)statement;
+      IRExpression monitored = rewrite( stmt.getMonitoredObject() );
+      return monitored == stmt.getMonitoredObject()
+             ? stmt
+             : copyPosition( stmt, new IRMonitorLockAcquireStatement( monitored ) );
+    }
+    if( statement instanceof IRMonitorLockReleaseStatement )
+    {
+      IRMonitorLockReleaseStatement stmt = (IRMonitorLockReleaseStatement)statement;
+      IRExpression monitored = rewrite( stmt.getMonitoredObject() );
+      return monitored == stmt.getMonitoredObject()
+             ? stmt
+             : copyPosition( stmt, new IRMonitorLockReleaseStatement( monitored ) );
+    }
+    if( statement instanceof IRSyntheticStatement )
+    {
+      IRSyntheticStatement stmt = (IRSyntheticStatement)statement;
+      IRExpression expr = rewrite( stmt.getExpression() );
+      return expr == stmt.getExpression()
+             ? stmt
+             : copyPosition( stmt, new IRSyntheticStatement( expr ) );
+    }
+    if( statement instanceof IRSwitchStatement )
+    {
+      IRSwitchStatement stmt = (IRSwitchStatement)statement;
+      IRStatement init = rewrite( stmt.getInit() );
+      boolean bChanged = init != stmt.getInit();
+      List<IRCaseClause> cases = new ArrayList<IRCaseClause>( stmt.getCases().size() );
+      for( IRCaseClause caseClause : stmt.getCases() )
+      {
+        IRExpression condition = rewrite( caseClause.getCondition() );
+        List<IRStatement> statements = rewriteAll( caseClause.getStatements() );
+        if( condition == caseClause.getCondition() && statements == caseClause.getStatements() )
+        {
+          cases.add( caseClause );
+        }
+        else
+        {
+          cases.add( new IRCaseClause( condition, statements, caseClause.getConstValue() ) );
+          bChanged = true;
+        }
+      }
+      List<IRStatement> defaultStatements = rewriteAll( stmt.getDefaultStatements() );
+      return !bChanged && defaultStatements == stmt.getDefaultStatements()
+             ? stmt
+             : copyPosition( stmt, new IRSwitchStatement( init, cases, defaultStatements, stmt.areLabelsConstant() ) );
+    }
+    if( statement instanceof IREvalStatement )
+    {
+      IREvalStatement stmt = (IREvalStatement)statement;
+      IRExpression expr = rewrite( stmt.getExpression() );
+      return expr == stmt.getExpression()
+             ? stmt
+             : copyPosition( stmt, new IREvalStatement( expr ) );
+    }
+    // No-op, break and continue statements, or a statement this rewriter doesn't know
+    return statement;
+  }
+
+  private IRExpression rewriteChildren( IRExpression expression )
+  {
+    if( expression instanceof IRArithmeticExpression )
+    {
+      IRArithmeticExpression expr = (IRArithmeticExpression)expression;
+      IRExpression lhs = rewrite( expr.getLhs() );
+      IRExpression rhs = rewrite( expr.getRhs() );
+      return lhs == expr.getLhs() && rhs == expr.getRhs()
+             ? expr
+             : copyPosition( expr, new IRArithmeticExpression( expr.getType(), lhs, rhs, expr.getOp() ) );
+    }
+    if( expression instanceof IRArrayLoadExpression )
+    {
+      IRArrayLoadExpression expr = (IRArrayLoadExpression)expression;
+      IRExpression root = rewrite( expr.getRoot() );
+      IRExpression index = rewrite( expr.getIndex() );
+      return root == expr.getRoot() && index == expr.getIndex()
+             ? expr
+             : copyPosition( expr, new IRArrayLoadExpression( root, index, expr.getComponentType() ) );
+    }
+    if( expression instanceof IRArrayLengthExpression )
+    {
+      IRArrayLengthExpression expr = (IRArrayLengthExpression)expression;
+      IRExpression root = rewrite( expr.getRoot() );
+      return root == expr.getRoot()
+             ? expr
+             : copyPosition( expr, new IRArrayLengthExpression( root ) );
+    }
+    if( expression instanceof IRCastExpression )
+    {
+      IRCastExpression expr = (IRCastExpression)expression;
+      IRExpression root = rewrite( expr.getRoot() );
+      return root == expr.getRoot()
+             ? expr
+             : copyPosition( expr, new IRCastExpression( root, expr.getType() ) );
+    }
+    if( expression instanceof IRCompositeExpression )
+    {
+      IRCompositeExpression expr = (IRCompositeExpression)expression;
+      rewriteInPlace( expr.getElements(), expr );
+      return expr;
+    }
+    if( expression instanceof IRConditionalAndExpression )
+    {
+      IRConditionalAndExpression expr = (IRConditionalAndExpression)expression;
+      IRExpression lhs = rewrite( expr.getLhs() );
+      IRExpression rhs = rewrite( expr.getRhs() );
+      return lhs == expr.getLhs() && rhs == expr.getRhs()
+             ? expr
+             : copyPosition( expr, new IRConditionalAndExpression( lhs, rhs ) );
+    }
+    if( expression instanceof IRConditionalOrExpression )
+    {
+      IRConditionalOrExpression expr = (IRConditionalOrExpression)expression;
+      IRExpression lhs = rewrite( expr.getLhs() );
+      IRExpression rhs = rewrite( expr.getRhs() );
+      return lhs == expr.getLhs() && rhs == expr.getRhs()
+             ? expr
+             : copyPosition( expr, new IRConditionalOrExpression( lhs, rhs ) );
+    }
+    if( expression instanceof IREqualityExpression )
+    {
+      IREqualityExpression expr = (IREqualityExpression)expression;
+      IRExpression lhs = rewrite( expr.getLhs() );
+      IRExpression rhs = rewrite( expr.getRhs() );
+      return lhs == expr.getLhs() && rhs == expr.getRhs()
+             ? expr
+             : copyPosition( expr, new IREqualityExpression( lhs, rhs, expr.isEquals() ) );
+    }
+    if( expression instanceof IRFieldGetExpression )
+    {
+      IRFieldGetExpression expr = (IRFieldGetExpression)expression;
+      IRExpression lhs = rewrite( expr.getLhs() );
+      return lhs == expr.getLhs()
+             ? expr
+             : copyPosition( expr, new IRFieldGetExpression( lhs, expr.getName(), expr.getFieldType(), expr.getOwnersType() ) );
+    }
+    if( expression instanceof IRInstanceOfExpression )
+    {
+      IRInstanceOfExpression expr = (IRInstanceOfExpression)expression;
+      IRExpression root = rewrite( expr.getRoot() );
+      return root == expr.getRoot()
+             ? expr
+             : copyPosition( expr, new IRInstanceOfExpression( root, expr.getTestType() ) );
+    }
+    if( expression instanceof IRInvokeDynamicExpression )
+    {
+      IRInvokeDynamicExpression expr = (IRInvokeDynamicExpression)expression;
+      rewriteInPlace( expr.getArgs(), expr );
+      return expr;
+    }
+    if( expression instanceof IRMethodCallExpression )
+    {
+      IRMethodCallExpression expr = (IRMethodCallExpression)expression;
+      rewriteInPlace( expr.getArgs(), expr );
+      if( expr.getOwnersType().isStructural() )
+      {
+        // The owner of a structural call can't be copied faithfully, leave the root alone
+        return expr;
+      }
+      IRExpression root = rewrite( expr.getRoot() );
+      if( root == expr.getRoot() )
+      {
+        return expr;
+      }
+      IRMethodCallExpression copy = new IRMethodCallExpression( expr.getName(), expr.getOwnersType(), expr.isInterface(),
+                                                                expr.getReturnType(), expr.getParameterTypes(), root, expr.getArgs() );
+      copy.setSpecial( expr.isSpecial() );
+      return copyPosition( expr, copy );
+    }
+    if( expression instanceof IRNegationExpression )
+    {
+      IRNegationExpression expr = (IRNegationExpression)expression;
+      IRExpression root = rewrite( expr.getRoot() );
+      return root == expr.getRoot()
+             ? expr
+             : copyPosition( expr, new IRNegationExpression( root ) );
+    }
+    if( expression instanceof IRNewArrayExpression )
+    {
+      IRNewArrayExpression expr = (IRNewArrayExpression)expression;
+      IRExpression size = rewrite( expr.getSizeExpression() );
+      return size == expr.getSizeExpression()
+             ? expr
+             : copyPosition( expr, new IRNewArrayExpression( expr.getComponentType(), size ) );
+    }
+    if( expression instanceof IRNewExpression )
+    {
+      IRNewExpression expr = (IRNewExpression)expression;
+      rewriteInPlace( expr.getArgs(), expr );
+      return expr;
+    }
+    if( expression instanceof IRNewMultiDimensionalArrayExpression )
+    {
+      IRNewMultiDimensionalArrayExpression expr = (IRNewMultiDimensionalArrayExpression)expression;
+      rewriteInPlace( expr.getSizeExpressions(), expr );
+      return expr;
+    }
+    if( expression instanceof IRNotExpression )
+    {
+      IRNotExpression expr = (IRNotExpression)expression;
+      IRExpression root = rewrite( expr.getRoot() );
+      return root == expr.getRoot()
+             ? expr
+             : copyPosition( expr, new IRNotExpression( root ) );
+    }
+    if( expression instanceof IRPrimitiveTypeConversion )
+    {
+      IRPrimitiveTypeConversion expr = (IRPrimitiveTypeConversion)expression;
+      IRExpression root = rewrite( expr.getRoot() );
+      return root == expr.getRoot()
+             ? expr
+             : copyPosition( expr, new IRPrimitiveTypeConversion( root, expr.getFromType(), expr.getToType() ) );
+    }
+    if( expression instanceof IRRelationalExpression )
+    {
+      IRRelationalExpression expr = (IRRelationalExpression)expression;
+      IRExpression lhs = rewrite( expr.getLhs() );
+      IRExpression rhs = rewrite( expr.getRhs() );
+      return lhs == expr.getLhs() && rhs == expr.getRhs()
+             ? expr
+             : copyPosition( expr, new IRRelationalExpression( lhs, rhs, expr.getOp() ) );
+    }
+    if( expression instanceof IRTernaryExpression )
+    {
+      IRTernaryExpression expr = (IRTernaryExpression)expression;
+      IRExpression test = rewrite( expr.getTest() );
+      IRExpression trueValue = rewrite( expr.getTrueValue() );
+      IRExpression falseValue = rewrite( expr.getFalseValue() );
+      return test == expr.getTest() && trueValue == expr.getTrueValue() && falseValue == expr.getFalseValue()
+             ? expr
+             : copyPosition( expr, new IRTernaryExpression( test, trueValue, falseValue, expr.getResultType() ) );
+    }
+    // Literals, identifiers, lazy type method calls, or an expression this rewriter doesn't know
+    return expression;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <E extends IRElement> void rewriteInPlace( List<E> elements, IRElement parent )
+  {
+    for( int i = 0; i < elements.size(); i++ )
+    {
+      E element = elements.get( i );
+      E newElement = (E)rewrite( element );
+      if( newElement != element )
+      {
+        elements.set( i, newElement );
+        newElement.setParent( parent );
+      }
+    }
+  }
+
+  private List<IRStatement> rewriteAll( List<IRStatement> statements )
+  {
+    List<IRStatement> result = statements;
+    for( int i = 0; i < statements.size(); i++ )
+    {
+      IRStatement statement = statements.get( i );
+      IRStatement newStatement = rewrite( statement );
+      if( newStatement != statement )
+      {
+        if( result == statements )
+        {
+          result = new ArrayList<IRStatement>( statements );
+        }
+        result.set( i, newStatement );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gives a copy of an element the line number of the element it replaces
+   */
+  protected static <E extends IRElement> E copyPosition( IRElement from, E to )
+  {
+    if( from.isImplicit() )
+    {
+      to.setImplicit( true );
+    }
+    else if( from.getLineNumber() >= 0 && to.getLineNumber() < 0 )
+    {
+      to.setLineNumber( from.getLineNumber() );
+    }
+    return to;
+  }
+}
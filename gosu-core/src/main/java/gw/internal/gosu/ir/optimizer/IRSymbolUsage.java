@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRCatchClause;
+import gw.lang.ir.statement.IRForEachStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.ir.statement.IRTryCatchFinallyStatement;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the assignments and reads of the local variables of a method. The bytecode compiler
+ * allocates locals by name, so variables are counted by name too: two variables of the same name in
+ * different scopes count as one variable that is assigned twice.
+ * <p/>
+ * A variable that is not a parameter or a catch variable and is assigned exactly once always has
+ * the value of that assignment when it is read, since the JVM doesn't allow reading a local that may
+ * not be assigned.
+ */
+class IRSymbolUsage extends IRRewriter
+{
+  private final Set<String> _implicitlyAssigned = new HashSet<String>();
+  private final Map<String, Integer> _assignments = new HashMap<String, Integer>();
+  private final Map<String, Integer> _reads = new HashMap<String, Integer>();
+  private final Map<String, IRExpression> _values = new HashMap<String, IRExpression>();
+
+  IRSymbolUsage( IRMethodStatement method )
+  {
+    for( IRSymbol parameter : method.getParameters() )
+    {
+      _implicitlyAssigned.add( parameter.getName() );
+    }
+    _implicitlyAssigned.add( "this" );
+    rewrite( method.getMethodBody() );
+  }
+
+  @Override
+  protected IRExpression rewriteExpression( IRExpression expression )
+  {
+    if( expression instanceof IRIdentifier )
+    {
+      increment( _reads, ((IRIdentifier)expression).getSymbol().getName() );
+    }
+    return expression;
+  }
+
+  @Override
+  protected IRStatement rewriteStatement( IRStatement statement )
+  {
+    if( statement instanceof IRAssignmentStatement )
+    {
+      IRAssignmentStatement assignment = (IRAssignmentStatement)statement;
+      String strName = assignment.getSymbol().getName();
+      increment( _assignments, strName );
+      _values.put( strName, assignment.getValue() );
+    }
+    else if( statement instanceof IRTryCatchFinallyStatement )
+    {
+      for( IRCatchClause catchClause : ((IRTryCatchFinallyStatement)statement).getCatchStatements() )
+      {
+        _implicitlyAssigned.add( catchClause.getIdentifier().getName() );
+      }
+    }
+    else if( statement instanceof IRForEachStatement && ((IRForEachStatement)statement).hasIdentifierToNullCheck() )
+    {
+      increment( _reads, ((IRForEachStatement)statement).getIdentifierToNullCheck().getSymbol().getName() );
+    }
+    return statement;
+  }
+
+  private static void increment( Map<String, Integer> counts, String strName )
+  {
+    Integer count = counts.get( strName );
+    counts.put( strName, count == null ? 1 : count + 1 );
+  }
+
+  /**
+   * @return The expression assigned to the variable if the variable is only assigned there, otherwise null
+   */
+  IRExpression getSingleValue( IRSymbol symbol )
+  {
+    String strName = symbol.getName();
+    if( _implicitlyAssigned.contains( strName ) )
+    {
+      return null;
+    }
+    Integer count = _assignments.get( strName );
+    return count != null && count == 1 ? _values.get( strName ) : null;
+  }
+
+  int getReadCount( IRSymbol symbol )
+  {
+    Integer count = _reads.get( symbol.getName() );
+    return count == null ? 0 : count;
+  }
+
+  boolean isThis( IRSymbol symbol )
+  {
+    return "this".equals( symbol.getName() ) && !_assignments.containsKey( symbol.getName() );
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRNullLiteral;
+import gw.lang.ir.expression.IRStringLiteralExpression;
+import gw.lang.ir.statement.IRMethodStatement;
+
+/**
+ * Folds a comparison with null of a variable that can't be null. Null-safe member access and
+ * unboxing store the value they check in a temp first; when the temp is assigned something like
+ * <code>this</code>, a new object or a freshly boxed value, the check always fails. The
+ * {@link DeadBranchPass} then drops the branch that handles null.
+ */
+class NullCheckPass implements IRPass
+{
+  public String getName()
+  {
+    return "NullChecks";
+  }
+
+  public IRStatement run( IRMethodStatement method )
+  {
+    final IRSymbolUsage usage = new IRSymbolUsage( method );
+    return new IRRewriter()
+    {
+      @Override
+      protected IRExpression rewriteExpression( IRExpression expression )
+      {
+        if( expression instanceof IREqualityExpression )
+        {
+          IREqualityExpression equality = (IREqualityExpression)expression;
+          IRExpression operand = equality.getRhs() instanceof IRNullLiteral
+                                 ? equality.getLhs()
+                                 : equality.getLhs() instanceof IRNullLiteral ? equality.getRhs() : null;
+          if( operand != null && isSideEffectFree( operand ) && IROptimizerUtil.isNonNull( operand, usage ) )
+          {
+            return copyPosition( expression, new IRBooleanLiteral( !equality.isEquals() ) );
+          }
+        }
+        return expression;
+      }
+    }.rewrite( method.getMethodBody() );
+  }
+
+  private static boolean isSideEffectFree( IRExpression expr )
+  {
+    return expr instanceof IRIdentifier ||
+           expr instanceof IRStringLiteralExpression;
+  }
+}
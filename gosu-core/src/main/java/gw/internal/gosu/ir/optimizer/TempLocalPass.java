@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+
+import java.util.List;
+
+/**
+ * Evaluates a temp in place of its only use. The transformer stores intermediate values in temps,
+ * e.g. <code>[[ *temp = a.b(); *temp.c() ]]</code>, and many of them are read only once, right
+ * after they are stored. When nothing is evaluated between the store and the read, the value is
+ * moved to where the temp is read and the temp goes away, which saves a local slot and a store and
+ * load pair.
+ */
+class TempLocalPass implements IRPass
+{
+  public String getName()
+  {
+    return "TempLocals";
+  }
+
+  public IRStatement run( IRMethodStatement method )
+  {
+    final IRSymbolUsage usage = new IRSymbolUsage( method );
+    return new IRRewriter()
+    {
+      @Override
+      protected IRExpression rewriteExpression( IRExpression expression )
+      {
+        if( expression instanceof IRCompositeExpression )
+        {
+          return inlineTemps( (IRCompositeExpression)expression, usage );
+        }
+        return expression;
+      }
+    }.rewrite( method.getMethodBody() );
+  }
+
+  private static IRExpression inlineTemps( IRCompositeExpression composite, IRSymbolUsage usage )
+  {
+    List<IRElement> elements = composite.getElements();
+    for( int i = elements.size() - 2; i >= 0; i-- )
+    {
+      IRAssignmentStatement store = getInlinableStore( elements.get( i ), usage );
+      if( store != null && readsFirst( elements.get( i + 1 ), store.getSymbol() ) )
+      {
+        IRElement use = substitute( elements.get( i + 1 ), store.getSymbol(), store.getValue() );
+        use.setParent( composite );
+        elements.set( i + 1, use );
+        elements.remove( i );
+      }
+    }
+    if( elements.size() == 1 && elements.get( 0 ) instanceof IRExpression )
+    {
+      return (IRExpression)elements.get( 0 );
+    }
+    return composite;
+  }
+
+  /**
+   * @return The element if it stores a temp that is assigned only there and read once, otherwise null
+   */
+  private static IRAssignmentStatement getInlinableStore( IRElement element, IRSymbolUsage usage )
+  {
+    if( !(element instanceof IRAssignmentStatement) )
+    {
+      return null;
+    }
+    IRAssignmentStatement store = (IRAssignmentStatement)element;
+    IRSymbol symbol = store.getSymbol();
+    if( !symbol.isTemp() ||
+        usage.getSingleValue( symbol ) == null ||
+        usage.getReadCount( symbol ) != 1 )
+    {
+      return null;
+    }
+    IRExpression value = store.getValue();
+    boolean bCompatible = IROptimizerUtil.isSameType( value.getType(), symbol.getType() ) ||
+                          (!value.getType().isPrimitive() && !symbol.getType().isPrimitive());
+    return bCompatible ? store : null;
+  }
+
+  /**
+   * @return True if reading the temp is the first thing that happens when the element is evaluated
+   */
+  private static boolean readsFirst( IRElement element, IRSymbol temp )
+  {
+    IRExpression first = IROptimizerUtil.getFirstEvaluated( element );
+    while( first != null )
+    {
+      if( first instanceof IRIdentifier )
+      {
+        return ((IRIdentifier)first).getSymbol().getName().equals( temp.getName() );
+      }
+      first = IROptimizerUtil.getFirstEvaluated( first );
+    }
+    return false;
+  }
+
+  private static IRElement substitute( IRElement element, final IRSymbol temp, final IRExpression value )
+  {
+    return new IRRewriter()
+    {
+      @Override
+      protected IRExpression rewriteExpression( IRExpression expression )
+      {
+        if( expression instanceof IRIdentifier &&
+            ((IRIdentifier)expression).getSymbol().getName().equals( temp.getName() ) )
+        {
+          return value;
+        }
+        return expression;
+      }
+    }.rewrite( element );
+  }
+}
@@ -15,7 +15,11 @@ import gw.internal.gosu.runtime.GosuRuntimeMethods;
 import gw.lang.IDimension;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRSymbol;
+import gw.lang.ir.IRType;
 import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRCharacterLiteral;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
+import gw.lang.ir.expression.IRNullLiteral;
 import gw.lang.ir.expression.IRStringLiteralExpression;
 import gw.lang.ir.statement.IRAssignmentStatement;
 import gw.lang.parser.ICoercionManager;
@@ -24,33 +28,44 @@ import gw.lang.parser.IParseTree;
 import gw.lang.parser.IParsedElement;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.java.JavaTypes;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 /**
  */
 public class AdditiveExpressionTransformer extends ArithmeticExpressionTransformer<AdditiveExpression>
 {
-  private final StringBuilderHandle _stringBuilderFromParent;
+  private static final Class STRING_CONCAT_FACTORY = findStringConcatFactory();
+  // StringConcatFactory's limit on the number of argument slots of a call site
+  private static final int MAX_INDY_CONCAT_ARG_SLOTS = 200;
+  private static final char TAG_ARG = '\u0001';
+  private static final char TAG_CONST = '\u0002';
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private final Concatenation _concatFromParent;
 
   public static IRExpression compile( TopLevelTransformationContext cc, AdditiveExpression expr )
   {
     return compile( cc, expr, null );
   }
-  public static IRExpression compile( TopLevelTransformationContext cc, AdditiveExpression expr, StringBuilderHandle stringBuilder )
+  private static IRExpression compile( TopLevelTransformationContext cc, AdditiveExpression expr, Concatenation concat )
   {
-    AdditiveExpressionTransformer gen = new AdditiveExpressionTransformer( cc, expr, stringBuilder );
+    AdditiveExpressionTransformer gen = new AdditiveExpressionTransformer( cc, expr, concat );
     return gen.compile();
   }
 
-  private AdditiveExpressionTransformer( TopLevelTransformationContext cc, AdditiveExpression expr, StringBuilderHandle stringBuilderFromParent )
+  private AdditiveExpressionTransformer( TopLevelTransformationContext cc, AdditiveExpression expr, Concatenation concatFromParent )
   {
     super( cc, expr );
-    _stringBuilderFromParent = stringBuilderFromParent;
+    _concatFromParent = concatFromParent;
   }
 
   protected IRExpression compile_impl()
@@ -183,68 +198,59 @@ public class AdditiveExpressionTransformer extends ArithmeticExpressionTransform
   }
 
   private IRExpression stringConcatenation() {
-    StringBuilderHandle sbHandle = _stringBuilderFromParent;
-    if( sbHandle == null ) {
-      sbHandle = new StringBuilderHandle();
+    Concatenation concat = _concatFromParent;
+    if( concat == null ) {
+      concat = new Concatenation();
     }
 
-    handleConcatOperand( sbHandle, _expr().getLHS() );
-    handleConcatOperand( sbHandle, _expr().getRHS() );
+    handleConcatOperand( concat, _expr().getLHS() );
+    handleConcatOperand( concat, _expr().getRHS() );
 
-    if( _stringBuilderFromParent == null ) {
-      //## perf: Maybe create your own MyStringBuilder class that exposes the char[] and use SharedSecrets.getJavaLangAccess().newStringUnsafe( char[] ).
-      //## perf: This approach would avoid double-allocating the char[] associated with the resulting String.
-      sbHandle.setStringBuilder( callMethod( StringBuilder.class, "toString", new Class[]{}, sbHandle.getStringBuilder(), Collections.<IRExpression>emptyList() ) );
+    if( _concatFromParent != null ) {
+      // The operands are added to the enclosing concatenation, which makes the expression for all of them
+      concat.setAddedByOperand( true );
+      return null;
     }
-
-    sbHandle.setAppendedToStringBuilder( true );
-
-    return sbHandle.getStringBuilder();
+    return concat.makeExpression();
   }
 
-  private void handleConcatOperand( StringBuilderHandle sbHandle, Expression operand ) {
+  private void handleConcatOperand( Concatenation concat, Expression operand ) {
     IType operandType = operand.getType();
     IRExpression expr = operand instanceof AdditiveExpression
-                        ? AdditiveExpressionTransformer.compile( _cc(), (AdditiveExpression)operand, sbHandle )
+                        ? AdditiveExpressionTransformer.compile( _cc(), (AdditiveExpression)operand, concat )
                         : ExpressionTransformer.compile( operand, _cc() );
-    boolean bHandled = sbHandle.isAppendedToStringBuilder();
-    sbHandle.setAppendedToStringBuilder( false );
-    if( !bHandled ) {
-      IRExpression appendExpr;
-      if( !operandType.isPrimitive() ) {
-        if( operandType == JavaTypes.STRING() ) {
-          appendExpr = callMethod( StringBuilder.class, "append", new Class[]{String.class}, sbHandle.getStringBuilder(), Collections.singletonList( expr ) );
-        }
-        else if( JavaTypes.CHAR_SEQUENCE().isAssignableFrom( operandType ) ) {
-          appendExpr = callMethod( StringBuilder.class, "append", new Class[]{CharSequence.class}, sbHandle.getStringBuilder(), Collections.singletonList( expr ) );
-        }
-        else if( JavaTypes.pCHAR().getArrayType().isAssignableFrom( operandType ) ) {
-          appendExpr = callMethod( StringBuilder.class, "append", new Class[]{char[].class}, sbHandle.getStringBuilder(), Collections.singletonList( expr ) );
-        }
-        else if( ILanguageLevel.Util.STANDARD_GOSU() ||
-                 !isHandledByCustomCoercion( operandType ) ) {
-          appendExpr = callMethod( StringBuilder.class, "append", new Class[]{Object.class}, sbHandle.getStringBuilder(), Collections.singletonList( expr ) );
-        }
-        else { // Sucky ICoercionManager#makeStringFrom() must be called e.g., TypeKey's Code is used because its toString() returns DisplayName
-          appendExpr = callMethod( ICoercionManager.class, "makeStringFrom", new Class[]{Object.class},
-                         callStaticMethod( CommonServices.class, "getCoercionManager", new Class[]{}, Collections.<IRExpression>emptyList() ),
-                         Collections.singletonList( expr ) );
-          appendExpr = callMethod( StringBuilder.class, "append", new Class[]{String.class}, sbHandle.getStringBuilder(), Collections.singletonList( appendExpr ) );
-        }
+    if( concat.isAddedByOperand() ) {
+      concat.setAddedByOperand( false );
+      return;
+    }
+    if( !operandType.isPrimitive() ) {
+      if( operandType == JavaTypes.STRING() ) {
+        concat.add( String.class, expr );
       }
-      else {
-        Class primitiveClass = getDescriptor( operandType ).getJavaClass();
-        primitiveClass = primitiveClass == void.class
-                         ? Object.class // this special case is for 'null' literal, which internally is of type "void"
-                         : primitiveClass == short.class || primitiveClass == byte.class
-                           ? int.class
-                           : primitiveClass;
-        appendExpr = callMethod( StringBuilder.class, "append", new Class[]{primitiveClass}, sbHandle.getStringBuilder(), Collections.<IRExpression>singletonList( primitiveClass == Object.class ? nullLiteral() : expr ) );
+      else if( JavaTypes.CHAR_SEQUENCE().isAssignableFrom( operandType ) ) {
+        concat.add( CharSequence.class, expr );
+      }
+      else if( JavaTypes.pCHAR().getArrayType().isAssignableFrom( operandType ) ) {
+        concat.add( char[].class, expr );
+      }
+      else if( ILanguageLevel.Util.STANDARD_GOSU() ||
+               !isHandledByCustomCoercion( operandType ) ) {
+        concat.add( Object.class, expr );
+      }
+      else { // Sucky ICoercionManager#makeStringFrom() must be called e.g., TypeKey's Code is used because its toString() returns DisplayName
+        concat.add( String.class, callMethod( ICoercionManager.class, "makeStringFrom", new Class[]{Object.class},
+                                              callStaticMethod( CommonServices.class, "getCoercionManager", new Class[]{}, Collections.<IRExpression>emptyList() ),
+                                              Collections.singletonList( expr ) ) );
       }
-      sbHandle.setStringBuilder( appendExpr );
     }
     else {
-      sbHandle.setStringBuilder( expr );
+      Class primitiveClass = getDescriptor( operandType ).getJavaClass();
+      primitiveClass = primitiveClass == void.class
+                       ? Object.class // this special case is for 'null' literal, which internally is of type "void"
+                       : primitiveClass == short.class || primitiveClass == byte.class
+                         ? int.class
+                         : primitiveClass;
+      concat.add( primitiveClass, primitiveClass == Object.class ? nullLiteral() : expr );
     }
   }
 
@@ -253,26 +259,150 @@ public class AdditiveExpressionTransformer extends ArithmeticExpressionTransform
   }
 
 
-  private class StringBuilderHandle {
-    private IRExpression _stringBuilder;
-    private boolean _bAppendedToStringBuilder;
+  /**
+   * The operands of a string concatenation, including those of nested concatenations e.g., both
+   * additions in <code>"a" + b + "c"</code> add to the same concatenation.
+   */
+  private class Concatenation {
+    private final List<Class> _paramClasses = new ArrayList<Class>();
+    private final List<IRExpression> _operands = new ArrayList<IRExpression>();
+    private boolean _bAddedByOperand;
+
+    private void add( Class paramClass, IRExpression operand ) {
+      _paramClasses.add( paramClass );
+      _operands.add( operand );
+    }
+
+    private boolean isAddedByOperand() {
+      return _bAddedByOperand;
+    }
+    private void setAddedByOperand( boolean bAddedByOperand ) {
+      _bAddedByOperand = bAddedByOperand;
+    }
+
+    private IRExpression makeExpression() {
+      if( STRING_CONCAT_FACTORY != null && BytecodeOptions.isIndyStringConcat() && getArgSlots() <= MAX_INDY_CONCAT_ARG_SLOTS ) {
+        return makeIndyConcatenation();
+      }
+      return makeStringBuilderConcatenation();
+    }
+
+    /**
+     * new StringBuilder( capacity ).append( a ).append( b )...toString(), where the capacity is the
+     * length of the constant operands plus a guess for the others, so typical messages don't grow
+     * the builder
+     */
+    private IRExpression makeStringBuilderConcatenation() {
+      int iCapacity = 0;
+      for( int i = 0; i < _operands.size(); i++ ) {
+        String constant = getConstantText( _operands.get( i ) );
+        iCapacity += constant != null ? constant.length() : estimateLength( _paramClasses.get( i ) );
+      }
+      IRExpression sb = iCapacity <= DEFAULT_CAPACITY
+                        ? buildNewExpression( StringBuilder.class, new Class[]{}, Collections.<IRExpression>emptyList() )
+                        : buildNewExpression( StringBuilder.class, new Class[]{int.class}, Collections.singletonList( numericLiteral( iCapacity ) ) );
+      for( int i = 0; i < _operands.size(); i++ ) {
+        sb = callMethod( StringBuilder.class, "append", new Class[]{_paramClasses.get( i )}, sb, Collections.singletonList( _operands.get( i ) ) );
+      }
+      return callMethod( StringBuilder.class, "toString", new Class[]{}, sb, Collections.<IRExpression>emptyList() );
+    }
+
+    /**
+     * invokedynamic bootstrapped by StringConcatFactory.makeConcatWithConstants(). Constant operands
+     * go in the recipe, the others are arguments. The JVM then sizes the result exactly and builds
+     * the String without copying it from a builder.
+     */
+    private IRExpression makeIndyConcatenation() {
+      StringBuilder recipe = new StringBuilder();
+      List<Object> constants = new ArrayList<Object>();
+      List<IRType> paramTypes = new ArrayList<IRType>();
+      List<IRExpression> args = new ArrayList<IRExpression>();
+      for( int i = 0; i < _operands.size(); i++ ) {
+        IRExpression operand = _operands.get( i );
+        String constant = getConstantText( operand );
+        if( constant != null ) {
+          if( constant.indexOf( TAG_ARG ) < 0 && constant.indexOf( TAG_CONST ) < 0 ) {
+            recipe.append( constant );
+          }
+          else {
+            recipe.append( TAG_CONST );
+            constants.add( constant );
+          }
+        }
+        else {
+          Class paramClass = _paramClasses.get( i );
+          if( paramClass == char[].class ) {
+            // StringConcatFactory formats arrays with toString()
+            operand = callStaticMethod( String.class, "valueOf", new Class[]{char[].class}, Collections.singletonList( operand ) );
+            paramClass = String.class;
+          }
+          recipe.append( TAG_ARG );
+          paramTypes.add( getDescriptor( paramClass ) );
+          args.add( operand );
+        }
+      }
+      List<Object> bootstrapArgs = new ArrayList<Object>();
+      bootstrapArgs.add( recipe.toString() );
+      bootstrapArgs.addAll( constants );
+      return new IRInvokeDynamicExpression( "makeConcatWithConstants", getDescriptor( STRING_CONCAT_FACTORY ), "makeConcatWithConstants",
+                                            Arrays.asList( getDescriptor( String.class ), getDescriptor( Object[].class ) ), bootstrapArgs,
+                                            getDescriptor( String.class ), paramTypes, args );
+    }
 
-    private StringBuilderHandle() {
-      _stringBuilder = buildNewExpression( StringBuilder.class, new Class[]{}, Collections.<IRExpression>emptyList() );
+    private int getArgSlots() {
+      int iSlots = 0;
+      for( int i = 0; i < _operands.size(); i++ ) {
+        if( getConstantText( _operands.get( i ) ) == null ) {
+          Class paramClass = _paramClasses.get( i );
+          iSlots += paramClass == long.class || paramClass == double.class ? 2 : 1;
+        }
+      }
+      return iSlots;
     }
+  }
+
+  /**
+   * @return The text an operand contributes to the result if it is a constant, otherwise null
+   */
+  private static String getConstantText( IRExpression operand ) {
+    if( operand instanceof IRStringLiteralExpression ) {
+      return ((IRStringLiteralExpression)operand).getValue();
+    }
+    if( operand instanceof IRCharacterLiteral ) {
+      return String.valueOf( ((IRCharacterLiteral)operand).getValue() );
+    }
+    if( operand instanceof IRNullLiteral ) {
+      return "null";
+    }
+    return null;
+  }
 
-    private IRExpression getStringBuilder() {
-      return _stringBuilder;
+  private static int estimateLength( Class paramClass ) {
+    if( paramClass == char.class ) {
+      return 1;
+    }
+    if( paramClass == boolean.class ) {
+      return 5;
+    }
+    if( paramClass == int.class ) {
+      return 11;
     }
-    private void setStringBuilder( IRExpression stringBuilder ) {
-      _stringBuilder = stringBuilder;
+    if( paramClass == long.class ) {
+      return 20;
     }
+    if( paramClass == double.class ) {
+      return 24;
+    }
+    return DEFAULT_CAPACITY;
+  }
 
-    private boolean isAppendedToStringBuilder() {
-      return _bAppendedToStringBuilder;
+  private static Class findStringConcatFactory() {
+    try {
+      return Class.forName( "java.lang.invoke.StringConcatFactory" );
     }
-    private void setAppendedToStringBuilder( boolean bAppendedToStringBuilder ) {
-      _bAppendedToStringBuilder = bAppendedToStringBuilder;
+    catch( ClassNotFoundException e ) {
+      // Java 8
+      return null;
     }
   }
 }
@@ -4,23 +4,50 @@
 
 package gw.internal.gosu.ir.transform.expression;
 
-import gw.internal.gosu.ir.nodes.JavaClassIRType;
+import gw.internal.gosu.compiler.FunctionClassUtil;
+import gw.internal.gosu.ir.optimizer.IRRewriter;
+import gw.internal.gosu.ir.transform.GosuClassTransformer;
+import gw.internal.gosu.parser.ICompilableTypeInternal;
+import gw.internal.gosu.parser.IGosuClassInternal;
+import gw.internal.gosu.parser.TypeLord;
 import gw.internal.gosu.parser.expressions.BlockExpression;
+import gw.internal.gosu.runtime.GosuRuntimeMethods;
+import gw.lang.ir.IRClass;
 import gw.lang.ir.IRStatement;
 import gw.lang.ir.IRSymbol;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRClassLiteral;
 import gw.lang.ir.expression.IRCompositeExpression;
-import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.expression.IRFieldGetExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
+import gw.lang.ir.expression.IRLazyTypeMethodCallExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.statement.IRFieldSetStatement;
+import gw.lang.ir.statement.IRMethodCallStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.ir.statement.IRNoOpStatement;
+import gw.lang.ir.statement.IRReturnStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.lang.ir.statement.IRSyntheticStatement;
 import gw.lang.parser.IBlockClass;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRType;
 import gw.lang.parser.expressions.IBlockExpression;
-import gw.lang.reflect.IBlockType;
 import gw.lang.reflect.IType;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IGosuFragment;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Map;
 
 
 public class BlockExpressionTransformer extends AbstractExpressionTransformer<IBlockExpression>
@@ -46,12 +73,320 @@ public class BlockExpressionTransformer extends AbstractExpressionTransformer<IB
 
     List<IRType> paramTypes = Arrays.asList( getConstructorParamTypes( new IType[0], typeParams, blockClazz ) );
 
+    if( BytecodeOptions.isLiftBlocks() )
+    {
+      IRExpression liftedExpr = compileLifted( blockClazz, paramTypes, args );
+      if( liftedExpr != null )
+      {
+        return liftedExpr;
+      }
+    }
+
     IRExpression newExpr = buildNewExpression( getDescriptor( blockClazz ), paramTypes, args );
 
     newExpr.setImplicit( true );
     return newExpr;
   }
 
+  /**
+   * Compiles the block to a private static method of the class being compiled instead of to a class
+   * of its own. The method takes the values the block's constructor would take in an array,
+   * followed by the block's arguments. The block expression becomes an invokedynamic call that
+   * wraps the method and the values in a LiftedFunction, see GosuRuntimeMethods#bootstrapLiftedBlock().
+   * <p/>
+   * Only a block whose instance isn't needed is lifted: it declares no blocks or classes, its
+   * constructor only stores its arguments, and its body uses <code>this</code> only to read the
+   * values stored by the constructor.
+   *
+   * @return The invokedynamic call creating the block, or null if the block needs its class
+   */
+  private IRExpression compileLifted( IBlockClass blockClazz, List<IRType> paramTypes, List<IRExpression> args )
+  {
+    ICompilableTypeInternal enclosingClass = getGosuClass();
+    if( enclosingClass.isInterface() ||
+        enclosingClass instanceof IGosuFragment ||
+        TypeLord.getPureGenericType( blockClazz.getEnclosingType() ) != TypeLord.getPureGenericType( enclosingClass ) ||
+        ((IGosuClassInternal)blockClazz).getBlockCount() > 0 ||
+        !blockClazz.getInnerClasses().isEmpty() )
+    {
+      return null;
+    }
+    int iBlock = indexOfBlock( enclosingClass, blockClazz );
+    if( iBlock < 0 )
+    {
+      return null;
+    }
+    for( IRType paramType : paramTypes )
+    {
+      if( paramType.isPrimitive() )
+      {
+        return null;
+      }
+    }
+
+    IRClass blockIrClass = GosuClassTransformer.compile( (IGosuClassInternal)blockClazz );
+    String strBlockType = blockIrClass.getThisType().getName();
+    int iArity = getParsedElement().getArgs().size();
+    IRMethodStatement ctor = null;
+    IRMethodStatement invoke = null;
+    for( IRMethodStatement method : blockIrClass.getMethods() )
+    {
+      String strName = method.getName();
+      if( strName.equals( "<init>" ) && ctor == null )
+      {
+        ctor = method;
+      }
+      else if( strName.equals( IBlockClass.INVOKE_METHOD_NAME ) && invoke == null )
+      {
+        invoke = method;
+      }
+      else if( !strName.equals( "<clinit>" ) && !strName.startsWith( "access$" ) )
+      {
+        return null;
+      }
+    }
+    if( ctor == null || invoke == null ||
+        ctor.getParameters().size() != args.size() ||
+        invoke.getParameters().size() != iArity )
+    {
+      return null;
+    }
+
+    Map<String, Integer> capturedIndexByField = new CtorScanner( ctor, strBlockType ).getCapturedIndexByField();
+    if( capturedIndexByField == null )
+    {
+      return null;
+    }
+
+    IRSymbol capturedSymbol = new IRSymbol( "captured$$block", getDescriptor( Object[].class ), false );
+    IRStatement body = new CapturedValueRewriter( capturedSymbol, capturedIndexByField, strBlockType ).rewrite( invoke.getMethodBody() );
+    if( !new LiftedBodyVerifier( strBlockType ).verify( body ) )
+    {
+      return null;
+    }
+
+    String strMethodName = "lambda$" + blockClazz.getRelativeName().substring( blockClazz.getRelativeName().lastIndexOf( '.' ) + 1 );
+    List<IRSymbol> parameters = new ArrayList<IRSymbol>();
+    parameters.add( capturedSymbol );
+    parameters.addAll( invoke.getParameters() );
+    _cc().getIrClass().addMethod( new IRMethodStatement( body, strMethodName,
+                                                         Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_STATIC,
+                                                         false, invoke.getReturnType(), parameters ) );
+
+    IRExpression newExpr = new IRInvokeDynamicExpression( "newBlock", getDescriptor( GosuRuntimeMethods.class ), "bootstrapLiftedBlock",
+                                                          Arrays.asList( getDescriptor( String.class ), getDescriptor( int.class ), getDescriptor( int.class ) ),
+                                                          Arrays.<Object>asList( strMethodName, iBlock, iArity ),
+                                                          getDescriptor( FunctionClassUtil.getFunctionInterfaceForArity( iArity ) ),
+                                                          Collections.singletonList( getDescriptor( Object[].class ) ),
+                                                          Collections.singletonList( collectArgsIntoObjArray( args ) ) );
+    newExpr.setImplicit( true );
+    return newExpr;
+  }
+
+  private static int indexOfBlock( ICompilableTypeInternal enclosingClass, IBlockClass blockClazz )
+  {
+    for( int i = 0; i < enclosingClass.getBlockCount(); i++ )
+    {
+      if( enclosingClass.getBlock( i ) == blockClazz )
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isThis( IRExpression expression )
+  {
+    return expression instanceof IRIdentifier && ((IRIdentifier)expression).getSymbol().getName().equals( "this" );
+  }
+
+  /**
+   * Maps the fields a block's constructor stores its arguments in to the indexes of the arguments.
+   * Anything else in the constructor, other than calling the super constructor, fails the scan.
+   */
+  private static class CtorScanner extends IRRewriter
+  {
+    private final String _strBlockType;
+    private final Map<String, Integer> _paramIndexByName = new HashMap<String, Integer>();
+    private final Map<String, Integer> _capturedIndexByField = new HashMap<String, Integer>();
+    private boolean _bFailed;
+
+    CtorScanner( IRMethodStatement ctor, String strBlockType )
+    {
+      _strBlockType = strBlockType;
+      List<IRSymbol> parameters = ctor.getParameters();
+      for( int i = 0; i < parameters.size(); i++ )
+      {
+        _paramIndexByName.put( parameters.get( i ).getName(), i );
+      }
+      rewrite( ctor.getMethodBody() );
+    }
+
+    /**
+     * @return The index of the constructor argument stored in each field, or null if the constructor
+     * does more than store its arguments
+     */
+    Map<String, Integer> getCapturedIndexByField()
+    {
+      return _bFailed ? null : _capturedIndexByField;
+    }
+
+    @Override
+    protected IRExpression rewriteExpression( IRExpression expression )
+    {
+      if( expression instanceof IRIdentifier )
+      {
+        String strName = ((IRIdentifier)expression).getSymbol().getName();
+        _bFailed |= !strName.equals( "this" ) && !_paramIndexByName.containsKey( strName );
+      }
+      else if( expression instanceof IRMethodCallExpression )
+      {
+        IRMethodCallExpression call = (IRMethodCallExpression)expression;
+        _bFailed |= !call.getName().equals( "<init>" ) || !isThis( call.getRoot() ) || !call.getArgs().isEmpty();
+      }
+      else if( !(expression instanceof IRCompositeExpression) )
+      {
+        _bFailed = true;
+      }
+      return expression;
+    }
+
+    @Override
+    protected IRStatement rewriteStatement( IRStatement statement )
+    {
+      if( statement instanceof IRFieldSetStatement )
+      {
+        IRFieldSetStatement fieldSet = (IRFieldSetStatement)statement;
+        if( isThis( fieldSet.getLhs() ) &&
+            fieldSet.getOwnersType().getName().equals( _strBlockType ) &&
+            fieldSet.getRhs() instanceof IRIdentifier &&
+            _paramIndexByName.containsKey( ((IRIdentifier)fieldSet.getRhs()).getSymbol().getName() ) )
+        {
+          _capturedIndexByField.put( fieldSet.getName(), _paramIndexByName.get( ((IRIdentifier)fieldSet.getRhs()).getSymbol().getName() ) );
+        }
+        else
+        {
+          _bFailed = true;
+        }
+      }
+      else if( statement instanceof IRReturnStatement )
+      {
+        _bFailed |= ((IRReturnStatement)statement).getReturnValue() != null;
+      }
+      else if( !(statement instanceof IRMethodCallStatement) &&
+               !(statement instanceof IRStatementList) &&
+               !(statement instanceof IRSyntheticStatement) &&
+               !(statement instanceof IRNoOpStatement) )
+      {
+        _bFailed = true;
+      }
+      return statement;
+    }
+  }
+
+  /**
+   * Replaces the reads of the block's fields in the block's body with loads from the array of
+   * captured values
+   */
+  private class CapturedValueRewriter extends IRRewriter
+  {
+    private final IRSymbol _capturedSymbol;
+    private final Map<String, Integer> _capturedIndexByField;
+    private final String _strBlockType;
+
+    CapturedValueRewriter( IRSymbol capturedSymbol, Map<String, Integer> capturedIndexByField, String strBlockType )
+    {
+      _capturedSymbol = capturedSymbol;
+      _capturedIndexByField = capturedIndexByField;
+      _strBlockType = strBlockType;
+    }
+
+    @Override
+    protected IRExpression rewriteExpression( IRExpression expression )
+    {
+      if( expression instanceof IRFieldGetExpression )
+      {
+        IRFieldGetExpression fieldGet = (IRFieldGetExpression)expression;
+        Integer iCaptured = _capturedIndexByField.get( fieldGet.getName() );
+        if( iCaptured != null && isThis( fieldGet.getLhs() ) && fieldGet.getOwnersType().getName().equals( _strBlockType ) )
+        {
+          return buildCast( fieldGet.getFieldType(), buildArrayLoad( identifier( _capturedSymbol ), iCaptured, getDescriptor( Object.class ) ) );
+        }
+      }
+      return expression;
+    }
+  }
+
+  /**
+   * Checks that a lifted block body no longer refers to the block's instance or class
+   */
+  private static class LiftedBodyVerifier extends IRRewriter
+  {
+    private final String _strBlockType;
+    private boolean _bFailed;
+
+    LiftedBodyVerifier( String strBlockType )
+    {
+      _strBlockType = strBlockType;
+    }
+
+    boolean verify( IRStatement body )
+    {
+      rewrite( body );
+      return !_bFailed;
+    }
+
+    @Override
+    protected IRExpression rewriteExpression( IRExpression expression )
+    {
+      if( isThis( expression ) ||
+          // The rewriter doesn't look inside these
+          expression instanceof IRLazyTypeMethodCallExpression ||
+          (expression instanceof IRMethodCallExpression && ((IRMethodCallExpression)expression).getOwnersType().isStructural()) )
+      {
+        _bFailed = true;
+      }
+      else if( expression instanceof IRMethodCallExpression )
+      {
+        _bFailed |= isBlockType( ((IRMethodCallExpression)expression).getOwnersType() );
+      }
+      else if( expression instanceof IRFieldGetExpression )
+      {
+        _bFailed |= isBlockType( ((IRFieldGetExpression)expression).getOwnersType() );
+      }
+      else if( expression instanceof IRNewExpression )
+      {
+        _bFailed |= isBlockType( ((IRNewExpression)expression).getOwnersType() );
+      }
+      else if( expression instanceof IRCastExpression || expression instanceof IRInstanceOfExpression )
+      {
+        _bFailed |= isBlockType( expression instanceof IRCastExpression
+                                 ? expression.getType()
+                                 : ((IRInstanceOfExpression)expression).getTestType() );
+      }
+      else if( expression instanceof IRClassLiteral )
+      {
+        _bFailed |= isBlockType( ((IRClassLiteral)expression).getLiteralType() );
+      }
+      return expression;
+    }
+
+    @Override
+    protected IRStatement rewriteStatement( IRStatement statement )
+    {
+      if( statement instanceof IRFieldSetStatement )
+      {
+        _bFailed |= isBlockType( ((IRFieldSetStatement)statement).getOwnersType() );
+      }
+      return statement;
+    }
+
+    private boolean isBlockType( IRType type )
+    {
+      return type.getName().equals( _strBlockType );
+    }
+  }
+
   public static IRExpression compile( TopLevelTransformationContext cc, BlockExpression blockExpression )
   {
     BlockExpressionTransformer compiler = new BlockExpressionTransformer( cc, blockExpression );
@@ -5,12 +5,12 @@
 package gw.internal.gosu.ir.transform.expression;
 
 import gw.config.CommonServices;
-import gw.internal.gosu.compiler.SingleServingGosuClassLoader;
 import gw.internal.gosu.ir.transform.ExpressionTransformer;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
+import gw.internal.gosu.parser.EvalProgramCache;
+import gw.internal.gosu.parser.EvalProgramCache.CachedProgram;
 import gw.internal.gosu.parser.IGosuProgramInternal;
 import gw.internal.gosu.parser.expressions.EvalExpression;
-import gw.internal.gosu.util.LRUMap;
 import gw.lang.ir.IRExpression;
 import gw.lang.parser.GosuParserFactory;
 import gw.lang.parser.ICapturedSymbol;
@@ -25,7 +25,7 @@ import gw.lang.reflect.gs.IExternalSymbolMap;
 import gw.lang.reflect.gs.IGosuProgram;
 import gw.lang.reflect.gs.IProgramInstance;
 import gw.util.GosuExceptionUtil;
-import gw.util.GosuStringUtil;
+import gw.util.concurrent.Cache;
 import gw.util.concurrent.LocklessLazyVar;
 
 import java.lang.reflect.Constructor;
@@ -41,9 +41,11 @@ import java.util.Map;
  */
 public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpression>
 {
-  @SuppressWarnings("unchecked")
-  // ##todo: use a ConcurrentHashMap here somehow i.e., stop using Collections.synchronizedMap(), it's a perf issue here
-  public static final Map<String, EvalExpression> EVAL_EXPRESSIONS = Collections.synchronizedMap( new LRUMap( 2000 ) );
+  public static final Cache<String, EvalExpression> EVAL_EXPRESSIONS = new Cache<String, EvalExpression>( "eval.expressions", 2000, null );
+
+  private static final int PROGRAM_CACHE_SIZE = Integer.getInteger( "gosu.eval.cache.size", 1000 );
+  private static final long PROGRAM_CACHE_WEIGHT = Long.getLong( "gosu.eval.cache.weight", 1000000 );
+  private static final EvalProgramCache PROGRAMS = new EvalProgramCache( "eval.programs", PROGRAM_CACHE_SIZE, PROGRAM_CACHE_WEIGHT );
 
   public static interface DeclaredConstructorsAccessor {
     Constructor getConstructor( Class clz );
@@ -147,16 +149,17 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
 
   private void putEvalExpression( EvalExpression evalExpr )
   {
-    synchronized( EVAL_EXPRESSIONS )
-    {
-      int iLine = _expr().getLineNum();
-      int iColumnNum = _expr().getColumn();
-      EVAL_EXPRESSIONS.put( makeEvalKey( getGosuClass(), iLine, iColumnNum, _expr().toString() ), evalExpr );
-    }
+    int iLine = _expr().getLineNum();
+    int iColumnNum = _expr().getColumn();
+    EVAL_EXPRESSIONS.put( makeEvalKey( getGosuClass(), iLine, iColumnNum, _expr().toString() ), evalExpr );
   }
 
+  /**
+   * @return The key of an eval expression. It is computed on every evaluation, so it holds the
+   * expression's text instead of a hash of it.
+   */
   public static String makeEvalKey( IType enclosingClass, int iLineNum, int iColumnNum, String evalExprText ) {
-    return enclosingClass.getName() + '.' + IGosuProgram.NAME_PREFIX + "eval_" + iLineNum + ":" + iColumnNum + ":" + GosuStringUtil.getSHA1String( evalExprText );
+    return enclosingClass.getName() + '.' + IGosuProgram.NAME_PREFIX + "eval_" + iLineNum + ":" + iColumnNum + ":" + evalExprText;
   }
 
   public static Object compileAndRunEvalSource( Object source, Object outer, Object[] capturedValues,
@@ -164,10 +167,10 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
                                                 int iLineNum, int iColumn, String evalExprText )
   {
     String evalExprKey = makeEvalKey( enclosingClass, iLineNum, iColumn, evalExprText );
-    EvalExpression evalExpr = EVAL_EXPRESSIONS.get( evalExprKey );
+    EvalExpression evalExpr = EVAL_EXPRESSIONS.getIfPresent( evalExprKey );
     if( evalExpr == null && enclosingClass.isCompilable() ) {
       enclosingClass.compile(); // force compilation of enclosing class indirectly compiles eval-expr which caches the expr
-      evalExpr = EVAL_EXPRESSIONS.get( evalExprKey );
+      evalExpr = EVAL_EXPRESSIONS.getIfPresent( evalExprKey );
     }
     return compileAndRunEvalSource( source, outer, capturedValues, immediateFuncTypeParams, enclosingClass, evalExpr );
   }
@@ -182,51 +185,27 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
                                                 ISymbolTable compileTimeLocalContextSymbols, IExternalSymbolMap runtimeLocalSymbolValues )
   {
     String strSource = CommonServices.getCoercionManager().makeStringFrom( source );
-    IGosuProgramParser parser = GosuParserFactory.createProgramParser();
     List<ICapturedSymbol> capturedSymbols = evalExpr instanceof EvalExpression ? ((EvalExpression)evalExpr).getCapturedForBytecode() : Collections.<ICapturedSymbol>emptyList();
     //debugInfo( compileTimeLocalContextSymbols );
-    IParseResult res = parser.parseEval( strSource, capturedSymbols, enclosingClass, evalExpr, compileTimeLocalContextSymbols );
-    IGosuProgram gp = res.getProgram();
-    if( !gp.isValid() )
-    {
-      System.out.println( gp.getParseResultsException() );
-      throw GosuExceptionUtil.forceThrow(gp.getParseResultsException());
-    }
+    String strKey = makeProgramKey( strSource, enclosingClass, evalExpr );
+    CachedProgram cached = strKey == null
+                           ? parseEval( strSource, capturedSymbols, enclosingClass, evalExpr, compileTimeLocalContextSymbols )
+                           : PROGRAMS.get( strKey, key -> parseEval( strSource, capturedSymbols, enclosingClass, evalExpr, compileTimeLocalContextSymbols ) );
+    IGosuProgramInternal gp = cached.getProgram();
 
-    Class<?> javaClass = gp.getBackingClass();
-    ClassLoader classLoader = javaClass.getClassLoader();
-    assert classLoader instanceof SingleServingGosuClassLoader;
     List<Object> args = new ArrayList<Object>();
     if( !gp.isStatic() )
     {
       args.add( outer );
     }
 
-    addCapturedValues( (IGosuProgramInternal)gp, capturedSymbols, capturedValues, args );
+    addCapturedValues( gp, capturedSymbols, capturedValues, args );
 
     addEnclosingTypeParams( immediateFuncTypeParams, args );
 
-    Constructor ctor = _ctorAccessor.get().getConstructor( javaClass );
-    Class[] parameterTypes = ctor.getParameterTypes();
-    if( parameterTypes.length != args.size() )
-    {
-      if( parameterTypes.length > args.size() &&
-          parameterTypes[parameterTypes.length-1].getName().equals( IExternalSymbolMap.class.getName() ) )
-      {
-        args.add( runtimeLocalSymbolValues );
-      }
-      else
-      {
-        throw new IllegalStateException( "Eval constructor param count is not " + args.size() + "\nPassed in args " + printArgs( args ) + "\nActual args: " + printArgs( ctor.getParameterTypes() ) );
-      }
-    }
+    IProgramInstance evalInstance = cached.newInstance( args, runtimeLocalSymbolValues );
     try
     {
-//      Class[] parameterTypes = ctor.getParameterTypes();
-//      for( int i = 0; i < parameterTypes.length; i++ ) {
-//        System.out.println( "PARAM: " + parameterTypes[i].getName() + "  ARG: " + args.get( i ) );
-//      }
-      IProgramInstance evalInstance = (IProgramInstance)ctor.newInstance( args.toArray() );
       return evalInstance.evaluate( runtimeLocalSymbolValues );
     }
     catch( Exception e )
@@ -235,20 +214,25 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
     }
   }
 
-  private static String printArgs( List<Object> args ) {
-    String str = "";
-    for( Object a: args ) {
-      str += a + ", ";
-    }
-    return str;
+  private static CachedProgram parseEval( String strSource, List<ICapturedSymbol> capturedSymbols, IType enclosingClass, IParsedElement evalExpr, ISymbolTable compileTimeLocalContextSymbols )
+  {
+    IGosuProgramParser parser = GosuParserFactory.createProgramParser();
+    IParseResult res = parser.parseEval( strSource, capturedSymbols, enclosingClass, evalExpr, compileTimeLocalContextSymbols );
+    return new CachedProgram( (IGosuProgramInternal)res.getProgram() );
   }
 
-  private static String printArgs( Class[] parameterTypes ) {
-    String str = "";
-    for( Class c: parameterTypes ) {
-      str += c.getName() + ", ";
+  /**
+   * @return The key of the program compiled for the source of an eval expression, the program's
+   * name is made from the same parts. Null if the expression has no location, its program is
+   * not reused.
+   */
+  private static String makeProgramKey( String strSource, IType enclosingClass, IParsedElement evalExpr )
+  {
+    if( !(evalExpr instanceof EvalExpression) || evalExpr.getLocation() == null )
+    {
+      return null;
     }
-    return str;
+    return (enclosingClass == null ? "" : enclosingClass.getName()) + '\0' + evalExpr.getLocation().getOffset() + '\0' + strSource;
   }
 
   private static void debugInfo( ISymbolTable compileTimeLocalContextSymbols ) {
@@ -284,6 +268,7 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
 
   public static void clearEvalExpressions() {
     EVAL_EXPRESSIONS.clear();
+    PROGRAMS.clear();
   }
 
 }
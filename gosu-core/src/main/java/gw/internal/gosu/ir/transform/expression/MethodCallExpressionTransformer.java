@@ -242,9 +242,10 @@ public class MethodCallExpressionTransformer extends AbstractExpressionTransform
     {
       // Special case printContent() implementation for StringLiteral template
       // where we optimize by appending to the StringBuilder for the string.
-      return callMethod( StringBuilder.class, "append", new Class[]{Object.class},
+      IRExpression content = ExpressionTransformer.compile( _expr().getArgs()[0], _cc() );
+      return callMethod( StringBuilder.class, "append", new Class[]{IRTypeConstants.STRING().equals( content.getType() ) ? String.class : Object.class},
         identifier( currentTemplate ),
-        exprList( ExpressionTransformer.compile( _expr().getArgs()[0], _cc() ) ) );
+        exprList( content ) );
     }
     else
     {
@@ -17,6 +17,7 @@ import gw.lang.ir.IRElement;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRSymbol;
 import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
 import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
 import gw.lang.parser.IExpression;
 import gw.lang.parser.IParsedElement;
@@ -31,6 +32,7 @@ import gw.lang.reflect.IType;
 import gw.lang.reflect.ITypeInfo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -422,7 +424,11 @@ public class NewExpressionTransformer extends AbstractExpressionTransformer<NewE
       args.add( pushNull() );
     }
     args.add( collectArgsIntoObjArray( ctorArgs ) );
-    IRExpression instance = callStaticMethod( GosuRuntimeMethods.class, "newInstance", new Class[]{IType.class, Object.class, Object[].class}, args );
+    // The call site caches the constructor it resolves, see GosuRuntimeMethods.bootstrapNewInstance()
+    IRExpression instance = new IRInvokeDynamicExpression( "newInstance", getDescriptor( GosuRuntimeMethods.class ), "bootstrapNewInstance",
+                                                           getDescriptor( Object.class ),
+                                                           Arrays.asList( getDescriptor( IType.class ), getDescriptor( Object.class ), getDescriptor( Object[].class ) ),
+                                                           args );
     return checkCast( rootType, instance );
   }
 }
@@ -13,7 +13,10 @@ import gw.lang.ir.IRTypeConstants;
 import gw.lang.ir.expression.IRStringLiteralExpression;
 import gw.lang.ir.expression.IRMethodCallExpression;
 import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRIdentifier;
 import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRMethodCallStatement;
+import gw.lang.ir.statement.IRStatementList;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
 import gw.lang.parser.expressions.IProgram;
 import gw.util.Stack;
@@ -25,6 +28,7 @@ import java.util.Collections;
 public class TemplateStringLiteralTransformer extends AbstractExpressionTransformer<TemplateStringLiteral>
 {
   private static final ThreadLocal<Stack<IRSymbol>> SYMBOL_STACK = new ThreadLocal<>();
+  private static final int DEFAULT_CAPACITY = 16;
 
   public static IRExpression compile( TopLevelTransformationContext cc, TemplateStringLiteral expr )
   {
@@ -51,13 +55,17 @@ public class TemplateStringLiteralTransformer extends AbstractExpressionTransfor
       {
         getThreadLocalStack().push( symbol );
 
-        // instantiate and store a string builder
-        IRAssignmentStatement sbAssignment = buildAssignment( symbol, buildNewExpression( sbType, Collections.<IRType>emptyList(), Collections.emptyList() ) );
+        IRStatement templateBody = _cc().compile( iProgram.getMainStatement() );
+
+        // instantiate and store a string builder, big enough for the template's text
+        int iCapacity = estimateLength( templateBody, symbol );
+        IRAssignmentStatement sbAssignment = buildAssignment( symbol, iCapacity <= DEFAULT_CAPACITY
+                                                                      ? buildNewExpression( sbType, Collections.<IRType>emptyList(), Collections.emptyList() )
+                                                                      : buildNewExpression( sbType, Collections.singletonList( IRTypeConstants.pINT() ), Collections.singletonList( numericLiteral( iCapacity ) ) ) );
         template.addElement( sbAssignment );
         sbAssignment.setImplicit( true );
 
         // invoke the body
-        IRStatement templateBody = _cc().compile( iProgram.getMainStatement() );
         template.addElement( templateBody );
         templateBody.setImplicit( true );
 
@@ -79,6 +87,36 @@ public class TemplateStringLiteralTransformer extends AbstractExpressionTransfor
     }
   }
 
+  /**
+   * @return The length of the text the template body appends to the string builder, guessing 16
+   * characters for each of the template's expressions and nothing for those in nested statements
+   */
+  private static int estimateLength( IRStatement templateBody, IRSymbol sbSymbol )
+  {
+    int iLength = 0;
+    if( templateBody instanceof IRStatementList )
+    {
+      for( IRStatement statement : ((IRStatementList)templateBody).getStatements() )
+      {
+        iLength += estimateLength( statement, sbSymbol );
+      }
+    }
+    else if( templateBody instanceof IRMethodCallStatement &&
+             ((IRMethodCallStatement)templateBody).getExpression() instanceof IRMethodCallExpression )
+    {
+      IRMethodCallExpression call = (IRMethodCallExpression)((IRMethodCallStatement)templateBody).getExpression();
+      if( call.getName().equals( "append" ) && call.getRoot() instanceof IRIdentifier &&
+          ((IRIdentifier)call.getRoot()).getSymbol() == sbSymbol )
+      {
+        IRExpression content = call.getArgs().get( 0 );
+        iLength += content instanceof IRStringLiteralExpression
+                   ? ((IRStringLiteralExpression)content).getValue().length()
+                   : DEFAULT_CAPACITY;
+      }
+    }
+    return iLength;
+  }
+
   private static Stack<IRSymbol> getThreadLocalStack()
   {
     Stack<IRSymbol> symbolStack = SYMBOL_STACK.get();
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the JDK Flight Recorder events emitted by {@link JfrGosuMetrics}.
+ */
+@Category( {"Gosu", "Type System"} )
+@StackTrace( false )
+public abstract class GosuPhaseEvent extends Event
+{
+  @Label( "Type Name" )
+  @Description( "The type the phase applies to, if any" )
+  String typeName;
+}
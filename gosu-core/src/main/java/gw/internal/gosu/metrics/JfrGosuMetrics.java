@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.metrics;
+
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.HistogramGosuMetrics;
+import gw.util.perf.metrics.IPhaseTimer;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits a JDK Flight Recorder event per {@link GosuPhase}, in addition to the in-memory histograms
+ * kept by {@link HistogramGosuMetrics}. Events are only committed while a recording has them enabled.
+ * <p/>
+ * Selected with <code>-Dgosu.metrics=jfr</code>, see {@link GosuMetrics}.
+ */
+public class JfrGosuMetrics extends HistogramGosuMetrics
+{
+  @Override
+  public IPhaseTimer startPhase( GosuPhase phase, String strTypeName )
+  {
+    long start = System.nanoTime();
+    GosuPhaseEvent event = makeEvent( phase );
+    event.begin();
+    return () -> {
+      event.end();
+      if( event.shouldCommit() )
+      {
+        event.typeName = strTypeName;
+        event.commit();
+      }
+      recordPhase( phase, System.nanoTime() - start );
+    };
+  }
+
+  private static GosuPhaseEvent makeEvent( GosuPhase phase )
+  {
+    switch( phase )
+    {
+      case TYPE_RESOLVE:
+        return new TypeResolveEvent();
+      case PARSE_HEADER:
+        return new ParseHeaderEvent();
+      case PARSE_DECLARATIONS:
+        return new ParseDeclarationsEvent();
+      case PARSE_DEFINITIONS:
+        return new ParseDefinitionsEvent();
+      case IR_TRANSFORM:
+        return new IRTransformEvent();
+      case BYTECODE_EMIT:
+        return new BytecodeEmitEvent();
+      case DEFINE_CLASS:
+        return new DefineClassEvent();
+      case ENHANCEMENT_INDEX:
+        return new EnhancementIndexEvent();
+      case LOCK_WAIT:
+        return new LockWaitEvent();
+      default:
+        throw new IllegalStateException( "Unhandled phase: " + phase );
+    }
+  }
+
+  @Name( "gosu.TypeResolve" )
+  @Label( "Gosu Type Resolve" )
+  public static final class TypeResolveEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.ParseHeader" )
+  @Label( "Gosu Parse Header" )
+  public static final class ParseHeaderEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.ParseDeclarations" )
+  @Label( "Gosu Parse Declarations" )
+  public static final class ParseDeclarationsEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.ParseDefinitions" )
+  @Label( "Gosu Parse Definitions" )
+  public static final class ParseDefinitionsEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.IRTransform" )
+  @Label( "Gosu IR Transform" )
+  public static final class IRTransformEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.BytecodeEmit" )
+  @Label( "Gosu Bytecode Emit" )
+  public static final class BytecodeEmitEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.DefineClass" )
+  @Label( "Gosu Define Class" )
+  public static final class DefineClassEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.EnhancementIndex" )
+  @Label( "Gosu Enhancement Indexing" )
+  public static final class EnhancementIndexEvent extends GosuPhaseEvent {}
+
+  @Name( "gosu.LockWait" )
+  @Label( "Gosu Type System Lock Wait" )
+  @StackTrace( true )
+  public static final class LockWaitEvent extends GosuPhaseEvent {}
+}
@@ -80,7 +80,9 @@ public abstract class AbstractDynamicSymbol extends Symbol implements IDynamicSy
 
   Statement getCompiledStatementDirectly()
   {
-    return (Statement)super.getValue();
+    // The definition may have been cleared
+    Object value = super.getValue();
+    return value instanceof Statement ? (Statement)value : null;
   }
 
   public ISymbolTable getSymbolTable()
@@ -5,14 +5,12 @@
 package gw.internal.gosu.parser;
 
 import gw.config.CommonServices;
-import gw.internal.gosu.compiler.SingleServingGosuClassLoader;
-import gw.internal.gosu.ir.transform.expression.EvalExpressionTransformer;
+import gw.internal.gosu.parser.EvalProgramCache.CachedProgram;
 import gw.lang.parser.ExternalSymbolMapForMap;
 import gw.lang.parser.GosuParserFactory;
 import gw.lang.parser.IDynamicFunctionSymbol;
 import gw.lang.parser.IGosuProgramParser;
 import gw.lang.parser.IParseIssue;
-import gw.lang.parser.IParseResult;
 import gw.lang.parser.IParseTree;
 import gw.lang.parser.IParsedElement;
 import gw.lang.parser.IParsedElementWithAtLeastOneDeclaration;
@@ -20,7 +18,6 @@ import gw.lang.parser.IProgramClassFunctionSymbol;
 import gw.lang.parser.IStatement;
 import gw.lang.parser.ISymbol;
 import gw.lang.parser.ISymbolTable;
-import gw.lang.parser.ParseResult;
 import gw.lang.parser.StandardSymbolTable;
 import gw.lang.parser.exceptions.ParseResultsException;
 import gw.lang.parser.expressions.ILocalVarDeclaration;
@@ -32,26 +29,24 @@ import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.IExternalSymbolMap;
 import gw.lang.reflect.gs.IGosuClass;
-import gw.lang.reflect.gs.IGosuProgram;
 import gw.lang.reflect.gs.IProgramInstance;
 import gw.lang.reflect.java.JavaTypes;
 import gw.util.ContextSymbolTableUtil;
 import gw.util.GosuExceptionUtil;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  */
 public class ContextSensitiveCodeRunner
 {
-  private static ConcurrentHashMap<String, IGosuProgramInternal> _cacheProgramByFingerprint = new ConcurrentHashMap<>();
-  private static int _refreshChecksum;
+  private static final int CACHE_SIZE = Integer.getInteger( "gosu.eval.runner.cache.size", 256 );
+  private static final long CACHE_WEIGHT = Long.getLong( "gosu.eval.runner.cache.weight", 1000000 );
+  private static final EvalProgramCache _cacheProgramByFingerprint = new EvalProgramCache( "runner.programs", CACHE_SIZE, CACHE_WEIGHT );
 
   //!! Needed to ensure this class is loaded so a debugger can call into it remotely
   static void ensureLoadedForDebuggerEval() {
@@ -120,100 +115,36 @@ public class ContextSensitiveCodeRunner
 
   public static Object compileAndRunMeSomeCode( Object source, IGosuClass ctxClass, Object outer, IType enclosingClass, Object[] extSyms, int offset )
   {
-    String typeName = GosuProgramParser.makeEvalKey( source.toString(), enclosingClass, offset );
-    IGosuProgramInternal program = getCachedProgram( typeName );
-    IParseResult res;
-    if( program != null )
+    // use parent class if nested class has no recorded location eg., closure
+    while( enclosingClass.getEnclosingType() != null && enclosingClass instanceof IGosuClassInternal && ((IGosuClassInternal)enclosingClass).getClassStatement().getLocation() == null )
     {
-      program.isValid();
-      res = new ParseResult( program );
-    }
-    else
-    {
-      ISymbolTable compileTimeLocalContextSymbols = ctxClass == null ? new StandardSymbolTable( true ) : findCompileTimeSymbols( (IGosuClassInternal)ctxClass, offset ); // ContextSymbolTableUtil.getSymbolTableAtOffset( ctxClass, offset );
-      String strSource = CommonServices.getCoercionManager().makeStringFrom( source );
-      IGosuProgramParser parser = GosuParserFactory.createProgramParser();
-      //debugInfo( compileTimeLocalContextSymbols );
-
-      // use parent class if nested class has no recorded location eg., closure
-      while( enclosingClass.getEnclosingType() != null && enclosingClass instanceof IGosuClassInternal && ((IGosuClassInternal)enclosingClass).getClassStatement().getLocation() == null )
-      {
-        enclosingClass = enclosingClass.getEnclosingType();
-        try
-        {
-          Field f = outer.getClass().getDeclaredField( "this$0" );
-          f.setAccessible( true );
-          outer = f.get( outer );
-        }
-        catch( Exception e )
-        {
-          throw new RuntimeException( e );
-        }
-      }
-
-      TypeSystem.pushIncludeAll();
+      enclosingClass = enclosingClass.getEnclosingType();
       try
       {
-        IParseTree ctxElem = null;
-        if( enclosingClass instanceof IGosuClassInternal )
-        {
-          //## todo: for Java types we can fake a ctxElem by getting the Gosu proxy class and then get the corresponding function stmt
-          ctxElem = ((IGosuClassInternal)enclosingClass).getClassStatement().getLocation().getDeepestLocation( offset, false );
-        }
-        res = parser.parseRuntimeExpr( typeName, strSource, enclosingClass, compileTimeLocalContextSymbols, ctxElem );
+        Field f = outer.getClass().getDeclaredField( "this$0" );
+        f.setAccessible( true );
+        outer = f.get( outer );
       }
-      finally
+      catch( Exception e )
       {
-        TypeSystem.popIncludeAll();
+        throw new RuntimeException( e );
       }
-      cacheProgram( typeName, (IGosuProgramInternal)res.getProgram() );
     }
 
-    IExternalSymbolMap runtimeLocalSymbolValues = makeRuntimeNamesAndValues( extSyms );
-
+    String strKey = makeCacheKey( source.toString(), ctxClass, enclosingClass, extSyms, offset );
+    final IType finalEnclosingClass = enclosingClass;
+    CachedProgram cached = _cacheProgramByFingerprint.get( strKey, key -> new CachedProgram( compile( key, source, ctxClass, finalEnclosingClass, offset ) ) );
 
-    TypeSystem.pushIncludeAll();
-    IGosuProgram gp;
-    try
-    {
-      gp = res.getProgram();
-      if( !gp.isValid() )
-      {
-        System.out.println( gp.getParseResultsException() );
-        throw GosuExceptionUtil.forceThrow( gp.getParseResultsException() );
-      }
+    IExternalSymbolMap runtimeLocalSymbolValues = makeRuntimeNamesAndValues( extSyms );
 
-    }
-    finally
-    {
-      TypeSystem.popIncludeAll();
-    }
-    Class<?> javaClass = gp.getBackingClass();
-    ClassLoader classLoader = javaClass.getClassLoader();
-    assert classLoader instanceof SingleServingGosuClassLoader;
     List<Object> args = new ArrayList<>();
-    if( !gp.isStatic() )
+    if( !cached.getProgram().isStatic() )
     {
       args.add( outer );
     }
-
-    Constructor ctor = EvalExpressionTransformer._ctorAccessor.get().getConstructor( javaClass );
-    Class[] parameterTypes = ctor.getParameterTypes();
-    if( parameterTypes.length != args.size() )
-    {
-      if( parameterTypes.length > args.size() &&
-          parameterTypes[parameterTypes.length-1].getName().equals( IExternalSymbolMap.class.getName() ) )
-      {
-        args.add( runtimeLocalSymbolValues );
-      }
-      else
-      {
-        throw new IllegalStateException( "Runtime expr constructor param count is not " + args.size() + "\nPassed in args " + printArgs( args ) + "\nActual args: " + printArgs( ctor.getParameterTypes() ) );
-      }
-    }
+    IProgramInstance evalInstance = cached.newInstance( args, runtimeLocalSymbolValues );
     try
     {
-      IProgramInstance evalInstance = (IProgramInstance)ctor.newInstance( args.toArray() );
       return evalInstance.evaluate( runtimeLocalSymbolValues );
     }
     catch( Exception e )
@@ -222,39 +153,57 @@ public class ContextSensitiveCodeRunner
     }
   }
 
-
-  public static void cacheProgram( String strTypeName, IGosuProgramInternal program )
+  private static IGosuProgramInternal compile( String strKey, Object source, IGosuClass ctxClass, IType enclosingClass, int offset )
   {
-    clearCacheOnChecksumChange();
-    _cacheProgramByFingerprint.put( strTypeName, program );
-  }
-  public static IGosuProgramInternal getCachedProgram( String strTypeName )
-  {
-    clearCacheOnChecksumChange();
-    return _cacheProgramByFingerprint.get( strTypeName );
+    String typeName = GosuProgramParser.makeEvalKey( strKey, enclosingClass, offset );
+    ISymbolTable compileTimeLocalContextSymbols = ctxClass == null ? new StandardSymbolTable( true ) : findCompileTimeSymbols( (IGosuClassInternal)ctxClass, offset ); // ContextSymbolTableUtil.getSymbolTableAtOffset( ctxClass, offset );
+    String strSource = CommonServices.getCoercionManager().makeStringFrom( source );
+    IGosuProgramParser parser = GosuParserFactory.createProgramParser();
+    //debugInfo( compileTimeLocalContextSymbols );
+
+    TypeSystem.pushIncludeAll();
+    try
+    {
+      IParseTree ctxElem = null;
+      if( enclosingClass instanceof IGosuClassInternal )
+      {
+        //## todo: for Java types we can fake a ctxElem by getting the Gosu proxy class and then get the corresponding function stmt
+        ctxElem = ((IGosuClassInternal)enclosingClass).getClassStatement().getLocation().getDeepestLocation( offset, false );
+      }
+      return (IGosuProgramInternal)parser.parseRuntimeExpr( typeName, strSource, enclosingClass, compileTimeLocalContextSymbols, ctxElem ).getProgram();
+    }
+    finally
+    {
+      TypeSystem.popIncludeAll();
+    }
   }
-  private static void clearCacheOnChecksumChange()
+
+  /**
+   * @return The key of the program compiled for the code. The same code at the same location
+   * compiles differently in another context class or against other local symbols, so the key
+   * reflects those too. The program's name is made from the key.
+   */
+  public static String makeCacheKey( String strSource, IGosuClass ctxClass, IType enclosingClass, Object[] extSyms, int offset )
   {
-    if( _refreshChecksum != TypeSystem.getRefreshChecksum() )
+    StringBuilder key = new StringBuilder( strSource )
+      .append( '\0' ).append( ctxClass == null ? "" : ctxClass.getName() )
+      .append( '\0' ).append( enclosingClass.getName() )
+      .append( '\0' ).append( offset );
+    for( int i = 0; i < extSyms.length; i += 2 )
     {
-      _cacheProgramByFingerprint.clear();
-      _refreshChecksum = TypeSystem.getRefreshChecksum();
+      key.append( '\0' ).append( extSyms[i] );
     }
+    return key.toString();
   }
 
-  private static String printArgs( Class[] parameterTypes ) {
-    String str = "";
-    for( Class c: parameterTypes ) {
-      str += c.getName() + ", ";
-    }
-    return str;
+  public static void cacheProgram( String strKey, IGosuProgramInternal program )
+  {
+    _cacheProgramByFingerprint.put( strKey, new CachedProgram( program ) );
   }
-  private static String printArgs( List<Object> args ) {
-    String str = "";
-    for( Object a: args ) {
-      str += a + ", ";
-    }
-    return str;
+  public static IGosuProgramInternal getCachedProgram( String strKey )
+  {
+    CachedProgram cached = _cacheProgramByFingerprint.getIfPresent( strKey );
+    return cached == null ? null : cached.getProgram();
   }
 
   private static IExternalSymbolMap makeRuntimeNamesAndValues( Object[] extSyms ) {
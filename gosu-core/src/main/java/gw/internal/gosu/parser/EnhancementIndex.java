@@ -25,6 +25,9 @@ import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.util.GosuObjectUtil;
 
 import gw.util.Pair;
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.IPhaseTimer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -143,6 +146,7 @@ public class EnhancementIndex implements IEnhancementIndex
       return;
     }
 
+    IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.ENHANCEMENT_INDEX, null );
     try
     {
       _loadingIndex = true;
@@ -157,6 +161,7 @@ public class EnhancementIndex implements IEnhancementIndex
     {
       _loadingIndex = false;
       _currentEnhName = null;
+      timer.stop();
     }
   }
 
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.internal.gosu.compiler.SingleServingGosuClassLoader;
+import gw.internal.gosu.ir.interpreter.InterpretedClass;
+import gw.internal.gosu.ir.transform.expression.EvalExpressionTransformer;
+import gw.lang.ir.IRType;
+import gw.lang.reflect.ITypeRef;
+import gw.lang.reflect.RefreshKind;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IExternalSymbolMap;
+import gw.lang.reflect.gs.IProgramInstance;
+import gw.util.GosuExceptionUtil;
+import gw.util.concurrent.Cache;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Programs compiled to evaluate code at runtime, by a key made from the code and the context
+ * it is compiled in. The cache is bounded by the number of programs and by the total length of
+ * their keys, which holds the code. Concurrent misses of the same key compile the program once,
+ * except a thread holding the type system lock compiles it itself. Compiling takes the lock, so the
+ * thread can't wait for another to compile.
+ * <p/>
+ * Each program is loaded in its own single-serving class loader. An evicted program unloads its
+ * class so the loader can be collected, and it is marked stale so the type system lets go of it.
+ * The cache is cleared when the type system is refreshed.
+ */
+public class EvalProgramCache extends Cache<String, EvalProgramCache.CachedProgram>
+{
+  private volatile int _refreshChecksum;
+
+  public EvalProgramCache( String strName, int iSize, long lMaxWeight )
+  {
+    super( strName, iSize, null );
+    setMaxWeight( lMaxWeight, ( key, program ) -> key.length() );
+    setEvictionHandler( ( key, program ) -> program.unload() );
+    setLoadOnce( true );
+  }
+
+  @Override
+  protected boolean canWaitForLoad( String strKey )
+  {
+    return !((ReentrantLock)TypeSystem.getGlobalLock()).isHeldByCurrentThread();
+  }
+
+  @Override
+  public CachedProgram get( String strKey, MissHandler<String, CachedProgram> compiler )
+  {
+    clearOnRefresh();
+    return super.get( strKey, compiler );
+  }
+
+  @Override
+  public CachedProgram getIfPresent( String strKey )
+  {
+    clearOnRefresh();
+    return super.getIfPresent( strKey );
+  }
+
+  private void clearOnRefresh()
+  {
+    int iChecksum = TypeSystem.getRefreshChecksum();
+    if( _refreshChecksum != iChecksum )
+    {
+      _refreshChecksum = iChecksum;
+      clear();
+    }
+  }
+
+  public static final class CachedProgram
+  {
+    private final IGosuProgramInternal _program;
+    private volatile boolean _bValid;
+    private volatile Constructor _ctor;
+
+    public CachedProgram( IGosuProgramInternal program )
+    {
+      _program = program;
+    }
+
+    public IGosuProgramInternal getProgram()
+    {
+      return _program;
+    }
+
+    /**
+     * Makes an instance of the program for a run, interpreted for the program's first runs and
+     * compiled after that.
+     *
+     * @param args The constructor's args, without the runtime symbol map. The map is passed last
+     *   if the constructor takes it.
+     */
+    public IProgramInstance newInstance( List<Object> args, IExternalSymbolMap runtimeLocalSymbolValues )
+    {
+      validate();
+      try
+      {
+        InterpretedClass interpreted = _program.getInterpretedClassForRun();
+        if( interpreted != null )
+        {
+          List<String> paramTypes = new ArrayList<>();
+          for( IRType type : interpreted.getConstructorParameterTypes() )
+          {
+            paramTypes.add( type.getName() );
+          }
+          return interpreted.newInstance( makeArgs( args, paramTypes, runtimeLocalSymbolValues ) );
+        }
+
+        Constructor ctor = getConstructor();
+        List<String> paramTypes = new ArrayList<>();
+        for( Class type : ctor.getParameterTypes() )
+        {
+          paramTypes.add( type.getName() );
+        }
+        return (IProgramInstance)ctor.newInstance( makeArgs( args, paramTypes, runtimeLocalSymbolValues ) );
+      }
+      catch( Exception e )
+      {
+        throw GosuExceptionUtil.forceThrow( e );
+      }
+    }
+
+    private Object[] makeArgs( List<Object> args, List<String> paramTypes, IExternalSymbolMap runtimeLocalSymbolValues )
+    {
+      if( paramTypes.size() == args.size() )
+      {
+        return args.toArray();
+      }
+      if( paramTypes.size() > args.size() &&
+          paramTypes.get( paramTypes.size() - 1 ).equals( IExternalSymbolMap.class.getName() ) )
+      {
+        List<Object> allArgs = new ArrayList<>( args );
+        allArgs.add( runtimeLocalSymbolValues );
+        return allArgs.toArray();
+      }
+      throw new IllegalStateException( "Program constructor param count is not " + args.size() + "\nPassed in args " + printArgs( args ) + "\nActual args: " + paramTypes );
+    }
+
+    private void validate()
+    {
+      if( _bValid )
+      {
+        return;
+      }
+      TypeSystem.pushIncludeAll();
+      try
+      {
+        if( !_program.isValid() )
+        {
+          throw GosuExceptionUtil.forceThrow( _program.getParseResultsException() );
+        }
+      }
+      finally
+      {
+        TypeSystem.popIncludeAll();
+      }
+      _bValid = true;
+    }
+
+    /**
+     * @return The program class's constructor, resolved on the first compiled run
+     */
+    private Constructor getConstructor()
+    {
+      Constructor ctor = _ctor;
+      if( ctor != null )
+      {
+        return ctor;
+      }
+      Class<?> javaClass = _program.getBackingClass();
+      ClassLoader classLoader = javaClass.getClassLoader();
+      assert classLoader instanceof SingleServingGosuClassLoader;
+      return _ctor = EvalExpressionTransformer._ctorAccessor.get().getConstructor( javaClass );
+    }
+
+    private static String printArgs( List<Object> args )
+    {
+      String str = "";
+      for( Object a: args )
+      {
+        str += a + ", ";
+      }
+      return str;
+    }
+
+    /**
+     * Removes the program's class from its single-serving loader so the loader can be collected
+     * once nothing refers to the class.
+     */
+    private void unload()
+    {
+      if( !_program.getInnerClasses().isEmpty() )
+      {
+        // Can't unload since its inner classes may be returned as part of the results
+        return;
+      }
+      _program.unloadBackingClass();
+      TypeSystem.lock();
+      try
+      {
+        // Directly invalidate so as not to refresh types at runtime
+        ((ITypeRef)_program)._setStale( RefreshKind.MODIFICATION );
+      }
+      finally
+      {
+        TypeSystem.unlock();
+      }
+    }
+  }
+}
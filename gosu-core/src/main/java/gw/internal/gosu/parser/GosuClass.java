@@ -76,6 +76,9 @@ import gw.util.StringPool;
 import gw.util.concurrent.LockingLazyVar;
 
 import gw.util.concurrent.LocklessLazyVar;
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.IPhaseTimer;
 import java.io.File;
 import java.io.InvalidClassException;
 import java.io.ObjectStreamException;
@@ -95,7 +98,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  */
-public class GosuClass extends InnerClassCapableType implements IGosuClassInternal
+public class GosuClass extends InnerClassCapableType implements IGosuClassInternal, IHasSupertypeDisplay
 {
   private static final long serialVersionUID = 5L;
 
@@ -111,6 +114,7 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
   transient private boolean _bEnum;
   transient private Map<CharSequence, IGosuClassInternal> _mapInnerClasses;
   transient private volatile Set<IType> _setTypes;
+  transient private volatile SupertypeDisplay _supertypeDisplay;
   transient private IType[] _interfaces;
   transient private IType _superType;
   transient private IType _enclosingType;
@@ -772,6 +776,28 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
     return _setTypes;
   }
 
+  public SupertypeDisplay getSupertypeDisplay()
+  {
+    Set<IType> hierarchy = getAllTypesInHierarchy();
+    if( hierarchy.isEmpty() )
+    {
+      // The header is not compiled yet
+      return null;
+    }
+    SupertypeDisplay display = _supertypeDisplay;
+    if( display == null || display.getHierarchy() != hierarchy )
+    {
+      _supertypeDisplay = display = new SupertypeDisplay( getOrCreateTypeReference(), hierarchy );
+    }
+    return display;
+  }
+
+  public SupertypeDisplay getCachedSupertypeDisplay()
+  {
+    SupertypeDisplay display = _supertypeDisplay;
+    return display != null && display.getHierarchy() == _setTypes ? display : null;
+  }
+
   private Set<IType> createAllTypesInHierarchy()
   {
     Set<IType> types;
@@ -887,7 +913,7 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
       // (force an explicit cast if the runtime type is expected to directly implement the interface)
       return false;
     }
-    else if( type.getAllTypesInHierarchy().contains( pThis ) )
+    else if( SupertypeDisplay.isInHierarchy( pThis, type ) )
     {
       return true;
     }
@@ -1548,7 +1574,15 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
               IGosuClassInternal gosuClass = (IGosuClassInternal) getOrCreateTypeReference();
               GosuParser parser = makeParserForPhase();
               GosuClassParser classParser = new GosuClassParser( parser );
-              classParser.parseDefinitions( gosuClass );
+              IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.PARSE_DEFINITIONS, getName() );
+              try
+              {
+                classParser.parseDefinitions( gosuClass );
+              }
+              finally
+              {
+                timer.stop();
+              }
             }
 
             postAnalyze();
@@ -1687,7 +1721,15 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
               IGosuClassInternal gosuClass = (IGosuClassInternal) getOrCreateTypeReference();
               GosuParser parser = makeParserForPhase();
               GosuClassParser classParser = new GosuClassParser( parser );
-              classParser.parseDeclarations(gosuClass);
+              IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.PARSE_DECLARATIONS, getName() );
+              try
+              {
+                classParser.parseDeclarations(gosuClass);
+              }
+              finally
+              {
+                timer.stop();
+              }
             }
             getParseInfo().maybeClearDebugInfo();
 
@@ -1842,7 +1884,15 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
             IGosuClassInternal gosuClass = (IGosuClassInternal) getOrCreateTypeReference();
             GosuParser parser = makeParserForPhase();
             GosuClassParser classParser = new GosuClassParser( parser );
-            classParser.parseHeader( gosuClass, false, false, false );
+            IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.PARSE_HEADER, getName() );
+            try
+            {
+              classParser.parseHeader( gosuClass, false, false, false );
+            }
+            finally
+            {
+              timer.stop();
+            }
           }
         }
         finally
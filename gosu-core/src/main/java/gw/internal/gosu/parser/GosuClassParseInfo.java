@@ -64,6 +64,8 @@ public class GosuClassParseInfo {
   transient private long _sourceFingerprint;
 
   transient private BlockExpression _block;
+  transient private boolean _bDefinitionsReleased;
+  transient private byte[] _pendingBytecode;
 
   public GosuClassParseInfo(IGosuClassInternal gosuClass) {
     _gosuClass = gosuClass;
@@ -549,21 +551,7 @@ public class GosuClassParseInfo {
       TypeSystem.lock();
       try {
         if (!_gosuClass.getTypeLoader().shouldKeepDebugInfo(_gosuClass)) {
-          clearDebugInfoOnFields(_mapStaticFields.values());
-          clearDebugInfoOnFields(_mapMemberFields.values());
-          clearDebugInfoOnProperties(_listStaticProperties);
-          clearDebugInfoOnProperties(_mapMemberProperties.values());
-          clearDebugInfoOnFunctions(_mapMemberFunctions.values());
-          clearDebugInfoOnFunctions(_listStaticFunctions);
-          clearDebugInfoOnFunctions(_mapConstructorFunctions.values());
-          clearDebugInfoOnAnnotations(_gosuClass.getModifierInfo().getAnnotations());
-          getClassStatement().clearParseTreeInformation();
-          Set<IUsesStatement> usesStatements = _gosuClass.getTypeUsesMap() == null ? null : _gosuClass.getTypeUsesMap().getUsesStatements();
-          if (usesStatements != null) {
-            for (IUsesStatement usesStatement : usesStatements) {
-              usesStatement.clearParseTreeInformation();
-            }
-          }
+          clearDebugInfo();
         }
       } finally {
         TypeSystem.unlock();
@@ -571,6 +559,77 @@ public class GosuClassParseInfo {
     }
   }
 
+  private void clearDebugInfo() {
+    clearDebugInfoOnFields(_mapStaticFields.values());
+    clearDebugInfoOnFields(_mapMemberFields.values());
+    clearDebugInfoOnProperties(_listStaticProperties);
+    clearDebugInfoOnProperties(_mapMemberProperties.values());
+    clearDebugInfoOnFunctions(_mapMemberFunctions.values());
+    clearDebugInfoOnFunctions(_listStaticFunctions);
+    clearDebugInfoOnFunctions(_mapConstructorFunctions.values());
+    clearDebugInfoOnAnnotations(_gosuClass.getModifierInfo().getAnnotations());
+    getClassStatement().clearParseTreeInformation();
+    Set<IUsesStatement> usesStatements = _gosuClass.getTypeUsesMap() == null ? null : _gosuClass.getTypeUsesMap().getUsesStatements();
+    if (usesStatements != null) {
+      for (IUsesStatement usesStatement : usesStatements) {
+        usesStatement.clearParseTreeInformation();
+      }
+    }
+  }
+
+  /**
+   * Drops function and block bodies, along with the debug info that references them, once bytecode
+   * for the class has been generated. Signatures, fields and annotations stay so the type info is
+   * unaffected.
+   *
+   * @param pendingBytecode bytecode generated ahead of the class being loaded, handed out once by
+   *   {@link #takePendingBytecode()}, or null if the class's bytecode has already been handed out
+   */
+  public void releaseDefinitions( byte[] pendingBytecode ) {
+    _bDefinitionsReleased = true;
+    _pendingBytecode = pendingBytecode;
+    clearDebugInfo();
+    clearDefnOnFunctions( _listStaticFunctions );
+    clearDefnOnFunctions( _mapMemberFunctions.values() );
+    clearDefnOnFunctions( _mapConstructorFunctions.values() );
+    clearDefnOnProperties( _listStaticProperties );
+    clearDefnOnProperties( _mapMemberProperties.values() );
+    if( _block != null ) {
+      _block.detachFromEnclosingTree();
+    }
+  }
+
+  private void clearDefnOnFunctions( Collection<DynamicFunctionSymbol> functions ) {
+    for( DynamicFunctionSymbol function : functions ) {
+      function.clearDefn();
+    }
+  }
+
+  private void clearDefnOnProperties( Collection<DynamicPropertySymbol> properties ) {
+    for( DynamicPropertySymbol property : properties ) {
+      if( property.getGetterDfs() != null ) {
+        property.getGetterDfs().clearDefn();
+      }
+      if( property.getSetterDfs() != null ) {
+        property.getSetterDfs().clearDefn();
+      }
+    }
+  }
+
+  public boolean isDefinitionsReleased() {
+    return _bDefinitionsReleased;
+  }
+
+  public byte[] getPendingBytecode() {
+    return _pendingBytecode;
+  }
+
+  public byte[] takePendingBytecode() {
+    byte[] bytecode = _pendingBytecode;
+    _pendingBytecode = null;
+    return bytecode;
+  }
+
   public void updateSource( String source ) {
     _sourceFingerprint = CommonServices.getPlatformHelper().getExecutionMode() == ExecutionMode.IDE
                          ? new FP64(source).getRawFingerprint() // only really matters inside an IDE
@@ -6,6 +6,7 @@ package gw.internal.gosu.parser;
 
 import gw.config.CommonServices;
 import gw.lang.parser.IExpression;
+import gw.lang.parser.IReducedSymbol;
 import gw.lang.parser.ISymbol;
 import gw.lang.parser.ISymbolTable;
 import gw.lang.parser.expressions.IVarStatement;
@@ -31,6 +32,7 @@ public class GosuClassTypeInfo extends BaseTypeInfo implements IGosuClassTypeInf
   private ArrayList _declaredConstructors;
   private LockingLazyVar<List<IAnnotationInfo>> _declaredAnnotations;
   private Map<GosuBaseAttributedFeatureInfo, IModifierInfo> _modifierInfoByFeature;
+  private Map<ISymbol, IReducedSymbol> _reducedSymbolsForParameterizations;
   private MyFeatureManager _fm;
 
   public static void pushIncludeAll()
@@ -532,9 +534,51 @@ public class GosuClassTypeInfo extends BaseTypeInfo implements IGosuClassTypeInf
     _declaredConstructors = null;
     _declaredMethods = null;
     _declaredProperties = null;
+    _reducedSymbolsForParameterizations = null;
     _fm.clear();
   }
 
+  /**
+   * The reduced form of a function or property declared in this generic class doesn't depend on
+   * type arguments, so every parameterization's reduced symbol delegates to the one kept here
+   * instead of reducing the generic symbol again.
+   */
+  IReducedSymbol getReducedSymbolForParameterizations( ISymbol genericSymbol )
+  {
+    TypeSystem.lock();
+    try
+    {
+      if( _reducedSymbolsForParameterizations == null )
+      {
+        _reducedSymbolsForParameterizations = new IdentityHashMap<ISymbol, IReducedSymbol>();
+      }
+      IReducedSymbol reducedSymbol = _reducedSymbolsForParameterizations.get( genericSymbol );
+      if( reducedSymbol == null )
+      {
+        reducedSymbol = genericSymbol.createReducedSymbol();
+        _reducedSymbolsForParameterizations.put( genericSymbol, reducedSymbol );
+      }
+      return reducedSymbol;
+    }
+    finally
+    {
+      TypeSystem.unlock();
+    }
+  }
+
+  static IReducedSymbol getReducedSymbolForParameterizations( ISymbol genericSymbol, IGosuClassInternal genericClass )
+  {
+    if( genericClass != null && !genericClass.isParameterizedType() )
+    {
+      ITypeInfo typeInfo = genericClass.getTypeInfo();
+      if( typeInfo instanceof GosuClassTypeInfo )
+      {
+        return ((GosuClassTypeInfo)typeInfo).getReducedSymbolForParameterizations( genericSymbol );
+      }
+    }
+    return genericSymbol.createReducedSymbol();
+  }
+
   public String getDescription()
   {
     return getGosuClass().getFullDescription();
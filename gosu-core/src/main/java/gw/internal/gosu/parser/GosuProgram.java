@@ -4,6 +4,7 @@
 
 package gw.internal.gosu.parser;
 
+import gw.internal.gosu.ir.interpreter.InterpretedClass;
 import gw.internal.gosu.parser.expressions.Identifier;
 import gw.lang.parser.ExternalSymbolMapForMap;
 import gw.lang.parser.IExpression;
@@ -29,6 +30,7 @@ import java.lang.reflect.Modifier;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  */
@@ -38,6 +40,9 @@ public class GosuProgram extends GosuClass implements IGosuProgramInternal
   private boolean _bGenRootExprAccess;
   private ITokenizerInstructor _tokenizerInstructor;
   private volatile IProgramInstance _sharedInstance;
+  private final AtomicInteger _runCount = new AtomicInteger();
+  private volatile InterpretedClass _interpreted;
+  private volatile boolean _bNotInterpretable;
   private boolean _anonymous;
   private boolean _throwaway;
   private boolean _bStatementsOnly;
@@ -274,6 +279,11 @@ public class GosuProgram extends GosuClass implements IGosuProgramInternal
   public Object evaluateRoot(IExternalSymbolMap externalSymbols) {
     try
     {
+      InterpretedClass interpreted = getInterpretedClassForRun();
+      if( interpreted != null )
+      {
+        return interpreted.newInstance().evaluateRootExpr( externalSymbols );
+      }
       return getProgramInstance().evaluateRootExpr( externalSymbols );
     }
     catch( Exception e )
@@ -404,6 +414,47 @@ public class GosuProgram extends GosuClass implements IGosuProgramInternal
   {
     super.unloadBackingClass();
     _sharedInstance = null;
+    _interpreted = null;
+  }
+
+  @Override
+  public InterpretedClass getInterpretedClassForRun()
+  {
+    int iThreshold = BytecodeOptions.getInterpreterThreshold();
+    if( iThreshold <= 0 || _bNotInterpretable || hasBackingClass() || _runCount.incrementAndGet() > iThreshold )
+    {
+      // Compiled from now on
+      _interpreted = null;
+      return null;
+    }
+
+    InterpretedClass interpreted = _interpreted;
+    if( interpreted != null )
+    {
+      return interpreted;
+    }
+    TypeSystem.lock();
+    try
+    {
+      if( _interpreted == null && !_bNotInterpretable )
+      {
+        try
+        {
+          _interpreted = isValid() ? InterpretedClass.make( (IGosuProgramInternal)getOrCreateTypeReference() ) : null;
+        }
+        catch( RuntimeException e )
+        {
+          // Compiling reports the problem
+          _interpreted = null;
+        }
+        _bNotInterpretable = _interpreted == null;
+      }
+      return _interpreted;
+    }
+    finally
+    {
+      TypeSystem.unlock();
+    }
   }
 
   @Override
@@ -452,6 +503,11 @@ public class GosuProgram extends GosuClass implements IGosuProgramInternal
   {
     try
     {
+      InterpretedClass interpreted = getInterpretedClassForRun();
+      if( interpreted != null )
+      {
+        return interpreted.newInstance().evaluate( externalSymbols );
+      }
       return getProgramInstance().evaluate( externalSymbols );
     }
     catch( Exception e ) // not catching Throwable b/c we need to *not* ever catch ThreadDeath, which is thrown from the gosu editor to stop the program
@@ -43,18 +43,7 @@ public class GosuProgramParser implements IGosuProgramParser
     TypeSystem.lock();
     try
     {
-      IGosuProgramInternal program;
       String typeName = makeEvalKey( strSource, enclosingClass, ctxElem );
-      if( ctxElem instanceof EvalExpression )
-      {
-        program = ((EvalExpression)ctxElem).getCachedProgram( typeName );
-        if( program != null )
-        {
-          program.isValid();
-          return new ParseResult( program );
-        }
-      }
-
       StringSourceFileHandle sfh = new StringSourceFileHandle( typeName, strSource, false, ClassType.Eval );
       if( enclosingClass != null )
       {
@@ -69,7 +58,7 @@ public class GosuProgramParser implements IGosuProgramParser
       {
         sfh.setCapturedTypeVars( ((EvalExpression)ctxElem).getCapturedTypeVars() );
       }
-      program = (IGosuProgramInternal)GosuClassTypeLoader.getDefaultClassLoader().makeNewClass( sfh, null );
+      IGosuProgramInternal program = (IGosuProgramInternal)GosuClassTypeLoader.getDefaultClassLoader().makeNewClass( sfh, null );
       program.setEnclosingEvalExpression( ctxElem );
       if( captured != null )
       {
@@ -80,10 +69,6 @@ public class GosuProgramParser implements IGosuProgramParser
       }
       sfh.setExternalSymbols( extSyms );
       program.isValid();
-      if( ctxElem instanceof EvalExpression )
-      {
-        ((EvalExpression)ctxElem).cacheProgram( typeName, program );
-      }
       return new ParseResult( program );
     }
     finally
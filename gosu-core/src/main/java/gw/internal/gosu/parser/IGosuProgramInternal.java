@@ -4,6 +4,7 @@
 
 package gw.internal.gosu.parser;
 
+import gw.internal.gosu.ir.interpreter.InterpretedClass;
 import gw.lang.reflect.gs.IGosuProgram;
 import gw.lang.reflect.IType;
 import gw.lang.parser.ISymbolTable;
@@ -47,4 +48,13 @@ public interface IGosuProgramInternal extends IGosuProgram, IGosuClassInternal
 
   boolean isParsingExecutableProgramStatements();
   void setParsingExecutableProgramStatements( boolean b );
+
+  /**
+   * Counts a run of the program.
+   *
+   * @return The program's class to interpret for this run, or null if the program runs compiled
+   * because it has run more than {@link gw.lang.reflect.gs.BytecodeOptions#getInterpreterThreshold()}
+   * times, it is already compiled, or it can't be interpreted
+   */
+  InterpretedClass getInterpretedClassForRun();
 }
\ No newline at end of file
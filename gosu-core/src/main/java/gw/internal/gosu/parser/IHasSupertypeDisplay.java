@@ -0,0 +1,22 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+/**
+ * Implemented by types that keep a {@link SupertypeDisplay} of their hierarchy
+ */
+public interface IHasSupertypeDisplay
+{
+  /**
+   * @return The display of the type's supertypes, or null if the hierarchy is not available yet
+   * e.g., while the type's header is compiling
+   */
+  SupertypeDisplay getSupertypeDisplay();
+
+  /**
+   * @return The display if it was already made, without compiling or loading anything
+   */
+  SupertypeDisplay getCachedSupertypeDisplay();
+}
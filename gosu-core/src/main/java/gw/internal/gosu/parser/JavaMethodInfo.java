@@ -61,19 +61,9 @@ public class JavaMethodInfo extends JavaBaseFeatureInfo implements IJavaMethodIn
   private IGenericTypeVariable[] _typeVars;
   private int _staticCache = UNINITED;
   private List<IExceptionInfo> _exceptions;
-  private IDocRef<IMethodNode> _methodDocs = new IDocRef<IMethodNode>() {
-    @Override
-    public IMethodNode get() {
-      if (getContainer() instanceof JavaTypeInfo) {
-        IClassDocNode classDocs = ((JavaTypeInfo) getContainer()).getDocNode().get();
-        return classDocs == null ? null : classDocs.getMethod(_md);
-      } else {
-        return null;
-      }
-    }
-  };
+  private IDocRef<IMethodNode> _methodDocs;
   private String _name;
-  private String _signature;
+  private volatile String _signature;
 
   /**
    * @param container Typically this will be the containing ITypeInfo
@@ -87,7 +77,6 @@ public class JavaMethodInfo extends JavaBaseFeatureInfo implements IJavaMethodIn
     if (_md.getMethod().isAnnotationPresent( PublishedName.class)) {
       _name = (String) _md.getMethod().getAnnotation( PublishedName.class).getFieldValue("value");
     }
-    _signature = makeSignature();
   }
 
   @Override
@@ -431,7 +420,13 @@ public class JavaMethodInfo extends JavaBaseFeatureInfo implements IJavaMethodIn
 
   @Override
   public String getName() {
-    return _signature;
+    // The signature needs the parameter types, which for a parameterized owner are substituted types.
+    // Build it on first use so parameterizations nobody calls into don't pay for it
+    String signature = _signature;
+    if( signature == null ) {
+      _signature = signature = makeSignature();
+    }
+    return signature;
   }
 
   private String makeSignature() {
@@ -747,7 +742,21 @@ public class JavaMethodInfo extends JavaBaseFeatureInfo implements IJavaMethodIn
 
   @Override
   public IDocRef<IMethodNode> getMethodDocs() {
-    return _methodDocs;
+    IDocRef<IMethodNode> methodDocs = _methodDocs;
+    if( methodDocs == null ) {
+      _methodDocs = methodDocs = new IDocRef<IMethodNode>() {
+        @Override
+        public IMethodNode get() {
+          if (getContainer() instanceof JavaTypeInfo) {
+            IClassDocNode classDocs = ((JavaTypeInfo) getContainer()).getDocNode().get();
+            return classDocs == null ? null : classDocs.getMethod(_md);
+          } else {
+            return null;
+          }
+        }
+      };
+    }
+    return methodDocs;
   }
 
   @Override
@@ -53,7 +53,7 @@ import java.util.concurrent.ConcurrentMap;
 
 /**
  */
-class JavaType extends InnerClassCapableType implements IJavaTypeInternal
+class JavaType extends InnerClassCapableType implements IJavaTypeInternal, IHasSupertypeDisplay
 {
   //
   // Persistent fields. See readResolve()
@@ -69,6 +69,7 @@ class JavaType extends InnerClassCapableType implements IJavaTypeInternal
   transient private String _strRelativeName;
   transient private String _strSimpleName;
   transient volatile private Set<IType> _allTypesInHierarchy; //!! Do NOT make this a lazy var, it's init needs to be re-entrant
+  transient volatile private SupertypeDisplay _supertypeDisplay;
   transient private boolean _bArray;
   transient private boolean _bPrimitive;
   transient private LockingLazyVar<Boolean> _bHasSuperType = new LockingLazyVar<Boolean>() {
@@ -421,9 +422,7 @@ class JavaType extends InnerClassCapableType implements IJavaTypeInternal
       return false;
     }
 
-    final Set<? extends IType> allTypesInHierarchy = type.getAllTypesInHierarchy();
-    @SuppressWarnings({"SuspiciousMethodCalls"})
-    boolean isAssignable = allTypesInHierarchy != null && allTypesInHierarchy.contains(pThis);
+    boolean isAssignable = SupertypeDisplay.isInHierarchy( pThis, type );
     if( !isAssignable )
     {
       isAssignable = TypeLord.areGenericOrParameterizedTypesAssignable( pThis, type );
@@ -987,6 +986,23 @@ class JavaType extends InnerClassCapableType implements IJavaTypeInternal
     return _allTypesInHierarchy;
   }
 
+  public SupertypeDisplay getSupertypeDisplay()
+  {
+    Set<IType> hierarchy = getAllTypesInHierarchy();
+    SupertypeDisplay display = _supertypeDisplay;
+    if( display == null || display.getHierarchy() != hierarchy )
+    {
+      _supertypeDisplay = display = new SupertypeDisplay( thisRef(), hierarchy );
+    }
+    return display;
+  }
+
+  public SupertypeDisplay getCachedSupertypeDisplay()
+  {
+    SupertypeDisplay display = _supertypeDisplay;
+    return display != null && display.getHierarchy() == _allTypesInHierarchy ? display : null;
+  }
+
   private void addGenericTypes( IType type, Set<IType> includeGenericTypes)
   {
     if( type == null )
@@ -24,6 +24,7 @@ import gw.lang.reflect.IPropertyInfo;
 import gw.lang.reflect.IRelativeTypeInfo;
 import gw.lang.reflect.IScriptabilityModifier;
 import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeInfo;
 import gw.lang.reflect.MethodList;
 import gw.lang.reflect.TypeInfoUtil;
 import gw.lang.reflect.TypeSystem;
@@ -60,6 +61,7 @@ public class JavaTypeInfo extends JavaBaseFeatureInfo implements IJavaTypeInfo
   private LockingLazyVar<List<IPropertyInfo>> _declaredProperties;
   private LockingLazyVar<List<IJavaMethodInfo>> _declaredMethods;
   private LockingLazyVar<List<IConstructorInfo>> _allCtors;
+  private volatile boolean[] _propertyMethods;
   private JavaFeatureManager _fm;
   private final ReentrantLock _myLock = new ReentrantLock();
 
@@ -218,8 +220,9 @@ public class JavaTypeInfo extends JavaBaseFeatureInfo implements IJavaTypeInfo
             ret = Collections.emptyList();
           } else {
             ret = new ArrayList<IJavaMethodInfo>(methods.length);
-            for (IJavaMethodDescriptor method : methods) {
-              ret.add(new JavaMethodInfo(JavaTypeInfo.this, method, !Modifier.isStatic( method.getMethod().getModifiers() ) && isPropertyMethod(method)));
+            boolean[] propertyMethods = getPropertyMethods( methods );
+            for (int i = 0; i < methods.length; i++) {
+              ret.add(new JavaMethodInfo(JavaTypeInfo.this, methods[i], propertyMethods[i]));
             }
             ((ArrayList)ret).trimToSize();
             ret = Collections.unmodifiableList(ret);
@@ -257,6 +260,56 @@ public class JavaTypeInfo extends JavaBaseFeatureInfo implements IJavaTypeInfo
     };
   }
 
+  /**
+   * Which of the declared methods are accessors of a declared property, and therefore hidden as methods.
+   * This depends only on names, so a parameterized type uses the answer computed for its generic type
+   * instead of building its own property list just to find out.
+   */
+  private boolean[] getPropertyMethods( IJavaMethodDescriptor[] methods )
+  {
+    JavaTypeInfo genericTypeInfo = getGenericTypeInfo();
+    if( genericTypeInfo != null )
+    {
+      return genericTypeInfo.getPropertyMethods( methods );
+    }
+
+    boolean[] propertyMethods = _propertyMethods;
+    if( propertyMethods == null || propertyMethods.length != methods.length )
+    {
+      propertyMethods = new boolean[methods.length];
+      for( int i = 0; i < methods.length; i++ )
+      {
+        IJavaMethodDescriptor method = methods[i];
+        propertyMethods[i] = !Modifier.isStatic( method.getMethod().getModifiers() ) && isPropertyMethod( method );
+      }
+      _propertyMethods = propertyMethods;
+    }
+    return propertyMethods;
+  }
+
+  /**
+   * @return The type info of the generic type if this is a parameterization of it backed by the same class,
+   *   otherwise null
+   */
+  private JavaTypeInfo getGenericTypeInfo()
+  {
+    if( !_type.isParameterizedType() )
+    {
+      return null;
+    }
+    IType genericType = _type.getGenericType();
+    if( genericType == null || genericType == _type )
+    {
+      return null;
+    }
+    ITypeInfo typeInfo = genericType.getTypeInfo();
+    if( typeInfo instanceof JavaTypeInfo && ((JavaTypeInfo)typeInfo)._backingClass == _backingClass )
+    {
+      return (JavaTypeInfo)typeInfo;
+    }
+    return null;
+  }
+
   private boolean isPropertyMethod( IJavaMethodDescriptor md )
   {
     String name = md.getName();
@@ -299,6 +352,7 @@ public class JavaTypeInfo extends JavaBaseFeatureInfo implements IJavaTypeInfo
     {
       _declaredMethods.clear();
       _declaredProperties.clear();
+      _propertyMethods = null;
       _fm = new JavaFeatureManager(this);
     }
     finally
@@ -630,7 +684,8 @@ public class JavaTypeInfo extends JavaBaseFeatureInfo implements IJavaTypeInfo
   };
 
   IDocRef<IClassDocNode> getDocNode() {
-    return _docRef;
+    JavaTypeInfo genericTypeInfo = getGenericTypeInfo();
+    return genericTypeInfo != null ? genericTypeInfo.getDocNode() : _docRef;
   }
 
   @Override
@@ -33,6 +33,9 @@ import gw.util.Pair;
 import gw.util.Predicate;
 import gw.util.cache.FqnCacheNode;
 import gw.util.cache.WeakFqnCache;
+import gw.util.perf.metrics.GosuMetrics;
+import gw.util.perf.metrics.GosuPhase;
+import gw.util.perf.metrics.IPhaseTimer;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
@@ -66,6 +69,16 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
 
   private ITypeRefFactory _typeRefFactory;
 
+  // Types of objects whose type depends only on their class, see getIntrinsicTypeFromObject()
+  private final ClassValue<TypeByClass> _typesByClass = new ClassValue<TypeByClass>() {
+    @Override
+    protected TypeByClass computeValue( Class<?> cls ) {
+      return new TypeByClass();
+    }
+  };
+  // Incremented to invalidate all of _typesByClass
+  private volatile int _iTypesByClassGeneration;
+
   public ModuleTypeLoader( IModule module, List<ITypeLoader> loaderStack )
   {
     _module = module;
@@ -85,6 +98,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   }
 
   private void initMaps() {
+    _iTypesByClassGeneration++;
     _globalStack = new ArrayList<ITypeLoader>();
     _loadersByPrefix = new HashMap<String, ITypeLoader>();
     _typesByName = new WeakFqnCache<IType>();
@@ -143,6 +157,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
       {
         _globalStack.set( position, typeLoader );
       }
+      _iTypesByClassGeneration++;
       List<String> handledPrefixes = typeLoader.getHandledPrefixes();
       for( int i = 0; i < handledPrefixes.size(); i++ )
       {
@@ -204,6 +219,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
 
   private void clearCaches()
   {
+    _iTypesByClassGeneration++;
     _typesByName.clear();
     _namespaceTypesByName.clear();
     _typesByCaseInsensitiveName.clear();
@@ -244,6 +260,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
         clearFromCaches(fullyQualifiedTypeName);
       }
       clearNamespaces(request); // Clear namespace types that might be affected.
+      _iTypesByClassGeneration++;
 
       DefaultTypeLoader defaultTypeLoader = getTypeLoader(DefaultTypeLoader.class);
       if (defaultTypeLoader != null) {
@@ -338,9 +355,36 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     }
   }
 
+  /**
+   * @return The type of the object if it only depends on the object's class and was already
+   * resolved by getIntrinsicTypeFromObject(), otherwise null
+   */
+  IType getCachedIntrinsicTypeFromObject( Object object )
+  {
+    return isTypeByClass( object ) ? _typesByClass.get( object.getClass() ).get( _iTypesByClassGeneration ) : null;
+  }
+
+  private static boolean isTypeByClass( Object object )
+  {
+    // The types of Gosu objects and of types are instance dependent e.g., parameterized types
+    return object != null && !(object instanceof IGosuObject) && !(object instanceof IType);
+  }
+
   @Override
   public IType getIntrinsicTypeFromObject( Object object )
   {
+    TypeByClass typeByClass = null;
+    int iGeneration = _iTypesByClassGeneration;
+    if( isTypeByClass( object ) )
+    {
+      typeByClass = _typesByClass.get( object.getClass() );
+      IType type = typeByClass.get( iGeneration );
+      if( type != null )
+      {
+        return type;
+      }
+    }
+
     IType type = null;
     int iLoaders = _globalStack.size();
     for( int i = 0; i < iLoaders; i++ ) //!! don't use iterator here; concurrency issue; we don't want to lock either
@@ -358,9 +402,15 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
       {
         if(loader instanceof IGosuObject) {
           if(GosuClassCompilingStack.getCompilingType(((IGosuObject)loader).getIntrinsicType().getName()) != null) {
+            // Skipped only while compiling, don't remember the type found without it
+            typeByClass = null;
             continue;
           }
         }
+        if( typeByClass != null && !((IExtendedTypeLoader)loader).isIntrinsicTypeFromClass( object.getClass() ) )
+        {
+          typeByClass = null;
+        }
         type = ((IExtendedTypeLoader)loader).getIntrinsicTypeFromObject( object );
         if( type != null )
         {
@@ -377,9 +427,45 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
       // Ensure we return the "literal" version of the metatype; it has both the metatype features and the type's static features.
       type = MetaType.getLiteral( ((IMetaType)type).getType() );
     }
+    if( typeByClass != null && type != null )
+    {
+      typeByClass.set( iGeneration, type );
+    }
     return type;
   }
 
+  /**
+   * The ClassValue keeps this on the Class, which may outlive the type system e.g., String.class.
+   * So the type is held weakly, as in _typesByName, else the type would keep its loader, module and
+   * this ModuleTypeLoader reachable after a reset.
+   */
+  private static class TypeByClass
+  {
+    private volatile Entry _entry;
+
+    IType get( int iGeneration )
+    {
+      Entry entry = _entry;
+      return entry != null && entry._iGeneration == iGeneration ? entry.get() : null;
+    }
+
+    void set( int iGeneration, IType type )
+    {
+      _entry = new Entry( iGeneration, type );
+    }
+
+    private static class Entry extends WeakReference<IType>
+    {
+      private final int _iGeneration;
+
+      Entry( int iGeneration, IType type )
+      {
+        super( type );
+        _iGeneration = iGeneration;
+      }
+    }
+  }
+
   public IType getTypeByFullNameIfValid( String fullyQualifiedName, boolean skipJava )
   {
     // strip off all trailing array brackets "[]"
@@ -493,6 +579,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   private IType loadTypeAndCacheResult(String fullyQualifiedName, boolean skipJava)
   {
     Pair<IType, ITypeLoader> pair;
+    IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.TYPE_RESOLVE, fullyQualifiedName );
     TypeSystem.pushModule( getModule() );
     try
     {
@@ -501,6 +588,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     finally
     {
       TypeSystem.popModule( getModule() );
+      timer.stop();
     }
 
     IType type;
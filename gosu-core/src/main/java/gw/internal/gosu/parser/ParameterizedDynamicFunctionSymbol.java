@@ -7,6 +7,7 @@ package gw.internal.gosu.parser;
 import gw.internal.gosu.parser.statements.MethodCallStatement;
 import gw.lang.reflect.FunctionType;
 import gw.lang.reflect.IType;
+import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.gs.IGosuClass;
 import gw.lang.parser.IDynamicFunctionSymbol;
 import gw.lang.parser.IReducedDynamicFunctionSymbol;
@@ -17,11 +18,18 @@ import gw.lang.parser.ScriptPartId;
 public class ParameterizedDynamicFunctionSymbol extends DynamicFunctionSymbol
 {
   private DynamicFunctionSymbol _dfsDelegate;
+  private final boolean _bValueFromDelegate;
 
   public ParameterizedDynamicFunctionSymbol( IDynamicFunctionSymbol dfsDelegate, IGosuClass owner )
   {
     super( (DynamicFunctionSymbol)dfsDelegate );
     _dfsDelegate = (DynamicFunctionSymbol)dfsDelegate;
+    _bValueFromDelegate = BytecodeOptions.isReleaseParseTreesAfterCompile();
+    if( _bValueFromDelegate )
+    {
+      // The body is read through the delegate so releasing the delegate's body frees this one too
+      setValueDirectly( null );
+    }
     setType( new FunctionType( (FunctionType)dfsDelegate.getType(), owner ) );
     // Use generic types name so that we can look this DFS up by name later on
     String strName = getType().getName() + getParameterDisplay( false );
@@ -65,6 +73,18 @@ public class ParameterizedDynamicFunctionSymbol extends DynamicFunctionSymbol
     return _dfsDelegate.getInitializer();
   }
 
+  @Override
+  public Object getValue()
+  {
+    return _bValueFromDelegate ? _dfsDelegate.getValue() : super.getValue();
+  }
+
+  @Override
+  public Object getValueDirectly()
+  {
+    return _bValueFromDelegate ? _dfsDelegate.getValueDirectly() : super.getValueDirectly();
+  }
+
   public DynamicFunctionSymbol getBackingDfs()
   {
     return _dfsDelegate;
@@ -83,7 +103,7 @@ public class ParameterizedDynamicFunctionSymbol extends DynamicFunctionSymbol
   
   public IReducedDynamicFunctionSymbol createReducedSymbol() {
     return new ReducedParameterizedDynamicFunctionSymbol(
-        (ReducedDynamicFunctionSymbol) getBackingDfs().createReducedSymbol(), this);
+        (ReducedDynamicFunctionSymbol) GosuClassTypeInfo.getReducedSymbolForParameterizations( getBackingDfs(), getBackingDfs().getGosuClass() ), this);
   }
   
 }
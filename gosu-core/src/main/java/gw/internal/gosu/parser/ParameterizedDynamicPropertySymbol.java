@@ -61,6 +61,6 @@ public class ParameterizedDynamicPropertySymbol extends DynamicPropertySymbol
   @Override
   public IReducedDynamicPropertySymbol createReducedSymbol() {
     return new ReducedParameterizedDynamicPropertySymbol(
-            (ReducedDynamicPropertySymbol) getDelegate().createReducedSymbol(), this);
+            (ReducedDynamicPropertySymbol) GosuClassTypeInfo.getReducedSymbolForParameterizations( getDelegate(), getDelegate().getGosuClass() ), this);
   }
 }
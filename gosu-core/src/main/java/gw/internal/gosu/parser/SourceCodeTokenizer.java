@@ -201,11 +201,12 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
 
   public IToken getTokenAtPosition( int docPosition )
   {
-    for( Token tok: getTokens() )
+    TokenBuffer tokens = _internal.getTokens();
+    for( int i = 0; i < tokens.size(); i++ )
     {
-      if( tok.getTokenStart() <= docPosition && tok.getTokenEnd() > docPosition )
+      if( tokens.getTokenStart( i ) <= docPosition && tokens.getTokenEnd( i ) > docPosition )
       {
-        return tok;
+        return tokens.get( i );
       }
     }
     return null;
@@ -307,11 +308,10 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
 
   public DocCommentBlock popLastComment()
   {
-    Stack<Token> tokens = _internal.getTokens();
+    TokenBuffer tokens = _internal.getTokens();
     for( int i = _state, j = 0; i >= 0 && j < 5; i--, j++ )
     {
-      Token token = tokens.get( i );
-      DocCommentBlock turd = token.getTurd();
+      DocCommentBlock turd = tokens.getTurd( i );
       if( turd != null )
       {
         return turd;
@@ -391,7 +391,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
     return _state;
   }
 
-  final public Stack<Token> getTokens()
+  final public TokenBuffer getTokens()
   {
     return _internal.getTokens();
   }
@@ -403,7 +403,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
       _internal.rip();
     }
 
-    Stack<Token> tokens = _internal.getTokens();
+    TokenBuffer tokens = _internal.getTokens();
     int count = tokens.size();
     if( _state == count )
     {
@@ -413,7 +413,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
     _state = maybeSkipWhitespaceAndComments( _state + 1, tokens, count );
   }
 
-  private int maybeSkipWhitespaceAndComments( int state, Stack<Token> tokens, int count )
+  private int maybeSkipWhitespaceAndComments( int state, TokenBuffer tokens, int count )
   {
     boolean bKeepComments = isCommentsSignificant();
     boolean bKeepWhitespace = isWhitespaceSignificant();
@@ -424,7 +424,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
         return state;
       }
 
-      int tokType = tokens.get( state ).getType();
+      int tokType = tokens.getType( state );
       if( (!bKeepWhitespace && tokType == TT_WHITESPACE) ||
           (!bKeepComments && tokType == TT_COMMENT) )
       {
@@ -594,7 +594,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
       return false;
     }
 
-    return getPriorToken( false ).isAnalyzingSeparately();
+    return _internal.getTokens().isAnalyzingSeparately( getPriorTokenIndex( false, false ) );
   }
 
   @Override
@@ -605,7 +605,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
       return false;
     }
 
-    return getPriorToken( false ).isAnalyzingDirective();
+    return _internal.getTokens().isAnalyzingDirective( getPriorTokenIndex( false, false ) );
   }
 
   @Override
@@ -631,16 +631,21 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
     {
       return new Token();
     }
+    return getTokens().get( getPriorTokenIndex( bSkipWhitespace, bSkipComments ) );
+  }
+  private int getPriorTokenIndex( boolean bSkipWhitespace, boolean bSkipComments )
+  {
+    TokenBuffer tokens = _internal.getTokens();
     for( int i = _state-1; i >= 0; i-- )
     {
-      Token t = getTokens().get( i );
-      if( (!bSkipWhitespace || t.getType() != TT_WHITESPACE) &&
-          (!bSkipComments || t.getType() != TT_COMMENT))
+      int iType = tokens.getType( i );
+      if( (!bSkipWhitespace || iType != TT_WHITESPACE) &&
+          (!bSkipComments || iType != TT_COMMENT))
       {
-        return t;
+        return i;
       }
     }
-    return getTokens().get( 0 );
+    return 0;
   }
 
   public int lookaheadType( int iTokens, boolean bSkipSpaces )
@@ -663,7 +668,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
     }
     if( iPos < getTokens().size() )
     {
-      return getTokens().get( iPos ).getType();
+      return getTokens().getType( iPos );
     }
 
     return TT_EOF;
@@ -675,7 +680,7 @@ final public class SourceCodeTokenizer implements ISourceCodeTokenizer
     iPos++;
     while( iPos < getTokens().size() && type == TT_WHITESPACE )
     {
-      type = getTokens().get( iPos ).getType();
+      type = getTokens().getType( iPos );
       iPos++;
     }
     return type != TT_WHITESPACE ?  iPos-1 : -1;
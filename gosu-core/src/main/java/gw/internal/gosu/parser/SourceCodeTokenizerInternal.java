@@ -8,7 +8,6 @@ import gw.lang.parser.ISourceCodeTokenizer;
 import gw.lang.parser.ITokenizerInstructor;
 import gw.lang.parser.Keyword;
 import gw.lang.parser.SourceCodeReader;
-import gw.util.Stack;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -74,7 +73,8 @@ final public class SourceCodeTokenizerInternal
   private boolean _bParseDotsAsOperators;
   private int _iLineOffset;
 
-  private Stack<Token> _tokens;
+  private TokenBuffer _tokens;
+  private char[] _scratchBuf = new char[20]; // reused across tokens for quoted strings and operators
   private Token _eof;
   private boolean _supportsKeywords = true;
 
@@ -88,7 +88,7 @@ final public class SourceCodeTokenizerInternal
       _ctype = new int[256];
       _iType = ISourceCodeTokenizer.TT_NOTHING;
       _bParseDotsAsOperators = true;
-      _tokens = new Stack<>(); // assigned as needed
+      _tokens = new TokenBuffer(); // assigned as needed
 
       wordChars( 'a', 'z' );
       wordChars( 'A', 'Z' );
@@ -179,7 +179,7 @@ final public class SourceCodeTokenizerInternal
     _bUnterminatedString = false;
     _bUnterminatedComment = false;
     _lastComment = null;
-    _tokens = new Stack<>();
+    _tokens = new TokenBuffer();
     if( _instructor != null )
     {
       _instructor.reset();
@@ -603,18 +603,27 @@ final public class SourceCodeTokenizerInternal
       return;
     }
 
-    Token token;
-    switch( _iType )
+    int iTokenEnd = getTokenEnd();
+    DocCommentBlock turd = popLastComment();
+    if( _tokens.size() == 0 || _tokens.getTokenEnd( _tokens.size() - 1 ) < iTokenEnd )
     {
-      case '\'':
-      case '"':
-        token = new StringToken();
-        break;
-
-      default:
-        token = new Token();
+      // The buffer creates the Token (or StringToken) only if it is asked for
+      _tokens.add( _iType,
+                   _iInvalidCharPos,
+                   getTokenStart(),
+                   iTokenEnd,
+                   getTokenColumn(),
+                   getLineNumber(),
+                   getLineOffset(),
+                   isUnterminatedString(),
+                   _strValue,
+                   _keyword,
+                   !_bForceLower,
+                   isAnalyzingSeparately(),
+                   isAnalyzingDirective(),
+                   getReader(),
+                   turd );
     }
-    pushToken( initToken( token ) );
   }
 
   private void initEofToken()
@@ -640,19 +649,6 @@ final public class SourceCodeTokenizerInternal
                        popLastComment() );
   }
 
-  private void pushToken( Token token )
-  {
-    if( _iType == ISourceCodeTokenizer.TT_EOF )
-    {
-      return;
-    }
-
-    if( _tokens.size() == 0 || _tokens.peek().getTokenEnd() < token.getTokenEnd() )
-    {
-      _tokens.push( token );
-    }
-  }
-
   public boolean isAnalyzingSeparately()
   {
     return _instructor != null && _instructor.isAnalyzingSeparately();
@@ -663,7 +659,7 @@ final public class SourceCodeTokenizerInternal
     return _instructor != null && _instructor.isAnalyzingDirective();
   }
 
-  final public Stack<Token> getTokens()
+  final public TokenBuffer getTokens()
   {
     return _tokens;
   }
@@ -704,7 +700,7 @@ final public class SourceCodeTokenizerInternal
 
   private int _nextTokenImpl() throws IOException
   {
-    char _buf[] = new char[20];
+    char _buf[] = _scratchBuf;
 
     _bUnterminatedComment = false;
     _bUnterminatedString = false;
@@ -1116,6 +1112,7 @@ final public class SourceCodeTokenizerInternal
                 char nb[] = new char[_buf.length * 2];
                 System.arraycopy( _buf, 0, nb, 0, _buf.length );
                 _buf = nb;
+                _scratchBuf = nb;
               }
               _buf[i++] = (char)c;
               c = _peekc;
@@ -1129,6 +1126,7 @@ final public class SourceCodeTokenizerInternal
           char nb[] = new char[_buf.length * 2];
           System.arraycopy( _buf, 0, nb, 0, _buf.length );
           _buf = nb;
+          _scratchBuf = nb;
         }
         _buf[i++] = (char)c;
       }
@@ -1267,6 +1265,7 @@ final public class SourceCodeTokenizerInternal
           char nb[] = new char[_buf.length * 2];
           System.arraycopy( _buf, 0, nb, 0, _buf.length );
           _buf = nb;
+          _scratchBuf = nb;
         }
         _buf[i++] = bSlashConsumed ? '/' : (char)c;
         String strOpTest = new String( _buf, 0, i );
@@ -1415,7 +1414,7 @@ final public class SourceCodeTokenizerInternal
     }
   }
 
-  void setTokens( Stack<Token> tokens )
+  void setTokens( TokenBuffer tokens )
   {
     _tokens = tokens;
   }
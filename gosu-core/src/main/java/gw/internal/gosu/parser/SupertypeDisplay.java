@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeRef;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The supertypes of a type, i.e., the types in {@link IType#getAllTypesInHierarchy()}, arranged
+ * so that checking whether a type is one of them takes constant time:
+ * <ul>
+ * <li>the superclass chain by depth, java.lang.Object first, so a class is a supertype if it is at
+ * its own depth in the chain</li>
+ * <li>all the supertypes in an open addressing hash table</li>
+ * </ul>
+ * The hierarchy sets themselves are compact arrays, so finding a type in them means comparing it to
+ * every element.
+ */
+public final class SupertypeDisplay
+{
+  private static final IType[] EMPTY = new IType[0];
+
+  private final Set<? extends IType> _hierarchy;
+  private final IType[] _superclasses;
+  private final IType[] _table;
+  private final boolean _bAllRefs;
+
+  public SupertypeDisplay( IType type, Set<? extends IType> hierarchy )
+  {
+    _hierarchy = hierarchy;
+    _superclasses = makeSuperclasses( type, hierarchy );
+    _table = makeTable( hierarchy );
+    _bAllRefs = areAllRefs( hierarchy );
+  }
+
+  private static boolean areAllRefs( Set<? extends IType> hierarchy )
+  {
+    for( IType type : hierarchy )
+    {
+      if( !(type instanceof ITypeRef) )
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static IType[] makeSuperclasses( IType type, Set<? extends IType> hierarchy )
+  {
+    if( type.isInterface() || type.isArray() || type.isPrimitive() )
+    {
+      return EMPTY;
+    }
+    List<IType> superclasses = new ArrayList<IType>();
+    for( IType csr = type; csr != null; csr = csr.getSupertype() )
+    {
+      if( !hierarchy.contains( csr ) )
+      {
+        // Only types that are in the hierarchy, so the chain never answers differently than the set
+        return EMPTY;
+      }
+      superclasses.add( csr );
+    }
+    Collections.reverse( superclasses );
+    return superclasses.toArray( new IType[superclasses.size()] );
+  }
+
+  private static IType[] makeTable( Set<? extends IType> hierarchy )
+  {
+    int iCapacity = Integer.highestOneBit( Math.max( 2, hierarchy.size() ) * 2 - 1 ) << 1;
+    IType[] table = new IType[iCapacity];
+    for( IType type : hierarchy )
+    {
+      int i = index( type, iCapacity );
+      while( table[i] != null )
+      {
+        i = (i + 1) & (iCapacity - 1);
+      }
+      table[i] = type;
+    }
+    return table;
+  }
+
+  private static int index( IType type, int iCapacity )
+  {
+    int h = type.hashCode();
+    return (h ^ (h >>> 16)) & (iCapacity - 1);
+  }
+
+  /**
+   * @return The set this display was made from
+   */
+  public Set<? extends IType> getHierarchy()
+  {
+    return _hierarchy;
+  }
+
+  /**
+   * @return The number of superclasses of the type, or -1 if the type is an interface or its chain
+   * of superclasses is not available
+   */
+  int getDepth()
+  {
+    return _superclasses.length - 1;
+  }
+
+  /**
+   * Same as <code>getAllTypesInHierarchy().contains( type )</code> for the type this display is for
+   *
+   * @param type        The type to look for
+   * @param typeDisplay The display of that type or null
+   */
+  public boolean contains( IType type, SupertypeDisplay typeDisplay )
+  {
+    if( typeDisplay != null )
+    {
+      int iDepth = typeDisplay.getDepth();
+      if( iDepth >= 0 && iDepth < _superclasses.length && _superclasses[iDepth] == type )
+      {
+        return true;
+      }
+    }
+
+    if( !(type instanceof ITypeRef) )
+    {
+      // Hash codes of type refs are consistent with their equals(), not necessarily so for others
+      return _hierarchy.contains( type );
+    }
+
+    int iCapacity = _table.length;
+    for( int i = index( type, iCapacity ); ; i = (i + 1) & (iCapacity - 1) )
+    {
+      IType csr = _table[i];
+      if( csr == null )
+      {
+        // A miss is only conclusive if all the supertypes hash the way type refs do
+        return !_bAllRefs && _hierarchy.contains( type );
+      }
+      if( csr == type || type.equals( csr ) )
+      {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Same as <code>from.getAllTypesInHierarchy().contains( to )</code>
+   */
+  public static boolean isInHierarchy( IType to, IType from )
+  {
+    SupertypeDisplay display = from instanceof IHasSupertypeDisplay ? ((IHasSupertypeDisplay)from).getSupertypeDisplay() : null;
+    if( display == null )
+    {
+      Set<? extends IType> hierarchy = from.getAllTypesInHierarchy();
+      return hierarchy != null && hierarchy.contains( to );
+    }
+    return display.contains( to, to instanceof IHasSupertypeDisplay ? ((IHasSupertypeDisplay)to).getCachedSupertypeDisplay() : null );
+  }
+}
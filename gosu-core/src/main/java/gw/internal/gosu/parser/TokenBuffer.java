@@ -0,0 +1,500 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.lang.parser.ISourceCodeTokenizer;
+import gw.lang.parser.Keyword;
+import gw.lang.parser.SourceCodeReader;
+import gw.util.Stack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Stores the tokens produced by {@link SourceCodeTokenizerInternal} as parallel arrays instead of one
+ * {@link Token} object per lexeme. A {@link Token} is only created when something asks for it by index
+ * and is then kept, so identity is stable for callers that attach parse trees to tokens. Queries the
+ * tokenizer makes for every token (type, offsets, line, column, flags) are answered from the arrays,
+ * so whitespace and comment tokens skipped by the parser are never materialized.
+ * <p/>
+ * Extends {@link Stack} to stay behind the existing {@link ISourceCodeTokenizer#getTokens()} API;
+ * the inherited list is never used.
+ */
+public final class TokenBuffer extends Stack<Token>
+{
+  private static final int INITIAL_CAPACITY = 64;
+
+  private static final byte UNTERMINATED = 1;
+  private static final byte ANALYZING_SEPARATELY = 2;
+  private static final byte ANALYZING_DIRECTIVE = 4;
+  private static final byte HAS_VALUE = 8;
+  private static final byte HAS_KEYWORD = 16;
+
+  private SourceCodeReader _reader;
+  private int _iLineOffset;
+  private int _size;
+
+  private int[] _types;
+  private int[] _starts;
+  private int[] _lengths;
+  private int[] _columns;
+  private int[] _lines;
+  private byte[] _flags;
+  private Token[] _materialized;
+
+  // Rarely set per-token state, kept out of the arrays
+  private Map<Integer, String> _stringValues;
+  private Map<Integer, DocCommentBlock> _docComments;
+  private Map<Integer, Integer> _invalidCharPositions;
+  private Map<Integer, Integer> _lineOffsets;
+  private Map<Integer, Keyword> _keywords;
+
+  TokenBuffer()
+  {
+    super( new ArrayList<>( 0 ) );
+    _types = new int[INITIAL_CAPACITY];
+    _starts = new int[INITIAL_CAPACITY];
+    _lengths = new int[INITIAL_CAPACITY];
+    _columns = new int[INITIAL_CAPACITY];
+    _lines = new int[INITIAL_CAPACITY];
+    _flags = new byte[INITIAL_CAPACITY];
+    _materialized = new Token[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Appends a token from the tokenizer's current state without creating a {@link Token}.
+   *
+   * @param bKeywordDerivable true if the keyword, if any, can be recomputed from the token's source text
+   */
+  void add( int iType,
+            int iInvalidCharPos,
+            int iTokenStart,
+            int iTokenEnd,
+            int iTokenColumn,
+            int iLine,
+            int iLineOffset,
+            boolean bUnterminatedString,
+            String strValue,
+            Keyword keyword,
+            boolean bKeywordDerivable,
+            boolean bAnalyzingSeparately,
+            boolean bAnalyzingDirective,
+            SourceCodeReader document,
+            DocCommentBlock turd )
+  {
+    if( _size == 0 )
+    {
+      _iLineOffset = iLineOffset;
+    }
+    _reader = document;
+    int i = _size;
+    ensureCapacity( i + 1 );
+
+    _types[i] = iType;
+    _starts[i] = iTokenStart;
+    _lengths[i] = iTokenEnd - iTokenStart;
+    _columns[i] = iTokenColumn;
+    _lines[i] = iLine;
+    byte flags = 0;
+    if( bUnterminatedString )
+    {
+      flags |= UNTERMINATED;
+    }
+    if( bAnalyzingSeparately )
+    {
+      flags |= ANALYZING_SEPARATELY;
+    }
+    if( bAnalyzingDirective )
+    {
+      flags |= ANALYZING_DIRECTIVE;
+    }
+    if( strValue != null )
+    {
+      flags |= HAS_VALUE;
+      if( isStringLiteral( iType ) )
+      {
+        _stringValues = put( _stringValues, i, strValue );
+      }
+    }
+    if( keyword != null )
+    {
+      flags |= HAS_KEYWORD;
+      if( !bKeywordDerivable )
+      {
+        _keywords = put( _keywords, i, keyword );
+      }
+    }
+    _flags[i] = flags;
+    if( turd != null )
+    {
+      _docComments = put( _docComments, i, turd );
+    }
+    if( iInvalidCharPos != -1 )
+    {
+      _invalidCharPositions = put( _invalidCharPositions, i, iInvalidCharPos );
+    }
+    if( iLineOffset != _iLineOffset )
+    {
+      _lineOffsets = put( _lineOffsets, i, iLineOffset );
+    }
+    _size++;
+  }
+
+  // The accessors below defer to a materialized token, if any, since tokens are mutable once handed out
+
+  public int getType( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? _types[i] : token.getType();
+  }
+
+  public int getTokenStart( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? _starts[i] : token.getTokenStart();
+  }
+
+  public int getTokenEnd( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? _starts[i] + _lengths[i] : token.getTokenEnd();
+  }
+
+  public int getLine( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? _lines[i] : token.getLine();
+  }
+
+  public int getTokenColumn( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? _columns[i] : token.getTokenColumn();
+  }
+
+  public int getLineOffset( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    if( token != null )
+    {
+      return token.getLineOffset();
+    }
+    Integer lineOffset = get( _lineOffsets, i );
+    return lineOffset == null ? _iLineOffset : lineOffset;
+  }
+
+  public boolean isAnalyzingSeparately( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? (_flags[i] & ANALYZING_SEPARATELY) != 0 : token.isAnalyzingSeparately();
+  }
+
+  public boolean isAnalyzingDirective( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? (_flags[i] & ANALYZING_DIRECTIVE) != 0 : token.isAnalyzingDirective();
+  }
+
+  public DocCommentBlock getTurd( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    return token == null ? get( _docComments, i ) : token.getTurd();
+  }
+
+  @Override
+  public Token get( int i )
+  {
+    checkIndex( i );
+    Token token = _materialized[i];
+    if( token == null )
+    {
+      token = _materialized[i] = materialize( i );
+    }
+    return token;
+  }
+
+  private Token materialize( int i )
+  {
+    int iType = _types[i];
+    byte flags = _flags[i];
+    boolean bStringLiteral = isStringLiteral( iType );
+    Token token = bStringLiteral ? new StringToken() : new Token();
+    String strValue = (flags & HAS_VALUE) == 0
+                      ? null
+                      : bStringLiteral
+                        ? get( _stringValues, i )
+                        : ""; // non-null tells the token to take its text from the source
+    Integer invalidCharPos = get( _invalidCharPositions, i );
+    Integer lineOffset = get( _lineOffsets, i );
+    token.init( iType,
+                invalidCharPos == null ? -1 : invalidCharPos,
+                _starts[i],
+                _starts[i] + _lengths[i],
+                _columns[i],
+                _lines[i],
+                lineOffset == null ? _iLineOffset : lineOffset,
+                (flags & UNTERMINATED) != 0,
+                strValue,
+                null,
+                (flags & ANALYZING_SEPARATELY) != 0,
+                (flags & ANALYZING_DIRECTIVE) != 0,
+                _reader,
+                get( _docComments, i ) );
+    if( (flags & HAS_KEYWORD) != 0 )
+    {
+      Keyword keyword = get( _keywords, i );
+      token._keyword = keyword != null ? keyword : Keyword.get( token._strValue );
+    }
+    return token;
+  }
+
+  @Override
+  public boolean push( Token token )
+  {
+    int i = _size;
+    ensureCapacity( i + 1 );
+    store( i, token );
+    _size++;
+    return true;
+  }
+
+  @Override
+  public void insert( Token token, int iPos )
+  {
+    if( iPos < 0 || iPos > _size )
+    {
+      throw new IndexOutOfBoundsException( "Index: " + iPos + ", Size: " + _size );
+    }
+    // Rare, so materialize everything and shift; the accessors then no longer consult the index-keyed maps
+    materializeAll();
+    ensureCapacity( _size + 1 );
+    System.arraycopy( _materialized, iPos, _materialized, iPos + 1, _size - iPos );
+    _size++;
+    for( int i = _size - 1; i > iPos; i-- )
+    {
+      store( i, _materialized[i] );
+    }
+    store( iPos, token );
+    _stringValues = null;
+    _docComments = null;
+    _invalidCharPositions = null;
+    _lineOffsets = null;
+    _keywords = null;
+  }
+
+  @Override
+  public Token pop()
+  {
+    Token token = peek();
+    _size--;
+    _materialized[_size] = null;
+    remove( _stringValues, _size );
+    remove( _docComments, _size );
+    remove( _invalidCharPositions, _size );
+    remove( _lineOffsets, _size );
+    remove( _keywords, _size );
+    return token;
+  }
+
+  @Override
+  public Token peek()
+  {
+    if( _size == 0 )
+    {
+      throw new EmptyStackException();
+    }
+    return get( _size - 1 );
+  }
+
+  @Override
+  public Token getBase()
+  {
+    if( _size == 0 )
+    {
+      throw new EmptyStackException();
+    }
+    return get( 0 );
+  }
+
+  @Override
+  public boolean contains( Token obj )
+  {
+    return indexOf( obj ) >= 0;
+  }
+
+  @Override
+  public int indexOf( Token o )
+  {
+    for( int i = 0; i < _size; i++ )
+    {
+      Token token = get( i );
+      if( token == o || (o != null && o.equals( token )) )
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public void clear()
+  {
+    Arrays.fill( _materialized, 0, _size, null );
+    _size = 0;
+    _stringValues = null;
+    _docComments = null;
+    _invalidCharPositions = null;
+    _lineOffsets = null;
+    _keywords = null;
+  }
+
+  @Override
+  public int size()
+  {
+    return _size;
+  }
+
+  @Override
+  public boolean isEmpty()
+  {
+    return _size == 0;
+  }
+
+  @Override
+  public Iterator<Token> iterator()
+  {
+    return new Iterator<Token>()
+    {
+      private int _i;
+
+      @Override
+      public boolean hasNext()
+      {
+        return _i < _size;
+      }
+
+      @Override
+      public Token next()
+      {
+        if( !hasNext() )
+        {
+          throw new NoSuchElementException();
+        }
+        return get( _i++ );
+      }
+    };
+  }
+
+  @Override
+  public List<Token> toList()
+  {
+    List<Token> list = new ArrayList<>( _size );
+    for( int i = 0; i < _size; i++ )
+    {
+      list.add( get( i ) );
+    }
+    return list;
+  }
+
+  @Override
+  public boolean equals( Object o )
+  {
+    // Token buffers are never compared by content
+    return this == o;
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return System.identityHashCode( this );
+  }
+
+  private void store( int i, Token token )
+  {
+    _materialized[i] = token;
+    _types[i] = token.getType();
+    _starts[i] = token.getTokenStart();
+    _lengths[i] = token.getTokenEnd() - token.getTokenStart();
+    _columns[i] = token.getTokenColumn();
+    _lines[i] = token.getLine();
+    _flags[i] = (byte)((token.isAnalyzingSeparately() ? ANALYZING_SEPARATELY : 0) |
+                       (token.isAnalyzingDirective() ? ANALYZING_DIRECTIVE : 0));
+  }
+
+  private void materializeAll()
+  {
+    for( int i = 0; i < _size; i++ )
+    {
+      get( i );
+    }
+  }
+
+  private void ensureCapacity( int iCapacity )
+  {
+    if( iCapacity <= _types.length )
+    {
+      return;
+    }
+    int iNewCapacity = Math.max( iCapacity, _types.length + (_types.length >> 1) );
+    _types = Arrays.copyOf( _types, iNewCapacity );
+    _starts = Arrays.copyOf( _starts, iNewCapacity );
+    _lengths = Arrays.copyOf( _lengths, iNewCapacity );
+    _columns = Arrays.copyOf( _columns, iNewCapacity );
+    _lines = Arrays.copyOf( _lines, iNewCapacity );
+    _flags = Arrays.copyOf( _flags, iNewCapacity );
+    _materialized = Arrays.copyOf( _materialized, iNewCapacity );
+  }
+
+  private void checkIndex( int i )
+  {
+    if( i < 0 || i >= _size )
+    {
+      throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + _size );
+    }
+  }
+
+  private static boolean isStringLiteral( int iType )
+  {
+    return iType == '"' || iType == '\'';
+  }
+
+  private static <V> Map<Integer, V> put( Map<Integer, V> map, int i, V value )
+  {
+    if( map == null )
+    {
+      map = new HashMap<>();
+    }
+    map.put( i, value );
+    return map;
+  }
+
+  private static <V> V get( Map<Integer, V> map, int i )
+  {
+    return map == null ? null : map.get( i );
+  }
+
+  private static void remove( Map<Integer, ?> map, int i )
+  {
+    if( map != null )
+    {
+      map.remove( i );
+    }
+  }
+}
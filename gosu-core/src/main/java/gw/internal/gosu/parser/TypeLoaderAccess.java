@@ -356,6 +356,13 @@ public class TypeLoaderAccess extends BaseService implements ITypeSystem
 
   public IType getIntrinsicTypeFromObject( final Object object )
   {
+    // The global module is searched first, a type it already resolved for the object's class is the answer
+    ModuleTypeLoader globalModuleTypeLoader = getGlobalModuleTypeLoader();
+    IType type = globalModuleTypeLoader == null ? null : globalModuleTypeLoader.getCachedIntrinsicTypeFromObject( object );
+    if( type != null )
+    {
+      return type;
+    }
     return returnFirstNonNull( getIntrinsicTypeFromObject_Callable, object );
   }
 
@@ -1737,6 +1737,10 @@ public class TypeLord
   }
 
   public static boolean areGenericOrParameterizedTypesAssignable( IType to, IType from ) {
+    if( !(from instanceof CompoundType) && !to.isParameterizedType() && !to.isGenericType() ) {
+      // Nothing to compare, don't bother the cache
+      return false;
+    }
     return ASSIGNABILITY_CACHE.get(Pair.make(to, from));
   }
 
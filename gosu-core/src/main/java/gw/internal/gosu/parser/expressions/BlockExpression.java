@@ -217,6 +217,17 @@ public final class BlockExpression extends Expression implements IBlockExpressio
     return _capturedSymbols;
   }
 
+  /**
+   * Cuts the block off from the enclosing function's parse tree once the block's class has been
+   * compiled, otherwise the block class keeps the whole enclosing body reachable. The block's own
+   * body stays because IBlock exposes it at runtime via getParsedElement() and toString().
+   */
+  public void detachFromEnclosingTree()
+  {
+    _scope = null;
+    setParent( null );
+  }
+
   public void updateGosuClass()
   {
     if( _blockClass != null )
@@ -188,7 +188,7 @@ public abstract class JavaSourceType extends AbstractJavaClassInfo implements IJ
   private static boolean parseJavaFile( ISourceFileHandle src, List<CompilationUnitTree> trees, SourcePositions[] sourcePositions, DiagnosticCollector<JavaFileObject> errorHandler, DocTrees[] docTrees )
   {
     IJavaParser javaParser = GosuParserFactory.getInterface( IJavaParser.class );
-    return javaParser.parseText( src.getSource().getSource().replace( "\r\n", "\n" ), trees, sp -> sourcePositions[0] = sp, dc -> {if( docTrees != null ) docTrees[0] = dc;}, errorHandler );
+    return javaParser.parseSource( src, trees, sp -> sourcePositions[0] = sp, dc -> {if( docTrees != null ) docTrees[0] = dc;}, errorHandler );
   }
 
   private static JavaSourceType createInner( ClassTree typeDecl, JavaSourceType containingClass )
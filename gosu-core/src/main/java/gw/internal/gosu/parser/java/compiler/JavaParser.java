@@ -6,21 +6,37 @@ import com.sun.source.util.SourcePositions;
 import com.sun.source.util.Trees;
 import com.sun.tools.javac.api.JavacTaskImpl;
 import com.sun.tools.javac.api.JavacTool;
+import gw.fs.IDirectory;
+import gw.fs.IFile;
 import gw.fs.IResource;
 import gw.lang.javac.ClassJavaFileObject;
 import gw.lang.javac.IJavaParser;
 import gw.lang.javac.StringJavaFileObject;
 import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.lang.reflect.module.IModule;
 import gw.util.Pair;
+import gw.util.StreamUtil;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
@@ -41,6 +57,24 @@ public class JavaParser implements IJavaParser
   private StandardJavaFileManager _fileManager;
   private GosuJavaFileManager _gfm;
 
+  /**
+   * The most Java sources parsed together in one javac task
+   */
+  private static final int MAX_BATCH = 256;
+
+  /**
+   * Parsed sources by file path, or by type name for sources without a file. An entry is only used
+   * for the exact source text it was parsed from, so an edited source is parsed again. Entries the
+   * GC cleared are removed as they show up in _clearedParses.
+   */
+  private final Map<String, CachedParse> _parseCache = new ConcurrentHashMap<>();
+  private final ReferenceQueue<ParsedSource> _clearedParses = new ReferenceQueue<>();
+
+  /**
+   * Directories with a source that broke a batch, their sources are parsed one at a time
+   */
+  private final Set<String> _unbatchedDirs = ConcurrentHashMap.newKeySet();
+
   private JavaParser()
   {
   }
@@ -128,6 +162,170 @@ public class JavaParser implements IJavaParser
     return true;
   }
 
+  /**
+   * Parses the Java source of the file handle. Parse trees are cached with the source they were
+   * parsed from. The first time a source file is parsed, the other Java sources in its directory
+   * are parsed with it in the same javac task, since the types of a package are usually loaded
+   * together. If the batch fails, the source is parsed again on its own so a broken sibling does
+   * not keep it from loading.
+   */
+  public boolean parseSource( ISourceFileHandle fileHandle, List<CompilationUnitTree> trees, Consumer<SourcePositions> sourcePositions, Consumer<DocTrees> docTrees, DiagnosticCollector<JavaFileObject> errorHandler )
+  {
+    String src = fileHandle.getSource().getSource().replace( "\r\n", "\n" );
+    String key = getCacheKey( fileHandle );
+    ParsedSource parsed = getCached( key, src );
+    if( parsed == null )
+    {
+      Map<String, String> batch = new LinkedHashMap<>();
+      batch.put( key, src );
+      IFile file = fileHandle.getFile();
+      IDirectory dir = file == null ? null : file.getParent();
+      if( dir != null && !_parseCache.containsKey( key ) && !_unbatchedDirs.contains( dir.getPath().getPathString() ) )
+      {
+        addSiblingSources( dir, batch );
+      }
+      if( parseBatch( batch ) )
+      {
+        parsed = getCached( key, src );
+      }
+      if( parsed == null && batch.size() > 1 )
+      {
+        _unbatchedDirs.add( dir.getPath().getPathString() );
+        if( parseBatch( Collections.singletonMap( key, src ) ) )
+        {
+          parsed = getCached( key, src );
+        }
+      }
+      if( parsed == null )
+      {
+        return false;
+      }
+    }
+
+    trees.add( parsed._tree );
+    if( sourcePositions != null )
+    {
+      sourcePositions.accept( parsed._sourcePositions );
+    }
+    if( docTrees != null )
+    {
+      docTrees.accept( parsed._docTrees );
+    }
+    if( errorHandler != null )
+    {
+      parsed._diagnostics.forEach( errorHandler::report );
+    }
+    return true;
+  }
+
+  private static String getCacheKey( ISourceFileHandle fileHandle )
+  {
+    IFile file = fileHandle.getFile();
+    if( file != null )
+    {
+      return file.getPath().getPathString();
+    }
+    String namespace = fileHandle.getTypeNamespace();
+    return namespace == null || namespace.isEmpty()
+           ? fileHandle.getRelativeName()
+           : namespace + '.' + fileHandle.getRelativeName();
+  }
+
+  private ParsedSource getCached( String key, String src )
+  {
+    CachedParse ref = _parseCache.get( key );
+    ParsedSource parsed = ref == null ? null : ref.get();
+    return parsed != null && parsed._src.equals( src ) ? parsed : null;
+  }
+
+  private void addSiblingSources( IDirectory dir, Map<String, String> batch )
+  {
+    for( IFile sibling : dir.listFiles() )
+    {
+      if( batch.size() >= MAX_BATCH )
+      {
+        break;
+      }
+      String key = sibling.getPath().getPathString();
+      if( !"java".equals( sibling.getExtension() ) || batch.containsKey( key ) || _parseCache.containsKey( key ) )
+      {
+        continue;
+      }
+      // read the way the class repository does so the text matches the handle's source
+      try( BufferedReader reader = new BufferedReader( StreamUtil.getInputStreamReader( sibling.openInputStream() ) ) )
+      {
+        batch.put( key, reader.lines().collect( Collectors.joining( "\n" ) ) );
+      }
+      catch( Exception e )
+      {
+        // the sibling is parsed on its own when its type is loaded
+      }
+    }
+  }
+
+  /**
+   * Parses the sources in one javac task and caches the results by key
+   */
+  private synchronized boolean parseBatch( Map<String, String> sources )
+  {
+    pruneClearedParses();
+    try
+    {
+      init();
+
+      // by uri since javac wraps the file objects it's given
+      Map<URI, String> keyByFile = new HashMap<>();
+      List<JavaFileObject> javaStringObjects = new ArrayList<>();
+      for( Map.Entry<String, String> entry : sources.entrySet() )
+      {
+        JavaFileObject file = new StringJavaFileObject( "sample" + javaStringObjects.size(), entry.getValue() );
+        keyByFile.put( file.toUri(), entry.getKey() );
+        javaStringObjects.add( file );
+      }
+      DiagnosticCollector<JavaFileObject> errorHandler = new DiagnosticCollector<>();
+      StringWriter errors = new StringWriter();
+      JavaCompiler.CompilationTask task = _javac.getTask( errors, _fileManager, errorHandler, Arrays.asList( "-proc:none" ), null, javaStringObjects );
+      JavacTaskImpl javacTask = (JavacTaskImpl)task;
+      Iterable<? extends CompilationUnitTree> iterable = javacTask.parse();
+      SourcePositions sourcePositions = Trees.instance( javacTask ).getSourcePositions();
+      DocTrees docTrees = DocTrees.instance( javacTask );
+
+      String firstKey = sources.keySet().iterator().next();
+      Map<String, List<Diagnostic<? extends JavaFileObject>>> diagnosticsByKey = new HashMap<>();
+      for( Diagnostic<? extends JavaFileObject> diagnostic : errorHandler.getDiagnostics() )
+      {
+        String key = diagnostic.getSource() == null ? null : keyByFile.get( diagnostic.getSource().toUri() );
+        diagnosticsByKey.computeIfAbsent( key == null ? firstKey : key, k -> new ArrayList<>() ).add( diagnostic );
+      }
+      for( CompilationUnitTree tree : iterable )
+      {
+        String key = keyByFile.get( tree.getSourceFile().toUri() );
+        if( key != null )
+        {
+          List<Diagnostic<? extends JavaFileObject>> diagnostics = diagnosticsByKey.getOrDefault( key, Collections.emptyList() );
+          ParsedSource parsed = new ParsedSource( sources.get( key ), tree, sourcePositions, docTrees, diagnostics );
+          _parseCache.put( key, new CachedParse( key, parsed, _clearedParses ) );
+        }
+      }
+    }
+    catch( Exception | StackOverflowError e )
+    {
+      // javac's parser recurses, a deeply nested source overflows the stack
+      return false;
+    }
+    return true;
+  }
+
+  private void pruneClearedParses()
+  {
+    Reference<? extends ParsedSource> ref;
+    while( (ref = _clearedParses.poll()) != null )
+    {
+      // only if the key wasn't parsed again since
+      _parseCache.remove( ((CachedParse)ref)._key, ref );
+    }
+  }
+
   /**
    * Compiles specified Java class name.  Maintains cache between calls to this method, therefore subsequent calls to this
    * method will consult the cache and return the previously compiled class if cached.
@@ -206,6 +404,8 @@ public class JavaParser implements IJavaParser
   @Override
   public void clear()
   {
+    _parseCache.clear();
+    _unbatchedDirs.clear();
     _javac = null;
     try
     {
@@ -216,4 +416,33 @@ public class JavaParser implements IJavaParser
       throw new RuntimeException( e );
     }
   }
+
+  private static class CachedParse extends SoftReference<ParsedSource>
+  {
+    private final String _key;
+
+    private CachedParse( String key, ParsedSource parsed, ReferenceQueue<ParsedSource> queue )
+    {
+      super( parsed, queue );
+      _key = key;
+    }
+  }
+
+  private static class ParsedSource
+  {
+    private final String _src;
+    private final CompilationUnitTree _tree;
+    private final SourcePositions _sourcePositions;
+    private final DocTrees _docTrees;
+    private final List<Diagnostic<? extends JavaFileObject>> _diagnostics;
+
+    private ParsedSource( String src, CompilationUnitTree tree, SourcePositions sourcePositions, DocTrees docTrees, List<Diagnostic<? extends JavaFileObject>> diagnostics )
+    {
+      _src = src;
+      _tree = tree;
+      _sourcePositions = sourcePositions;
+      _docTrees = docTrees;
+      _diagnostics = diagnostics;
+    }
+  }
 }
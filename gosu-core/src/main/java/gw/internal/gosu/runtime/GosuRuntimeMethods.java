@@ -5,10 +5,12 @@
 package gw.internal.gosu.runtime;
 
 import gw.config.CommonServices;
+import gw.internal.gosu.compiler.FunctionClassUtil;
 import gw.internal.gosu.ir.transform.AbstractElementTransformer;
 import gw.internal.gosu.parser.IGosuClassInternal;
 import gw.internal.gosu.parser.TypeLord;
 import gw.lang.function.IBlock;
+import gw.lang.function.LiftedBlockSite;
 import gw.lang.parser.StandardCoercionManager;
 import gw.lang.reflect.IConstructorInfo;
 import gw.lang.reflect.IExpando;
@@ -26,6 +28,11 @@ import gw.lang.reflect.java.JavaTypes;
 import gw.util.GosuExceptionUtil;
 
 import javax.script.Bindings;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -196,7 +203,36 @@ public class GosuRuntimeMethods {
     return method.getConstructor().newInstance( args );
   }
 
-  private static Object[] maybeAddOuter( IType type, Object ctx, Object[] args ) {
+  /**
+   * Bootstrap for <code>new T(...)</code> call sites where T is a reified type variable. Each call
+   * site gets its own {@link TypeVarConstructorCallSite} so the constructor resolved for the
+   * type the site constructs is reused across calls, see {@link #newInstance(IType, Object, Object[])}
+   * for the uncached equivalent.
+   */
+  public static CallSite bootstrapNewInstance( MethodHandles.Lookup lookup, String name, MethodType type ) throws ReflectiveOperationException
+  {
+    MethodHandle newInstance = MethodHandles.lookup().findVirtual( TypeVarConstructorCallSite.class, "newInstance",
+                                                                   MethodType.methodType( Object.class, IType.class, Object.class, Object[].class ) );
+    return new ConstantCallSite( newInstance.bindTo( new TypeVarConstructorCallSite() ).asType( type ) );
+  }
+
+  /**
+   * Bootstrap for the creation of a block compiled to a method of the calling class, see
+   * {@link LiftedBlockSite}. The call site takes the block's captured values and returns a new
+   * LiftedFunction of the block's arity that calls the method with them.
+   */
+  public static CallSite bootstrapLiftedBlock( MethodHandles.Lookup lookup, String name, MethodType type,
+                                               String implName, int iBlock, int iArity ) throws ReflectiveOperationException
+  {
+    Class enclosingClass = lookup.lookupClass();
+    MethodHandle impl = lookup.findStatic( enclosingClass, implName,
+                                           MethodType.genericMethodType( iArity ).insertParameterTypes( 0, Object[].class ) );
+    MethodHandle newBlock = MethodHandles.publicLookup().findConstructor( FunctionClassUtil.getLiftedFunctionClassForArity( iArity ),
+                                                                          MethodType.methodType( void.class, LiftedBlockSite.class, Object[].class ) );
+    return new ConstantCallSite( MethodHandles.insertArguments( newBlock, 0, new LiftedBlockSite( impl, enclosingClass, iBlock ) ).asType( type ) );
+  }
+
+  static Object[] maybeAddOuter( IType type, Object ctx, Object[] args ) {
     if( ctx == null )
     {
       return args;
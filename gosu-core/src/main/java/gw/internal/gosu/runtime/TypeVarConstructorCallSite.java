@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.runtime;
+
+import gw.config.CommonServices;
+import gw.internal.gosu.parser.IGosuClassInternal;
+import gw.internal.gosu.parser.TypeLord;
+import gw.lang.parser.CoercionPlan;
+import gw.lang.reflect.IConstructorHandler;
+import gw.lang.reflect.IConstructorInfo;
+import gw.lang.reflect.IParameterInfo;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeVariableType;
+import gw.lang.reflect.ReflectUtil;
+import gw.lang.reflect.TypeSystem;
+
+/**
+ * Per call site cache for <code>new T(...)</code> where T is a reified type variable. The call
+ * site remembers the constructor it resolved for the last runtime type and argument types it saw,
+ * so a site that keeps constructing the same type skips the constructor search, the coercion
+ * of arguments that already have the parameter's type, and the type lookups that find the
+ * outer instance. Other arguments are converted with the coercion plan for the last class seen.
+ * The cached resolution is dropped whenever the type system is refreshed.
+ */
+final class TypeVarConstructorCallSite
+{
+  private volatile Resolution _resolution;
+
+  Object newInstance( IType type, Object ctx, Object[] args )
+  {
+    IType[] runtimeTypes = ReflectUtil.extractRuntimeTypes( args );
+    Resolution resolution = _resolution;
+    if( resolution == null || !resolution.matches( type, runtimeTypes ) )
+    {
+      resolution = new Resolution( type, runtimeTypes );
+      _resolution = resolution;
+    }
+    return resolution.newInstance( ctx, args );
+  }
+
+  private static class Resolution
+  {
+    private final int _iRefreshChecksum;
+    private final IType _type;
+    private final IType[] _runtimeTypes;
+    private final IConstructorHandler _constructor;
+    private final IParameterInfo[] _parameters;
+    private final boolean[] _coerce;
+    private final CoercionPlan[] _plans;
+    private final IType _enclosingType;
+    private volatile Class _directOuterClass;
+
+    Resolution( IType type, IType[] runtimeTypes )
+    {
+      _iRefreshChecksum = TypeSystem.getSingleRefreshChecksum();
+      _type = type;
+      _runtimeTypes = runtimeTypes;
+      IConstructorInfo ci = type.getTypeInfo().getCallableConstructor( runtimeTypes );
+      _constructor = ci.getConstructor();
+      _parameters = ci.getParameters();
+      _coerce = new boolean[_parameters.length];
+      _plans = new CoercionPlan[_parameters.length];
+      for( int i = 0; i < _parameters.length; i++ )
+      {
+        IType runtimeType = i < runtimeTypes.length ? runtimeTypes[i] : null;
+        _coerce[i] = !isAssignableWithoutCoercion( _parameters[i].getFeatureType(), runtimeType );
+      }
+      _enclosingType = needsOuter( type ) ? TypeLord.getPureGenericType( type.getEnclosingType() ) : null;
+    }
+
+    boolean matches( IType type, IType[] runtimeTypes )
+    {
+      if( type != _type ||
+          runtimeTypes.length != _runtimeTypes.length ||
+          _iRefreshChecksum != TypeSystem.getSingleRefreshChecksum() )
+      {
+        return false;
+      }
+      for( int i = 0; i < runtimeTypes.length; i++ )
+      {
+        if( runtimeTypes[i] != _runtimeTypes[i] )
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    Object newInstance( Object ctx, Object[] args )
+    {
+      for( int i = 0; i < _coerce.length; i++ )
+      {
+        if( _coerce[i] )
+        {
+          args[i] = coerce( i, args[i] );
+        }
+      }
+      if( _enclosingType != null && ctx != null )
+      {
+        args = addOuter( ctx, args );
+      }
+      return _constructor.newInstance( args );
+    }
+
+    private Object coerce( int iParam, Object arg )
+    {
+      CoercionPlan plan = _plans[iParam];
+      if( plan == null || !plan.appliesTo( arg ) )
+      {
+        IType paramType = _parameters[iParam].getFeatureType();
+        plan = CommonServices.getCoercionManager().getCoercionPlan( arg, paramType );
+        if( plan == null )
+        {
+          return ReflectUtil.coerce( arg, paramType );
+        }
+        _plans[iParam] = plan;
+      }
+      return plan.convert( arg );
+    }
+
+    private Object[] addOuter( Object ctx, Object[] args )
+    {
+      Class ctxClass = ctx.getClass();
+      if( ctxClass != _directOuterClass )
+      {
+        if( TypeLord.getPureGenericType( TypeSystem.getFromObject( ctx ) ) != _enclosingType )
+        {
+          // The outer instance is further out, walk to it the slow way
+          return GosuRuntimeMethods.maybeAddOuter( _type, ctx, args );
+        }
+        _directOuterClass = ctxClass;
+      }
+      Object[] args2 = new Object[args.length + 1];
+      args2[0] = ctx;
+      System.arraycopy( args, 0, args2, 1, args.length );
+      return args2;
+    }
+
+    private static boolean isAssignableWithoutCoercion( IType paramType, IType argType )
+    {
+      return argType != null &&
+             !paramType.isPrimitive() &&
+             !paramType.isArray() &&
+             !(paramType instanceof ITypeVariableType) &&
+             paramType.isAssignableFrom( argType );
+    }
+
+    private static boolean needsOuter( IType type )
+    {
+      return !(type instanceof IGosuClassInternal && ((IGosuClassInternal)type).isStatic()) &&
+             type.getEnclosingType() != null;
+    }
+  }
+}
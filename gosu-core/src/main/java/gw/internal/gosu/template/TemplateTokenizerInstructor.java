@@ -5,12 +5,10 @@
 package gw.internal.gosu.template;
 
 import gw.internal.gosu.parser.SourceCodeTokenizer;
-import gw.internal.gosu.parser.Token;
+import gw.internal.gosu.parser.TokenBuffer;
 import gw.lang.parser.ISourceCodeTokenizer;
-import gw.lang.parser.IToken;
 import gw.lang.parser.ITokenizerInstructor;
 import gw.lang.parser.SourceCodeReader;
-import gw.util.Stack;
 
 /**
  * An ITokenizerInstructor for Gosu templates. Implemented as a finite state
@@ -393,8 +391,8 @@ public class TemplateTokenizerInstructor implements ITokenizerInstructor
 
   private boolean isAnalyzingSeparatelyWaitingForCloseBrace()
   {
-    //noinspection unchecked
-    Stack<Token> tokens = (Stack<Token>)_tokenizer.getTokens();
+    // Query the buffer by index so scanning back doesn't materialize every token
+    TokenBuffer tokens = ((SourceCodeTokenizer)_tokenizer).getInternal().getTokens();
     if( tokens.isEmpty() )
     {
       return true;
@@ -403,16 +401,16 @@ public class TemplateTokenizerInstructor implements ITokenizerInstructor
     int iStmtBlock = ((SourceCodeTokenizer)_tokenizer).getInternal().getType() == '}' ? 1 : 0;
     for( int i = tokens.size()-1; i >= 0; i-- )
     {
-      IToken token = tokens.get( i );
-      if( token.getType() == '}' )
+      int iType = tokens.getType( i );
+      if( iType == '}' )
       {
         iStmtBlock++;
       }
-      if( token.getType() == '{' )
+      if( iType == '{' )
       {
         if( iStmtBlock == 0 )
         {
-          if( token.isAnalyzingSeparately() )
+          if( tokens.isAnalyzingSeparately( i ) )
           {
             return false;
           }
@@ -13,6 +13,8 @@ class GSDocHTMLWriter {
   var _filters: List as Filters = {}
   var _externalDocs : List<String> as ExternalDocs = {}
   var _verbose : Boolean as Verbose
+  var _threads : int as Threads = Runtime.getRuntime().availableProcessors()
+  var _incremental : boolean as Incremental
 
   function write(){
     // Init output directory
@@ -22,14 +24,21 @@ class GSDocHTMLWriter {
     }
     // Create Javadoc Data Structure
     var rootDoc = new GSRootDocImpl(InputDirs, Output, Filters, ExternalDocs, Verbose)
+    var fingerprints = rootDoc.computeFingerprints()
+    var options = Filters.map( \ f -> f.Class.Name ).join( "," ) + ";" + ExternalDocs?.join( "," )
+    if( Incremental and SourceFingerprints.isUpToDate( Output, fingerprints, options ) ){
+      rootDoc.printNotice( "No sources changed since GosuDoc was generated to: ${Output.AbsolutePath}" )
+      return
+    }
     rootDoc.printNotice( "Generating Documentation" )
-    rootDoc.genDocs()
+    rootDoc.genDocs( Threads )
     rootDoc.printNotice( "Finished loading types:  now generating GosuDoc HTML to: ${Output.AbsolutePath}" )
 
     // Generate HTML
     var doclet = new HtmlDoclet()
     doclet.configuration.charset = StandardCharsets.UTF_8.toString()
     doclet.start( doclet, rootDoc )
+    SourceFingerprints.save( Output, fingerprints, options )
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package gw.gosudoc
+
+uses java.io.File
+uses java.io.FileInputStream
+uses java.io.FileOutputStream
+uses java.util.Properties
+
+/**
+ * Fingerprints of the sources GosuDoc was generated from, kept in the output directory so an
+ * incremental run can tell whether the documentation is up to date.
+ */
+class SourceFingerprints {
+
+  public static final var FILE_NAME: String = ".gosudoc-fingerprints"
+  static final var OPTIONS_KEY = "@options"
+
+  static function load( outputDir: File ): Map<String, String>{
+    var result = new HashMap<String, String>()
+    var file = new File( outputDir, FILE_NAME )
+    if( file.exists() ){
+      var props = new Properties()
+      using( var input = new FileInputStream( file ) ){
+        props.load( input )
+      }
+      for( name in props.stringPropertyNames() ){
+        result.put( name, props.getProperty( name ) )
+      }
+    }
+    return result
+  }
+
+  static function save( outputDir: File, fingerprints: Map<String, String>, options: String ){
+    var props = new Properties()
+    props.putAll( fingerprints )
+    props.setProperty( OPTIONS_KEY, options )
+    using( var output = new FileOutputStream( new File( outputDir, FILE_NAME ) ) ){
+      props.store( output, null )
+    }
+  }
+
+  /**
+   * @return true if the previous run into the output directory had the same options and the same
+   * sources, i.e., no source was added, removed or changed since
+   */
+  static function isUpToDate( outputDir: File, fingerprints: Map<String, String>, options: String ): boolean{
+    var previous = load( outputDir )
+    return previous.remove( OPTIONS_KEY ) == options and
+           previous == fingerprints and
+           new File( outputDir, "index.html" ).exists()
+  }
+
+}
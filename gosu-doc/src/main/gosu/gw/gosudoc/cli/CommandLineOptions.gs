@@ -32,6 +32,16 @@ class CommandLineOptions {
     return _help ?: false
   }
 
+  @Parameter(:names = { "-incremental" }, :description = "Skip generating when no source changed since the previous run to the output directory")
+  var _incremental : Boolean
+
+  /**
+   * @return true if and only if '-incremental' was specified on the command line
+   */
+  property get Incremental() : boolean {
+    return _incremental ?: false
+  }
+
   @Parameter(:names = { "-inputDirs" }, :description = "List of source directories to process", :variableArity = true, :validateWith = FileExists)
   var _inputDirs : List<File>
   
@@ -46,6 +56,13 @@ class CommandLineOptions {
     return _output
   }
 
+  @Parameter(:names = { "-threads" }, :description = "Number of threads loading types, defaults to the number of processors")
+  var _threads : Integer
+
+  property get Threads() : int {
+    return _threads ?: Runtime.getRuntime().availableProcessors()
+  }
+
   @Parameter(:names = { "-verbose" }, :description = "Output messages about what gosudoc is doing")
   var _verbose : Boolean
 
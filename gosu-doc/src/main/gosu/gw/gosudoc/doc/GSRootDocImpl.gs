@@ -25,9 +25,15 @@ uses gw.lang.reflect.gs.IGosuClass
 
 uses java.io.File
 uses java.lang.System
+uses java.math.BigInteger
+uses java.nio.file.Files
+uses java.security.MessageDigest
 uses java.util.ArrayList
 uses java.util.HashMap
 uses java.util.IdentityHashMap
+uses java.util.concurrent.CompletableFuture
+uses java.util.concurrent.ExecutionException
+uses java.util.concurrent.Executors
 uses java.util.regex.Pattern
 
 class GSRootDocImpl extends GSDocImpl implements RootDoc{
@@ -37,6 +43,7 @@ class GSRootDocImpl extends GSDocImpl implements RootDoc{
   var _voidType = new GSVoidTypeImpl( this )
   var _typesByType = new IdentityHashMap<IType, GSTypeImpl>()
   var _packagesByName = new HashMap<String, GSPackageDocImpl>().toAutoMap( \name -> new GSPackageDocImpl( name, this ) )
+  var _sourceFiles = new HashMap<String, File>()
 
   // Config info
   var _externalDocs : List<String> as ExternalDocs = {}
@@ -85,6 +92,7 @@ class GSRootDocImpl extends GSDocImpl implements RootDoc{
           var typeName = computeTypeName(root, file)
           debug(\-> "  Adding " + file.AbsolutePath + " as " + typeName)
           types.add(typeName)
+          _sourceFiles.put(typeName, file)
         }
       }
     } else {
@@ -173,20 +181,76 @@ class GSRootDocImpl extends GSDocImpl implements RootDoc{
     return l.toTypedArray()
   }
 
-  function genDocs(){
+  /**
+   * Loads the types to document and builds their class docs. Types are loaded and their type info
+   * resolved on a pool of {@code threads} threads, while the type filters, which need not be thread
+   * safe, and the class docs, which share this root's maps, run on the calling thread in order as
+   * the types become available.
+   */
+  function genDocs( threads: int = 1 ){
     printNotice( "Loading types to generate GosuDoc" )
-    for( typeName in TypeSystem.getAllTypeNames() ){
+    var typeNames = TypeSystem.getAllTypeNames().map( \ typeName -> typeName.toString() ).where( \ typeName -> mayBeDocumented( typeName ) )
+    var loader = Executors.newFixedThreadPool( Math.max( threads, 1 ), \ r -> {
+      var thread = new Thread( r, "gosudoc-loader" )
+      thread.Daemon = true
+      return thread
+    } )
+    try{
+      var loadedTypes = typeNames.map( \ typeName -> CompletableFuture.supplyAsync( \-> loadTypeToDocument( typeName ), loader ) )
+      for( loadedType in loadedTypes index i ){
         try{
-          if(!isExcluded( typeName.toString() )) {
-            var iType = TypeSystem.getByFullName( typeName.toString() )
-            if( shouldDocumentType( iType ) ){
-              getOrCreateClass( iType )
-            }
+          var iType = loadedType.get()
+          if( shouldDocumentType( iType ) ){
+            getOrCreateClass( iType )
           }
+        } catch( e: ExecutionException ){
+          printWarning( "Could not load type ${typeNames[i]}: ${e.Cause.Message}" )
         } catch( e ){
-          printWarning( "Could not load type ${typeName}: ${e.Message}" )
+          printWarning( "Could not load type ${typeNames[i]}: ${e.Message}" )
         }
+      }
+    } finally{
+      loader.shutdownNow()
+    }
+  }
+
+  private function loadTypeToDocument( typeName: String ): IType{
+    var iType = TypeSystem.getByFullName( typeName )
+    var ti = iType.getTypeInfo()
+    ti.getMethods()
+    ti.getProperties()
+    ti.getConstructors()
+    return iType
+  }
+
+  // Only the types in the input files and the types nested in them are documented, see shouldDocumentTypeImpl(),
+  // so there's no need to load any other type
+  private function mayBeDocumented( typeName: String ): boolean{
+    if( isExcluded( typeName ) ){
+      return false
+    }
+    var name = typeName
+    while( name != null ){
+      if( _filesToDoc.contains( name ) ){
+        return true
+      }
+      var i = name.lastIndexOf( "." )
+      name = i < 0 ? null : name.substring( 0, i )
+    }
+    return false
+  }
+
+  /**
+   * @return A fingerprint of each source file to document, by type name
+   */
+  function computeFingerprints(): Map<String, String>{
+    var fingerprints = new HashMap<String, String>()
+    for( entry in _sourceFiles.entrySet() ){
+      var digest = MessageDigest.getInstance( "SHA-1" )
+      digest.update( Files.readAllBytes( entry.Value.toPath() ) )
+      fingerprints.put( entry.Key, new BigInteger( 1, digest.digest() ).toString( 16 ) )
     }
+    return fingerprints
   }
 
   override function specifiedPackages(): PackageDoc[]{
@@ -0,0 +1,58 @@
+package gw.gosudoc
+
+uses org.junit.Assert
+uses org.junit.Test
+
+uses java.io.File
+uses java.nio.file.Files
+
+class IncrementalTest {
+
+  @Test
+  function unchangedSourcesAreNotRegenerated() {
+    var inputDir = copyExampleSource()
+    var outputDir = Files.createTempDirectory( null, {} ).toFile()
+    genGosuDoc( inputDir, outputDir, true )
+    var page = new File( outputDir, "com/example/bootstrap/com.example.bootstrap.Example.html" )
+    Assert.assertTrue( "Should find gosu doc for Example", page.exists() )
+    Assert.assertTrue( new File( outputDir, SourceFingerprints.FILE_NAME ).exists() )
+
+    page.write( "kept" )
+    genGosuDoc( inputDir, outputDir, true )
+    Assert.assertEquals( "kept", page.read() )
+
+    genGosuDoc( inputDir, outputDir, false )
+    Assert.assertNotEquals( "kept", page.read() )
+  }
+
+  @Test
+  function changedSourcesAreRegenerated() {
+    var inputDir = copyExampleSource()
+    var outputDir = Files.createTempDirectory( null, {} ).toFile()
+    genGosuDoc( inputDir, outputDir, true )
+    var page = new File( outputDir, "com/example/bootstrap/com.example.bootstrap.Example.html" )
+    page.write( "stale" )
+
+    var source = new File( inputDir, "com/example/bootstrap/Example.gs" )
+    source.write( source.read() + "\n// changed\n" )
+    genGosuDoc( inputDir, outputDir, true )
+    Assert.assertNotEquals( "stale", page.read() )
+  }
+
+  private function copyExampleSource(): File {
+    var inputDir = Files.createTempDirectory( null, {} ).toFile()
+    var dir = new File( inputDir, "com/example/bootstrap" )
+    dir.mkdirs()
+    Files.copy( new File( 'src/test/gosu/com/example/bootstrap/Example.gs' ).toPath(), new File( dir, "Example.gs" ).toPath() )
+    return inputDir
+  }
+
+  private function genGosuDoc( inputDir: File, outputDir: File, incremental: boolean ) {
+    new GSDocHTMLWriter() {
+      :Output = outputDir,
+      :InputDirs = {inputDir},
+      :Incremental = incremental
+    }.write()
+  }
+
+}
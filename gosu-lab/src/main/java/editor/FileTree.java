@@ -1,5 +1,6 @@
 package editor;
 
+import editor.search.ReferenceIndex;
 import editor.util.EditorUtilities;
 import editor.util.Experiment;
 import gw.util.PathUtil;
@@ -341,6 +342,7 @@ public class FileTree implements MutableTreeNode, IFileWatcherListener
     {
       TypeSystem.created( CommonServices.getFileSystem().getIFile( file.toFile() ) );
       TypeSystem.refresh( TypeSystem.getGlobalModule() );
+      ReferenceIndex.instance( _experiment ).fileChanged( fileTree );
     }
     Path createdFile = SourceFileCreator.instance().getCreated();
     if( createdFile != null && createdFile.equals( file ) )
@@ -397,7 +399,10 @@ public class FileTree implements MutableTreeNode, IFileWatcherListener
     }
 
     child._lastModified = PathUtil.lastModified( existingFile );
-    EventQueue.invokeLater( () -> getExperiment().getGosuPanel().refresh( existingFile ) );
+    EventQueue.invokeLater( () -> {
+      getExperiment().getGosuPanel().refresh( existingFile );
+      ReferenceIndex.instance( _experiment ).fileChanged( child );
+    } );
   }
 
   @Override
@@ -431,6 +436,7 @@ public class FileTree implements MutableTreeNode, IFileWatcherListener
     if( isTypeFile( fileTree ) )
     {
       TypeSystem.deleted( PathUtil.getIFile( fileTree.getFileOrDir() ) );
+      ReferenceIndex.instance( _experiment ).fileDeleted( fileTree );
       return true;
     }
     return false;
@@ -103,6 +103,7 @@ import static editor.util.TextComponentUtil.Direction.FORWARD;
 public class GosuEditor extends EditorHost implements IScriptEditor, IGosuPanel, ITypeLoaderListener
 {
   public static final int MIN_LINENUMBER_WIDTH = 16;
+  private static final int FULL_PARSE_DELAY = 1000;
 
   private JLabel _labelCaption;
   private ParserFeedbackPanel _panelFeedback;
@@ -126,6 +127,9 @@ public class GosuEditor extends EditorHost implements IScriptEditor, IGosuPanel,
   private boolean _bAcceptUses;
   private IGosuClass _parsedGosuClass;
   private Map<Integer, IFunctionStatement> _functionStmtsByLineNumber;
+  private final MemberReparser _memberReparser = new MemberReparser();
+  private volatile boolean _bFullParseRequested;
+  private Timer _fullParseTimer;
 
   private IGosuValidator _validator;
 
@@ -771,7 +775,12 @@ public class GosuEditor extends EditorHost implements IScriptEditor, IGosuPanel,
         {
           // The context here is expected to be a fully qualified class/program/enhancement/template
 
-          _parsedGosuClass = _parser.parseClass( getScriptPart().getContainingTypeName(), new StringSourceFileHandle( getScriptPart().getContainingTypeName(), strText, _bTestResource, classType ), true, true );
+          String strTypeName = getScriptPart().getContainingTypeName();
+          if( !changed || !parseEditedMember( strTypeName, strText, classType ) )
+          {
+            _bFullParseRequested = false;
+            _parsedGosuClass = _parser.parseClass( strTypeName, new StringSourceFileHandle( strTypeName, strText, _bTestResource, classType ), true, true );
+          }
         }
         else
         {
@@ -862,6 +871,14 @@ public class GosuEditor extends EditorHost implements IScriptEditor, IGosuPanel,
 //          }
           _typeUsesMapFromMostRecentParse = _parser.getTypeUsesMap().copy();
           final List<IParseTree> locations = _parser.getLocations();
+          if( getClassType() != null && getClassType() != ClassType.Template )
+          {
+            _memberReparser.update( strText, locations );
+          }
+          else
+          {
+            _memberReparser.reset();
+          }
           EventQueue.invokeLater(
             () -> {
               if( getDocument().getLocations() == null )
@@ -945,6 +962,75 @@ public class GosuEditor extends EditorHost implements IScriptEditor, IGosuPanel,
     return _typeUsesMapFromMostRecentParse;
   }
 
+  /**
+   * If the edit is confined to the body of a single function or property, parse only that body
+   * and schedule a full parse for when editing pauses. Bodies of the other members are blanked
+   * out of the parsed source, so they neither cost anything to parse nor report issues until
+   * the full parse.
+   *
+   * @return True if the edited member was parsed, false if the class needs a full parse
+   */
+  private boolean parseEditedMember( String strTypeName, String strText, ClassType classType ) throws ParseResultsException
+  {
+    if( _bFullParseRequested || classType == ClassType.Template )
+    {
+      return false;
+    }
+    MemberReparser.MemberEdit memberEdit = _memberReparser.findEditedMember( strText );
+    if( memberEdit == null )
+    {
+      return false;
+    }
+
+    IGosuClass gsClass;
+    try
+    {
+      gsClass = _parser.parseClass( strTypeName, new StringSourceFileHandle( strTypeName, memberEdit.getSource(), _bTestResource, classType ), true, true );
+    }
+    catch( ParseResultsException e )
+    {
+      gsClass = null;
+      if( e.getParsedElement() instanceof IClassFileStatement )
+      {
+        IClassStatement classStatement = ((IClassFileStatement)e.getParsedElement()).getClassStatement();
+        gsClass = classStatement == null ? null : classStatement.getGosuClass();
+      }
+    }
+    IParseTree body = memberEdit.findBody( strText, _parser.getLocations(), _memberReparser.getBodyCount() );
+    if( gsClass == null || body == null )
+    {
+      // The edit changed the structure of the class
+      return false;
+    }
+
+    _parsedGosuClass = gsClass;
+    scheduleFullParse();
+
+    IParsedElement bodyStmt = body.getParsedElement();
+    if( bodyStmt.hasParseExceptions() || bodyStmt.hasParseWarnings() )
+    {
+      throw new ParseResultsException( bodyStmt );
+    }
+    return true;
+  }
+
+  private void scheduleFullParse()
+  {
+    synchronized( _memberReparser )
+    {
+      if( _fullParseTimer == null )
+      {
+        _fullParseTimer = new Timer( FULL_PARSE_DELAY,
+          e -> {
+            _bFullParseRequested = true;
+            parse();
+          } );
+        _fullParseTimer.setRepeats( false );
+      }
+      _fullParseTimer.restart();
+    }
+  }
+
   private Map<Integer, IFunctionStatement> storeFunctionsByLineNumber( IGosuClass gsClass, Map<Integer, IFunctionStatement> functionStmtsByLineNumber )
   {
     if( gsClass == null || _parsedGosuClass instanceof IGosuEnhancement )
@@ -8,6 +8,7 @@ import editor.debugger.Debugger;
 import editor.run.IProcessRunner;
 import editor.run.IRunConfig;
 import editor.run.RunState;
+import editor.search.ReferenceIndex;
 import editor.search.SearchPanel;
 import editor.shipit.ExperimentBuild;
 import editor.shipit.ShipIt;
@@ -401,6 +402,7 @@ public class GosuPanel extends JPanel
 
     LabFrame.instance().addExperiment( experiment );
     _experimentView.load( _experiment );
+    ReferenceIndex.instance( experiment ).build( FileTreeUtil.getRoot() );
 
     for( String openFile : experiment.getOpenFiles() )
     {
@@ -1658,6 +1660,10 @@ public class GosuPanel extends JPanel
       StreamUtil.copy( new StringReader( editor.getText() ), out );
       setDirty( editor, false );
       reload( editor.getScriptPart().getContainingType() );
+      if( fileTree != null )
+      {
+        ReferenceIndex.instance( getExperiment() ).fileChanged( fileTree );
+      }
     }
     catch( IOException ex )
     {
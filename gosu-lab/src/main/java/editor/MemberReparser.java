@@ -0,0 +1,265 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package editor;
+
+import gw.lang.parser.IDynamicFunctionSymbol;
+import gw.lang.parser.IParseTree;
+import gw.lang.parser.IParsedElement;
+import gw.lang.parser.statements.IFunctionStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lets the editor reparse just the function or property body being edited. It remembers
+ * the text and the member bodies of the most recent parse. When a new edit falls entirely
+ * inside one of those bodies, it produces a source of the same length. In that source, the
+ * inside of every other body is blanked out, keeping line breaks. Parsing that source only
+ * does real work for the edited member. All offsets and line numbers still match the
+ * editor's text.
+ */
+public class MemberReparser
+{
+  private String _strText;
+  private int[] _bodyStarts;
+  private int[] _bodyEnds;
+
+  /**
+   * Remember the text and member bodies of a parse
+   *
+   * @param strText   The parsed text
+   * @param locations The parse tree locations of the parse
+   */
+  public void update( String strText, List<IParseTree> locations )
+  {
+    List<IParseTree> bodies = findMemberBodies( strText, locations );
+    if( bodies == null )
+    {
+      reset();
+      return;
+    }
+    List<int[]> ranges = new ArrayList<>();
+    for( IParseTree body : bodies )
+    {
+      ranges.add( new int[]{body.getOffset(), body.getExtent()} );
+    }
+    setBodies( strText, ranges );
+  }
+
+  /**
+   * Remember the text and member bodies of a parse, where a body is the offsets of its
+   * opening and closing braces
+   */
+  void setBodies( String strText, List<int[]> ranges )
+  {
+    int[] starts = new int[ranges.size()];
+    int[] ends = new int[ranges.size()];
+    for( int i = 0; i < starts.length; i++ )
+    {
+      starts[i] = ranges.get( i )[0];
+      ends[i] = ranges.get( i )[1];
+    }
+    _strText = strText;
+    _bodyStarts = starts;
+    _bodyEnds = ends;
+  }
+
+  public void reset()
+  {
+    _strText = null;
+    _bodyStarts = null;
+    _bodyEnds = null;
+  }
+
+  /**
+   * @param strNewText The editor's text after an edit
+   *
+   * @return The edited member with a source to parse in place of the text, or null if the edit
+   * is not confined to the inside of a single member body
+   */
+  public MemberEdit findEditedMember( String strNewText )
+  {
+    String strOldText = _strText;
+    int[] starts = _bodyStarts;
+    int[] ends = _bodyEnds;
+    if( strOldText == null || strNewText == null )
+    {
+      return null;
+    }
+
+    int iOldLen = strOldText.length();
+    int iNewLen = strNewText.length();
+    int iMaxCommon = Math.min( iOldLen, iNewLen );
+    int iPrefix = 0;
+    while( iPrefix < iMaxCommon && strOldText.charAt( iPrefix ) == strNewText.charAt( iPrefix ) )
+    {
+      iPrefix++;
+    }
+    if( iPrefix == iOldLen && iOldLen == iNewLen )
+    {
+      // No change
+      return null;
+    }
+    int iSuffix = 0;
+    while( iSuffix < iMaxCommon - iPrefix &&
+           strOldText.charAt( iOldLen - 1 - iSuffix ) == strNewText.charAt( iNewLen - 1 - iSuffix ) )
+    {
+      iSuffix++;
+    }
+    int iEditEnd = iOldLen - iSuffix;
+
+    int iBody = Arrays.binarySearch( starts, iPrefix );
+    iBody = iBody >= 0 ? iBody - 1 : -iBody - 2;
+    if( iBody < 0 || iPrefix <= starts[iBody] || iEditEnd > ends[iBody] )
+    {
+      return null;
+    }
+
+    int iDelta = iNewLen - iOldLen;
+    char[] source = strNewText.toCharArray();
+    for( int i = 0; i < starts.length; i++ )
+    {
+      if( i != iBody )
+      {
+        int iShift = i > iBody ? iDelta : 0;
+        blank( source, starts[i] + iShift + 1, ends[i] + iShift );
+      }
+    }
+    return new MemberEdit( starts[iBody], ends[iBody] + iDelta, new String( source ) );
+  }
+
+  private static void blank( char[] source, int iStart, int iEnd )
+  {
+    for( int i = iStart; i < iEnd; i++ )
+    {
+      char c = source[i];
+      if( c != '\n' && c != '\r' )
+      {
+        source[i] = ' ';
+      }
+    }
+  }
+
+  /**
+   * @return The locations of the outermost function and property bodies in order of offset, or
+   * null if a body can't be identified in the text
+   */
+  public static List<IParseTree> findMemberBodies( String strText, List<IParseTree> locations )
+  {
+    if( strText == null || locations == null )
+    {
+      return null;
+    }
+    List<IFunctionStatement> functionStmts = new ArrayList<>();
+    IParseTree.Search.getContainedParsedElementsByType( locations, IFunctionStatement.class, functionStmts );
+    List<IParseTree> bodies = new ArrayList<>();
+    for( IFunctionStatement fs : functionStmts )
+    {
+      IDynamicFunctionSymbol dfs = fs.getDynamicFunctionSymbol();
+      Object body = dfs == null ? null : dfs.getValueDirectly();
+      if( !(body instanceof IParsedElement) )
+      {
+        // abstract
+        continue;
+      }
+      IParseTree location = ((IParsedElement)body).getLocation();
+      if( location == null )
+      {
+        return null;
+      }
+      int iStart = location.getOffset();
+      int iEnd = location.getExtent();
+      if( iStart < 0 || iEnd >= strText.length() || iEnd <= iStart ||
+          strText.charAt( iStart ) != '{' || strText.charAt( iEnd ) != '}' )
+      {
+        // e.g., a body that failed to parse
+        return null;
+      }
+      bodies.add( location );
+    }
+    bodies.sort( ( a, b ) -> Integer.compare( a.getOffset(), b.getOffset() ) );
+
+    // Keep only the outermost bodies, e.g., not the bodies of functions in an anonymous class
+    List<IParseTree> outermost = new ArrayList<>();
+    int iLastEnd = -1;
+    for( IParseTree body : bodies )
+    {
+      if( body.getOffset() > iLastEnd )
+      {
+        outermost.add( body );
+        iLastEnd = body.getExtent();
+      }
+    }
+    return outermost;
+  }
+
+  /**
+   * The member body containing an edit
+   */
+  public static class MemberEdit
+  {
+    private final int _iBodyStart;
+    private final int _iBodyEnd;
+    private final String _strSource;
+
+    MemberEdit( int iBodyStart, int iBodyEnd, String strSource )
+    {
+      _iBodyStart = iBodyStart;
+      _iBodyEnd = iBodyEnd;
+      _strSource = strSource;
+    }
+
+    /**
+     * @return The offset of the opening brace of the edited body in the new text
+     */
+    public int getBodyStart()
+    {
+      return _iBodyStart;
+    }
+
+    /**
+     * @return The offset of the closing brace of the edited body in the new text
+     */
+    public int getBodyEnd()
+    {
+      return _iBodyEnd;
+    }
+
+    /**
+     * @return The new text with all member bodies other than the edited one blanked out
+     */
+    public String getSource()
+    {
+      return _strSource;
+    }
+
+    /**
+     * @return The edited body among the member bodies of a parse of the source, or null if the
+     * parse doesn't have the same member bodies, i.e., the edit changed the class structure
+     */
+    public IParseTree findBody( String strText, List<IParseTree> locations, int iExpectedBodies )
+    {
+      List<IParseTree> bodies = findMemberBodies( strText, locations );
+      if( bodies == null || bodies.size() != iExpectedBodies )
+      {
+        return null;
+      }
+      for( IParseTree body : bodies )
+      {
+        if( body.getOffset() == _iBodyStart && body.getExtent() == _iBodyEnd )
+        {
+          return body;
+        }
+      }
+      return null;
+    }
+  }
+
+  public int getBodyCount()
+  {
+    return _bodyStarts == null ? 0 : _bodyStarts.length;
+  }
+}
@@ -35,7 +35,17 @@ public class IncrementalCompilerUsageSearcher extends UsageSearcher
 
     IType type = tree.getType();
 
+    ReferenceIndex index = getIndex();
+    if( index != null && !index.mayReference( tree, getTarget() ) )
+    {
+      return false;
+    }
+
     List<SearchLocation> locations = findUsage( (IGosuClass)type );
+    if( index != null )
+    {
+      index.update( tree, (IGosuClass)type );
+    }
     if( locations.isEmpty() )
     {
       return false;
@@ -0,0 +1,545 @@
+package editor.search;
+
+import editor.FileTree;
+import editor.FileTreeUtil;
+import editor.util.Experiment;
+import editor.util.TaskQueue;
+import gw.lang.parser.IExpression;
+import gw.lang.parser.IFunctionSymbol;
+import gw.lang.parser.IParsedElement;
+import gw.lang.parser.ISymbol;
+import gw.lang.parser.expressions.IBeanMethodCallExpression;
+import gw.lang.parser.expressions.IIdentifierExpression;
+import gw.lang.parser.expressions.IMemberAccessExpression;
+import gw.lang.parser.expressions.IMethodCallExpression;
+import gw.lang.parser.expressions.INewExpression;
+import gw.lang.parser.expressions.ITypeLiteralExpression;
+import gw.lang.parser.expressions.IVarStatement;
+import gw.lang.parser.statements.IClassFileStatement;
+import gw.lang.parser.statements.IClassStatement;
+import gw.lang.reflect.IConstructorInfo;
+import gw.lang.reflect.IFeatureInfo;
+import gw.lang.reflect.IFunctionType;
+import gw.lang.reflect.IMethodInfo;
+import gw.lang.reflect.IPropertyInfo;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeInfo;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.util.PathUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent index of the types and member names each Gosu file in an experiment refers to.
+ * Usage searches consult the index to skip files that can't contain a usage of the target, so
+ * only the few files that might are parsed. An entry is trusted only while the file's timestamp
+ * matches the one it was indexed with; a file without a current entry is always searched. Files
+ * referring to a file that changed, including while the lab was closed, are reindexed with it.
+ * <p/>
+ * The index is built in the background and kept current from file watcher events. It is saved
+ * to the experiment directory so it survives restarts.
+ */
+public class ReferenceIndex
+{
+  private static final String INDEX_TASK_QUEUE = "_reference_index";
+  private static final String INDEX_FILE = ".references.idx";
+  private static final int VERSION = 1;
+
+  private static ReferenceIndex INSTANCE = null;
+
+  private final Experiment _experiment;
+  private final Map<String, Entry> _entries;
+  private volatile boolean _dirty;
+
+  public static synchronized ReferenceIndex instance( Experiment experiment )
+  {
+    if( INSTANCE != null && INSTANCE._experiment != experiment )
+    {
+      TaskQueue.emptyAndRemoveQueue( INDEX_TASK_QUEUE );
+      INSTANCE = null;
+    }
+    if( INSTANCE == null )
+    {
+      INSTANCE = new ReferenceIndex( experiment );
+    }
+    return INSTANCE;
+  }
+
+  private ReferenceIndex( Experiment experiment )
+  {
+    _experiment = experiment;
+    _entries = new ConcurrentHashMap<>();
+    load();
+  }
+
+  /**
+   * Index in the background all the files under a tree having no current entry. A file changed or
+   * deleted since the index was saved is handled as if the file watcher had reported it: the files
+   * referring to it are reindexed too.
+   */
+  public void build( FileTree tree )
+  {
+    getQueue().postTask( () -> {
+      Set<String> unseen = new HashSet<>( _entries.keySet() );
+      List<FileTree> stale = new ArrayList<>();
+      findStale( tree, stale, unseen );
+
+      Set<String> referrers = new LinkedHashSet<>();
+      for( String fqn : unseen )
+      {
+        referrers.addAll( invalidate( fqn ) );
+      }
+      for( FileTree file : stale )
+      {
+        String fqn = file.makeFqn();
+        if( fqn != null && _entries.containsKey( fqn ) )
+        {
+          referrers.addAll( invalidate( fqn ) );
+        }
+      }
+
+      stale.forEach( file -> getQueue().postTask( () -> index( file ) ) );
+      getQueue().postTask( () -> {
+        reindex( new ArrayList<>( referrers ) );
+        save();
+      } );
+    } );
+  }
+
+  /**
+   * Collect the files under a tree having no current entry
+   *
+   * @param unseen The names of the files having an entry, the files found under the tree are removed
+   */
+  private void findStale( FileTree tree, List<FileTree> stale, Set<String> unseen )
+  {
+    if( tree.isFile() )
+    {
+      String fqn = tree.makeFqn();
+      if( fqn != null )
+      {
+        unseen.remove( fqn );
+      }
+      if( findCurrentEntry( tree ) == null && tree.getType() instanceof IGosuClass )
+      {
+        stale.add( tree );
+      }
+    }
+    else if( !tree.isLeaf() )
+    {
+      tree.getChildren().forEach( child -> findStale( child, stale, unseen ) );
+    }
+  }
+
+  /**
+   * A file was created or modified. Its entry is rebuilt along with the entries of files referring
+   * to it, since what they refer to through it, e.g., the type of an inferred variable, may have
+   * changed.
+   */
+  public void fileChanged( FileTree file )
+  {
+    List<String> referrers = invalidate( file );
+    getQueue().postTask( () -> {
+      index( file );
+      reindex( referrers );
+      save();
+    } );
+  }
+
+  public void fileDeleted( FileTree file )
+  {
+    List<String> referrers = invalidate( file );
+    getQueue().postTask( () -> {
+      reindex( referrers );
+      save();
+    } );
+  }
+
+  /**
+   * Drop the entries of a file and the files referring to it
+   *
+   * @return The names of the files referring to it
+   */
+  private List<String> invalidate( FileTree file )
+  {
+    String fqn = file.makeFqn();
+    return fqn == null ? Collections.emptyList() : invalidate( fqn );
+  }
+
+  private List<String> invalidate( String fqn )
+  {
+    _entries.remove( fqn );
+    List<String> referrers = new ArrayList<>();
+    for( Map.Entry<String, Entry> e : _entries.entrySet() )
+    {
+      if( e.getValue().referencesEnclosed( fqn ) && _entries.remove( e.getKey(), e.getValue() ) )
+      {
+        referrers.add( e.getKey() );
+      }
+    }
+    _dirty = true;
+    return referrers;
+  }
+
+  private void reindex( List<String> fqns )
+  {
+    for( String fqn : fqns )
+    {
+      FileTree file = FileTreeUtil.find( fqn );
+      if( file != null )
+      {
+        index( file );
+      }
+    }
+  }
+
+  private void index( FileTree file )
+  {
+    if( findCurrentEntry( file ) != null )
+    {
+      return;
+    }
+    if( !file.isFile() )
+    {
+      return;
+    }
+    TypeSystem.lock();
+    try
+    {
+      IType type = file.getType();
+      if( type instanceof IGosuClass )
+      {
+        ((IGosuClass)type).isValid();
+        update( file, (IGosuClass)type );
+      }
+    }
+    catch( Throwable t )
+    {
+      // leave the file unindexed, it is searched the slow way
+    }
+    finally
+    {
+      TypeSystem.unlock();
+    }
+  }
+
+  /**
+   * Index a file from its already parsed class
+   */
+  public void update( FileTree file, IGosuClass gsClass )
+  {
+    String fqn = file.makeFqn();
+    IClassStatement classStmt = gsClass.getClassStatement();
+    if( fqn == null || classStmt == null )
+    {
+      return;
+    }
+    IClassFileStatement classFileStmt = classStmt.getClassFileStatement();
+    IParsedElement pe = classFileStmt != null ? classFileStmt : classStmt;
+
+    Entry entry = new Entry( PathUtil.lastModified( file.getFileOrDir() ) );
+    pe.visit( entry::add );
+    _entries.put( fqn, entry );
+    _dirty = true;
+  }
+
+  /**
+   * @return False only if the file is known not to refer to the target, true if it may refer to it
+   * or the file's entry isn't current
+   */
+  public boolean mayReference( FileTree file, UsageTarget target )
+  {
+    Entry entry = findCurrentEntry( file );
+    if( entry == null )
+    {
+      return true;
+    }
+
+    IFeatureInfo rootFi = target.getRootFeatureInfo();
+    if( rootFi instanceof ITypeInfo || rootFi instanceof IConstructorInfo )
+    {
+      return entry._types.contains( rootFi.getOwnersType().getName() );
+    }
+    if( rootFi instanceof IMethodInfo )
+    {
+      String name = rootFi.getDisplayName();
+      return entry._names.contains( name.startsWith( "@" ) ? name.substring( 1 ) : name );
+    }
+    if( rootFi instanceof IPropertyInfo )
+    {
+      return entry._names.contains( rootFi.getName() );
+    }
+    return true;
+  }
+
+  private Entry findCurrentEntry( FileTree file )
+  {
+    String fqn = file.makeFqn();
+    Entry entry = fqn == null ? null : _entries.get( fqn );
+    return entry != null && entry._lastModified == PathUtil.lastModified( file.getFileOrDir() ) ? entry : null;
+  }
+
+  private Path getIndexFile()
+  {
+    return PathUtil.create( _experiment.getExperimentDir(), INDEX_FILE );
+  }
+
+  private void load()
+  {
+    Path indexFile = getIndexFile();
+    if( !PathUtil.isFile( indexFile ) )
+    {
+      return;
+    }
+    try( DataInputStream in = new DataInputStream( new BufferedInputStream( PathUtil.createInputStream( indexFile ) ) ) )
+    {
+      if( in.readInt() != VERSION )
+      {
+        return;
+      }
+      for( int iCount = in.readInt(); iCount > 0; iCount-- )
+      {
+        String fqn = in.readUTF();
+        Entry entry = new Entry( in.readLong() );
+        readNames( in, entry._types );
+        readNames( in, entry._names );
+        _entries.put( fqn, entry );
+      }
+    }
+    catch( IOException e )
+    {
+      // a corrupt index is rebuilt
+      _entries.clear();
+    }
+  }
+
+  private void readNames( DataInputStream in, Set<String> names ) throws IOException
+  {
+    for( int iCount = in.readInt(); iCount > 0; iCount-- )
+    {
+      names.add( in.readUTF() );
+    }
+  }
+
+  private void save()
+  {
+    if( !_dirty || _experiment.isDisposed() )
+    {
+      return;
+    }
+    _dirty = false;
+    try( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( PathUtil.createOutputStream( getIndexFile() ) ) ) )
+    {
+      Map<String, Entry> entries = new HashMap<>( _entries );
+      out.writeInt( VERSION );
+      out.writeInt( entries.size() );
+      for( Map.Entry<String, Entry> e : entries.entrySet() )
+      {
+        out.writeUTF( e.getKey() );
+        out.writeLong( e.getValue()._lastModified );
+        writeNames( out, e.getValue()._types );
+        writeNames( out, e.getValue()._names );
+      }
+    }
+    catch( IOException e )
+    {
+      // not fatal, the index is rebuilt next time
+      _dirty = true;
+    }
+  }
+
+  private void writeNames( DataOutputStream out, Set<String> names ) throws IOException
+  {
+    out.writeInt( names.size() );
+    for( String name : names )
+    {
+      out.writeUTF( name );
+    }
+  }
+
+  private static TaskQueue getQueue()
+  {
+    return TaskQueue.getInstance( INDEX_TASK_QUEUE );
+  }
+
+  /**
+   * The types and member names a file refers to. Covers everything UsageSearcher matches on,
+   * including the inferred types of variables and the declaring types of members.
+   */
+  static class Entry
+  {
+    private final long _lastModified;
+    private final Set<String> _types;
+    private final Set<String> _names;
+
+    Entry( long lastModified )
+    {
+      _lastModified = lastModified;
+      _types = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+      _names = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+    }
+
+    boolean referencesEnclosed( String fqn )
+    {
+      for( String type : _types )
+      {
+        if( type.startsWith( fqn ) )
+        {
+          // the type, a parameterization of it or an inner class of it
+          if( type.length() == fqn.length() || type.charAt( fqn.length() ) == '.' || type.charAt( fqn.length() ) == '<' )
+          {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    void add( IParsedElement pe )
+    {
+      if( pe instanceof ITypeLiteralExpression )
+      {
+        IType type = ((ITypeLiteralExpression)pe).getType().getType();
+        while( type.isArray() )
+        {
+          type = type.getComponentType();
+        }
+        addType( type );
+      }
+      else if( pe instanceof INewExpression )
+      {
+        IConstructorInfo ctor = ((INewExpression)pe).getConstructor();
+        if( ctor != null )
+        {
+          addType( ctor.getType() );
+        }
+        addType( ((INewExpression)pe).getType() );
+      }
+      else if( pe instanceof IVarStatement )
+      {
+        addTypeAndParameters( ((IVarStatement)pe).getType() );
+      }
+      else if( pe instanceof IMethodCallExpression )
+      {
+        IFunctionSymbol funcSym = ((IMethodCallExpression)pe).getFunctionSymbol();
+        if( funcSym != null )
+        {
+          _names.add( funcSym.getDisplayName() );
+        }
+        addDeclaringType( ((IMethodCallExpression)pe).getFunctionType() );
+      }
+      else if( pe instanceof IBeanMethodCallExpression )
+      {
+        _names.add( ((IBeanMethodCallExpression)pe).getMemberName() );
+        addDeclaringType( ((IBeanMethodCallExpression)pe).getFunctionType() );
+        addRootTypeLiteral( ((IBeanMethodCallExpression)pe).getRootExpression() );
+      }
+      else if( pe instanceof IMemberAccessExpression )
+      {
+        _names.add( ((IMemberAccessExpression)pe).getMemberName() );
+        try
+        {
+          IPropertyInfo pi = ((IMemberAccessExpression)pe).getPropertyInfo();
+          if( pi != null )
+          {
+            addEnclosingTypes( pi.getOwnersType() );
+          }
+        }
+        catch( Exception e )
+        {
+          // not a property
+        }
+        addRootTypeLiteral( ((IMemberAccessExpression)pe).getRootExpression() );
+      }
+      else if( pe instanceof IIdentifierExpression )
+      {
+        ISymbol symbol = ((IIdentifierExpression)pe).getSymbol();
+        if( symbol != null )
+        {
+          _names.add( symbol.getName() );
+          if( symbol.getScriptPart() != null )
+          {
+            addEnclosingTypes( symbol.getScriptPart().getContainingType() );
+          }
+        }
+      }
+    }
+
+    private void addDeclaringType( IFunctionType functionType )
+    {
+      if( functionType != null )
+      {
+        addEnclosingTypes( functionType.getEnclosingType() );
+      }
+    }
+
+    private void addRootTypeLiteral( IExpression root )
+    {
+      if( root instanceof ITypeLiteralExpression )
+      {
+        addType( ((ITypeLiteralExpression)root).getType().getType() );
+      }
+    }
+
+    private void addEnclosingTypes( IType type )
+    {
+      for( ; type != null; type = type.getEnclosingType() )
+      {
+        addType( type );
+      }
+    }
+
+    private void addTypeAndParameters( IType type )
+    {
+      if( type == null )
+      {
+        return;
+      }
+      addType( type );
+      if( type.isArray() )
+      {
+        addTypeAndParameters( type.getComponentType() );
+      }
+      if( type.isParameterizedType() )
+      {
+        for( IType param : type.getTypeParameters() )
+        {
+          addTypeAndParameters( param );
+        }
+      }
+    }
+
+    private void addType( IType type )
+    {
+      if( type != null )
+      {
+        _types.add( type.getName() );
+      }
+    }
+
+    Set<String> getTypes()
+    {
+      return new HashSet<>( _types );
+    }
+
+    Set<String> getNames()
+    {
+      return new HashSet<>( _names );
+    }
+  }
+}
@@ -58,6 +58,7 @@ public class UsageSearcher extends AbstractSearcher
   private final boolean _searchText;
   private boolean _includeMemberUsage;
   private SearchTree _results;
+  private ReferenceIndex _index;
 
   public UsageSearcher( UsageTarget target, boolean searchText, boolean includeMemberUsage )
   {
@@ -66,6 +67,16 @@ public class UsageSearcher extends AbstractSearcher
     _includeMemberUsage = includeMemberUsage;
   }
 
+  UsageTarget getTarget()
+  {
+    return _target;
+  }
+
+  ReferenceIndex getIndex()
+  {
+    return _index;
+  }
+
   boolean includeMemberUsage()
   {
     return _includeMemberUsage;
@@ -85,7 +96,16 @@ public class UsageSearcher extends AbstractSearcher
       return maybeSearchForText( tree, results );
     }
 
+    if( _index != null && !_index.mayReference( tree, _target ) )
+    {
+      return false;
+    }
+
     List<SearchLocation> locations = findUsage( (IGosuClass)type );
+    if( _index != null )
+    {
+      _index.update( tree, (IGosuClass)type );
+    }
     if( locations.isEmpty() )
     {
       return false;
@@ -732,6 +752,7 @@ public class UsageSearcher extends AbstractSearcher
 
   private void doSearch( FileTree tree )
   {
+    _index = ReferenceIndex.instance( tree.getExperiment() );
     boolean[] bFinished = {false};
     ProgressFeedback.runWithProgress( "Searching...",
       progress -> {
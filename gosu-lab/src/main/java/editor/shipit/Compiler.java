@@ -21,118 +21,214 @@ import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.IGosuClass;
 
 import gw.lang.reflect.java.IJavaType;
-import java.awt.*;
+import java.awt.EventQueue;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaFileObject;
 
 /**
+ * Compiles types on a pool of worker threads. Parsing and bytecode generation walk and resolve
+ * types while the UI and other workers refresh them, so both run under the type system lock one
+ * type at a time; handing the bytecode to the consumer and writing class files run concurrently.
+ * Javac is not safe to share between threads, so Java types compile under the type system lock
+ * too.
+ * <p/>
+ * Messages are posted to the messages panel on the event thread; the consumer and progress
+ * callback are called from one worker at a time.
  */
 public class Compiler
 {
+  private final int _iThreads;
   private MessageTree _warnings;
-  private int _iWarnings = 0;
+  private final AtomicInteger _iWarnings = new AtomicInteger();
   private MessageTree _errors;
-  private int _iErrors = 0;
+  private final AtomicInteger _iErrors = new AtomicInteger();
   private MessageTree _failures;
-  private int _iFailures = 0;
+  private final AtomicInteger _iFailures = new AtomicInteger();
+  private volatile boolean _bCancelled;
+
+  public Compiler()
+  {
+    this( Runtime.getRuntime().availableProcessors() );
+  }
+
+  public Compiler( int iThreads )
+  {
+    _iThreads = Math.max( 1, iThreads );
+  }
 
   public boolean compileTree( FileTree tree, ICompileConsumer consumer, IProgressCallback progress, MessagesPanel messagesPanel )
   {
-    if( progress.isAbort() )
-    {
-      return false;
-    }
+    List<IType> types = new ArrayList<>();
+    collectTypes( tree, types, progress );
+    return compileTypes( types, consumer, progress, messagesPanel );
+  }
 
+  private void collectTypes( FileTree tree, List<IType> types, IProgressCallback progress )
+  {
     if( tree.isFile() )
     {
       IType type = tree.getType();
-      progress.incrementProgress( type != null ? type.getName() : "" );
       if( type instanceof IFileRepositoryBasedType )
       {
-        if( !compile( type, consumer, messagesPanel ) )
-        {
-          return false;
-        }
+        types.add( type );
+      }
+      else
+      {
+        progress.incrementProgress( type != null ? type.getName() : "" );
       }
     }
     else if( tree.isDirectory() )
     {
       for( FileTree file: tree.getChildren() )
       {
-        if( !compileTree( file, consumer, progress, messagesPanel ) )
+        collectTypes( file, types, progress );
+      }
+    }
+  }
+
+  /**
+   * Compile types concurrently. Stops scheduling types if the progress callback aborts or the
+   * consumer rejects a compiled class.
+   *
+   * @return False if the compilation was cancelled, true otherwise
+   */
+  public boolean compileTypes( Collection<IType> types, ICompileConsumer consumer, IProgressCallback progress, MessagesPanel messages )
+  {
+    ICompileConsumer serialConsumer = cc -> {
+      synchronized( consumer )
+      {
+        return consumer.accept( cc );
+      }
+    };
+
+    ExecutorService workers = Executors.newFixedThreadPool( _iThreads, r -> {
+      Thread thread = new Thread( r, "Gosu Lab compiler" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    try
+    {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for( IType type: types )
+      {
+        results.add( workers.submit( () -> compile( type, serialConsumer, progress, messages ) ) );
+      }
+      for( Future<Boolean> result: results )
+      {
+        if( !result.get() )
         {
-          return false;
+          _bCancelled = true;
         }
       }
+      return !_bCancelled;
     }
-    return true;
+    catch( InterruptedException e )
+    {
+      _bCancelled = true;
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    catch( ExecutionException e )
+    {
+      _bCancelled = true;
+      throw new RuntimeException( e.getCause() );
+    }
+    finally
+    {
+      workers.shutdownNow();
+    }
+  }
+
+  private boolean compile( IType type, ICompileConsumer consumer, IProgressCallback progress, MessagesPanel messages )
+  {
+    if( _bCancelled || progress.isAbort() )
+    {
+      _bCancelled = true;
+      return false;
+    }
+
+    boolean bRes = compile( type, consumer, messages );
+    synchronized( progress )
+    {
+      progress.incrementProgress( type != null ? type.getName() : "" );
+    }
+    if( !bRes )
+    {
+      _bCancelled = true;
+    }
+    return bRes;
   }
 
   public int getWarnings()
   {
-    return _iWarnings;
+    return _iWarnings.get();
   }
 
   public int getErrors()
   {
-    return _iErrors;
+    return _iErrors.get();
   }
 
   public int getFailures()
   {
-    return _iFailures;
+    return _iFailures.get();
   }
 
   private void addWarnings( ParseResultsException parseException )
   {
-    _iWarnings += parseException.getParseWarnings().size();
+    _iWarnings.addAndGet( parseException.getParseWarnings().size() );
   }
 
   private void addErrors( ParseResultsException parseException )
   {
-    _iErrors += parseException.getParseExceptions().size();
+    _iErrors.addAndGet( parseException.getParseExceptions().size() );
   }
 
   private void addFailure()
   {
-    _iFailures++;
+    _iFailures.incrementAndGet();
   }
 
   private void updateMessageTree( MessagesPanel messages )
   {
     EventQueue.invokeLater( () -> {
-      if( _iWarnings > 0 )
+      if( _iWarnings.get() > 0 )
       {
         if( _warnings == null )
         {
           _warnings = new MessageTree( "", NodeKind.Info, MessageTree.empty() );
           messages.appendToTop( _warnings );
         }
-        _warnings.setText( "Warnings: " + _iWarnings );
+        _warnings.setText( "Warnings: " + _iWarnings.get() );
       }
 
-      if( _iErrors > 0 )
+      if( _iErrors.get() > 0 )
       {
         if( _errors == null )
         {
           _errors = new MessageTree( "", NodeKind.Info, MessageTree.empty() );
           messages.appendToTop( _errors );
         }
-        _errors.setText( "Errors: " + _iErrors );
+        _errors.setText( "Errors: " + _iErrors.get() );
       }
 
-      if( _iFailures > 0 )
+      if( _iFailures.get() > 0 )
       {
         if( _failures == null )
         {
           _failures = new MessageTree( "", NodeKind.Info, MessageTree.empty() );
           messages.appendToTop( _failures );
         }
-        _failures.setText( "Failures: " + _iFailures );
+        _failures.setText( "Failures: " + _iFailures.get() );
       }
     } );
   }
@@ -147,7 +243,16 @@ public class Compiler
     }
     if( type instanceof IJavaType )
     {
-      return compileJava( (IJavaType)type, consumer, messages );
+      // Javac is shared with the type system, which uses it under the same lock
+      TypeSystem.lock();
+      try
+      {
+        return compileJava( (IJavaType)type, consumer, messages );
+      }
+      finally
+      {
+        TypeSystem.unlock();
+      }
     }
 
     return true;
@@ -234,11 +339,11 @@ public class Compiler
           switch( e.getKind() )
           {
             case ERROR:
-              _iErrors++;
+              _iErrors.incrementAndGet();
               break;
             case WARNING:
             case MANDATORY_WARNING:
-              _iWarnings++;
+              _iWarnings.incrementAndGet();
               break;
           }
         } );
@@ -279,7 +384,7 @@ public class Compiler
             {
               case WARNING:
               case MANDATORY_WARNING:
-                _iWarnings++;
+                _iWarnings.incrementAndGet();
                 break;
             }
           } );
@@ -362,7 +467,16 @@ public class Compiler
       return true;
     }
 
-    byte[] bytes = type.compile();
+    byte[] bytes;
+    TypeSystem.lock();
+    try
+    {
+      bytes = type.compile();
+    }
+    finally
+    {
+      TypeSystem.unlock();
+    }
     if( !consumer.accept( new CompiledClass( type, bytes ) ) )
     {
       return false;
@@ -248,12 +248,7 @@ public class ExperimentBuild
     try
     {
       progress.setLength( sources.size() );
-      bRes[0] = true;
-      for( IType type : sources )
-      {
-        progress.incrementProgress( type != null ? type.getName() : "" );
-        bRes[0] |= compiler.compile( type, consumer, messages );
-      }
+      bRes[0] = compiler.compileTypes( sources, consumer, progress, messages );
       redefineClassInDebugger();
     }
     finally
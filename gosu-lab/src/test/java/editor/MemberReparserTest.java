@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package editor;
+
+import gw.lang.Gosu;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.IGosuParser;
+import gw.lang.parser.IParseTree;
+import gw.lang.parser.exceptions.ParseResultsException;
+import gw.lang.reflect.gs.ClassType;
+import gw.lang.reflect.gs.StringSourceFileHandle;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MemberReparserTest
+{
+  private static final String TYPE_NAME = "editor.test.MemberReparserSample";
+  private static final String SRC =
+    "class Foo {\n" +
+    "  function a() {\n" +
+    "    print( 1 )\n" +
+    "  }\n" +
+    "  function b() {\n" +
+    "    print( 2 )\n" +
+    "  }\n" +
+    "}\n";
+
+  @BeforeClass
+  public static void init()
+  {
+    Gosu.init();
+  }
+
+  @Test
+  public void testEditInsideBodyBlanksOtherBodies()
+  {
+    MemberReparser reparser = newReparser();
+    String strNewText = SRC.replace( "print( 2 )", "print( 22 )" );
+
+    MemberReparser.MemberEdit edit = reparser.findEditedMember( strNewText );
+    assertNotNull( edit );
+    assertEquals( strNewText.indexOf( '{', SRC.indexOf( "b()" ) ), edit.getBodyStart() );
+    assertEquals( strNewText.indexOf( "  }\n}" ) + 2, edit.getBodyEnd() );
+    assertEquals( strNewText.length(), edit.getSource().length() );
+    assertEquals( "class Foo {\n" +
+                  "  function a() {\n" +
+                  "              \n" +
+                  "  }\n" +
+                  "  function b() {\n" +
+                  "    print( 22 )\n" +
+                  "  }\n" +
+                  "}\n", edit.getSource() );
+  }
+
+  @Test
+  public void testEditOutsideBodyNeedsFullParse()
+  {
+    MemberReparser reparser = newReparser();
+    assertNull( reparser.findEditedMember( SRC.replace( "function b()", "function c()" ) ) );
+    assertNull( reparser.findEditedMember( SRC.replace( "class Foo {", "class Foo { var x : int" ) ) );
+    assertNull( reparser.findEditedMember( SRC.replace( "  }\n  function b", "\n  function b" ) ) );
+    assertNull( reparser.findEditedMember( SRC ) );
+  }
+
+  @Test
+  public void testNoPreviousParseNeedsFullParse()
+  {
+    MemberReparser reparser = newReparser();
+    reparser.reset();
+    assertNull( reparser.findEditedMember( SRC.replace( "print( 2 )", "print( 22 )" ) ) );
+  }
+
+  @Test
+  public void testMemberBodiesFromParse()
+  {
+    String strText = makeClass( 3 );
+    IGosuParser parser = parseClass( strText );
+    List<IParseTree> bodies = MemberReparser.findMemberBodies( strText, parser.getLocations() );
+    assertNotNull( bodies );
+    // 3 functions and 3 property getters; the function in the anonymous class is nested
+    assertEquals( 6, bodies.size() );
+    for( IParseTree body : bodies )
+    {
+      assertEquals( '{', strText.charAt( body.getOffset() ) );
+      assertEquals( '}', strText.charAt( body.getExtent() ) );
+    }
+  }
+
+  @Test
+  public void testMemberParseMatchesClassStructure()
+  {
+    String strText = makeClass( 3 );
+    MemberReparser reparser = new MemberReparser();
+    reparser.update( strText, parseClass( strText ).getLocations() );
+
+    String strNewText = strText.replace( "var x1 = 1", "var x1 = 1 + list.size()" );
+    MemberReparser.MemberEdit edit = reparser.findEditedMember( strNewText );
+    assertNotNull( edit );
+    IGosuParser parser = parseClass( edit.getSource() );
+    IParseTree body = edit.findBody( strNewText, parser.getLocations(), reparser.getBodyCount() );
+    assertNotNull( body );
+    assertTrue( body.getParsedElement().getParseIssues().isEmpty() );
+
+    strNewText = strText.replace( "var x1 = 1", "var x1 : int = \"one\"" );
+    edit = reparser.findEditedMember( strNewText );
+    assertNotNull( edit );
+    parser = parseClass( edit.getSource() );
+    body = edit.findBody( strNewText, parser.getLocations(), reparser.getBodyCount() );
+    assertNotNull( body );
+    assertTrue( body.getParsedElement().hasParseExceptions() );
+
+    // Closing the body early changes the structure
+    strNewText = strText.replace( "var x1 = 1", "var x1 = 1 }" );
+    edit = reparser.findEditedMember( strNewText );
+    assertNotNull( edit );
+    parser = parseClass( edit.getSource() );
+    assertNull( edit.findBody( strNewText, parser.getLocations(), reparser.getBodyCount() ) );
+  }
+
+  @Test
+  public void testLatencyOnLargeClass()
+  {
+    String strText = makeClass( 250 );
+    MemberReparser reparser = new MemberReparser();
+    reparser.update( strText, parseClass( strText ).getLocations() );
+    String strNewText = strText.replace( "var x200 = 200", "var x200 = 201" );
+    MemberReparser.MemberEdit edit = reparser.findEditedMember( strNewText );
+    assertNotNull( edit );
+
+    long lFull = 0;
+    long lMember = 0;
+    int iRuns = 5;
+    for( int i = 0; i < iRuns + 1; i++ )
+    {
+      long lStart = System.nanoTime();
+      parseClass( strNewText );
+      long lFullRun = System.nanoTime() - lStart;
+
+      lStart = System.nanoTime();
+      IGosuParser parser = parseClass( edit.getSource() );
+      assertNotNull( edit.findBody( strNewText, parser.getLocations(), reparser.getBodyCount() ) );
+      long lMemberRun = System.nanoTime() - lStart;
+      if( i > 0 )
+      {
+        // first run is warmup
+        lFull += lFullRun;
+        lMember += lMemberRun;
+      }
+    }
+    System.out.println( "Reparse of " + strText.split( "\n" ).length + " line class, full: " + lFull / iRuns / 1000000 +
+                        "ms  member: " + lMember / iRuns / 1000000 + "ms" );
+  }
+
+  private static MemberReparser newReparser()
+  {
+    MemberReparser reparser = new MemberReparser();
+    int iA = SRC.indexOf( '{', SRC.indexOf( "a()" ) );
+    int iB = SRC.indexOf( '{', SRC.indexOf( "b()" ) );
+    reparser.setBodies( SRC, Arrays.asList( new int[]{iA, SRC.indexOf( '}', iA )}, new int[]{iB, SRC.indexOf( '}', iB )} ) );
+    return reparser;
+  }
+
+  private static IGosuParser parseClass( String strText )
+  {
+    IGosuParser parser = GosuParserFactory.createParser( null );
+    parser.setEditorParser( true );
+    parser.setDontOptimizeStatementLists( true );
+    try
+    {
+      parser.parseClass( TYPE_NAME, new StringSourceFileHandle( TYPE_NAME, strText, false, ClassType.Class ), true, true );
+    }
+    catch( ParseResultsException e )
+    {
+      // issues are checked per member
+    }
+    return parser;
+  }
+
+  private static String makeClass( int iMembers )
+  {
+    StringBuilder sb = new StringBuilder()
+      .append( "package editor.test\n\n" )
+      .append( "uses java.util.ArrayList\n\n" )
+      .append( "class MemberReparserSample {\n" );
+    for( int i = 0; i < iMembers; i++ )
+    {
+      sb.append( "  var _f" ).append( i ).append( " : String\n\n" )
+        .append( "  property get F" ).append( i ).append( "() : String {\n" )
+        .append( "    return _f" ).append( i ).append( " == null ? \"\" : _f" ).append( i ).append( ".toUpperCase()\n" )
+        .append( "  }\n\n" )
+        .append( "  function method" ).append( i ).append( "( list : ArrayList<String> ) : int {\n" )
+        .append( "    var x" ).append( i ).append( " = " ).append( i ).append( "\n" )
+        .append( "    for( s in list index j ) {\n" )
+        .append( "      if( s.length() > j ) {\n" )
+        .append( "        x" ).append( i ).append( " += s.length() * j\n" )
+        .append( "      }\n" )
+        .append( "    }\n" )
+        .append( "    var r = new Runnable() {\n" )
+        .append( "      override function run() {\n" )
+        .append( "        print( list.size() )\n" )
+        .append( "      }\n" )
+        .append( "    }\n" )
+        .append( "    r.run()\n" )
+        .append( "    return x" ).append( i ).append( " + F" ).append( i ).append( ".length()\n" )
+        .append( "  }\n\n" );
+    }
+    return sb.append( "}\n" ).toString();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package editor.search;
+
+import gw.lang.Gosu;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.IGosuParser;
+import gw.lang.parser.exceptions.ParseResultsException;
+import gw.lang.reflect.gs.ClassType;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.StringSourceFileHandle;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReferenceIndexTest
+{
+  private static final String TYPE_NAME = "editor.test.ReferenceIndexSample";
+  private static final String SRC =
+    "package editor.test\n" +
+    "\n" +
+    "uses java.util.ArrayList\n" +
+    "uses java.util.Map\n" +
+    "\n" +
+    "class ReferenceIndexSample {\n" +
+    "  var _list = new ArrayList<StringBuilder>()\n" +
+    "\n" +
+    "  function run( m : Map<String, Integer> ) : int {\n" +
+    "    var inferred = m.entrySet()\n" +
+    "    _list.add( new StringBuilder( \"x\" ) )\n" +
+    "    print( Math.max( 1, 2 ) )\n" +
+    "    return _list.get( 0 ).length() + (m.Empty ? 1 : 0)\n" +
+    "  }\n" +
+    "}\n";
+
+  @BeforeClass
+  public static void init()
+  {
+    Gosu.init();
+  }
+
+  @Test
+  public void testEntryRecordsReferencedTypesAndNames()
+  {
+    ReferenceIndex.Entry entry = new ReferenceIndex.Entry( 0 );
+    parseClass( SRC ).getClassStatement().getClassFileStatement().visit( entry::add );
+
+    // type literals, new expressions, inferred variable types and their type parameters
+    assertTrue( entry.getTypes().contains( "java.util.Map<java.lang.String, java.lang.Integer>" ) );
+    assertTrue( entry.getTypes().contains( "java.lang.StringBuilder" ) );
+    assertTrue( entry.getTypes().contains( "java.util.Set<java.util.Map.Entry<java.lang.String, java.lang.Integer>>" ) );
+    assertTrue( entry.getTypes().contains( "java.util.Map.Entry<java.lang.String, java.lang.Integer>" ) );
+    // declaring types of members
+    assertTrue( entry.getTypes().contains( "java.lang.Math" ) );
+    assertTrue( entry.getTypes().contains( "editor.test.ReferenceIndexSample" ) );
+    assertFalse( entry.getTypes().contains( "java.lang.Thread" ) );
+
+    assertTrue( entry.getNames().contains( "max" ) );
+    assertTrue( entry.getNames().contains( "add" ) );
+    assertTrue( entry.getNames().contains( "Empty" ) );
+    assertTrue( entry.getNames().contains( "_list" ) );
+    assertTrue( entry.getNames().contains( "print" ) );
+    assertFalse( entry.getNames().contains( "sleep" ) );
+  }
+
+  @Test
+  public void testReferencesEnclosed()
+  {
+    ReferenceIndex.Entry entry = new ReferenceIndex.Entry( 0 );
+    parseClass( SRC ).getClassStatement().getClassFileStatement().visit( entry::add );
+
+    assertTrue( entry.referencesEnclosed( "java.lang.Math" ) );
+    assertTrue( entry.referencesEnclosed( "java.util.Map" ) );
+    assertFalse( entry.referencesEnclosed( "java.lang.Thread" ) );
+  }
+
+  private static IGosuClass parseClass( String strText )
+  {
+    IGosuParser parser = GosuParserFactory.createParser( null );
+    parser.setEditorParser( true );
+    try
+    {
+      return parser.parseClass( TYPE_NAME, new StringSourceFileHandle( TYPE_NAME, strText, false, ClassType.Class ), true, true );
+    }
+    catch( ParseResultsException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+}
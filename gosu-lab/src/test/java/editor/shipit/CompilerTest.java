@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package editor.shipit;
+
+import editor.MessagesPanel;
+import editor.util.IProgressCallback;
+import gw.lang.Gosu;
+import gw.lang.parser.IFileRepositoryBasedType;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.java.JavaTypes;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompilerTest
+{
+  private static final int TYPE_COUNT = 40;
+
+  @BeforeClass
+  public static void init()
+  {
+    Gosu.init();
+  }
+
+  @Test
+  public void testCompilesEveryTypeOnTheWorkerPool()
+  {
+    CountingCompiler compiler = new CountingCompiler( 4, -1 );
+    Progress progress = new Progress( Integer.MAX_VALUE );
+    List<CompiledClass> accepted = new ArrayList<>();
+
+    assertTrue( compiler.compileTypes( makeTypes(), cc -> accepted.add( cc ), progress, null ) );
+    assertEquals( TYPE_COUNT, compiler._compiled.get() );
+    assertEquals( TYPE_COUNT, progress._progress.get() );
+    assertEquals( TYPE_COUNT, accepted.size() );
+    assertTrue( compiler._threads.size() > 1 );
+    assertTrue( compiler._maxRunning.get() > 1 );
+  }
+
+  @Test
+  public void testAbortingProgressStopsRemainingTypes()
+  {
+    CountingCompiler compiler = new CountingCompiler( 4, -1 );
+    Progress progress = new Progress( 5 );
+
+    assertFalse( compiler.compileTypes( makeTypes(), cc -> true, progress, null ) );
+    // the types already running when the abort came finish, the rest never start
+    assertTrue( compiler._compiled.get() >= 5 );
+    assertTrue( compiler._compiled.get() < TYPE_COUNT );
+    assertEquals( compiler._compiled.get(), progress._progress.get() );
+  }
+
+  @Test
+  public void testRejectedClassStopsRemainingTypes()
+  {
+    CountingCompiler compiler = new CountingCompiler( 2, 3 );
+    Progress progress = new Progress( Integer.MAX_VALUE );
+
+    assertFalse( compiler.compileTypes( makeTypes(), cc -> true, progress, null ) );
+    assertTrue( compiler._compiled.get() < TYPE_COUNT );
+  }
+
+  private static List<IType> makeTypes()
+  {
+    return new ArrayList<>( Collections.nCopies( TYPE_COUNT, JavaTypes.STRING() ) );
+  }
+
+  /**
+   * Stands in for compiling a type, it takes a little while and passes its class to the consumer
+   */
+  private static class CountingCompiler extends Compiler
+  {
+    private final int _iReject;
+    private final AtomicInteger _compiled = new AtomicInteger();
+    private final AtomicInteger _running = new AtomicInteger();
+    private final AtomicInteger _maxRunning = new AtomicInteger();
+    private final Set<Thread> _threads = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+
+    CountingCompiler( int iThreads, int iReject )
+    {
+      super( iThreads );
+      _iReject = iReject;
+    }
+
+    @Override
+    public boolean compile( IType type, ICompileConsumer consumer, MessagesPanel messages )
+    {
+      int iCompiled = _compiled.incrementAndGet();
+      _threads.add( Thread.currentThread() );
+      _maxRunning.accumulateAndGet( _running.incrementAndGet(), Math::max );
+      try
+      {
+        Thread.sleep( 10 );
+      }
+      catch( InterruptedException e )
+      {
+        Thread.currentThread().interrupt();
+      }
+      finally
+      {
+        _running.decrementAndGet();
+      }
+      return iCompiled != _iReject && consumer.accept( new CompiledClass( (IFileRepositoryBasedType)type, null ) );
+    }
+  }
+
+  private static class Progress implements IProgressCallback
+  {
+    private final int _iAbortAt;
+    private final AtomicInteger _progress = new AtomicInteger();
+
+    Progress( int iAbortAt )
+    {
+      _iAbortAt = iAbortAt;
+    }
+
+    @Override
+    public void setLength( int iLength )
+    {
+    }
+
+    @Override
+    public boolean updateProgress( int iProgress, String strMessage, String... args )
+    {
+      _progress.set( iProgress );
+      return isAbort();
+    }
+
+    @Override
+    public boolean incrementProgress( String strMessage, String... args )
+    {
+      _progress.incrementAndGet();
+      return isAbort();
+    }
+
+    @Override
+    public boolean updateProgress( String strMessage, String... args )
+    {
+      return isAbort();
+    }
+
+    @Override
+    public boolean isAbort()
+    {
+      return _progress.get() >= _iAbortAt;
+    }
+
+    @Override
+    public void operationComplete()
+    {
+    }
+
+    @Override
+    public int getProgress()
+    {
+      return _progress.get();
+    }
+  }
+}
@@ -23,6 +23,10 @@ class ChainedOutputHandler implements OutputHandler, Closeable {
     _handlers.add(handler);
   }
 
+  boolean isEmpty() {
+    return _handlers.isEmpty();
+  }
+
   OutputHandler maybeReduce() {
     switch (_handlers.size()) {
     case 0:
@@ -4,42 +4,272 @@
 
 package gw.util.process;
 
-import gw.util.StreamUtil;
-
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
+ * Reads an output stream of a process and passes it on in chunks. Rather than a thread per
+ * stream, all gobblers share one daemon thread that polls their streams and reads only what is
+ * {@link InputStream#available() available}, so a quiet process never holds up the others. Once
+ * the process has exited, the rest of the stream is read on a worker thread until the end of the
+ * stream, since a child of the process may still be writing to it.
+ * <p/>
+ * The shared thread only reads. Decoding and the handlers run on the executor of the process,
+ * one chunk at a time, see {@link #newHandlerExecutor()}. A slow handler holds up only its own
+ * process: once {@link #MAX_PENDING_BYTES} are waiting for the handlers, the stream is left
+ * alone, and the process blocks on the full pipe until the handlers catch up.
  */
-class Gobbler extends Thread {
+class Gobbler {
+  private static final int BUFFER_SIZE = 8192;
+  private static final int MAX_PENDING_BYTES = 64 * BUFFER_SIZE;
+  private static final Loop LOOP = new Loop();
+  private static final ExecutorService WORKERS = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "gosu-process-output");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Process _process;
   private final InputStream _streamToGobble;
-  private final OutputHandler _outputHandler;
-  private final String _gobblerCharset;
+  private final OutputChunkHandler[] _handlers;
+  private final Executor _handlerExecutor;
+  private final CharsetDecoder _decoder;
+  private final ByteBuffer _bytes = ByteBuffer.allocate(BUFFER_SIZE);
+  private final CharBuffer _chars = CharBuffer.allocate(BUFFER_SIZE);
+  private final AtomicInteger _pendingBytes = new AtomicInteger();
+  private final CountDownLatch _done = new CountDownLatch(1);
+  private boolean _polled = true;
+  private Throwable _handlerFailure;
+
+  /**
+   * @return an executor running the handlers of a process' gobblers one chunk at a time
+   */
+  static Executor newHandlerExecutor() {
+    return new SerialExecutor(WORKERS);
+  }
 
-  Gobbler( InputStream streamToGobble, OutputHandler outputHandler, String charSet )
-  {
+  Gobbler(Process process, InputStream streamToGobble, String charSet, List<OutputChunkHandler> handlers, Executor handlerExecutor) {
+    _process = process;
     _streamToGobble = streamToGobble;
-    _outputHandler = outputHandler;
-    _gobblerCharset = charSet;
+    _handlers = handlers.toArray(new OutputChunkHandler[handlers.size()]);
+    _handlerExecutor = handlerExecutor;
+    _decoder = Charset.forName(charSet).newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  void start() {
+    LOOP.add(this);
   }
 
-  @Override
-  public void run()
-  {
-    try
-    {
-      Reader inputStreamReader = StreamUtil.getInputStreamReader(_streamToGobble, _gobblerCharset);
-      BufferedReader br = new BufferedReader(inputStreamReader);
+  /**
+   * Waits until the stream has ended and the handlers have seen all of it.
+   *
+   * @return the first exception thrown by a handler, or null
+   */
+  Throwable join() throws InterruptedException {
+    _done.await();
+    return _handlerFailure;
+  }
+
+  //
+  // Reading, on the loop thread or, once the process has exited, on a worker
+  //
 
-      String line;
-      while( (line = br.readLine()) != null ) {
-        _outputHandler.handleLine(line);
+  /**
+   * @return true if any output was read
+   */
+  private boolean poll() {
+    if (_pendingBytes.get() >= MAX_PENDING_BYTES) {
+      // Leave the output in the pipe until the handlers catch up
+      return false;
+    }
+    try {
+      // Check for exit first, whatever the process wrote before exiting is available after
+      boolean exited = !_process.isAlive();
+      int available = _streamToGobble.available();
+      if (available > 0) {
+        byte[] bytes = new byte[Math.min(available, BUFFER_SIZE)];
+        int read = _streamToGobble.read(bytes, 0, bytes.length);
+        if (read < 0) {
+          end();
+          return false;
+        }
+        dispatch(bytes, read);
+        return true;
       }
+      if (exited) {
+        _polled = false;
+        WORKERS.execute(this::drain);
+      }
+      return false;
     } catch (IOException ioe) {
-      //ignore
+      end();
+      return false;
+    }
+  }
+
+  /**
+   * Reads the rest of the stream, blocking until its end
+   */
+  private void drain() {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try {
+      int read;
+      while ((read = _streamToGobble.read(buffer)) >= 0) {
+        dispatch(Arrays.copyOf(buffer, read), read);
+        while (_pendingBytes.get() >= MAX_PENDING_BYTES) {
+          LockSupport.parkNanos(this, Loop.MAX_IDLE_NANOS);
+        }
+      }
+    } catch (IOException ioe) {
+      // the stream was closed
+    }
+    end();
+  }
+
+  private void dispatch(byte[] bytes, int length) {
+    _pendingBytes.addAndGet(length);
+    _handlerExecutor.execute(() -> {
+      _pendingBytes.addAndGet(-length);
+      handleBytes(bytes, length);
+    });
+  }
+
+  private void end() {
+    _polled = false;
+    _handlerExecutor.execute(this::handleEnd);
+  }
+
+  //
+  // Handling, on the handler executor
+  //
+
+  private void handleBytes(byte[] bytes, int length) {
+    for (int offset = 0; offset < length; ) {
+      int count = Math.min(_bytes.remaining(), length - offset);
+      _bytes.put(bytes, offset, count);
+      offset += count;
+      decode(false);
     }
   }
 
+  private void decode(boolean endOfInput) {
+    _bytes.flip();
+    while (_decoder.decode(_bytes, _chars, endOfInput).isOverflow()) {
+      handleChars();
+    }
+    if (endOfInput) {
+      CoderResult result;
+      do {
+        result = _decoder.flush(_chars);
+        handleChars();
+      } while (result.isOverflow());
+    }
+    handleChars();
+    _bytes.compact();
+  }
+
+  private void handleChars() {
+    if (_chars.position() == 0) {
+      return;
+    }
+    // Once a handler fails the stream is still read, so the process doesn't block on a full pipe
+    if (_handlerFailure == null) {
+      try {
+        for (OutputChunkHandler handler : _handlers) {
+          handler.handleChunk(_chars.array(), 0, _chars.position());
+        }
+      } catch (Throwable t) {
+        _handlerFailure = t;
+      }
+    }
+    _chars.clear();
+  }
+
+  private void handleEnd() {
+    try {
+      decode(true);
+      if (_handlerFailure == null) {
+        for (OutputChunkHandler handler : _handlers) {
+          handler.handleEnd();
+        }
+      }
+    } catch (Throwable t) {
+      _handlerFailure = t;
+    } finally {
+      _done.countDown();
+    }
+  }
+
+  private static class Loop implements Runnable {
+    private static final long MIN_IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Queue<Gobbler> _added = new ConcurrentLinkedQueue<Gobbler>();
+    private Thread _thread;
+
+    synchronized void add(Gobbler gobbler) {
+      _added.add(gobbler);
+      if (_thread == null) {
+        _thread = new Thread(this, "gosu-process-gobbler");
+        _thread.setDaemon(true);
+        _thread.start();
+      }
+      else {
+        LockSupport.unpark(_thread);
+      }
+    }
+
+    @Override
+    public void run() {
+      List<Gobbler> active = new ArrayList<Gobbler>();
+      long idleNanos = MIN_IDLE_NANOS;
+      while (true) {
+        Gobbler added;
+        while ((added = _added.poll()) != null) {
+          active.add(added);
+          idleNanos = MIN_IDLE_NANOS;
+        }
+        boolean progress = false;
+        for (Iterator<Gobbler> iter = active.iterator(); iter.hasNext(); ) {
+          Gobbler gobbler = iter.next();
+          progress |= gobbler.poll();
+          if (!gobbler._polled) {
+            iter.remove();
+          }
+        }
+        if (progress) {
+          idleNanos = MIN_IDLE_NANOS;
+        }
+        else if (active.isEmpty()) {
+          LockSupport.park(this);
+        }
+        else {
+          // Back off while the processes are quiet
+          LockSupport.parkNanos(this, idleNanos);
+          idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+/**
+ * Splits chunks of output into lines for an {@link OutputHandler}. Lines end with '\n', '\r' or
+ * "\r\n", the same as with {@link java.io.BufferedReader#readLine()}.
+ */
+class LineSplitter implements OutputChunkHandler {
+  private final OutputHandler _handler;
+  private final StringBuilder _partialLine = new StringBuilder();
+  private boolean _skipLf;
+
+  LineSplitter(OutputHandler handler) {
+    _handler = handler;
+  }
+
+  @Override
+  public void handleChunk(char[] chunk, int offset, int length) {
+    int end = offset + length;
+    int start = offset;
+    for (int i = offset; i < end; i++) {
+      char c = chunk[i];
+      if (_skipLf) {
+        _skipLf = false;
+        if (c == '\n') {
+          start = i + 1;
+          continue;
+        }
+      }
+      if (c == '\n' || c == '\r') {
+        handleLine(chunk, start, i);
+        _skipLf = c == '\r';
+        start = i + 1;
+      }
+    }
+    if (start < end) {
+      _partialLine.append(chunk, start, end - start);
+    }
+  }
+
+  private void handleLine(char[] chunk, int start, int end) {
+    if (_partialLine.length() == 0) {
+      _handler.handleLine(new String(chunk, start, end - start));
+    }
+    else {
+      _partialLine.append(chunk, start, end - start);
+      String line = _partialLine.toString();
+      _partialLine.setLength(0);
+      _handler.handleLine(line);
+    }
+  }
+
+  @Override
+  public void handleEnd() {
+    if (_partialLine.length() > 0) {
+      String line = _partialLine.toString();
+      _partialLine.setLength(0);
+      _handler.handleLine(line);
+    }
+  }
+}
@@ -4,21 +4,63 @@
 
 package gw.util.process;
 
-import java.io.StringWriter;
+import java.io.File;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Buffers all lines of output in memory.
  */
-class OutputBuffer extends StringWriter implements OutputHandler {
-  private final ReentrantLock _lock = new ReentrantLock();
+class OutputBuffer implements OutputHandler {
+  final ReentrantLock _lock = new ReentrantLock();
+  private final StringBuilder _buffer = new StringBuilder();
 
   @Override
   public void handleLine(String line) {
     _lock.lock();
     try {
-      append(line).append('\n');
+      append(line);
     } finally {
       _lock.unlock();
     }
   }
+
+  /**
+   * Appends a line of output, called with the lock held
+   */
+  protected void append(String line) {
+    _buffer.append(line).append('\n');
+  }
+
+  /**
+   * @return the buffered output
+   */
+  String getText() {
+    _lock.lock();
+    try {
+      return text();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  /**
+   * @return the buffered output, called with the lock held
+   */
+  protected String text() {
+    return _buffer.toString();
+  }
+
+  /**
+   * @return true if some of the output was dropped from the buffer
+   */
+  boolean isTruncated() {
+    return false;
+  }
+
+  /**
+   * @return the file holding the buffered output, or null if it is held in memory
+   */
+  File getFile() {
+    return null;
+  }
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+/**
+ * Receives a process' output in chunks of characters as soon as they are read. Unlike an
+ * {@link OutputHandler} there is no call per line, which makes it the cheaper choice for
+ * processes producing a lot of output. Chunks are not aligned to lines.
+ * <p/>
+ * The output handlers of a process are called one at a time, on a worker thread.
+ */
+public interface OutputChunkHandler {
+  /**
+   * Handles the next chunk of output. The array is reused after this call returns.
+   *
+   * @param chunk  array holding the characters read
+   * @param offset offset of the first character read
+   * @param length number of characters read
+   */
+  void handleChunk(char[] chunk, int offset, int length);
+
+  /**
+   * Called once after the last chunk, when the process has finished writing to the stream.
+   */
+  default void handleEnd() {
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link ProcessRunner}s concurrently, at most a fixed number at a time. Each submitted runner
+ * is executed with {@link ProcessRunner#exec()}, and its future completes with the runner itself,
+ * so the exit code and the buffered output are available from {@link ProcessRunner#getExitCode()}
+ * and {@link ProcessRunner#getBuffer()}. Completion callbacks can be chained on the future.
+ * <p/>
+ * Submitting blocks while the pool already holds as many runners as it may run plus queue, so a
+ * producer can't get arbitrarily far ahead of the processes.
+ *
+ * <p>
+ * <b>Example Usage:</b>
+ * <pre>
+ *   using( var pool = new ProcessPool( 8 ) ) {
+ *     for( file in files ) {
+ *       pool.submit( new ProcessRunner( { "gzip", file.Path } ).withStdErrBuffered() )
+ *         .thenAccept( \ r -> print( "${file}: ${r.ExitCode}" ) )
+ *     }
+ *   }
+ * </pre>
+ * </p>
+ */
+public class ProcessPool implements Closeable {
+  private final ExecutorService _executor;
+  private final Semaphore _permits;
+
+  /**
+   * Creates a pool running up to <code>maxConcurrent</code> processes at a time, and queueing as
+   * many more.
+   *
+   * @param maxConcurrent the most processes to run at a time
+   */
+  public ProcessPool(int maxConcurrent) {
+    this(maxConcurrent, maxConcurrent);
+  }
+
+  /**
+   * Creates a pool running up to <code>maxConcurrent</code> processes at a time.
+   *
+   * @param maxConcurrent the most processes to run at a time
+   * @param maxQueued the most submitted processes waiting to run, beyond which
+   *                  {@link #submit(ProcessRunner)} blocks
+   */
+  public ProcessPool(int maxConcurrent, int maxQueued) {
+    if (maxConcurrent <= 0 || maxQueued < 0) {
+      throw new IllegalArgumentException("Illegal pool size: " + maxConcurrent + " running, " + maxQueued + " queued");
+    }
+    AtomicInteger threadCount = new AtomicInteger();
+    _executor = Executors.newFixedThreadPool(maxConcurrent, r -> {
+      Thread thread = new Thread(r, "gosu-process-pool-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    _permits = new Semaphore(maxConcurrent + maxQueued);
+  }
+
+  /**
+   * Submits a process to run, waiting while the pool is full. The runner must not be executed
+   * elsewhere until its future completes.
+   *
+   * @param runner the process to run
+   * @return a future completing with the runner once the process finishes, or completing
+   * exceptionally if the process could not be run
+   * @throws InterruptedException if interrupted while waiting for room in the pool
+   */
+  public CompletableFuture<ProcessRunner> submit(ProcessRunner runner) throws InterruptedException {
+    _permits.acquire();
+    try {
+      // The permit is back before the caller sees the runner complete
+      return CompletableFuture.supplyAsync(runner::exec, _executor)
+        .whenComplete((r, e) -> _permits.release());
+    } catch (RuntimeException e) {
+      // e.g., the pool is closed
+      _permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Runs the processes concurrently and waits for all of them to finish.
+   *
+   * @param runners the processes to run
+   * @return the runners, in the same order
+   * @throws ExecutionException if a process could not be run
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public List<ProcessRunner> execAll(Collection<ProcessRunner> runners) throws ExecutionException, InterruptedException {
+    List<CompletableFuture<ProcessRunner>> futures = new ArrayList<CompletableFuture<ProcessRunner>>();
+    for (ProcessRunner runner : runners) {
+      futures.add(submit(runner));
+    }
+    List<ProcessRunner> result = new ArrayList<ProcessRunner>();
+    for (CompletableFuture<ProcessRunner> future : futures) {
+      result.add(future.get());
+    }
+    return result;
+  }
+
+  /**
+   * Stops accepting processes and waits for the submitted ones to finish.
+   */
+  @Override
+  public void close() throws IOException {
+    _executor.shutdown();
+    try {
+      while (!_executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        // keep waiting, processes may run long
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+}
@@ -4,6 +4,7 @@
 
 package gw.util.process;
 
+import gw.util.GosuExceptionUtil;
 import gw.util.OSPlatform;
 import gw.util.StreamUtil;
 
@@ -16,6 +17,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class ProcessRunner {
 
@@ -34,6 +37,10 @@ public class ProcessRunner {
   private boolean _bufferStdErr;
   private List<OutputHandler> _stdOutHandlers = new ArrayList<OutputHandler>();
   private List<OutputHandler> _stdErrHandlers = new ArrayList<OutputHandler>();
+  private List<OutputChunkHandler> _stdOutChunkHandlers = new ArrayList<OutputChunkHandler>();
+  private List<OutputChunkHandler> _stdErrChunkHandlers = new ArrayList<OutputChunkHandler>();
+  private int _bufferLimit = -1;
+  private File _bufferSpillFile;
   private String _charset = "UTF-8";
 
   public static String execWithCharset(String charset, String... command) {
@@ -68,7 +75,9 @@ public class ProcessRunner {
    * (cmd.exe on windows, /bin/sh on *nix).  The resulting exit code and the output buffer are
    * accessible after this call, with {@link #getExitCode()} and {@link #getBuffer()}, respectively.
    *
-   * <p>This method blocks on the execution of the command.</p>
+   * <p>This method blocks on the execution of the command. If an output handler throws, the rest
+   * of the output is still read but no longer handled, and the handler's exception is rethrown
+   * once the process finishes.</p>
    *
    * <p>
    * <b>Example Usages:</b>
@@ -106,7 +115,7 @@ public class ProcessRunner {
     ChainedOutputHandler stdOut = new ChainedOutputHandler();
     ChainedOutputHandler stdErr = new ChainedOutputHandler();
     if (_bufferStdOut || _bufferStdErr) {
-      _buffer = new OutputBuffer();
+      _buffer = newOutputBuffer();
       if (_bufferStdOut) {
         stdOut.add(_buffer);
       }
@@ -133,7 +142,7 @@ public class ProcessRunner {
       if (echo != null) {
         echo.processStarted();
       }
-      _exitCode = nomNomNom(process, stdOut.maybeReduce(), stdErr.maybeReduce(), _charset);
+      nomNomNom(process, chunkHandlers(stdOut, _stdOutChunkHandlers), chunkHandlers(stdErr, _stdErrChunkHandlers), _charset);
       if (echo != null) {
         echo.processFinished();
       }
@@ -149,6 +158,37 @@ public class ProcessRunner {
     return this;
   }
 
+  /**
+   * Executes this command in the given pool, concurrently with other processes in the pool,
+   * see {@link #exec()} and {@link ProcessPool#submit(ProcessRunner)}.
+   *
+   * @param pool the pool to run the process in
+   * @return a future completing with this object when the process finishes
+   * @throws InterruptedException if interrupted while waiting for room in the pool
+   */
+  public CompletableFuture<ProcessRunner> execIn(ProcessPool pool) throws InterruptedException {
+    return pool.submit(this);
+  }
+
+  private OutputBuffer newOutputBuffer() {
+    if (_bufferSpillFile != null) {
+      return new SpillingOutputBuffer(_bufferLimit, _bufferSpillFile, _charset);
+    }
+    if (_bufferLimit >= 0) {
+      return new TailOutputBuffer(_bufferLimit);
+    }
+    return new OutputBuffer();
+  }
+
+  private static List<OutputChunkHandler> chunkHandlers(ChainedOutputHandler lineHandlers, List<OutputChunkHandler> chunkHandlers) {
+    List<OutputChunkHandler> handlers = new ArrayList<OutputChunkHandler>();
+    if (!lineHandlers.isEmpty()) {
+      handlers.add(new LineSplitter(lineHandlers.maybeReduce()));
+    }
+    handlers.addAll(chunkHandlers);
+    return handlers;
+  }
+
   private static void feedInput(Process process, String input, String charset) throws IOException {
     Writer inputEmitter = null;
     try {
@@ -165,9 +205,14 @@ public class ProcessRunner {
     }
   }
 
-  private static Integer nomNomNom(Process process, OutputHandler stdOut, OutputHandler stdErr, String charset) {
-    Gobbler outputGobbler = new Gobbler( process.getInputStream(), stdOut, charset );
-    Gobbler errorGobbler = new Gobbler( process.getErrorStream(), stdErr, charset );
+  /**
+   * Waits for the process and its output. Sets the exit code, then rethrows an exception thrown by
+   * an output handler.
+   */
+  private void nomNomNom(Process process, List<OutputChunkHandler> stdOut, List<OutputChunkHandler> stdErr, String charset) {
+    Executor handlerExecutor = Gobbler.newHandlerExecutor();
+    Gobbler outputGobbler = new Gobbler( process, process.getInputStream(), charset, stdOut, handlerExecutor );
+    Gobbler errorGobbler = new Gobbler( process, process.getErrorStream(), charset, stdErr, handlerExecutor );
 
     // kick off the gobblers
     errorGobbler.start();
@@ -175,9 +220,16 @@ public class ProcessRunner {
 
     try {
       int exitCode = process.waitFor();
-      errorGobbler.join();
-      outputGobbler.join();
-      return exitCode;
+      Throwable errorFailure = errorGobbler.join();
+      Throwable outputFailure = outputGobbler.join();
+      _exitCode = exitCode;
+      if (outputFailure != null && errorFailure != null) {
+        outputFailure.addSuppressed(errorFailure);
+      }
+      Throwable failure = outputFailure != null ? outputFailure : errorFailure;
+      if (failure != null) {
+        throw GosuExceptionUtil.forceThrow(failure);
+      }
     } catch (InterruptedException e) {
       //ignore
     } finally {
@@ -187,7 +239,6 @@ public class ProcessRunner {
         e.printStackTrace();
       }
     }
-    return null;
   }
 
   public String getRawCmdStr() {
@@ -217,10 +268,32 @@ public class ProcessRunner {
    * If a buffer was desired and the process printed nothing out, an empty string is
    * returned.
    *
+   * If the buffer was spilled to a file, see {@link #withBufferSpilledToFile(int, File)}, the
+   * content of the file is returned.
+   *
    * @return the buffer, or null if nothing was to be buffered
    */
   public String getBuffer() {
-    return _buffer == null ? null : _buffer.toString();
+    return _buffer == null ? null : _buffer.getText();
+  }
+
+  /**
+   * Returns whether the buffer dropped output to stay within the limit set with
+   * {@link #withBufferLimit(int)}.
+   *
+   * @return true if the buffer holds only the end of the output
+   */
+  public boolean isBufferTruncated() {
+    return _buffer != null && _buffer.isTruncated();
+  }
+
+  /**
+   * Returns the file the buffer was spilled to, see {@link #withBufferSpilledToFile(int, File)}.
+   *
+   * @return the file holding the buffer, or null if the buffer is held in memory
+   */
+  public File getBufferFile() {
+    return _buffer == null ? null : _buffer.getFile();
   }
 
   /**
@@ -309,6 +382,38 @@ public class ProcessRunner {
     return this;
   }
 
+  /**
+   * Limits the buffer accessible by {@link #getBuffer()} to the last <code>maxChars</code>
+   * characters of output. Older output is dropped as new output arrives.
+   *
+   * @param maxChars the most characters to keep in the buffer, more than 0
+   * @return this object for chaining
+   * @throws IllegalArgumentException if <code>maxChars</code> is 0 or less
+   */
+  public ProcessRunner withBufferLimit(int maxChars) {
+    if (maxChars <= 0) {
+      throw new IllegalArgumentException("Buffer limit must be positive: " + maxChars);
+    }
+    _bufferLimit = maxChars;
+    _bufferSpillFile = null;
+    return this;
+  }
+
+  /**
+   * Keeps up to <code>maxChars</code> characters of the buffer accessible by {@link #getBuffer()}
+   * in memory. Once the output grows beyond that, the buffer is moved to <code>spillFile</code>
+   * and the rest of the output is appended there.
+   *
+   * @param maxChars the most characters to keep in memory
+   * @param spillFile the file to hold the buffer if it grows beyond <code>maxChars</code>
+   * @return this object for chaining
+   */
+  public ProcessRunner withBufferSpilledToFile(int maxChars, File spillFile) {
+    _bufferLimit = maxChars;
+    _bufferSpillFile = spillFile;
+    return this;
+  }
+
   /**
    * Sets this process' output to be displayed the parent process' stdout and stderr.
    *
@@ -370,4 +475,34 @@ public class ProcessRunner {
     _stdOutHandlers.add(stdOutHandler);
     return this;
   }
+
+  /**
+   * Adds a handler for chunks of output to this process' stderr. Prefer this to
+   * {@link #withStdErrHandler(OutputHandler)} for processes with a lot of output.
+   *
+   * This can be called multiple times in a chain to add multiple handlers.
+   *
+   * @param stdErrHandler handler that will be called with every chunk of output to stderr
+   * @return this object for chaining
+   */
+  public ProcessRunner withStdErrChunkHandler( OutputChunkHandler stdErrHandler )
+  {
+    _stdErrChunkHandlers.add(stdErrHandler);
+    return this;
+  }
+
+  /**
+   * Adds a handler for chunks of output to this process' stdout. Prefer this to
+   * {@link #withStdOutHandler(OutputHandler)} for processes with a lot of output.
+   *
+   * This can be called multiple times in a chain to add multiple handlers.
+   *
+   * @param stdOutHandler handler that will be called with every chunk of output to stdout
+   * @return this object for chaining
+   */
+  public ProcessRunner withStdOutChunkHandler( OutputChunkHandler stdOutHandler )
+  {
+    _stdOutChunkHandlers.add(stdOutHandler);
+    return this;
+  }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks one at a time, in the order they are submitted, on threads of a shared executor.
+ * Tasks must not throw.
+ */
+class SerialExecutor implements Executor {
+  private final Executor _executor;
+  private final Queue<Runnable> _tasks = new ArrayDeque<Runnable>();
+  private boolean _running;
+
+  SerialExecutor(Executor executor) {
+    _executor = executor;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    boolean start;
+    synchronized (this) {
+      _tasks.add(task);
+      start = !_running;
+      _running = true;
+    }
+    if (start) {
+      _executor.execute(this::runTasks);
+    }
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = next()) != null) {
+      task.run();
+    }
+  }
+
+  private synchronized Runnable next() {
+    Runnable task = _tasks.poll();
+    _running = task != null;
+    return task;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import gw.util.StreamUtil;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Buffers output in memory up to a limit, then moves it to a file and appends the rest of the
+ * output there.
+ */
+class SpillingOutputBuffer extends OutputBuffer implements Closeable {
+  private final int _maxChars;
+  private final File _file;
+  private final String _charset;
+  private final StringBuilder _buffer = new StringBuilder();
+  private Writer _writer;
+  private boolean _spilled;
+
+  SpillingOutputBuffer(int maxChars, File file, String charset) {
+    _maxChars = maxChars;
+    _file = file;
+    _charset = charset;
+  }
+
+  @Override
+  protected void append(String line) {
+    if (!_spilled && _buffer.length() + line.length() + 1 > _maxChars) {
+      spill();
+    }
+    if (_spilled) {
+      try {
+        if (_writer == null) {
+          // Output after close, e.g. when the wait for the process was interrupted
+          _writer = openWriter(true);
+        }
+        _writer.write(line);
+        _writer.write('\n');
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    else {
+      _buffer.append(line).append('\n');
+    }
+  }
+
+  private void spill() {
+    try {
+      _writer = openWriter(false);
+      _writer.append(_buffer);
+      _buffer.setLength(0);
+      _buffer.trimToSize();
+      _spilled = true;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Writer openWriter(boolean append) throws IOException {
+    return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(_file, append), _charset));
+  }
+
+  @Override
+  protected String text() {
+    if (!_spilled) {
+      return _buffer.toString();
+    }
+    try {
+      if (_writer != null) {
+        _writer.flush();
+      }
+      try (InputStream in = new FileInputStream(_file)) {
+        return StreamUtil.getContent(StreamUtil.getInputStreamReader(in, _charset));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  File getFile() {
+    return _spilled ? _file : null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    _lock.lock();
+    try {
+      // Both the stdout and the stderr handlers close the buffer
+      if (_writer != null) {
+        _writer.close();
+        _writer = null;
+      }
+    } finally {
+      _lock.unlock();
+    }
+  }
+}
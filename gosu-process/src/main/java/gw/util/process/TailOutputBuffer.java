@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+/**
+ * Buffers only the last characters of output, in a ring buffer of a fixed size.
+ */
+class TailOutputBuffer extends OutputBuffer {
+  private final char[] _ring;
+  private int _start;
+  private int _size;
+  private boolean _truncated;
+
+  TailOutputBuffer(int maxChars) {
+    if (maxChars <= 0) {
+      throw new IllegalArgumentException("Buffer limit must be positive: " + maxChars);
+    }
+    _ring = new char[maxChars];
+  }
+
+  @Override
+  protected void append(String line) {
+    int length = line.length();
+    int skip = Math.max(0, length + 1 - _ring.length);
+    for (int i = skip; i < length; i++) {
+      append(line.charAt(i));
+    }
+    append('\n');
+    _truncated |= skip > 0;
+  }
+
+  private void append(char c) {
+    if (_size < _ring.length) {
+      _ring[(_start + _size++) % _ring.length] = c;
+    }
+    else {
+      _ring[_start] = c;
+      _start = (_start + 1) % _ring.length;
+      _truncated = true;
+    }
+  }
+
+  @Override
+  protected String text() {
+    StringBuilder text = new StringBuilder(_size);
+    int firstPart = Math.min(_size, _ring.length - _start);
+    text.append(_ring, _start, firstPart);
+    text.append(_ring, 0, _size - firstPart);
+    return text.toString();
+  }
+
+  @Override
+  boolean isTruncated() {
+    return _truncated;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GobblerTest
+{
+  @Test
+  public void testReadsUntilTheEndOfTheStreamAfterTheProcessExits() throws Exception
+  {
+    // The process has exited, but something else still holds the stream open, e.g. a child of the process
+    PipedOutputStream out = new PipedOutputStream();
+    PipedInputStream in = new PipedInputStream( out );
+    out.write( "early\n".getBytes( "UTF-8" ) );
+    List<String> lines = Collections.synchronizedList( new ArrayList<String>() );
+    Gobbler gobbler = gobble( in, new LineSplitter( lines::add ) );
+
+    Thread.sleep( 200 );
+    out.write( "late\n".getBytes( "UTF-8" ) );
+    out.close();
+
+    assertNull( gobbler.join() );
+    assertEquals( Arrays.asList( "early", "late" ), lines );
+  }
+
+  @Test
+  public void testHandlerFailureIsReportedAndTheStreamIsStillRead() throws Exception
+  {
+    IllegalStateException failure = new IllegalStateException();
+    ByteArrayInputStream in = new ByteArrayInputStream( "a\nb\nc\n".getBytes( "UTF-8" ) );
+    Gobbler gobbler = gobble( in, new LineSplitter( line -> {
+      throw failure;
+    } ) );
+
+    assertSame( failure, gobbler.join() );
+    assertEquals( 0, in.available() );
+  }
+
+  private static Gobbler gobble( InputStream in, OutputChunkHandler handler )
+  {
+    Gobbler gobbler = new Gobbler( new ExitedProcess(), in, "UTF-8", Collections.singletonList( handler ), Gobbler.newHandlerExecutor() );
+    gobbler.start();
+    return gobbler;
+  }
+
+  private static class ExitedProcess extends Process
+  {
+    @Override
+    public OutputStream getOutputStream()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public InputStream getInputStream()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public InputStream getErrorStream()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int waitFor()
+    {
+      return 0;
+    }
+
+    @Override
+    public int exitValue()
+    {
+      return 0;
+    }
+
+    @Override
+    public void destroy()
+    {
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineSplitterTest
+{
+  @Test
+  public void testSplitsOnLfCrAndCrLf()
+  {
+    assertEquals( Arrays.asList( "a", "b", "c", "", "d" ), split( "a\nb\rc\r\n\nd" ) );
+  }
+
+  @Test
+  public void testCrLfSplitAcrossChunksEndsOneLine()
+  {
+    assertEquals( Arrays.asList( "a", "b" ), split( "a\r", "\nb" ) );
+    assertEquals( Arrays.asList( "a", "", "b" ), split( "a\r", "\r", "\nb" ) );
+  }
+
+  @Test
+  public void testLineSplitAcrossChunks()
+  {
+    assertEquals( Arrays.asList( "abc", "def" ), split( "a", "b", "c\nd", "ef\n" ) );
+  }
+
+  @Test
+  public void testLastLineWithoutTerminatorIsHandledAtEnd()
+  {
+    assertEquals( Arrays.asList( "a", "b" ), split( "a\n", "b" ) );
+    assertEquals( Arrays.asList( "a" ), split( "a\r\n" ) );
+  }
+
+  private static List<String> split( String... chunks )
+  {
+    List<String> lines = new ArrayList<String>();
+    LineSplitter splitter = new LineSplitter( lines::add );
+    for( String chunk : chunks )
+    {
+      // pass the chunk in the middle of a larger array, as the gobbler's buffer would
+      char[] buffer = ("xx" + chunk + "yy").toCharArray();
+      splitter.handleChunk( buffer, 2, chunk.length() );
+    }
+    splitter.handleEnd();
+    return lines;
+  }
+}
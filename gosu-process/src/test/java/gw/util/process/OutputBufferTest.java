@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OutputBufferTest
+{
+  @Rule
+  public TemporaryFolder _tmp = new TemporaryFolder();
+
+  @Test
+  public void testTailBufferKeepsTheEndOfTheOutput()
+  {
+    TailOutputBuffer buffer = new TailOutputBuffer( 8 );
+    buffer.handleLine( "abc" );
+    assertEquals( "abc\n", buffer.getText() );
+    assertFalse( buffer.isTruncated() );
+
+    buffer.handleLine( "def" );
+    assertEquals( "abc\ndef\n", buffer.getText() );
+    assertFalse( buffer.isTruncated() );
+
+    buffer.handleLine( "gh" );
+    assertEquals( "\ndef\ngh\n", buffer.getText() );
+    assertTrue( buffer.isTruncated() );
+  }
+
+  @Test
+  public void testTailBufferTruncatesALineLongerThanTheLimit()
+  {
+    TailOutputBuffer buffer = new TailOutputBuffer( 4 );
+    buffer.handleLine( "abcdefg" );
+    assertEquals( "efg\n", buffer.getText() );
+    assertTrue( buffer.isTruncated() );
+  }
+
+  @Test
+  public void testSpillingBufferMovesToFileBeyondLimit() throws Exception
+  {
+    File file = new File( _tmp.getRoot(), "out.txt" );
+    SpillingOutputBuffer buffer = new SpillingOutputBuffer( 10, file, "UTF-8" );
+    buffer.handleLine( "abcd" );
+    assertEquals( "abcd\n", buffer.getText() );
+    assertNull( buffer.getFile() );
+    assertFalse( file.exists() );
+
+    buffer.handleLine( "efghij" );
+    assertEquals( file, buffer.getFile() );
+    assertEquals( "abcd\nefghij\n", buffer.getText() );
+
+    buffer.handleLine( "k" );
+    buffer.close();
+    assertEquals( "abcd\nefghij\nk\n", buffer.getText() );
+    assertEquals( "abcd\nefghij\nk\n".length(), file.length() );
+    assertFalse( buffer.isTruncated() );
+  }
+}
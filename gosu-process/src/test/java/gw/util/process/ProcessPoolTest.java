@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import gw.util.OSPlatform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static gw.util.process.ProcessRunnerTest.sh;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+
+public class ProcessPoolTest
+{
+  @Before
+  public void checkPlatform()
+  {
+    assumeFalse( OSPlatform.isWindows() );
+  }
+
+  @Test(timeout = 30000)
+  public void testSubmitBlocksWhileRunningAndQueuedAreFull() throws Exception
+  {
+    CountDownLatch release = new CountDownLatch( 1 );
+    try( ProcessPool pool = new ProcessPool( 1, 1 ) )
+    {
+      pool.submit( blockedUntil( release ) );
+      pool.submit( blockedUntil( release ) );
+
+      AtomicReference<CompletableFuture<ProcessRunner>> third = new AtomicReference<>();
+      Thread submitter = new Thread( () -> {
+        try
+        {
+          third.set( pool.submit( sh( "echo third" ).withStdOutBuffered() ) );
+        }
+        catch( InterruptedException e )
+        {
+          Thread.currentThread().interrupt();
+        }
+      } );
+      submitter.start();
+      submitter.join( 300 );
+      assertTrue( submitter.isAlive() );
+
+      release.countDown();
+      submitter.join();
+      assertEquals( "third\n", third.get().get().getBuffer() );
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testPermitIsReturnedWhenARunnerThrows() throws Exception
+  {
+    try( ProcessPool pool = new ProcessPool( 1, 0 ) )
+    {
+      for( int i = 0; i < 3; i++ )
+      {
+        CompletableFuture<ProcessRunner> future = pool.submit( sh( "echo x" ).withStdOutHandler( line -> {
+          throw new IllegalStateException( "handler failed" );
+        } ) );
+        try
+        {
+          future.get();
+          fail();
+        }
+        catch( ExecutionException e )
+        {
+          assertTrue( e.getCause() instanceof IllegalStateException );
+        }
+      }
+      // all permits are back, or this would block
+      assertEquals( "ok\n", pool.submit( sh( "echo ok" ).withStdOutBuffered() ).get().getBuffer() );
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testExecAllKeepsTheOrderOfTheRunners() throws Exception
+  {
+    List<ProcessRunner> runners = new ArrayList<>();
+    for( int i = 0; i < 6; i++ )
+    {
+      // the first runners finish last
+      runners.add( sh( "sleep 0." + (6 - i) + "; echo " + i ).withStdOutBuffered() );
+    }
+    try( ProcessPool pool = new ProcessPool( 6 ) )
+    {
+      List<ProcessRunner> result = pool.execAll( runners );
+      assertEquals( runners.size(), result.size() );
+      for( int i = 0; i < runners.size(); i++ )
+      {
+        assertSame( runners.get( i ), result.get( i ) );
+        assertEquals( i + "\n", result.get( i ).getBuffer() );
+      }
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testCloseWaitsForRunningProcessesAndRejectsNewOnes() throws Exception
+  {
+    ProcessPool pool = new ProcessPool( 2 );
+    CompletableFuture<ProcessRunner> running = pool.submit( sh( "sleep 0.3; echo done" ).withStdOutBuffered() );
+    CompletableFuture<ProcessRunner> queued = pool.submit( sh( "echo queued" ).withStdOutBuffered() );
+    assertFalse( running.isDone() );
+
+    pool.close();
+    assertTrue( running.isDone() );
+    assertEquals( "done\n", running.get( 0, TimeUnit.SECONDS ).getBuffer() );
+    assertEquals( "queued\n", queued.get( 0, TimeUnit.SECONDS ).getBuffer() );
+
+    try
+    {
+      pool.submit( sh( "echo late" ) );
+      fail();
+    }
+    catch( RejectedExecutionException e )
+    {
+      // closed
+    }
+  }
+
+  private static ProcessRunner blockedUntil( CountDownLatch release )
+  {
+    return sh( "echo x" ).withStdOutHandler( line -> {
+      try
+      {
+        release.await();
+      }
+      catch( InterruptedException e )
+      {
+        throw new RuntimeException( e );
+      }
+    } );
+  }
+}
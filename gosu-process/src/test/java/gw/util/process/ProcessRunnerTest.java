@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import gw.util.OSPlatform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+
+public class ProcessRunnerTest
+{
+  @Before
+  public void checkPlatform()
+  {
+    assumeFalse( OSPlatform.isWindows() );
+  }
+
+  @Test
+  public void testBuffersStdOutAndStdErr()
+  {
+    ProcessRunner runner = sh( "echo out; echo err 1>&2; exit 3" ).withStdOutBuffered().withStdErrBuffered().exec();
+    assertEquals( Integer.valueOf( 3 ), runner.getExitCode() );
+    assertTrue( runner.getBuffer().contains( "out\n" ) );
+    assertTrue( runner.getBuffer().contains( "err\n" ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testBufferLimitMustBePositive()
+  {
+    sh( "true" ).withBufferLimit( 0 );
+  }
+
+  @Test
+  public void testLargeOutputIsReadWhole()
+  {
+    ProcessRunner runner = sh( "i=0; while [ $i -lt 20000 ]; do echo line$i; i=$((i+1)); done" ).withStdOutBuffered().exec();
+    String[] lines = runner.getBuffer().split( "\n" );
+    assertEquals( 20000, lines.length );
+    assertEquals( "line19999", lines[19999] );
+  }
+
+  @Test
+  public void testHandlerExceptionIsRethrownAfterTheProcessFinishes()
+  {
+    List<String> lines = new ArrayList<String>();
+    ProcessRunner runner = sh( "echo a; echo b; echo c" )
+      .withStdOutHandler( line -> {
+        lines.add( line );
+        if( line.equals( "b" ) )
+        {
+          throw new IllegalStateException( "handler failed" );
+        }
+      } );
+    try
+    {
+      runner.exec();
+      fail();
+    }
+    catch( IllegalStateException e )
+    {
+      assertEquals( "handler failed", e.getMessage() );
+    }
+    // the handler isn't called after it fails, the process still finishes
+    assertEquals( 2, lines.size() );
+    assertEquals( Integer.valueOf( 0 ), runner.getExitCode() );
+  }
+
+  @Test
+  public void testBlockedHandlerHoldsUpOnlyItsOwnProcess() throws Exception
+  {
+    CountDownLatch release = new CountDownLatch( 1 );
+    Thread blocked = new Thread( () -> sh( "echo x" ).withStdOutHandler( line -> {
+      try
+      {
+        release.await();
+      }
+      catch( InterruptedException e )
+      {
+        throw new RuntimeException( e );
+      }
+    } ).exec() );
+    blocked.start();
+    try
+    {
+      long start = System.nanoTime();
+      ProcessRunner runner = sh( "echo y" ).withStdOutBuffered().exec();
+      assertEquals( "y\n", runner.getBuffer() );
+      assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 10 ) );
+      assertTrue( blocked.isAlive() );
+    }
+    finally
+    {
+      release.countDown();
+      blocked.join( 10000 );
+    }
+  }
+
+  @Test
+  public void testManyConcurrentRunners() throws Exception
+  {
+    int count = 64;
+    ProcessRunner[] runners = new ProcessRunner[count];
+    Thread[] threads = new Thread[count];
+    for( int i = 0; i < count; i++ )
+    {
+      int id = i;
+      runners[i] = sh( "for j in 1 2 3; do echo " + id + "-$j; sleep 0.01; done" ).withStdOutBuffered();
+      threads[i] = new Thread( runners[i]::exec );
+      threads[i].start();
+    }
+    for( int i = 0; i < count; i++ )
+    {
+      threads[i].join( 60000 );
+      assertEquals( Integer.valueOf( 0 ), runners[i].getExitCode() );
+      assertEquals( i + "-1\n" + i + "-2\n" + i + "-3\n", runners[i].getBuffer() );
+    }
+  }
+
+  static ProcessRunner sh( String script )
+  {
+    return new ProcessRunner( "sh", "-c", script );
+  }
+}
@@ -0,0 +1,87 @@
+package gw.internal.gosu.compiler.sample.expression
+
+uses gw.util.Rational
+uses gw.util.science.Length
+uses gw.util.science.LengthUnit
+uses gw.util.science.UnitConstants#*
+uses java.lang.StringBuffer
+uses java.lang.StringBuilder
+uses java.util.ArrayList
+uses java.util.List
+
+class TestNewTypeVarExpression<T>
+{
+  function make( value: Object ) : T
+  {
+    return new T( value )
+  }
+
+  function make( value: Object, unit: Object ) : T
+  {
+    return new T( value, unit, unit )
+  }
+
+  function makeInner<E>( value: String ) : E
+  {
+    return new E( value )
+  }
+
+  static function makeAlternating( count: Integer ) : List<Object>
+  {
+    var builders = new TestNewTypeVarExpression<StringBuilder>()
+    var buffers = new TestNewTypeVarExpression<StringBuffer>()
+    var result = new ArrayList<Object>()
+    for( i in 0..|count )
+    {
+      result.add( (i % 2 == 0 ? builders : buffers).make( "x" + i ) )
+    }
+    return result
+  }
+
+  static function makeWithCoercedArg() : Object
+  {
+    return new TestNewTypeVarExpression<StringBuilder>().make( 64 )
+  }
+
+  static function makeInnerTwice() : List<Inner>
+  {
+    var outer = new TestNewTypeVarExpression<String>()
+    return {outer.makeInner<Inner>( "a" ), outer.makeInner<Inner>( "b" )}
+  }
+
+  static function sumLengths( count: Integer ) : Length
+  {
+    var sum = 0 m
+    var step = 3 m
+    for( i in 0..|count )
+    {
+      sum = sum + step
+      sum = sum - 1 m
+    }
+    return sum
+  }
+
+  static function makeLengths( count: Integer )
+  {
+    var lengths = new TestNewTypeVarExpression<Length>()
+    for( i in 0..|count )
+    {
+      lengths.make( Rational.get( i ), LengthUnit.Meter )
+    }
+  }
+
+  class Inner
+  {
+    var _value: String as Value
+
+    construct( value: String )
+    {
+      _value = value
+    }
+
+    property get Outer() : Object
+    {
+      return outer
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package gw.internal.gosu.compiler.sample.expression
+
+class TestStringConcatenation
+{
+  function mixed( s : String, i : int, l : long, d : double, c : char, b : boolean ) : String
+  {
+    return "s=" + s + " i=" + i + " l=" + l + " d=" + d + " c=" + c + " b=" + b + '.'
+  }
+
+  function nested( a : String, b : String, c : int ) : String
+  {
+    return a + (b + c) + (1 + 2) + ("x" + "y")
+  }
+
+  function nullOperands( s : String, o : Object ) : String
+  {
+    return s + ":" + o + ":" + null
+  }
+
+  function charSequenceAndChars( sb : java.lang.StringBuilder, chars : char[] ) : String
+  {
+    return "<" + sb + "|" + chars + ">"
+  }
+
+  function recipeTags( s : String ) : String
+  {
+    return "\u0001" + s + "\u0002"
+  }
+
+  function manyLongs( l : long ) : String
+  {
+    return "" + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l + l
+  }
+
+  function shortAndByte( s : short, b : byte ) : String
+  {
+    return "" + s + b
+  }
+}
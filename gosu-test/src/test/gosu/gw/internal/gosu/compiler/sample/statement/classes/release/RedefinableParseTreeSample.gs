@@ -0,0 +1,9 @@
+package gw.internal.gosu.compiler.sample.statement.classes.release
+
+class RedefinableParseTreeSample
+{
+  function joined() : String
+  {
+    return {"b", "a"}.orderBy( \ n -> n ).join( "," )
+  }
+}
@@ -0,0 +1,42 @@
+package gw.internal.gosu.compiler.sample.statement.classes.release
+
+uses java.util.concurrent.Callable
+
+class ReleasedParseTreeSample
+{
+  var _names : List<String> = {"c", "a", "b"}
+
+  function sortedNames() : String
+  {
+    return _names.orderBy( \ n -> n ).join( "," )
+  }
+
+  function viaInner() : String
+  {
+    return new Inner().describe()
+  }
+
+  function viaAnonymous() : String
+  {
+    var upper = new Callable<String>() {
+      override function call() : String
+      {
+        return _names.map( \ n -> n.toUpperCase() ).join( "" )
+      }
+    }
+    return upper.call()
+  }
+
+  property get Count() : int
+  {
+    return _names.Count
+  }
+
+  class Inner
+  {
+    function describe() : String
+    {
+      return _names.where( \ n -> n != "a" ).join( "+" )
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package gw.util.money
+
+uses gw.util.Rational
+uses gw.util.science.Time
+uses gw.util.science.UnitConstants#min
+uses java.util.Currency
+
+/**
+ * Serves fixed rates relative to USD and counts the rate tables it hands out
+ */
+class FixedExchangeRatesService implements IExchangeRatesService {
+  static final var USD_RATES: Map<Currency, Rational> = {
+    Currency.getInstance( "USD" ) -> 1r,
+    Currency.getInstance( "EUR" ) -> Rational.get( 4, 5 ),
+    Currency.getInstance( "GBP" ) -> Rational.get( 1, 2 )
+  }
+
+  var _frequency: Time as Frequency = 1 min
+  var _tableRequests: int as TableRequests
+
+  override function getExchangeRatesTable( currency: Currency ) : Map<Currency, IExchangeRate> {
+    _tableRequests++
+    var table = new HashMap<Currency, IExchangeRate>()
+    var usdRate = USD_RATES[currency]
+    for( entry in USD_RATES.entrySet() ) {
+      // units of entry.Key per unit of currency
+      var rate = entry.Value / usdRate
+      table[entry.Key] = new ExchangeRate( rate, rate, rate )
+    }
+    return table
+  }
+}
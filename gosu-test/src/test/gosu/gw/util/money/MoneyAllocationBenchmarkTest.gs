@@ -0,0 +1,41 @@
+package gw.util.money
+
+uses gw.test.TestClass
+uses java.lang.management.ManagementFactory
+uses java.util.Currency
+
+/**
+ * Measures the bytes allocated by arithmetic on single and multiple currency Money
+ */
+class MoneyAllocationBenchmarkTest extends TestClass {
+  static final var ITERATIONS = 100000
+  static final var USD: Currency = Currency.getInstance( "USD" )
+  static final var EUR: Currency = Currency.getInstance( "EUR" )
+
+  function testArithmeticAllocation() {
+    var usd = new Money( 1, USD )
+    var mixed = new Money( 1, USD ) + new Money( 1, EUR )
+    // warm up
+    sum( usd, new Money( 0, USD ) )
+    sum( mixed, mixed )
+
+    print( "Bytes per add, single currency: " + bytesPerAdd( usd, new Money( 0, USD ) ) +
+           ", two currencies: " + bytesPerAdd( mixed, mixed ) )
+  }
+
+  private function bytesPerAdd( m: Money, start: Money ) : long {
+    var threadBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+    var threadId = Thread.currentThread().Id
+    var before = threadBean.getThreadAllocatedBytes( threadId )
+    sum( m, start )
+    return (threadBean.getThreadAllocatedBytes( threadId ) - before) / ITERATIONS
+  }
+
+  private function sum( m: Money, start: Money ) : Money {
+    var total = start
+    for( i in 0..|ITERATIONS ) {
+      total = total + m
+    }
+    return total
+  }
+}
@@ -0,0 +1,97 @@
+package gw.util.money
+
+uses gw.test.TestClass
+uses gw.util.Rational
+uses java.util.Currency
+
+class MoneyTest extends TestClass {
+  static final var USD: Currency = Currency.getInstance( "USD" )
+  static final var EUR: Currency = Currency.getInstance( "EUR" )
+  static final var GBP: Currency = Currency.getInstance( "GBP" )
+
+  var _savedService: IExchangeRatesService
+  var _service: FixedExchangeRatesService
+
+  override function beforeTestMethod() {
+    super.beforeTestMethod()
+    _savedService = CurrencyExchange.instance().ExchangeRatesService
+    _service = new FixedExchangeRatesService()
+    CurrencyExchange.instance().ExchangeRatesService = _service
+  }
+
+  override function afterTestMethod( possibleException: Throwable ) {
+    CurrencyExchange.instance().ExchangeRatesService = _savedService
+    super.afterTestMethod( possibleException )
+  }
+
+  function testSingleCurrencyArithmetic() {
+    var m = new Money( 10, USD )
+    assertTrue( m.SingleCurrency )
+    assertSameAmount( new Money( 15, USD ), m + new Money( 5, USD ) )
+    assertSameAmount( new Money( 5, USD ), m - new Money( 5, USD ) )
+    assertSameAmount( new Money( 30, USD ), m * 3 )
+    assertSameAmount( new Money( 5, USD ), m / 2 )
+    assertSameAmount( new Money( 1, USD ), m % 3 )
+    assertSameAmount( new Money( -10, USD ), -m )
+    assertEquals( 0, 2r.compareTo( m / new Money( 5, USD ) ) )
+    assertTrue( (m + new Money( 5, USD )).SingleCurrency )
+    assertEquals( {USD -> 10r}, m.Amount )
+  }
+
+  function testMultipleCurrenciesPromoteToMap() {
+    var m = new Money( 10, USD ) + new Money( 5, EUR )
+    assertFalse( m.SingleCurrency )
+    assertEquals( {USD -> 10r, EUR -> 5r}, m.Amount )
+    assertEquals( {USD -> 20r, EUR -> 10r}, m.multiply( 2 ).Amount )
+    assertEquals( {USD -> 12r, EUR -> 5r}, (m + new Money( 2, USD )).Amount )
+    assertEquals( new Money( 10, USD ) + new Money( 5, EUR ), m )
+    assertEquals( m.Amount.hashCode(), m.hashCode() )
+    try {
+      var value = m.SingleValue
+      fail( "Expected multiple currency amount" )
+    }
+    catch( e: RuntimeException ) {
+      // expected
+    }
+  }
+
+  function testEqualityMatchesAmount() {
+    var m = new Money( 10, USD )
+    assertEquals( m.Amount.hashCode(), m.hashCode() )
+    assertFalse( m == new Money( 10, EUR ) )
+    assertFalse( m == new Money( 11, USD ) )
+    assertTrue( m == new Money( Rational.get( 20, 2 ), USD ) )
+  }
+
+  function testExchange() {
+    var m = new Money( 10, USD ) + new Money( 4, EUR )
+    assertSameAmount( new Money( 15, USD ), m.exchange( USD ) )
+    assertSameAmount( new Money( 8, EUR ), new Money( 10, USD ).exchange( EUR ) )
+    var usd = new Money( 10, USD )
+    assertSame( usd, usd.exchange( USD ) )
+  }
+
+  function testExchangeAllFetchesRateTableOnce() {
+    var moneys = {new Money( 10, USD ), new Money( 4, EUR ), new Money( 1, GBP ), new Money( 2, EUR ) + new Money( 1, GBP )}
+    var exchanged = Money.exchangeAll( moneys, USD )
+    assertEquals( 1, _service.TableRequests )
+    assertEquals( 4, exchanged.size() )
+    assertSame( moneys[0], exchanged[0] )
+    assertSameAmount( new Money( 5, USD ), exchanged[1] )
+    assertSameAmount( new Money( 2, USD ), exchanged[2] )
+    assertSameAmount( new Money( Rational.get( 9, 2 ), USD ), exchanged[3] )
+
+    assertSameAmount( new Money( Rational.get( 43, 2 ), USD ), Money.exchangeAndSum( moneys, USD ) )
+    assertEquals( 2, _service.TableRequests )
+  }
+
+  function testExchangeAllOfSameCurrencyFetchesNoRateTable() {
+    assertSameAmount( new Money( 3, USD ), Money.exchangeAndSum( {new Money( 1, USD ), new Money( 2, USD )}, USD ) )
+    assertEquals( 0, _service.TableRequests )
+  }
+
+  private function assertSameAmount( expected: Money, actual: Money ) {
+    assertEquals( expected.SingleUnit, actual.SingleUnit )
+    assertEquals( expected.toString(), 0, expected.SingleValue.compareTo( actual.SingleValue ) )
+  }
+}
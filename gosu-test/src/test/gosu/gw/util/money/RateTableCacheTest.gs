@@ -0,0 +1,198 @@
+package gw.util.money
+
+uses gw.test.TestClass
+uses gw.util.Rational
+uses gw.util.science.UnitConstants#*
+uses java.util.Currency
+uses java.util.concurrent.CountDownLatch
+uses java.util.concurrent.Executor
+uses java.util.concurrent.TimeUnit
+uses java.util.concurrent.atomic.AtomicInteger
+
+class RateTableCacheTest extends TestClass {
+  static final var USD: Currency = Currency.getInstance( "USD" )
+  static final var EUR: Currency = Currency.getInstance( "EUR" )
+  static final var GBP: Currency = Currency.getInstance( "GBP" )
+
+  function testLocalSourceLoadsAndDerivesTables() {
+    var source = LocalRateTableSource.fromResource( "gw/util/money/exchange-rates.properties" )
+    var usd = source.loadRateTable( USD )
+    assertRate( 1r, usd[USD].get( Mid ) )
+    assertRate( Rational.get( 4, 5 ), usd[EUR].get( Mid ) )
+    assertRate( Rational.get( 51, 100 ), usd[GBP].get( Ask ) )
+    assertRate( Rational.get( 49, 100 ), usd[GBP].get( Bid ) )
+
+    var eur = source.loadRateTable( EUR )
+    assertRate( 1r, eur[EUR].get( Mid ) )
+    assertRate( Rational.get( 5, 4 ), eur[USD].get( Mid ) )
+    assertRate( Rational.get( 5, 8 ), eur[GBP].get( Mid ) )
+  }
+
+  function testServiceWithLocalSource() {
+    var saved = CurrencyExchange.instance().ExchangeRatesService
+    CurrencyExchange.instance().ExchangeRatesService =
+      new DefaultExchangeRatesService( LocalRateTableSource.fromResource( "gw/util/money/exchange-rates.properties" ) )
+    try {
+      assertEquals( 0, 8r.compareTo( new Money( 10, USD ).exchange( EUR ).SingleValue ) )
+    }
+    finally {
+      CurrencyExchange.instance().ExchangeRatesService = saved
+    }
+  }
+
+  function testFreshTableIsServedFromCache() {
+    var source = new CountingSource()
+    var cache = new RateTableCache( source )
+    var table = cache.getRateTable( USD )
+    assertSame( table, cache.getRateTable( USD ) )
+    assertEquals( 1, source.Loads )
+    assertEquals( 1, cache.Misses )
+    assertEquals( 1, cache.Hits )
+  }
+
+  function testTableIsRefreshedAheadOfExpiry() {
+    var source = new CountingSource()
+    var executor = new QueuedExecutor()
+    var cache = new RateTableCache( source )
+    cache.Executor = executor
+    cache.Frequency = 200 ms
+    cache.RefreshAhead = 0.5
+    var table = cache.getRateTable( USD )
+    Thread.sleep( 120 )
+
+    // past the refresh ahead point, the cached table is served and a refresh is queued once
+    assertSame( table, cache.getRateTable( USD ) )
+    assertSame( table, cache.getRateTable( USD ) )
+    assertEquals( 1, executor.Queued.size() )
+    executor.runAll()
+    assertEquals( 2, source.Loads )
+    assertEquals( 1, cache.Refreshes )
+    assertNotSame( table, cache.getRateTable( USD ) )
+  }
+
+  function testStaleTableIsServedDuringRefresh() {
+    var source = new CountingSource()
+    var executor = new QueuedExecutor()
+    var cache = new RateTableCache( source )
+    cache.Executor = executor
+    cache.Frequency = 50 ms
+    var table = cache.getRateTable( USD )
+    Thread.sleep( 80 )
+
+    assertSame( table, cache.getRateTable( USD ) )
+    assertEquals( 1, cache.StaleHits )
+    assertEquals( 1, source.Loads )
+
+    // a failed refresh keeps the stale table
+    source.Fail = true
+    executor.runAll()
+    assertEquals( 1, cache.RefreshFailures )
+    assertSame( table, cache.getRateTable( USD ) )
+
+    source.Fail = false
+    executor.runAll()
+    assertEquals( 1, cache.Refreshes )
+    assertNotSame( table, cache.getRateTable( USD ) )
+  }
+
+  function testTableStaleBeyondMaxStalenessIsReloaded() {
+    var source = new CountingSource()
+    var cache = new RateTableCache( source )
+    cache.Executor = new QueuedExecutor()
+    cache.Frequency = 20 ms
+    cache.MaxStaleness = 20 ms
+    var table = cache.getRateTable( USD )
+    Thread.sleep( 60 )
+    assertNotSame( table, cache.getRateTable( USD ) )
+    assertEquals( 2, cache.Misses )
+    assertEquals( 0, cache.StaleHits )
+  }
+
+  function testConcurrentMissesLoadOnce() {
+    var source = new BlockingSource()
+    var cache = new RateTableCache( source )
+    var tables = new ExpiringRateTable[8]
+    var threads = new ArrayList<Thread>()
+    for( i in 0..|tables.length ) {
+      var thread = new Thread( \-> { tables[i] = cache.getRateTable( USD ) } )
+      thread.start()
+      threads.add( thread )
+    }
+    assertTrue( source.Started.await( 5, TimeUnit.SECONDS ) )
+    // let the other callers reach the pending load
+    Thread.sleep( 100 )
+    source.Release.countDown()
+    threads.each( \ t -> t.join( 5000 ) )
+
+    assertEquals( 1, source.Loads.get() )
+    assertEquals( 8, cache.Misses )
+    tables.each( \ t -> assertSame( tables[0], t ) )
+  }
+
+  function testFailedLoadIsThrownToTheCaller() {
+    var source = new CountingSource()
+    source.Fail = true
+    var cache = new RateTableCache( source )
+    try {
+      cache.getRateTable( USD )
+      fail()
+    }
+    catch( e: IllegalStateException ) {
+      assertEquals( "offline", e.Message )
+    }
+    source.Fail = false
+    assertNotNull( cache.getRateTable( USD ) )
+  }
+
+  function testTimestampIsWallClockTime() {
+    var before = System.currentTimeMillis()
+    var table = new ExpiringRateTable()
+    var after = System.currentTimeMillis()
+    var timestamp = table.Timestamp.toNumber( gw.util.science.TimeUnit.Milli ).longValue()
+    assertTrue( before <= timestamp and timestamp <= after )
+  }
+
+  private function assertRate( expected: Rational, actual: Rational ) {
+    assertEquals( expected + " vs " + actual, 0, expected.compareTo( actual ) )
+  }
+
+  static class CountingSource implements IRateTableSource {
+    var _loads: int as Loads
+    var _fail: boolean as Fail
+
+    override function loadRateTable( currency: Currency ) : Map<Currency, ExchangeRate> {
+      if( _fail ) {
+        throw new IllegalStateException( "offline" )
+      }
+      _loads++
+      return {currency -> new ExchangeRate( 1r, 1r, 1r )}
+    }
+  }
+
+  static class BlockingSource implements IRateTableSource {
+    final var _loads: AtomicInteger as Loads = new AtomicInteger()
+    final var _started: CountDownLatch as Started = new CountDownLatch( 1 )
+    final var _release: CountDownLatch as Release = new CountDownLatch( 1 )
+
+    override function loadRateTable( currency: Currency ) : Map<Currency, ExchangeRate> {
+      _loads.incrementAndGet()
+      _started.countDown()
+      _release.await( 5, TimeUnit.SECONDS )
+      return {currency -> new ExchangeRate( 1r, 1r, 1r )}
+    }
+  }
+
+  static class QueuedExecutor implements Executor {
+    var _queued: List<Runnable> as Queued = {}
+
+    override function execute( r: Runnable ) {
+      _queued.add( r )
+    }
+
+    function runAll() {
+      var queued = _queued
+      _queued = {}
+      queued.each( \ r -> r.run() )
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeLoader;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.GosuClassTypeLoader;
+import gw.lang.reflect.gs.IGosuClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times bytecode generation, which is dominated by ASM's frame computation, for the
+ * largest Gosu classes with and without the shared common superclass cache.
+ */
+public class FrameComputationBenchmarkTest extends ByteCodeTestBase
+{
+  private static final int LARGEST = 20;
+  private static final int ITERATIONS = 5;
+
+  public void testCompileLargestClasses() throws Exception
+  {
+    List<IGosuClass> largest = findLargestClasses();
+    boolean bGlobal = BytecodeOptions.isGlobalCommonSuperClassCache();
+    try
+    {
+      BytecodeOptions.setGlobalCommonSuperClassCache( false );
+      List<byte[]> perCompilation = new ArrayList<>();
+      long perCompilationTime = compileAll( largest, perCompilation );
+
+      BytecodeOptions.setGlobalCommonSuperClassCache( true );
+      List<byte[]> global = new ArrayList<>();
+      long globalTime = compileAll( largest, global );
+
+      System.out.println( "Compiled " + largest.size() + " classes x " + ITERATIONS +
+                          ", per-compilation cache: " + perCompilationTime / 1000000 + "ms" +
+                          ", global cache: " + globalTime / 1000000 + "ms" );
+      for( int i = 0; i < largest.size(); i++ )
+      {
+        assertTrue( largest.get( i ).getName(), Arrays.equals( perCompilation.get( i ), global.get( i ) ) );
+      }
+    }
+    finally
+    {
+      BytecodeOptions.setGlobalCommonSuperClassCache( bGlobal );
+    }
+  }
+
+  private long compileAll( List<IGosuClass> classes, List<byte[]> result )
+  {
+    long t = System.nanoTime();
+    for( int i = 0; i < ITERATIONS; i++ )
+    {
+      result.clear();
+      for( IGosuClass gsClass : classes )
+      {
+        result.add( gsClass.compile() );
+      }
+    }
+    return System.nanoTime() - t;
+  }
+
+  private List<IGosuClass> findLargestClasses()
+  {
+    ITypeLoader loader = TypeSystem.getTypeLoader( GosuClassTypeLoader.class );
+    List<IGosuClass> classes = new ArrayList<>();
+    for( CharSequence name : loader.getAllTypeNames() )
+    {
+      if( name.toString().contains( "Errant" ) )
+      {
+        continue;
+      }
+      IType type = TypeSystem.getByFullNameIfValid( name.toString() );
+      if( type instanceof IGosuClass && !type.isParameterizedType() && type.isValid() && ((IGosuClass)type).isCompilable() )
+      {
+        classes.add( (IGosuClass)type );
+      }
+    }
+    classes.sort( ( c1, c2 ) -> sourceLength( c2 ) - sourceLength( c1 ) );
+    return classes.subList( 0, Math.min( LARGEST, classes.size() ) );
+  }
+
+  private static int sourceLength( IGosuClass gsClass )
+  {
+    return gsClass.getSourceFileHandle().getSource().getSource().length();
+  }
+}
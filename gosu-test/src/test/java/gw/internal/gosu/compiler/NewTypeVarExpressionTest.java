@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.internal.gosu.runtime.GosuRuntimeMethods;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.util.Rational;
+
+import java.util.List;
+
+/**
+ * Exercises <code>new T(...)</code> call sites, which cache the constructor they resolve for the
+ * runtime type of T, and times them against the uncached runtime lookup. gw.util.science
+ * arithmetic is the motivating case, every add and subtract constructs its result with
+ * <code>new T(...)</code>.
+ */
+public class NewTypeVarExpressionTest extends ByteCodeTestBase
+{
+  private static final String SAMPLE = "gw.internal.gosu.compiler.sample.expression.TestNewTypeVarExpression";
+  private static final int ITERATIONS = 200000;
+
+  public void testCallSiteConstructsEachRuntimeType() throws Exception
+  {
+    List<?> objs = (List<?>)invokeStaticMethod( SAMPLE, "makeAlternating", 6 );
+    assertEquals( 6, objs.size() );
+    for( int i = 0; i < objs.size(); i++ )
+    {
+      assertEquals( i % 2 == 0 ? StringBuilder.class : StringBuffer.class, objs.get( i ).getClass() );
+      assertEquals( "x" + i, objs.get( i ).toString() );
+    }
+  }
+
+  public void testCallSiteCoercesArguments() throws Exception
+  {
+    StringBuilder sb = (StringBuilder)invokeStaticMethod( SAMPLE, "makeWithCoercedArg" );
+    assertEquals( "", sb.toString() );
+    assertEquals( 64, sb.capacity() );
+  }
+
+  public void testCallSitePassesOuterInstance() throws Exception
+  {
+    List<?> inners = (List<?>)invokeStaticMethod( SAMPLE, "makeInnerTwice" );
+    assertEquals( "a", invokeMethod( inners.get( 0 ), "getValue" ) );
+    assertEquals( "b", invokeMethod( inners.get( 1 ), "getValue" ) );
+    assertNotNull( invokeMethod( inners.get( 0 ), "getOuter" ) );
+    assertSame( invokeMethod( inners.get( 0 ), "getOuter" ), invokeMethod( inners.get( 1 ), "getOuter" ) );
+  }
+
+  public void testMeasureArithmeticBenchmark() throws Exception
+  {
+    Object sum = invokeStaticMethod( SAMPLE, "sumLengths", 10 );
+    assertEquals( "20 m", sum.toString() );
+
+    // Warm up all paths
+    invokeStaticMethod( SAMPLE, "sumLengths", ITERATIONS );
+    invokeStaticMethod( SAMPLE, "makeLengths", ITERATIONS );
+    makeLengthsUncached( ITERATIONS );
+
+    long t = System.nanoTime();
+    invokeStaticMethod( SAMPLE, "sumLengths", ITERATIONS );
+    long arithmeticTime = System.nanoTime() - t;
+
+    t = System.nanoTime();
+    invokeStaticMethod( SAMPLE, "makeLengths", ITERATIONS );
+    long cachedTime = System.nanoTime() - t;
+
+    t = System.nanoTime();
+    makeLengthsUncached( ITERATIONS );
+    long uncachedTime = System.nanoTime() - t;
+
+    System.out.println( ITERATIONS + " additions and subtractions of lengths: " + arithmeticTime / 1000000 + "ms" );
+    System.out.println( ITERATIONS + " lengths via new T(...): " + cachedTime / 1000000 + "ms" +
+                        ", via uncached runtime lookup: " + uncachedTime / 1000000 + "ms" );
+  }
+
+  private void makeLengthsUncached( int iCount )
+  {
+    IType length = TypeSystem.getByFullName( "gw.util.science.Length" );
+    Object meter = TypeSystem.getByFullName( "gw.util.science.LengthUnit" ).getTypeInfo().getProperty( "Meter" ).getAccessor().getValue( null );
+    for( int i = 0; i < iCount; i++ )
+    {
+      GosuRuntimeMethods.newInstance( length, null, new Object[] {Rational.get( i ), meter, meter} );
+    }
+  }
+}
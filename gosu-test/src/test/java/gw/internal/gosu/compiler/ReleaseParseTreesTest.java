@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.internal.gosu.parser.GosuClassParseInfo;
+import gw.internal.gosu.parser.IGosuClassInternal;
+import gw.lang.parser.ISymbolTable;
+import gw.lang.reflect.IFeatureInfo;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeInfo;
+import gw.lang.reflect.ITypeLoader;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.module.IModule;
+import gw.util.perf.objectsize.IObjectSizeFilter;
+import gw.util.perf.objectsize.ObjectSizeUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReleaseParseTreesTest extends ByteCodeTestBase
+{
+  private static final String SAMPLE = "gw.internal.gosu.compiler.sample.statement.classes.release.ReleasedParseTreeSample";
+  private static final String REDEFINABLE_SAMPLE = "gw.internal.gosu.compiler.sample.statement.classes.release.RedefinableParseTreeSample";
+
+  public void testParseTreesReleasedAfterBytecodeIsGenerated() throws Exception
+  {
+    boolean bRelease = BytecodeOptions.isReleaseParseTreesAfterCompile();
+    BytecodeOptions.setReleaseParseTreesAfterCompile( true );
+    try
+    {
+      IGosuClassInternal gsClass = (IGosuClassInternal)TypeSystem.getByFullName( SAMPLE );
+      assertTrue( gsClass.isValid() );
+      long lBefore = parseTreeSize( gsClass );
+
+      Object instance = gsClass.getBackingClass().newInstance();
+      long lAfter = parseTreeSize( gsClass );
+      System.out.println( "Parse tree bytes before: " + lBefore + "  after: " + lAfter +
+                          "  pending bytecode: " + pendingBytecodeSize( gsClass ) );
+      assertTrue( gsClass.getParseInfo().isDefinitionsReleased() );
+      assertNull( gsClass.getParseInfo().getPendingBytecode() );
+      assertTrue( lAfter < lBefore * 2 / 3 );
+
+      // Nested classes and blocks are defined from bytecode generated before the release
+      assertEquals( "a,b,c", invokeMethod( instance, "sortedNames" ) );
+      assertEquals( "c+b", invokeMethod( instance, "viaInner" ) );
+      assertEquals( "CAB", invokeMethod( instance, "viaAnonymous" ) );
+      assertEquals( 0, pendingBytecodeSize( gsClass ) );
+
+      // Reflection only needs signatures
+      assertNotNull( gsClass.getTypeInfo().getMethod( "sortedNames" ) );
+      assertEquals( 3, gsClass.getTypeInfo().getProperty( "Count" ).getAccessor().getValue( instance ) );
+    }
+    finally
+    {
+      BytecodeOptions.setReleaseParseTreesAfterCompile( bRelease );
+    }
+  }
+
+  public void testClassThatMayBeDefinedAgainKeepsItsParseTree() throws Exception
+  {
+    boolean bRelease = BytecodeOptions.isReleaseParseTreesAfterCompile();
+    boolean bSingleServing = BytecodeOptions.isSingleServingLoader();
+    BytecodeOptions.setReleaseParseTreesAfterCompile( true );
+    BytecodeOptions.setSingleServingLoader( true );
+    try
+    {
+      IGosuClassInternal gsClass = (IGosuClassInternal)TypeSystem.getByFullName( REDEFINABLE_SAMPLE );
+      Object instance = gsClass.getBackingClass().newInstance();
+      assertFalse( gsClass.getParseInfo().isDefinitionsReleased() );
+      assertEquals( "a,b", invokeMethod( instance, "joined" ) );
+      // a disposed single-serving loader defines the class again from newly generated bytecode
+      assertNotNull( TypeSystem.getGosuClassLoader().getBytes( gsClass ) );
+    }
+    finally
+    {
+      BytecodeOptions.setReleaseParseTreesAfterCompile( bRelease );
+      BytecodeOptions.setSingleServingLoader( bSingleServing );
+    }
+  }
+
+  private long parseTreeSize( IGosuClassInternal gsClass )
+  {
+    List<GosuClassParseInfo> parseInfos = new ArrayList<>();
+    collectParseInfos( gsClass, parseInfos );
+    boolean bVerbose = ObjectSizeUtil.VERBOSE;
+    ObjectSizeUtil.VERBOSE = false;
+    try
+    {
+      return ObjectSizeUtil.deepSizeOf( parseInfos, new ParseTreeOnlyFilter(), Integer.MAX_VALUE ).size();
+    }
+    finally
+    {
+      ObjectSizeUtil.VERBOSE = bVerbose;
+    }
+  }
+
+  private long pendingBytecodeSize( IGosuClassInternal gsClass )
+  {
+    List<GosuClassParseInfo> parseInfos = new ArrayList<>();
+    collectParseInfos( gsClass, parseInfos );
+    long lSize = 0;
+    for( GosuClassParseInfo parseInfo : parseInfos )
+    {
+      byte[] bytecode = parseInfo.getPendingBytecode();
+      lSize += bytecode == null ? 0 : bytecode.length;
+    }
+    return lSize;
+  }
+
+  private void collectParseInfos( IGosuClassInternal gsClass, List<GosuClassParseInfo> parseInfos )
+  {
+    parseInfos.add( gsClass.getParseInfo() );
+    for( int i = 0; i < gsClass.getBlockCount(); i++ )
+    {
+      collectParseInfos( (IGosuClassInternal)gsClass.getBlock( i ), parseInfos );
+    }
+    for( IType inner : gsClass.getInnerClasses() )
+    {
+      collectParseInfos( (IGosuClassInternal)inner, parseInfos );
+    }
+  }
+
+  /**
+   * Measures only the parse trees, not the types and type infos they refer to or pending bytecode.
+   */
+  private static class ParseTreeOnlyFilter implements IObjectSizeFilter
+  {
+    public boolean skipField( Field field )
+    {
+      return field.getType().equals( Class.class );
+    }
+
+    public boolean skipObject( Object obj )
+    {
+      return obj instanceof IType ||
+             obj instanceof ITypeInfo ||
+             obj instanceof IFeatureInfo ||
+             obj instanceof ITypeLoader ||
+             obj instanceof IModule ||
+             obj instanceof ISymbolTable ||
+             obj instanceof Class ||
+             obj instanceof ClassLoader ||
+             obj instanceof byte[];
+    }
+  }
+}
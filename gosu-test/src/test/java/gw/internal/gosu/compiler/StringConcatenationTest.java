@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IGosuClass;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+/**
+ */
+public class StringConcatenationTest extends ByteCodeTestBase
+{
+  public void testMixedOperands() throws Exception
+  {
+    Object result = invoke( "mixed", new Class[]{String.class, int.class, long.class, double.class, char.class, boolean.class},
+                            "str", 42, 12345678901L, 1.5, 'z', true );
+    assertEquals( "s=str i=42 l=12345678901 d=1.5 c=z b=true.", result );
+  }
+
+  public void testNestedAdditions() throws Exception
+  {
+    Object result = invoke( "nested", new Class[]{String.class, String.class, int.class}, "a", "b", 7 );
+    assertEquals( "ab73xy", result );
+  }
+
+  public void testNullOperands() throws Exception
+  {
+    Object result = invoke( "nullOperands", new Class[]{String.class, Object.class}, null, null );
+    assertEquals( "null:null:null", result );
+  }
+
+  public void testCharSequenceAndCharArray()
+  {
+    Object result = invokeMethod( makeObject(), "charSequenceAndChars", new StringBuilder( "sb" ), new char[]{'c', 'h'} );
+    assertEquals( "<sb|ch>", result );
+  }
+
+  public void testConstantsContainingRecipeTags()
+  {
+    Object result = invokeMethod( makeObject(), "recipeTags", "s" );
+    assertEquals( "\u0001s\u0002", result );
+  }
+
+  public void testMoreOperandsThanACallSiteTakes() throws Exception
+  {
+    StringBuilder expected = new StringBuilder();
+    for( int i = 0; i < 101; i++ )
+    {
+      expected.append( 5L );
+    }
+    assertEquals( expected.toString(), invoke( "manyLongs", new Class[]{long.class}, 5L ) );
+  }
+
+  public void testShortAndByte() throws Exception
+  {
+    Object result = invoke( "shortAndByte", new Class[]{short.class, byte.class}, (short)-3, (byte)4 );
+    assertEquals( "-34", result );
+  }
+
+  public void testIndyConcatIsOffByDefault()
+  {
+    assertEquals( Boolean.getBoolean( "gosu.indy.concat" ), BytecodeOptions.isIndyStringConcat() );
+  }
+
+  public void testIndyConcatOffCompilesToStringBuilder()
+  {
+    String strClassFile = compileWithIndyConcat( false );
+    assertFalse( strClassFile.contains( "makeConcatWithConstants" ) );
+    assertTrue( strClassFile.contains( "java/lang/StringBuilder" ) );
+  }
+
+  public void testIndyConcatOnNeedsStringConcatFactory()
+  {
+    boolean bFactory;
+    try
+    {
+      Class.forName( "java.lang.invoke.StringConcatFactory" );
+      bFactory = true;
+    }
+    catch( ClassNotFoundException e )
+    {
+      bFactory = false;
+    }
+    assertEquals( bFactory, compileWithIndyConcat( true ).contains( "makeConcatWithConstants" ) );
+  }
+
+  /**
+   * @return the class file of the sample class as ISO-8859-1 text, enough to find names in its
+   *   constant pool
+   */
+  private String compileWithIndyConcat( boolean bIndy )
+  {
+    boolean bOld = BytecodeOptions.isIndyStringConcat();
+    BytecodeOptions.setIndyStringConcat( bIndy );
+    try
+    {
+      IGosuClass gsClass = (IGosuClass)TypeSystem.getByFullName( "gw.internal.gosu.compiler.sample.expression.TestStringConcatenation" );
+      return new String( TypeSystem.getGosuClassLoader().getBytes( gsClass ), StandardCharsets.ISO_8859_1 );
+    }
+    finally
+    {
+      BytecodeOptions.setIndyStringConcat( bOld );
+    }
+  }
+
+  private Object invoke( String strMethod, Class[] paramTypes, Object... args ) throws Exception
+  {
+    Object o = makeObject();
+    Method m = o.getClass().getMethod( strMethod, paramTypes );
+    return m.invoke( o, args );
+  }
+
+  private Object makeObject()
+  {
+    return constructFromGosuClassloader( "gw.internal.gosu.compiler.sample.expression.TestStringConcatenation" );
+  }
+}
@@ -5,11 +5,16 @@
 package gw.internal.gosu.compiler;
 
 
+import gw.internal.gosu.parser.IGosuClassInternal;
+import gw.internal.gosu.parser.SourceCodeTokenizer;
+import gw.internal.gosu.parser.Token;
+import gw.internal.gosu.parser.TokenBuffer;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.ITypeLoader;
 import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.GosuClassTypeLoader;
 
+import java.lang.management.ManagementFactory;
 import java.util.Set;
 
 /**
@@ -37,6 +42,60 @@ public class TokenizerBenchmarkTest extends ByteCodeTestBase
 //    System.out.println( "Time: " + delta / 1000.0 );
   }
 
+  public void testTokenizerAllocationBenchmark() throws Exception
+  {
+    IGosuClassInternal type = (IGosuClassInternal)TypeSystem.getByFullName( "gw.lang.enhancements.CoreIterableEnhancement" );
+    String source = type.getSourceFileHandle().getSource().getSource();
+
+    // Warm up, then measure what a full tokenization allocates on this thread
+    for( int i = 0; i < 100; i++ )
+    {
+      tokenize( source );
+    }
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long lBefore = threadBean.getThreadAllocatedBytes( Thread.currentThread().getId() );
+    long t = System.currentTimeMillis();
+    int iRuns = 1000;
+    for( int i = 0; i < iRuns; i++ )
+    {
+      tokenize( source );
+    }
+    long delta = System.currentTimeMillis() - t;
+    long lAllocated = threadBean.getThreadAllocatedBytes( Thread.currentThread().getId() ) - lBefore;
+    System.out.println( "Time: " + delta / 1000.0 + "  Bytes/run: " + lAllocated / iRuns + "  Bytes/char: " + lAllocated / iRuns / source.length() );
+
+    // Tokens materialized lazily must agree with the compact storage and cover the source exactly
+    SourceCodeTokenizer tokenizer = new SourceCodeTokenizer( source );
+    tokenizer.setWhitespaceSignificant( true );
+    tokenizer.setCommentsSignificant( true );
+    while( !tokenizer.isEOF() )
+    {
+      tokenizer.nextToken();
+    }
+    TokenBuffer tokens = tokenizer.getTokens();
+    StringBuilder sb = new StringBuilder();
+    for( int i = 0; i < tokens.size(); i++ )
+    {
+      Token token = tokens.get( i );
+      assertEquals( tokens.getType( i ), token.getType() );
+      assertEquals( tokens.getTokenStart( i ), token.getTokenStart() );
+      assertEquals( tokens.getTokenEnd( i ), token.getTokenEnd() );
+      assertEquals( tokens.getLine( i ), token.getLine() );
+      assertSame( token, tokens.get( i ) );
+      sb.append( token.getText() );
+    }
+    assertEquals( source, sb.toString() );
+  }
+
+  private void tokenize( String source )
+  {
+    SourceCodeTokenizer tokenizer = new SourceCodeTokenizer( source );
+    while( !tokenizer.isEOF() )
+    {
+      tokenizer.nextToken();
+    }
+  }
+
   public void testTokenizerWithParsingBenchmark() throws Exception
   {
     ITypeLoader loader = TypeSystem.getTypeLoader( GosuClassTypeLoader.class );
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler.blocks;
+
+import gw.lang.function.IBlock;
+import gw.lang.function.LiftedFunction1;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.IBlockClass;
+import gw.lang.parser.ParserOptions;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.test.TestClass;
+
+/**
+ */
+public class LiftedBlockTest extends TestClass
+{
+  private boolean _bLiftBlocks;
+  private int _iThreshold;
+
+  @Override
+  public void beforeTestMethod()
+  {
+    super.beforeTestMethod();
+    _bLiftBlocks = BytecodeOptions.isLiftBlocks();
+    _iThreshold = BytecodeOptions.getInterpreterThreshold();
+    BytecodeOptions.setInterpreterThreshold( 0 );
+  }
+
+  @Override
+  public void afterTestMethod( Throwable possibleException )
+  {
+    BytecodeOptions.setLiftBlocks( _bLiftBlocks );
+    BytecodeOptions.setInterpreterThreshold( _iThreshold );
+    super.afterTestMethod( possibleException );
+  }
+
+  public void testLiftedBlocksRunLikeBlockClasses() throws Exception
+  {
+    assertSameResult(
+      "var out = new StringBuilder()\n" +
+      "var list = new java.util.ArrayList<String>() { \"c\", \"a\", \"b\" }\n" +
+      "out.append( list.orderBy( \\ s -> s ).toList() )\n" +
+      "var f = \\ x : int, y : String -> y + x\n" +
+      "out.append( f( 1, \"s\" ) )\n" +
+      "out.append( \"|\" + f.toString() )\n" +
+      "out.append( \"|\" + typeof f )\n" +
+      "function m<T>( t : T ) : block():T { return \\ -> t }\n" +
+      "out.append( \"|\" + m( \"gen\" )() )\n" +
+      "var nested = \\ x : int -> (\\ y : int -> x + y)( 2 )\n" +
+      "out.append( \"|\" + nested( 1 ) )\n" +
+      "var ev = \\ x : int -> eval( \"x + 1\" )\n" +
+      "out.append( \"|\" + ev( 4 ) )\n" +
+      "out.append( \"|\" + {1, 2, 3}.where( \\ i -> i > 1 ).reduce( 0, \\ a, b -> a + b ) )\n" +
+      "return out.toString()" );
+  }
+
+  public void testCapturedVariablesAreShared() throws Exception
+  {
+    assertSameResult(
+      "function f( k : int ) : String {\n" +
+      "  var n = 0\n" +
+      "  var s = \"x\"\n" +
+      "  var h = \\ y : int -> { n += y + k; s += y; return s }\n" +
+      "  h( 2 )\n" +
+      "  h( 3 )\n" +
+      "  return n + s\n" +
+      "}\n" +
+      "var count = 0\n" +
+      "var inc = \\ -> { count++ }\n" +
+      "inc()\n" +
+      "inc()\n" +
+      "return f( 3 ) + count" );
+  }
+
+  public void testBlockCoercedToInterface() throws Exception
+  {
+    assertSameResult(
+      "var out = new StringBuilder()\n" +
+      "var r = \\ -> { out.append( \"ran\" ) }\n" +
+      "var o : Object = r\n" +
+      "var runnable = o as java.lang.Runnable\n" +
+      "runnable.run()\n" +
+      "return out.toString()" );
+  }
+
+  public void testLiftedBlockHasNoClass() throws Exception
+  {
+    BytecodeOptions.setLiftBlocks( true );
+    IGosuProgram program = parse( "var k = 10\nreturn \\ x : int -> x + k" );
+    IBlock blk = (IBlock)program.evaluate( null );
+    assertTrue( blk instanceof LiftedFunction1 );
+    assertEquals( 15, ((LiftedFunction1)blk).invoke( 5 ) );
+
+    IGosuClass blockClass = program.getBlock( 0 );
+    assertEquals( blockClass, blk.getIntrinsicType() );
+    assertEquals( "\\ x : int -> x+k", blk.toString() );
+    assertSame( ((IBlockClass)blockClass).getBlock(), blk.getParsedElement() );
+    assertEquals( "block(int):int", blk.getFunctionType().getName() );
+    assertFalse( blockClass.hasBackingClass() );
+  }
+
+  public void testBlockUsingItsInstanceIsNotLifted() throws Exception
+  {
+    BytecodeOptions.setLiftBlocks( true );
+    IBlock blk = (IBlock)parse( "var x = 1\nreturn \\ -> eval( \"x\" )" ).evaluate( null );
+    assertFalse( blk.getClass().getName().startsWith( "gw.lang.function.Lifted" ) );
+    assertEquals( 1, blk.invokeWithArgs( new Object[0] ) );
+  }
+
+  private void assertSameResult( String strSource ) throws Exception
+  {
+    BytecodeOptions.setLiftBlocks( true );
+    Object liftedResult = parse( strSource ).evaluate( null );
+
+    BytecodeOptions.setLiftBlocks( false );
+    Object result = parse( strSource ).evaluate( null );
+
+    assertEquals( result, liftedResult );
+  }
+
+  private static IGosuProgram parse( String strSource ) throws Exception
+  {
+    IGosuProgram program = GosuParserFactory.createProgramParser().parseProgramOnly( strSource, null, new ParserOptions() ).getProgram();
+    assertTrue( program.isValid() );
+    return program;
+  }
+}
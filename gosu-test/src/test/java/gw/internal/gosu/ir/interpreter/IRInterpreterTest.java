@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.interpreter;
+
+import gw.internal.gosu.parser.ContextSensitiveCodeRunner;
+import gw.internal.gosu.parser.IGosuProgramInternal;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.ParserOptions;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.test.TestClass;
+
+/**
+ */
+public class IRInterpreterTest extends TestClass
+{
+  private int _iThreshold;
+
+  @Override
+  public void beforeTestMethod()
+  {
+    super.beforeTestMethod();
+    _iThreshold = BytecodeOptions.getInterpreterThreshold();
+  }
+
+  @Override
+  public void afterTestMethod( Throwable possibleException )
+  {
+    BytecodeOptions.setInterpreterThreshold( _iThreshold );
+    super.afterTestMethod( possibleException );
+  }
+
+  public void testLoopsWithBreakAndContinue() throws Exception
+  {
+    assertSameResult(
+      "var total = 0\n" +
+      "for( i in 0..|20 ) {\n" +
+      "  if( i == 15 ) break\n" +
+      "  if( i % 3 == 0 ) continue\n" +
+      "  total += i\n" +
+      "}\n" +
+      "var j = 0\n" +
+      "while( j < 5 ) { j++ }\n" +
+      "do { j += 2 } while( j < 12 )\n" +
+      "for( s in {\"a\", \"b\"} index k ) { total += k }\n" +
+      "return total + \":\" + j" );
+  }
+
+  public void testSwitch() throws Exception
+  {
+    assertSameResult(
+      "var out = \"\"\n" +
+      "for( i in 0..5 ) {\n" +
+      "  switch( i ) {\n" +
+      "    case 0: out += \"a\"\n" +
+      "    case 1: out += \"b\"\n" +
+      "      break\n" +
+      "    case 3: out += \"c\"\n" +
+      "      break\n" +
+      "    default: out += \"d\"\n" +
+      "  }\n" +
+      "}\n" +
+      "var s = \"two\"\n" +
+      "switch( s ) {\n" +
+      "  case \"one\": out += 1\n" +
+      "  case \"two\": out += 2\n" +
+      "    break\n" +
+      "  default: out += 0\n" +
+      "}\n" +
+      "return out" );
+  }
+
+  public void testTryCatchFinally() throws Exception
+  {
+    assertSameResult(
+      "var log = \"\"\n" +
+      "try {\n" +
+      "  log += \"t\"\n" +
+      "  var n : String = null\n" +
+      "  log += n.length\n" +
+      "} catch( e : NullPointerException ) {\n" +
+      "  log += \"c\"\n" +
+      "} finally {\n" +
+      "  log += \"f\"\n" +
+      "}\n" +
+      "try {\n" +
+      "  throw new IllegalArgumentException( \"x\" )\n" +
+      "} catch( e : IllegalStateException ) {\n" +
+      "  log += \"wrong\"\n" +
+      "} catch( e : RuntimeException ) {\n" +
+      "  log += e.Message\n" +
+      "}\n" +
+      "return log + f()\n" +
+      "function f() : int {\n" +
+      "  try {\n" +
+      "    return 1\n" +
+      "  } finally {\n" +
+      "    log += \"!\"\n" +
+      "  }\n" +
+      "}" );
+  }
+
+  public void testArithmetic() throws Exception
+  {
+    assertSameResult(
+      "var i = 7\n" +
+      "var l = 3000000000L\n" +
+      "var d = 2.5\n" +
+      "var c = 'a'\n" +
+      "var b : byte = 100\n" +
+      "b = (b + 100) as byte\n" +
+      "var f = 1.5f\n" +
+      "return (i / 2) + \",\" + (i % 3) + \",\" + (l * 2) + \",\" + (d * i) + \",\" + (c + 1) + \",\" + b + \",\" +\n" +
+      "       (i << 3) + \",\" + (-i >> 1) + \",\" + (i > 3 and d < 3.0) + \",\" + (l / i) + \",\" + (f * 2) + \",\" + (i as double / 2)" );
+  }
+
+  public void testStringConcatenation() throws Exception
+  {
+    assertSameResult(
+      "var n : String = null\n" +
+      "var x = 42\n" +
+      "return \"a\" + n + x + 'c' + 1.5 + true + \"${x + 1}\"" );
+  }
+
+  public void testProgramFunctions() throws Exception
+  {
+    assertSameResult(
+      "function fib( n : int ) : int {\n" +
+      "  return n < 2 ? n : fib( n - 1 ) + fib( n - 2 )\n" +
+      "}\n" +
+      "var arr = new int[3]\n" +
+      "arr[1] = fib( 15 )\n" +
+      "var list = {1, 2, 3}\n" +
+      "return arr.length + arr[1] + list.get( 2 )" );
+  }
+
+  public void testThrownException() throws Exception
+  {
+    String strSource = "var s = \"boom\"\nthrow new IllegalStateException( s )";
+    BytecodeOptions.setInterpreterThreshold( Integer.MAX_VALUE );
+    IGosuProgram program = parse( strSource );
+    try
+    {
+      program.evaluate( null );
+      fail();
+    }
+    catch( IllegalStateException e )
+    {
+      assertEquals( "boom", e.getMessage() );
+    }
+    assertFalse( program.hasBackingClass() );
+  }
+
+  public void testEvalWithCapturedSymbols() throws Exception
+  {
+    // The program refers to its own type for the eval, so only the eval's program is interpreted
+    String strSource =
+      "static function f( y : int ) : Object {\n" +
+      "  var z = \"abc\"\n" +
+      "  for( i in 0..|3 ) {\n" +
+      "    z = eval( \"z + (y + i)\" ) as String\n" +
+      "  }\n" +
+      "  return z\n" +
+      "}\n" +
+      "return f( 3 )";
+    BytecodeOptions.setInterpreterThreshold( Integer.MAX_VALUE );
+    Object interpretedResult = parse( strSource ).evaluate( null );
+    BytecodeOptions.setInterpreterThreshold( 0 );
+    assertEquals( "abc345", interpretedResult );
+    assertEquals( parse( strSource ).evaluate( null ), interpretedResult );
+  }
+
+  public void testRuntimeExpression() throws Exception
+  {
+    BytecodeOptions.setInterpreterThreshold( Integer.MAX_VALUE );
+    IType context = TypeSystem.get( IRInterpreterTest.class );
+    Object[] extSyms = {};
+    assertEquals( "x3", ContextSensitiveCodeRunner.compileAndRunMeSomeCode( "\"x\" + (1 + 2)", null, this, context, extSyms, 0 ) );
+    IGosuProgramInternal program = ContextSensitiveCodeRunner.getCachedProgram( ContextSensitiveCodeRunner.makeCacheKey( "\"x\" + (1 + 2)", null, context, extSyms, 0 ) );
+    assertFalse( program.hasBackingClass() );
+  }
+
+  public void testProgramIsCompiledAfterThreshold() throws Exception
+  {
+    BytecodeOptions.setInterpreterThreshold( 2 );
+    IGosuProgram program = parse( "var x = 20\nreturn x + 1" );
+    assertEquals( 21, program.evaluate( null ) );
+    assertFalse( program.hasBackingClass() );
+    assertEquals( 21, program.evaluate( null ) );
+    assertFalse( program.hasBackingClass() );
+    assertEquals( 21, program.evaluate( null ) );
+    assertTrue( program.hasBackingClass() );
+  }
+
+  public void testUninterpretableProgramIsCompiled() throws Exception
+  {
+    BytecodeOptions.setInterpreterThreshold( Integer.MAX_VALUE );
+    IGosuProgram program = parse( "var f = \\ x : int -> x * 2\nreturn f( 4 )" );
+    assertEquals( 8, program.evaluate( null ) );
+    assertTrue( program.hasBackingClass() );
+  }
+
+  private void assertSameResult( String strSource ) throws Exception
+  {
+    BytecodeOptions.setInterpreterThreshold( Integer.MAX_VALUE );
+    IGosuProgram interpreted = parse( strSource );
+    Object interpretedResult = interpreted.evaluate( null );
+    assertFalse( interpreted.hasBackingClass() );
+
+    BytecodeOptions.setInterpreterThreshold( 0 );
+    IGosuProgram compiled = parse( strSource );
+    Object compiledResult = compiled.evaluate( null );
+    assertTrue( compiled.hasBackingClass() );
+
+    assertEquals( compiledResult, interpretedResult );
+  }
+
+  private static IGosuProgram parse( String strSource ) throws Exception
+  {
+    IGosuProgram program = GosuParserFactory.createProgramParser().parseProgramOnly( strSource, null, new ParserOptions() ).getProgram();
+    assertTrue( program.isValid() );
+    return program;
+  }
+}
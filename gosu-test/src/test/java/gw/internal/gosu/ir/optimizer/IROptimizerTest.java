@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.internal.gosu.ir.transform.util.IRTypeResolver;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNullLiteral;
+import gw.lang.ir.expression.IRNumericLiteral;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.ir.statement.IRReturnStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.test.TestClass;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ */
+public class IROptimizerTest extends TestClass
+{
+  private IRType _int;
+  private IRType _integer;
+  private IRType _object;
+
+  @Override
+  public void beforeTestMethod()
+  {
+    super.beforeTestMethod();
+    _int = IRTypeResolver.getDescriptor( int.class );
+    _integer = IRTypeResolver.getDescriptor( Integer.class );
+    _object = IRTypeResolver.getDescriptor( Object.class );
+  }
+
+  public void testFoldsArithmeticOfLiterals()
+  {
+    IRExpression result = optimizeReturn(
+      new IRArithmeticExpression( _int, new IRArithmeticExpression( _int, literal( 2 ), literal( 3 ), IRArithmeticExpression.Operation.Multiplication ),
+                                  literal( 4 ), IRArithmeticExpression.Operation.Addition ) );
+    assertEquals( 10, ((IRNumericLiteral)result).getValue() );
+  }
+
+  public void testDoesNotFoldDivisionByZero()
+  {
+    IRExpression result = optimizeReturn( new IRArithmeticExpression( _int, literal( 1 ), literal( 0 ), IRArithmeticExpression.Operation.Division ) );
+    assertTrue( result instanceof IRArithmeticExpression );
+  }
+
+  public void testPropagatesLiteralAssignedOnce()
+  {
+    IRSymbol a = new IRSymbol( "a", _int, false );
+    IRMethodStatement method = method( _int,
+                                       new IRAssignmentStatement( a, literal( 6 ) ),
+                                       new IRReturnStatement( null, new IRArithmeticExpression( _int, new IRIdentifier( a ), literal( 7 ), IRArithmeticExpression.Operation.Multiplication ) ) );
+    IROptimizer.optimize( method );
+    assertEquals( 42, ((IRNumericLiteral)getReturnValue( method )).getValue() );
+  }
+
+  public void testRemovesDeadBranch()
+  {
+    IRStatement taken = new IRReturnStatement( null, literal( 1 ) );
+    IRMethodStatement method = method( _int,
+                                       new IRIfStatement( new IRRelationalExpression( literal( 1 ), literal( 2 ), IRRelationalExpression.Operation.GT ),
+                                                          new IRReturnStatement( null, literal( 2 ) ), taken ) );
+    IROptimizer.optimize( method );
+    assertSame( taken, ((IRStatementList)method.getMethodBody()).getStatements().get( 0 ) );
+  }
+
+  public void testFoldsNullCheckOfNewObject()
+  {
+    IRSymbol o = new IRSymbol( "o", _object, false );
+    IRMethodStatement method = method( IRTypeResolver.getDescriptor( boolean.class ),
+                                       new IRAssignmentStatement( o, new IRNewExpression( _object, Collections.<IRType>emptyList(), Collections.<IRExpression>emptyList() ) ),
+                                       new IRReturnStatement( null, new IREqualityExpression( new IRIdentifier( o ), new IRNullLiteral(), true ) ) );
+    IROptimizer.optimize( method );
+    assertFalse( ((IRBooleanLiteral)getReturnValue( method )).getValue() );
+  }
+
+  public void testInlinesTempReadOnce()
+  {
+    IRSymbol temp = new IRSymbol( "*temp0", _integer, true );
+    IRSymbol p = new IRSymbol( "p", _integer, false );
+    IRExpression value = new IRIdentifier( p );
+    IRMethodStatement method = method( _object, Collections.singletonList( p ),
+                                       new IRReturnStatement( null, new IRCompositeExpression( new IRAssignmentStatement( temp, value ),
+                                                                                               unbox( new IRIdentifier( temp ) ) ) ) );
+    IROptimizer.optimize( method );
+    IRMethodCallExpression call = (IRMethodCallExpression)getReturnValue( method );
+    assertSame( value, call.getRoot() );
+  }
+
+  public void testRemovesUnboxingOfBoxedValue()
+  {
+    IRSymbol p = new IRSymbol( "p", _int, false );
+    IRExpression value = new IRIdentifier( p );
+    IRMethodStatement method = method( _int, Collections.singletonList( p ),
+                                       new IRReturnStatement( null, unbox( new IRCastExpression( box( value ), _integer ) ) ) );
+    IROptimizer.optimize( method );
+    assertSame( value, getReturnValue( method ) );
+  }
+
+  public void testPassCanBeDisabled()
+  {
+    IROptimizer.setPassEnabled( "ConstantFolding", false );
+    try
+    {
+      assertTrue( optimizeReturn( new IRArithmeticExpression( _int, literal( 2 ), literal( 3 ), IRArithmeticExpression.Operation.Addition ) ) instanceof IRArithmeticExpression );
+    }
+    finally
+    {
+      IROptimizer.setPassEnabled( "ConstantFolding", true );
+    }
+    assertTrue( IROptimizer.isPassEnabled( "ConstantFolding" ) );
+  }
+
+  private static IRExpression optimizeReturn( IRExpression value )
+  {
+    IRMethodStatement method = method( value.getType(), new IRReturnStatement( null, value ) );
+    IROptimizer.optimize( method );
+    return getReturnValue( method );
+  }
+
+  private static IRExpression getReturnValue( IRMethodStatement method )
+  {
+    List<IRStatement> statements = ((IRStatementList)method.getMethodBody()).getStatements();
+    return ((IRReturnStatement)statements.get( statements.size() - 1 )).getReturnValue();
+  }
+
+  private static IRMethodStatement method( IRType returnType, IRStatement... statements )
+  {
+    return method( returnType, Collections.<IRSymbol>emptyList(), statements );
+  }
+
+  private static IRMethodStatement method( IRType returnType, List<IRSymbol> parameters, IRStatement... statements )
+  {
+    return new IRMethodStatement( new IRStatementList( true, Arrays.asList( statements ) ), "test", Modifier.PUBLIC,
+                                  false, returnType, parameters );
+  }
+
+  private static IRNumericLiteral literal( int i )
+  {
+    return new IRNumericLiteral( i );
+  }
+
+  private IRExpression box( IRExpression value )
+  {
+    return new IRMethodCallExpression( "valueOf", _integer, false, _integer, Collections.singletonList( _int ),
+                                       null, Collections.singletonList( value ) );
+  }
+
+  private IRExpression unbox( IRExpression value )
+  {
+    return new IRMethodCallExpression( "intValue", _integer, false, _int, Collections.<IRType>emptyList(),
+                                       value, Collections.<IRExpression>emptyList() );
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.internal.gosu.compiler.SingleServingGosuClassLoader;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.test.TestClass;
+
+public class ContextSensitiveCodeRunnerTest extends TestClass
+{
+  public void testRepeatedEvaluationReusesProgram()
+  {
+    IType context = TypeSystem.get( ContextSensitiveCodeRunnerTest.class );
+    Object[] extSyms = {"x", 2};
+    assertEquals( 3, ContextSensitiveCodeRunner.compileAndRunMeSomeCode( "1 + 2", null, this, context, extSyms, 0 ) );
+
+    String key = ContextSensitiveCodeRunner.makeCacheKey( "1 + 2", null, context, extSyms, 0 );
+    IGosuProgramInternal program = ContextSensitiveCodeRunner.getCachedProgram( key );
+    assertNotNull( program );
+    Class<?> programClass = program.getBackingClass();
+
+    assertEquals( 3, ContextSensitiveCodeRunner.compileAndRunMeSomeCode( "1 + 2", null, this, context, extSyms, 0 ) );
+    assertSame( program, ContextSensitiveCodeRunner.getCachedProgram( key ) );
+    assertSame( programClass, program.getBackingClass() );
+  }
+
+  public void testSymbolNamesAreAPartOfTheKey()
+  {
+    IType context = TypeSystem.get( ContextSensitiveCodeRunnerTest.class );
+    String key1 = ContextSensitiveCodeRunner.makeCacheKey( "1 + 2", null, context, new Object[] {"x", 2}, 0 );
+    String key2 = ContextSensitiveCodeRunner.makeCacheKey( "1 + 2", null, context, new Object[] {"y", 2}, 0 );
+    String key3 = ContextSensitiveCodeRunner.makeCacheKey( "1 + 2", null, context, new Object[] {"x", 5}, 0 );
+    assertFalse( key1.equals( key2 ) );
+    assertEquals( key1, key3 );
+  }
+
+  public void testEvictedProgramIsUnloaded()
+  {
+    IType context = TypeSystem.get( ContextSensitiveCodeRunnerTest.class );
+    Object[] extSyms = {};
+    ContextSensitiveCodeRunner.compileAndRunMeSomeCode( "\"first\"", null, this, context, extSyms, 0 );
+    IGosuProgramInternal first = ContextSensitiveCodeRunner.getCachedProgram( ContextSensitiveCodeRunner.makeCacheKey( "\"first\"", null, context, extSyms, 0 ) );
+    // the first run may have been interpreted, load the class
+    first.getBackingClass();
+    assertNotNull( SingleServingGosuClassLoader.getCached( first ) );
+
+    // looking up the program gave it a second chance, fill the cache twice over
+    for( int i = 0; i < 600; i++ )
+    {
+      assertEquals( i, ContextSensitiveCodeRunner.compileAndRunMeSomeCode( String.valueOf( i ), null, this, context, extSyms, 0 ) );
+    }
+    assertNull( ContextSensitiveCodeRunner.getCachedProgram( ContextSensitiveCodeRunner.makeCacheKey( "\"first\"", null, context, extSyms, 0 ) ) );
+    assertNull( SingleServingGosuClassLoader.getCached( first ) );
+  }
+}
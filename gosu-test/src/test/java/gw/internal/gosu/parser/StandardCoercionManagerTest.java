@@ -5,6 +5,7 @@
 package gw.internal.gosu.parser;
 
 import gw.config.CommonServices;
+import gw.lang.parser.CoercionPlan;
 import gw.lang.parser.StandardCoercionManager;
 import gw.lang.parser.exceptions.ParseResultsException;
 import gw.lang.reflect.IType;
@@ -549,6 +550,69 @@ public class StandardCoercionManagerTest extends TestClass
     }
   }
 
+  public void testCoercionPlansConvertLikeConvertValue()
+  {
+    StandardCoercionManager cm = (StandardCoercionManager) CommonServices.getCoercionManager();
+    Object[] values = {42, 42L, 4.2, "42", "true", new StringBuilder( "x" ), Arrays.asList( 1, 2 ), new int[]{1}, new Object()};
+    IType[] types = {JavaTypes.pINT(), JavaTypes.INTEGER(), JavaTypes.pLONG(), JavaTypes.pDOUBLE(), JavaTypes.BIG_DECIMAL(),
+                     JavaTypes.STRING(), JavaTypes.pBOOLEAN(), JavaTypes.OBJECT(), JavaTypes.LIST(), JavaTypes.pINT().getArrayType(),
+                     JavaTypes.INTEGER().getArrayType()};
+    for( IType type : types )
+    {
+      for( Object value : values )
+      {
+        CoercionPlan plan = cm.getCoercionPlan( value, type );
+        assertNotNull( plan );
+        assertTrue( plan.appliesTo( value ) );
+        assertSame( plan, cm.getCoercionPlan( value, type ) );
+        Object expected = convert( cm, value, type );
+        Object actual = convert( plan, value );
+        if( expected instanceof int[] || expected instanceof Object[] )
+        {
+          assertTrue( Arrays.deepEquals( new Object[]{expected}, new Object[]{actual} ) );
+        }
+        else
+        {
+          assertEquals( value + " to " + type.getName(), expected, actual );
+        }
+      }
+    }
+  }
+
+  public void testCoercionPlanChecksClass()
+  {
+    CoercionPlan plan = CommonServices.getCoercionManager().getCoercionPlan( 42, JavaTypes.pLONG() );
+    assertTrue( plan.appliesTo( 7 ) );
+    assertFalse( plan.appliesTo( 7L ) );
+    assertFalse( plan.appliesTo( null ) );
+    assertTrue( CommonServices.getCoercionManager().getCoercionPlan( "s", JavaTypes.STRING() ).isIdentity() );
+    assertNull( CommonServices.getCoercionManager().getCoercionPlan( null, JavaTypes.STRING() ) );
+  }
+
+  private static Object convert( StandardCoercionManager cm, Object value, IType type )
+  {
+    try
+    {
+      return cm.convertValue( value, type );
+    }
+    catch( RuntimeException e )
+    {
+      return e.getClass();
+    }
+  }
+
+  private static Object convert( CoercionPlan plan, Object value )
+  {
+    try
+    {
+      return plan.convert( value );
+    }
+    catch( RuntimeException e )
+    {
+      return e.getClass();
+    }
+  }
+
   private void assertDoesNotCompile( String script )
   {
     try
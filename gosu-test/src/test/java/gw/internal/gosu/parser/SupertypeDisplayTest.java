@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.java.JavaTypes;
+import gw.test.TestClass;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ */
+public class SupertypeDisplayTest extends TestClass
+{
+  public void testDisplayAgreesWithHierarchy()
+  {
+    List<IType> types = Arrays.asList( TypeSystem.get( ArrayList.class ), TypeSystem.get( AbstractList.class ),
+                                       TypeSystem.get( List.class ), TypeSystem.get( Collection.class ),
+                                       TypeSystem.get( RandomAccess.class ), TypeSystem.get( Serializable.class ),
+                                       JavaTypes.OBJECT(), JavaTypes.STRING(), JavaTypes.INTEGER(), JavaTypes.NUMBER(),
+                                       JavaTypes.getJreType( CharSequence.class ), TypeSystem.get( String[].class ),
+                                       TypeSystem.get( Object[].class ), TypeSystem.get( ArrayList.class ).getParameterizedType( JavaTypes.STRING() ),
+                                       TypeSystem.getByFullName( "gw.internal.gosu.parser.SupertypeDisplayTest" ) );
+    for( IType from : types )
+    {
+      for( IType to : types )
+      {
+        assertEquals( to.getName() + " in " + from.getName(),
+                      from.getAllTypesInHierarchy().contains( to ), SupertypeDisplay.isInHierarchy( to, from ) );
+      }
+    }
+  }
+
+  public void testSuperclassesByDepth()
+  {
+    SupertypeDisplay display = ((IHasSupertypeDisplay)TypeSystem.get( ArrayList.class )).getSupertypeDisplay();
+    assertEquals( 3, display.getDepth() );
+    SupertypeDisplay objectDisplay = ((IHasSupertypeDisplay)JavaTypes.OBJECT()).getSupertypeDisplay();
+    assertEquals( 0, objectDisplay.getDepth() );
+    assertTrue( display.contains( JavaTypes.OBJECT(), objectDisplay ) );
+    assertEquals( -1, ((IHasSupertypeDisplay)TypeSystem.get( List.class )).getSupertypeDisplay().getDepth() );
+  }
+
+  public void testDisplayIsRemadeWithHierarchy()
+  {
+    IHasSupertypeDisplay type = (IHasSupertypeDisplay)TypeSystem.get( ArrayList.class );
+    SupertypeDisplay display = type.getSupertypeDisplay();
+    assertSame( display, type.getSupertypeDisplay() );
+    assertSame( display, type.getCachedSupertypeDisplay() );
+    ((IType)type).unloadTypeInfo();
+    assertNull( type.getCachedSupertypeDisplay() );
+    assertNotSame( display, type.getSupertypeDisplay() );
+    assertSame( ((IType)type).getAllTypesInHierarchy(), type.getSupertypeDisplay().getHierarchy() );
+  }
+}
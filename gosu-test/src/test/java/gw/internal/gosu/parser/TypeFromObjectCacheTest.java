@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.lang.reflect.IExtendedTypeLoader;
+import gw.lang.reflect.IMetaType;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeLoader;
+import gw.lang.reflect.TypeLoaderBase;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.java.JavaTypes;
+import gw.test.TestClass;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ */
+public class TypeFromObjectCacheTest extends TestClass
+{
+  public void testTypeOfJavaObjectIsCachedPerClass()
+  {
+    assertEquals( JavaTypes.STRING(), TypeSystem.getFromObject( "a" ) );
+    assertSame( JavaTypes.STRING(), getGlobalModuleTypeLoader().getCachedIntrinsicTypeFromObject( "b" ) );
+    assertSame( TypeSystem.getFromObject( "a" ), TypeSystem.getFromObject( "b" ) );
+    assertSame( TypeSystem.get( int[].class ), TypeSystem.getFromObject( new int[]{1} ) );
+    assertSame( TypeSystem.get( ArrayList.class ), TypeSystem.getFromObject( new ArrayList<String>() ) );
+  }
+
+  public void testTypeObjectsAreNotCached()
+  {
+    Object type = TypeSystem.getFromObject( JavaTypes.STRING() );
+    assertTrue( type instanceof IMetaType );
+    assertSame( JavaTypes.STRING(), ((IMetaType)type).getType() );
+    assertNull( getGlobalModuleTypeLoader().getCachedIntrinsicTypeFromObject( JavaTypes.STRING() ) );
+  }
+
+  public void testRefreshInvalidatesCache()
+  {
+    assertEquals( JavaTypes.STRING(), TypeSystem.getFromObject( "a" ) );
+    TypeSystem.refresh( false );
+    assertNull( getGlobalModuleTypeLoader().getCachedIntrinsicTypeFromObject( "a" ) );
+    assertEquals( JavaTypes.STRING(), TypeSystem.getFromObject( "a" ) );
+    assertNotNull( getGlobalModuleTypeLoader().getCachedIntrinsicTypeFromObject( "a" ) );
+  }
+
+  public void testCacheDoesNotKeepResetLoaderReachable() throws Exception
+  {
+    WeakReference<ModuleTypeLoader> ref = cacheTypeInNewModuleTypeLoader();
+    for( int i = 0; i < 50 && ref.get() != null; i++ )
+    {
+      System.gc();
+      Thread.sleep( 10 );
+    }
+    assertNull( ref.get() );
+  }
+
+  private static WeakReference<ModuleTypeLoader> cacheTypeInNewModuleTypeLoader()
+  {
+    OwnedTypeLoader typeLoader = new OwnedTypeLoader();
+    ModuleTypeLoader moduleTypeLoader = new ModuleTypeLoader( TypeSystem.getGlobalModule(), Collections.<ITypeLoader>singletonList( typeLoader ) );
+    typeLoader.setOwner( moduleTypeLoader );
+    Marker marker = new Marker();
+    IType type = moduleTypeLoader.getIntrinsicTypeFromObject( marker );
+    assertSame( typeLoader._type, type );
+    assertSame( type, moduleTypeLoader.getCachedIntrinsicTypeFromObject( marker ) );
+    // dropped as on a reset, while Marker.class lives on
+    return new WeakReference<ModuleTypeLoader>( moduleTypeLoader );
+  }
+
+  private static class Marker
+  {
+  }
+
+  /**
+   * Resolves every object to a type that refers back to the loader's module type loader, as a real
+   * type does through its type loader and module
+   */
+  private static class OwnedTypeLoader extends TypeLoaderBase implements IExtendedTypeLoader
+  {
+    private IType _type;
+
+    void setOwner( ModuleTypeLoader owner )
+    {
+      _type = (IType)Proxy.newProxyInstance( IType.class.getClassLoader(), new Class[]{IType.class},
+                                             ( proxy, method, args ) -> method.getName().equals( "toString" ) ? String.valueOf( owner ) : null );
+    }
+
+    @Override
+    public IType getIntrinsicTypeFromObject( Object object )
+    {
+      return _type;
+    }
+
+    @Override
+    public IType getType( String fullyQualifiedName )
+    {
+      return null;
+    }
+
+    @Override
+    public Set<String> computeTypeNames()
+    {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public List<String> getHandledPrefixes()
+    {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean handlesNonPrefixLoads()
+    {
+      return false;
+    }
+
+    @Override
+    public boolean hasNamespace( String namespace )
+    {
+      return false;
+    }
+
+    @Override
+    public Set<String> getAllNamespaces()
+    {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public void refreshedNamespace( String namespace, gw.fs.IDirectory dir, gw.lang.reflect.RefreshKind kind )
+    {
+    }
+  }
+
+  private static ModuleTypeLoader getGlobalModuleTypeLoader()
+  {
+    return (ModuleTypeLoader)TypeSystem.getGlobalModule().getModuleTypeLoader();
+  }
+}
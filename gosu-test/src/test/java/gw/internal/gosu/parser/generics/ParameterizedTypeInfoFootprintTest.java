@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser.generics;
+
+import gw.internal.gosu.parser.GosuMethodInfo;
+import gw.lang.reflect.IMethodInfo;
+import gw.lang.reflect.IRelativeTypeInfo;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.ITypeInfo;
+import gw.lang.reflect.ITypeLoader;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.java.IJavaClassConstructor;
+import gw.lang.reflect.java.IJavaClassField;
+import gw.lang.reflect.java.IJavaClassInfo;
+import gw.lang.reflect.java.IJavaClassMethod;
+import gw.lang.reflect.java.IJavaClassType;
+import gw.lang.reflect.java.IJavaMethodDescriptor;
+import gw.lang.reflect.java.IJavaPropertyDescriptor;
+import gw.lang.reflect.java.JavaTypes;
+import gw.lang.reflect.module.IModule;
+import gw.test.TestClass;
+import gw.util.perf.objectsize.IObjectSizeFilter;
+import gw.util.perf.objectsize.ObjectSizeUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ */
+public class ParameterizedTypeInfoFootprintTest extends TestClass
+{
+  private static final String[] TYPE_ARGS = {
+    "java.lang.String", "java.lang.Integer", "java.lang.Long", "java.lang.Double", "java.lang.Float",
+    "java.lang.Short", "java.lang.Byte", "java.lang.Character", "java.lang.Boolean", "java.lang.StringBuilder",
+    "java.lang.Thread", "java.math.BigDecimal", "java.math.BigInteger", "java.util.Date", "java.util.Locale",
+    "java.util.UUID", "java.util.Random", "java.io.File", "java.net.URL", "java.net.URI",
+  };
+
+  public void testParameterizedJavaTypeInfoMatchesGenericTypeInfo()
+  {
+    IType genericType = TypeSystem.get( ArrayList.class );
+    IType stringList = genericType.getParameterizedType( JavaTypes.STRING() );
+    IType integerList = genericType.getParameterizedType( JavaTypes.INTEGER() );
+
+    IMethodInfo addString = stringList.getTypeInfo().getMethod( "add", JavaTypes.STRING() );
+    assertNotNull( addString );
+    assertEquals( "add( java.lang.String )", addString.getName() );
+    IMethodInfo addInteger = integerList.getTypeInfo().getMethod( "add", JavaTypes.INTEGER() );
+    assertNotNull( addInteger );
+    assertEquals( "add( java.lang.Integer )", addInteger.getName() );
+    assertEquals( JavaTypes.INTEGER(), integerList.getTypeInfo().getMethod( "get", JavaTypes.pINT() ).getReturnType() );
+
+    // Property accessors are hidden the same way in every parameterization
+    List<? extends IMethodInfo> genericMethods = ((IRelativeTypeInfo)genericType.getTypeInfo()).getDeclaredMethods();
+    List<? extends IMethodInfo> stringMethods = ((IRelativeTypeInfo)stringList.getTypeInfo()).getDeclaredMethods();
+    assertEquals( genericMethods.size(), stringMethods.size() );
+    for( int i = 0; i < genericMethods.size(); i++ )
+    {
+      assertEquals( genericMethods.get( i ).getDisplayName(), stringMethods.get( i ).getDisplayName() );
+      assertEquals( genericMethods.get( i ).isHidden(), stringMethods.get( i ).isHidden() );
+    }
+  }
+
+  public void testParameterizedGosuTypeInfosShareReducedGenericSymbols()
+  {
+    IType enhancement = TypeSystem.getByFullName( "gw.lang.enhancements.CoreIterableEnhancement" );
+    ITypeInfo stringInfo = enhancement.getParameterizedType( JavaTypes.STRING() ).getTypeInfo();
+    ITypeInfo integerInfo = enhancement.getParameterizedType( JavaTypes.INTEGER() ).getTypeInfo();
+
+    GosuMethodInfo stringToList = (GosuMethodInfo)stringInfo.getMethod( "toList" );
+    GosuMethodInfo integerToList = (GosuMethodInfo)integerInfo.getMethod( "toList" );
+    assertNotSame( stringToList.getDfs(), integerToList.getDfs() );
+    assertSame( stringToList.getDfs().getBackingDfs(), integerToList.getDfs().getBackingDfs() );
+    assertEquals( JavaTypes.LIST().getParameterizedType( JavaTypes.STRING() ), stringToList.getReturnType() );
+    assertEquals( JavaTypes.LIST().getParameterizedType( JavaTypes.INTEGER() ), integerToList.getReturnType() );
+  }
+
+  public void testParameterizedTypeInfoFootprint()
+  {
+    boolean bVerbose = ObjectSizeUtil.VERBOSE;
+    ObjectSizeUtil.VERBOSE = false;
+    try
+    {
+      List<ITypeInfo> typeInfos = new ArrayList<ITypeInfo>();
+      for( String typeArg : TYPE_ARGS )
+      {
+        IType type = TypeSystem.getByFullName( typeArg );
+        typeInfos.add( loadFeatures( TypeSystem.get( ArrayList.class ).getParameterizedType( type ) ) );
+        typeInfos.add( loadFeatures( JavaTypes.MAP().getParameterizedType( JavaTypes.STRING(), type ) ) );
+      }
+      long lSize = ObjectSizeUtil.deepSizeOf( typeInfos, new FeatureMetadataOnlyFilter(), Integer.MAX_VALUE ).size();
+      System.out.println( "Type info bytes for " + typeInfos.size() + " parameterizations: " + lSize +
+                          "  per parameterization: " + lSize / typeInfos.size() );
+    }
+    finally
+    {
+      ObjectSizeUtil.VERBOSE = bVerbose;
+    }
+  }
+
+  private ITypeInfo loadFeatures( IType type )
+  {
+    ITypeInfo typeInfo = type.getTypeInfo();
+    typeInfo.getMethods();
+    typeInfo.getProperties();
+    typeInfo.getConstructors();
+    return typeInfo;
+  }
+
+  /**
+   * Counts what a type info builds for its features, not the types it refers to or the class
+   * metadata that every parameterization necessarily shares.
+   */
+  private static class FeatureMetadataOnlyFilter implements IObjectSizeFilter
+  {
+    public boolean skipField( Field field )
+    {
+      return field.getType().equals( Class.class );
+    }
+
+    public boolean skipObject( Object obj )
+    {
+      return obj instanceof IType ||
+             obj instanceof IJavaClassInfo ||
+             obj instanceof IJavaClassType ||
+             obj instanceof IJavaClassMethod ||
+             obj instanceof IJavaClassField ||
+             obj instanceof IJavaClassConstructor ||
+             obj instanceof IJavaMethodDescriptor ||
+             obj instanceof IJavaPropertyDescriptor ||
+             obj instanceof ITypeLoader ||
+             obj instanceof IModule ||
+             obj instanceof Class ||
+             obj instanceof ClassLoader;
+    }
+  }
+}
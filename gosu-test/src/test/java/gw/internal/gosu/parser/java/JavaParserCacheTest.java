@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser.java;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import gw.config.CommonServices;
+import gw.fs.IFile;
+import gw.internal.gosu.parser.java.compiler.JavaParser;
+import gw.lang.reflect.gs.ClassType;
+import gw.lang.reflect.gs.ISourceFileHandle;
+import gw.lang.reflect.gs.StringSourceFileHandle;
+import gw.test.TestClass;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+
+public class JavaParserCacheTest extends TestClass {
+
+  public void testSameSourceIsParsedOnce() {
+    String src = "package foo;\nclass Cached {}\n";
+    CompilationUnitTree tree1 = parse( new StringSourceFileHandle( "foo.Cached", src, false, ClassType.JavaClass ), null );
+    CompilationUnitTree tree2 = parse( new StringSourceFileHandle( "foo.Cached", src, false, ClassType.JavaClass ), null );
+    assertSame( tree1, tree2 );
+  }
+
+  public void testChangedSourceIsParsedAgain() {
+    CompilationUnitTree tree1 = parse( new StringSourceFileHandle( "foo.Changed", "package foo;\nclass Changed {}\n", false, ClassType.JavaClass ), null );
+    CompilationUnitTree tree2 = parse( new StringSourceFileHandle( "foo.Changed", "package foo;\nclass Changed { int i; }\n", false, ClassType.JavaClass ), null );
+    assertNotSame( tree1, tree2 );
+    assertEquals( "i", ((VariableTree)((ClassTree)tree2.getTypeDecls().get( 0 )).getMembers().get( 0 )).getName().toString() );
+  }
+
+  public void testErrorsAreReportedForCachedSource() {
+    String src = "package foo;\nclass Broken {\n  int i = ;\n}\n";
+    DiagnosticCollector<JavaFileObject> errors1 = new DiagnosticCollector<>();
+    parse( new StringSourceFileHandle( "foo.Broken", src, false, ClassType.JavaClass ), errors1 );
+    DiagnosticCollector<JavaFileObject> errors2 = new DiagnosticCollector<>();
+    parse( new StringSourceFileHandle( "foo.Broken", src, false, ClassType.JavaClass ), errors2 );
+    assertEquals( 1, errors1.getDiagnostics().size() );
+    assertEquals( 3, errors1.getDiagnostics().get( 0 ).getLineNumber() );
+    assertEquals( errors1.getDiagnostics(), errors2.getDiagnostics() );
+  }
+
+  public void testSourcesInDirectoryAreParsedTogether() throws IOException {
+    File dir = Files.createTempDirectory( "javaparser" ).toFile();
+    try {
+      String srcA = "package bar;\nclass A {}";
+      String srcB = "package bar;\nclass B {\n  int i = ;\n}";
+      IFile fileA = writeFile( dir, "A.java", srcA + "\n" );
+      IFile fileB = writeFile( dir, "B.java", srcB + "\n" );
+      SourcePositions[] positions = new SourcePositions[2];
+
+      List<CompilationUnitTree> trees = new ArrayList<>();
+      assertTrue( JavaParser.instance().parseSource( new StringSourceFileHandle( "bar.A", srcA, fileA, false, ClassType.JavaClass ), trees, sp -> positions[0] = sp, null, null ) );
+      DiagnosticCollector<JavaFileObject> errors = new DiagnosticCollector<>();
+      assertTrue( JavaParser.instance().parseSource( new StringSourceFileHandle( "bar.B", srcB, fileB, false, ClassType.JavaClass ), trees, sp -> positions[1] = sp, null, errors ) );
+
+      // B was parsed in A's javac task; its errors still belong to B
+      assertSame( positions[0], positions[1] );
+      assertEquals( "B", ((ClassTree)trees.get( 1 ).getTypeDecls().get( 0 )).getSimpleName().toString() );
+      assertEquals( 1, errors.getDiagnostics().size() );
+      assertEquals( 3, errors.getDiagnostics().get( 0 ).getLineNumber() );
+    }
+    finally {
+      new File( dir, "A.java" ).delete();
+      new File( dir, "B.java" ).delete();
+      dir.delete();
+    }
+  }
+
+  public void testSourceIsParsedAloneWhenItsBatchFails() throws IOException {
+    File dir = Files.createTempDirectory( "javaparser" ).toFile();
+    try {
+      String srcA = "package baz;\nclass A {}";
+      IFile fileA = writeFile( dir, "A.java", srcA + "\n" );
+      // overflows the stack of javac's recursive parser
+      StringBuilder deep = new StringBuilder( "package baz;\nclass Deep {\n  int i = " );
+      for( int i = 0; i < 100000; i++ ) {
+        deep.append( '(' );
+      }
+      deep.append( '1' );
+      for( int i = 0; i < 100000; i++ ) {
+        deep.append( ')' );
+      }
+      writeFile( dir, "Deep.java", deep.append( ";\n}\n" ).toString() );
+
+      CompilationUnitTree tree = parse( new StringSourceFileHandle( "baz.A", srcA, fileA, false, ClassType.JavaClass ), null );
+      assertEquals( "A", ((ClassTree)tree.getTypeDecls().get( 0 )).getSimpleName().toString() );
+    }
+    finally {
+      new File( dir, "A.java" ).delete();
+      new File( dir, "Deep.java" ).delete();
+      dir.delete();
+    }
+  }
+
+  // private
+
+  private CompilationUnitTree parse( ISourceFileHandle handle, DiagnosticCollector<JavaFileObject> errorHandler ) {
+    List<CompilationUnitTree> trees = new ArrayList<>();
+    assertTrue( JavaParser.instance().parseSource( handle, trees, null, null, errorHandler ) );
+    assertEquals( 1, trees.size() );
+    return trees.get( 0 );
+  }
+
+  private IFile writeFile( File dir, String name, String content ) throws IOException {
+    File file = new File( dir, name );
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    return CommonServices.getFileSystem().getIFile( file );
+  }
+}
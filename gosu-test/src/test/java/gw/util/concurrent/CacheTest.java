@@ -15,6 +15,12 @@ package gw.util.concurrent;
 
 import gw.test.TestClass;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Tests the {@link Cache} implementation.
  *
@@ -224,6 +230,162 @@ public class CacheTest extends TestClass {
     assertEquals(1, cache.getHits());
   }
 
+  public void testMaxWeight() {
+    Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       return LOAD[key];
+     }
+   }).setMaxWeight(8, new Cache.Weigher<Integer, String>() {
+      @Override
+      public int weigh(Integer key, String value) {
+        return value.length();
+      }
+    });
+    cache.get(ZERO);
+    assertEquals(4, cache.getUtilizedWeight());
+    cache.get(ONE);
+    assertEquals(7, cache.getUtilizedWeight());
+    cache.get(THREE);
+    assertTrue(cache.getUtilizedWeight() <= 8);
+    assertEquals(2, cache.getUtilizedSize());
+    assertEquals(1, cache.getEvictions());
+
+    cache.evict(THREE);
+    assertTrue(cache.getUtilizedWeight() <= 3);
+  }
+
+  public void testEvictionHandler() {
+    final List<Integer> evicted = new ArrayList<Integer>();
+    Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 1, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       return LOAD[key];
+     }
+   }).setEvictionHandler(new Cache.EvictionHandler<Integer, String>() {
+      @Override
+      public void evicted(Integer key, String value) {
+        assertEquals(LOAD[key], value);
+        evicted.add(key);
+      }
+    });
+    cache.get(ZERO);
+    cache.get(ONE);
+    assertEquals(1, evicted.size());
+    assertEquals(1, cache.getEvictions());
+
+    cache.evict(cache.getIfPresent(ZERO) == null ? ONE : ZERO);
+    assertEquals(1, evicted.size());
+  }
+
+  public void testConcurrentMissesLoadOnce() throws InterruptedException {
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 2, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       loads.incrementAndGet();
+       loading.countDown();
+       try {
+         release.await();
+       } catch (InterruptedException e) {
+         throw new RuntimeException(e);
+       }
+       return LOAD[key];
+     }
+   }).setLoadOnce(true);
+    final String[] results = new String[2];
+    Thread first = new Thread() {
+      public void run() {
+        results[0] = cache.get(ONE);
+      }
+    };
+    first.start();
+    loading.await();
+    Thread second = new Thread() {
+      public void run() {
+        results[1] = cache.get(ONE);
+      }
+    };
+    second.start();
+    while (second.getState() != Thread.State.WAITING && second.isAlive()) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    first.join();
+    second.join();
+
+    assertEquals(1, loads.get());
+    assertEquals(LOAD[1], results[0]);
+    assertEquals(LOAD[1], results[1]);
+  }
+
+  public void testMissWhileHoldingALockTheLoadNeeds() throws InterruptedException {
+    final ReentrantLock lock = new ReentrantLock();
+    final CountDownLatch loading = new CountDownLatch(1);
+    final Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 2, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       loading.countDown();
+       lock.lock();
+       try {
+         return LOAD[key];
+       } finally {
+         lock.unlock();
+       }
+     }
+   });
+    final String[] results = new String[2];
+    lock.lock();
+    try {
+      Thread first = new Thread() {
+        public void run() {
+          results[0] = cache.get(ONE);
+        }
+      };
+      first.start();
+      loading.await();
+      while (!lock.hasQueuedThread(first)) {
+        Thread.sleep(1);
+      }
+      // the first thread is loading ONE and needs the lock, so this must not wait for it
+      results[1] = cache.get(ONE);
+      lock.unlock();
+      first.join(10000);
+      assertFalse(first.isAlive());
+    } finally {
+      if (lock.isHeldByCurrentThread()) {
+        lock.unlock();
+      }
+    }
+    assertEquals(LOAD[1], results[0]);
+    assertEquals(LOAD[1], results[1]);
+    assertSame(results[1], cache.getIfPresent(ONE));
+  }
+
+  public void testLoadFailureIsNotCached() {
+    final AtomicInteger loads = new AtomicInteger();
+    Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 2, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       if (loads.incrementAndGet() == 1) {
+         throw new IllegalStateException();
+       }
+       return LOAD[key];
+     }
+   });
+    try {
+      cache.get(ONE);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertNull(cache.getIfPresent(ONE));
+    assertEquals(LOAD[1], cache.get(ONE));
+    assertEquals(2, loads.get());
+  }
+
   private void assertHit(int[] counts, Cache cache) {
     assertEquals(counts[0] + 1, cache.getRequests());
     assertEquals(counts[1], cache.getMisses());
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.perf.metrics;
+
+import gw.test.TestClass;
+
+public class HistogramGosuMetricsTest extends TestClass
+{
+  public void testCountersAccumulate()
+  {
+    HistogramGosuMetrics metrics = new HistogramGosuMetrics();
+    metrics.incrementCounter( "a", 3 );
+    metrics.incrementCounter( "a", 4 );
+    metrics.incrementCounter( "b", 1 );
+    assertEquals( 7, metrics.getCounter( "a" ) );
+    assertEquals( 1, metrics.getCounter( "b" ) );
+    assertEquals( 0, metrics.getCounter( "c" ) );
+  }
+
+  public void testPhaseHistogram()
+  {
+    HistogramGosuMetrics metrics = new HistogramGosuMetrics();
+    for( int i = 1; i <= 99; i++ )
+    {
+      metrics.recordPhase( GosuPhase.PARSE_DEFINITIONS, 1000 );
+    }
+    metrics.recordPhase( GosuPhase.PARSE_DEFINITIONS, 1000000 );
+
+    HistogramGosuMetrics.PhaseHistogram histogram = metrics.getHistogram( GosuPhase.PARSE_DEFINITIONS );
+    assertEquals( 100, histogram.getCount() );
+    assertEquals( 99 * 1000 + 1000000, histogram.getTotalNanos() );
+    assertEquals( 1000000, histogram.getMaxNanos() );
+    long p50 = histogram.getPercentileNanos( 50 );
+    assertTrue( p50 >= 1000 && p50 < 2048 );
+    assertEquals( 1000000, histogram.getPercentileNanos( 100 ) );
+    assertEquals( 0, metrics.getHistogram( GosuPhase.LOCK_WAIT ).getCount() );
+  }
+
+  public void testTimerRecordsPhase()
+  {
+    HistogramGosuMetrics metrics = new HistogramGosuMetrics();
+    IPhaseTimer timer = metrics.startPhase( GosuPhase.TYPE_RESOLVE, "foo.Bar" );
+    timer.stop();
+    assertEquals( 1, metrics.getHistogram( GosuPhase.TYPE_RESOLVE ).getCount() );
+  }
+
+  public void testFacadeDelegatesToInstalledMetrics()
+  {
+    IGosuMetrics old = GosuMetrics.getMetrics();
+    HistogramGosuMetrics metrics = new HistogramGosuMetrics();
+    GosuMetrics.setMetrics( metrics );
+    try
+    {
+      IPhaseTimer timer = GosuMetrics.startPhase( GosuPhase.IR_TRANSFORM, null );
+      timer.stop();
+      GosuMetrics.incrementCounter( GosuMetrics.COUNTER_CLASSES_DEFINED, 2 );
+      assertEquals( 1, metrics.getHistogram( GosuPhase.IR_TRANSFORM ).getCount() );
+      assertEquals( 2, metrics.getCounter( GosuMetrics.COUNTER_CLASSES_DEFINED ) );
+    }
+    finally
+    {
+      GosuMetrics.setMetrics( old );
+    }
+  }
+}